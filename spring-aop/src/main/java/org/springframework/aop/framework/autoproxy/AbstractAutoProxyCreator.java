@@ -46,6 +46,7 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.SmartClassLoader;
 import org.springframework.lang.Nullable;
@@ -93,7 +94,7 @@ import org.springframework.util.StringUtils;
  */
 @SuppressWarnings("serial")
 public abstract class AbstractAutoProxyCreator extends ProxyProcessorSupport
-		implements SmartInstantiationAwareBeanPostProcessor, BeanFactoryAware {
+		implements SmartInstantiationAwareBeanPostProcessor, SelectiveBeanPostProcessor, BeanFactoryAware {
 
 	/**
 	 * Convenience constant for subclasses: Return value for "do not proxy".
@@ -141,6 +142,8 @@ public abstract class AbstractAutoProxyCreator extends ProxyProcessorSupport
 
 	private final Map<Object, Boolean> advisedBeans = new ConcurrentHashMap<>(256);
 
+	private final boolean overriddenCallbacks = SelectiveBeanPostProcessor.overridesCallbacks(getClass());
+
 
 	/**
 	 * Set whether or not the proxy should be frozen, preventing advice
@@ -218,6 +221,16 @@ public abstract class AbstractAutoProxyCreator extends ProxyProcessorSupport
 		return this.beanFactory;
 	}
 
+	/**
+	 * Consider all bean classes except for {@link #isInfrastructureClass
+	 * infrastructure classes}, which never get proxied by this post-processor.
+	 * @since 5.3.10
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		return (this.overriddenCallbacks || !isInfrastructureClass(beanClass));
+	}
+
 
 	@Override
 	@Nullable
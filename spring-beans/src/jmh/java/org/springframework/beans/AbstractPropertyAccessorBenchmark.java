@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,7 +38,7 @@ public class AbstractPropertyAccessorBenchmark {
 	@State(Scope.Benchmark)
 	public static class BenchmarkState {
 
-		@Param({"DirectFieldAccessor", "BeanWrapper"})
+		@Param({"DirectFieldAccessor", "BeanWrapper", "GeneratedBeanWrapper"})
 		public String accessor;
 
 		@Param({"none", "stringTrimmer", "numberOnPath", "numberOnNestedPath", "numberOnType"})
@@ -53,12 +53,15 @@ public class AbstractPropertyAccessorBenchmark {
 		@Setup
 		public void setup() {
 			this.target = new PrimitiveArrayBean();
+			this.target.setNested(new PrimitiveArrayBean());
 			this.input = new int[1024];
 			if (this.accessor.equals("DirectFieldAccessor")) {
 				this.propertyAccessor = new DirectFieldAccessor(this.target);
 			}
 			else {
-				this.propertyAccessor = new BeanWrapperImpl(this.target);
+				BeanWrapperImpl beanWrapper = new BeanWrapperImpl(this.target);
+				beanWrapper.setGeneratedAccessorsEnabled(this.accessor.equals("GeneratedBeanWrapper"));
+				this.propertyAccessor = beanWrapper;
 			}
 			switch (this.customEditor) {
 				case "stringTrimmer":
@@ -85,11 +88,24 @@ public class AbstractPropertyAccessorBenchmark {
 		return state.target;
 	}
 
+	@Benchmark
+	public Object getPropertyValue(BenchmarkState state) {
+		return state.propertyAccessor.getPropertyValue("array");
+	}
+
+	@Benchmark
+	public PrimitiveArrayBean setNestedPropertyValue(BenchmarkState state) {
+		state.propertyAccessor.setPropertyValue("nested.array", state.input);
+		return state.target;
+	}
+
 	@SuppressWarnings("unused")
 	private static class PrimitiveArrayBean {
 
 		private int[] array;
 
+		private PrimitiveArrayBean nested;
+
 		public int[] getArray() {
 			return this.array;
 		}
@@ -97,5 +113,13 @@ public class AbstractPropertyAccessorBenchmark {
 		public void setArray(int[] array) {
 			this.array = array;
 		}
+
+		public PrimitiveArrayBean getNested() {
+			return this.nested;
+		}
+
+		public void setNested(PrimitiveArrayBean nested) {
+			this.nested = nested;
+		}
 	}
 }
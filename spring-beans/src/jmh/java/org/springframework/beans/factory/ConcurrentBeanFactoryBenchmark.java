@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,17 +17,28 @@
 package org.springframework.beans.factory;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.beans.propertyeditors.CustomDateEditor;
 
@@ -38,6 +49,9 @@ import static org.springframework.core.testfixture.io.ResourceTestUtils.qualifie
  * This benchmark requires to customize the number of worker threads {@code -t <int>} on the
  * CLI when running this particular benchmark to leverage concurrency.
  *
+ * <p>The lazy singleton benchmark uses its own worker threads instead, requesting
+ * the same set of lazy-init singletons from all workers against a fresh factory.
+ *
  * @author Brian Clozel
  */
 @BenchmarkMode(Mode.Throughput)
@@ -61,12 +75,71 @@ public class ConcurrentBeanFactoryBenchmark {
 
 	}
 
+	@State(Scope.Thread)
+	public static class LazySingletonState {
+
+		static final int LAZY_SINGLETON_COUNT = 256;
+
+		@Param({"1", "4", "8"})
+		public int workers;
+
+		public ExecutorService executor;
+
+		public DefaultListableBeanFactory factory;
+
+		@Setup(Level.Trial)
+		public void setupExecutor() {
+			this.executor = Executors.newFixedThreadPool(this.workers);
+		}
+
+		@Setup(Level.Invocation)
+		public void setup() {
+			this.factory = new DefaultListableBeanFactory();
+			this.factory.addPropertyEditorRegistrar(
+					registry -> registry.registerCustomEditor(Date.class,
+							new CustomDateEditor(new SimpleDateFormat("yyyy/MM/dd"), false)));
+			for (int i = 0; i < LAZY_SINGLETON_COUNT; i++) {
+				RootBeanDefinition bd = new RootBeanDefinition(ConcurrentBean.class);
+				bd.setLazyInit(true);
+				bd.getPropertyValues().add("date", "2021/09/01");
+				this.factory.registerBeanDefinition("lazy" + i, bd);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdownExecutor() {
+			this.executor.shutdown();
+		}
+	}
+
 	@Benchmark
 	public void concurrentBeanCreation(BenchmarkState state, Blackhole bh) {
 		bh.consume(state.factory.getBean("bean1"));
 		bh.consume(state.factory.getBean("bean2"));
 	}
 
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void concurrentLazySingletonCreation(LazySingletonState state, Blackhole bh) throws Exception {
+		int count = LazySingletonState.LAZY_SINGLETON_COUNT;
+		List<Future<Integer>> futures = new ArrayList<>(state.workers);
+		for (int worker = 0; worker < state.workers; worker++) {
+			// Each worker starts at a different bean, contending with the other workers
+			int offset = worker * count / state.workers;
+			futures.add(state.executor.submit(() -> {
+				int hash = 0;
+				for (int i = 0; i < count; i++) {
+					hash += state.factory.getBean("lazy" + ((offset + i) % count)).hashCode();
+				}
+				return hash;
+			}));
+		}
+		for (Future<Integer> future : futures) {
+			bh.consume(future.get());
+		}
+	}
+
 
 	public static class ConcurrentBean {
 
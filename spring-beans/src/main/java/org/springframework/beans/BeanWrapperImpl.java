@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.convert.Property;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
@@ -62,6 +63,23 @@ import org.springframework.util.ReflectionUtils;
  */
 public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements BeanWrapper {
 
+	/**
+	 * System property that instructs Spring to read and write bean properties through
+	 * generated accessor classes instead of reflective method invocations by default:
+	 * "spring.beans.generated-accessors", with a value of "true" enabling generated
+	 * accessors for every {@code BeanWrapperImpl} unless configured otherwise.
+	 * <p>The default is "false", invoking property methods via reflection. Consider
+	 * switching this flag to "true" for applications with heavy data binding, in
+	 * exchange for generating one accessor class per bean class on first use.
+	 * @since 5.3.10
+	 * @see #setGeneratedAccessorsEnabled
+	 */
+	public static final String GENERATED_ACCESSORS_PROPERTY_NAME = "spring.beans.generated-accessors";
+
+	private static final boolean shouldUseGeneratedAccessors =
+			SpringProperties.getFlag(GENERATED_ACCESSORS_PROPERTY_NAME);
+
+
 	/**
 	 * Cached introspections results for this object, to prevent encountering
 	 * the cost of JavaBeans introspection every time.
@@ -75,6 +93,8 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	private boolean generatedAccessorsEnabled = shouldUseGeneratedAccessors;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +152,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setGeneratedAccessorsEnabled(parent.generatedAccessorsEnabled);
 	}
 
 
@@ -193,6 +214,30 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		return this.acc;
 	}
 
+	/**
+	 * Set whether to read and write properties through a generated accessor class
+	 * for the wrapped object's class, invoking property methods by index instead
+	 * of through reflection. The accessor class is generated on first use and
+	 * shared across all BeanWrapperImpl instances for the same class.
+	 * <p>Default is "false", unless the "spring.beans.generated-accessors" system
+	 * property has been set to "true". Nested BeanWrappers inherit this setting.
+	 * Reflection remains in use when running with a SecurityManager or when no
+	 * accessor class can be generated for a given class.
+	 * @since 5.3.10
+	 * @see #GENERATED_ACCESSORS_PROPERTY_NAME
+	 */
+	public void setGeneratedAccessorsEnabled(boolean generatedAccessorsEnabled) {
+		this.generatedAccessorsEnabled = generatedAccessorsEnabled;
+	}
+
+	/**
+	 * Return whether to read and write properties through a generated accessor class.
+	 * @since 5.3.10
+	 */
+	public boolean isGeneratedAccessorsEnabled() {
+		return this.generatedAccessorsEnabled;
+	}
+
 
 	/**
 	 * Convert the given value for the specified property to the latter's type.
@@ -227,8 +272,14 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Override
 	@Nullable
 	protected BeanPropertyHandler getLocalPropertyHandler(String propertyName) {
-		PropertyDescriptor pd = getCachedIntrospectionResults().getPropertyDescriptor(propertyName);
-		return (pd != null ? new BeanPropertyHandler(pd) : null);
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		PropertyDescriptor pd = cachedIntrospectionResults.getPropertyDescriptor(propertyName);
+		if (pd == null) {
+			return null;
+		}
+		GeneratedPropertyAccessors accessors = (this.generatedAccessorsEnabled &&
+				System.getSecurityManager() == null ? cachedIntrospectionResults.getGeneratedAccessors() : null);
+		return new BeanPropertyHandler(pd, accessors);
 	}
 
 	@Override
@@ -265,9 +316,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		private final PropertyDescriptor pd;
 
-		public BeanPropertyHandler(PropertyDescriptor pd) {
+		@Nullable
+		private final GeneratedPropertyAccessors accessors;
+
+		public BeanPropertyHandler(PropertyDescriptor pd, @Nullable GeneratedPropertyAccessors accessors) {
 			super(pd.getPropertyType(), pd.getReadMethod() != null, pd.getWriteMethod() != null);
 			this.pd = pd;
+			this.accessors = accessors;
 		}
 
 		@Override
@@ -290,6 +345,12 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		@Nullable
 		public Object getValue() throws Exception {
 			Method readMethod = this.pd.getReadMethod();
+			if (this.accessors != null) {
+				int index = this.accessors.getIndex(readMethod);
+				if (index >= 0) {
+					return this.accessors.invoke(index, getWrappedInstance(), null);
+				}
+			}
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
 					ReflectionUtils.makeAccessible(readMethod);
@@ -314,6 +375,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 			Method writeMethod = (this.pd instanceof GenericTypeAwarePropertyDescriptor ?
 					((GenericTypeAwarePropertyDescriptor) this.pd).getWriteMethodForActualAccess() :
 					this.pd.getWriteMethod());
+			if (this.accessors != null) {
+				int index = this.accessors.getIndex(writeMethod);
+				if (index >= 0) {
+					this.accessors.invoke(index, getWrappedInstance(), new Object[] {value});
+					return;
+				}
+			}
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
 					ReflectionUtils.makeAccessible(writeMethod);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -263,6 +263,10 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Generated property accessors, lazily built on first request. */
+	@Nullable
+	private volatile Object generatedAccessors;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -413,6 +417,36 @@ public final class CachedIntrospectionResults {
 		}
 	}
 
+	/**
+	 * Return the generated property accessors for the introspected class,
+	 * generating the accessor class on first request.
+	 * @return the accessors, or {@code null} if no accessor class could be
+	 * generated (in which case property methods need to be invoked reflectively)
+	 * @since 5.3.10
+	 */
+	@Nullable
+	GeneratedPropertyAccessors getGeneratedAccessors() {
+		Object accessors = this.generatedAccessors;
+		if (accessors == null) {
+			Class<?> beanClass = getBeanClass();
+			try {
+				accessors = GeneratedPropertyAccessors.forClass(
+						beanClass, this.propertyDescriptors.values().toArray(EMPTY_PROPERTY_DESCRIPTOR_ARRAY));
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to generate property accessors for class [" + beanClass.getName() +
+							"] - falling back to reflective property access", ex);
+				}
+			}
+			if (accessors == null) {
+				accessors = Boolean.FALSE;
+			}
+			this.generatedAccessors = accessors;
+		}
+		return (accessors instanceof GeneratedPropertyAccessors ? (GeneratedPropertyAccessors) accessors : null);
+	}
+
 	TypeDescriptor addTypeDescriptor(PropertyDescriptor pd, TypeDescriptor td) {
 		TypeDescriptor existing = this.typeDescriptorCache.putIfAbsent(pd, td);
 		return (existing != null ? existing : td);
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.lang.Nullable;
+
+/**
+ * Generated accessor class for the bean properties of a specific class,
+ * invoking read and write methods by index instead of through reflection.
+ *
+ * <p>Built lazily by {@link CachedIntrospectionResults} on first use and
+ * shared by all {@link BeanWrapperImpl} instances for the same bean class.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see BeanWrapperImpl#setGeneratedAccessorsEnabled
+ */
+final class GeneratedPropertyAccessors {
+
+	private final FastClass fastClass;
+
+	/** Method indexes in the generated class, keyed by read/write Method. */
+	private final Map<Method, Integer> methodIndexes;
+
+
+	private GeneratedPropertyAccessors(FastClass fastClass, Map<Method, Integer> methodIndexes) {
+		this.fastClass = fastClass;
+		this.methodIndexes = methodIndexes;
+	}
+
+
+	/**
+	 * Return the index of the given property read or write method
+	 * in the generated accessor class.
+	 * @param method the read or write method of a property
+	 * @return the index, or -1 if the method has to be invoked reflectively
+	 */
+	public int getIndex(Method method) {
+		Integer index = this.methodIndexes.get(method);
+		return (index != null ? index : -1);
+	}
+
+	/**
+	 * Invoke the property method with the given index on the given target.
+	 * @param index the index as returned by {@link #getIndex}
+	 * @param target the bean instance
+	 * @param args the method arguments ({@code null} for a read method)
+	 * @return the return value of the invoked method
+	 * @throws InvocationTargetException if the property method threw an exception
+	 */
+	@Nullable
+	public Object invoke(int index, Object target, @Nullable Object[] args) throws InvocationTargetException {
+		return this.fastClass.invoke(index, target, args);
+	}
+
+
+	/**
+	 * Generate property accessors for the given bean class.
+	 * @param beanClass the bean class to generate an accessor class for
+	 * @param pds the property descriptors of the bean class
+	 * @return the accessors, or {@code null} if the class does not expose
+	 * any property methods which can be invoked through a generated class
+	 */
+	@Nullable
+	static GeneratedPropertyAccessors forClass(Class<?> beanClass, PropertyDescriptor[] pds) {
+		if (beanClass.isInterface() || beanClass.isArray() || beanClass.isPrimitive() ||
+				beanClass.getName().startsWith("java.")) {
+			// No class can be defined next to core JDK types
+			return null;
+		}
+		FastClass fastClass = FastClass.create(beanClass);
+		Map<Method, Integer> methodIndexes = new HashMap<>(pds.length * 2);
+		for (PropertyDescriptor pd : pds) {
+			addIndex(fastClass, pd.getReadMethod(), methodIndexes);
+			addIndex(fastClass, pd.getWriteMethod(), methodIndexes);
+		}
+		return (!methodIndexes.isEmpty() ? new GeneratedPropertyAccessors(fastClass, methodIndexes) : null);
+	}
+
+	private static void addIndex(FastClass fastClass, @Nullable Method method, Map<Method, Integer> methodIndexes) {
+		if (method == null || Modifier.isStatic(method.getModifiers())) {
+			return;
+		}
+		int index = fastClass.getIndex(method.getName(), method.getParameterTypes());
+		if (index >= 0) {
+			methodIndexes.put(method, index);
+		}
+	}
+
+}
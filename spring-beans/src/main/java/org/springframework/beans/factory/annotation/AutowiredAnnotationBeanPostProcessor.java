@@ -50,6 +50,7 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.support.LookupOverride;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
@@ -129,7 +130,7 @@ import org.springframework.util.StringUtils;
  * @see Value
  */
 public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationAwareBeanPostProcessor,
-		MergedBeanDefinitionPostProcessor, PriorityOrdered, BeanFactoryAware {
+		MergedBeanDefinitionPostProcessor, SelectiveBeanPostProcessor, PriorityOrdered, BeanFactoryAware {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -150,6 +151,8 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 
 	private final Map<String, InjectionMetadata> injectionMetadataCache = new ConcurrentHashMap<>(256);
 
+	private final boolean overriddenCallbacks = SelectiveBeanPostProcessor.overridesCallbacks(getClass());
+
 
 	/**
 	 * Create a new {@code AutowiredAnnotationBeanPostProcessor} for Spring's
@@ -241,6 +244,29 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 	}
 
 
+	/**
+	 * Consider bean classes which may carry autowired annotations or
+	 * {@link Lookup @Lookup} methods, as well as classes declaring a single
+	 * constructor with arguments which gets autowired implicitly.
+	 * @since 5.3.10
+	 * @see AnnotationUtils#isCandidateClass
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		if (this.overriddenCallbacks || AnnotationUtils.isCandidateClass(beanClass, this.autowiredAnnotationTypes) ||
+				AnnotationUtils.isCandidateClass(beanClass, Lookup.class)) {
+			return true;
+		}
+		try {
+			Constructor<?>[] rawCandidates = beanClass.getDeclaredConstructors();
+			return (rawCandidates.length == 1 && rawCandidates[0].getParameterCount() > 0);
+		}
+		catch (Throwable ex) {
+			// Let determineCandidateConstructors report the resolution failure
+			return true;
+		}
+	}
+
 	@Override
 	public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
 		InjectionMetadata metadata = findAutowiringMetadata(beanName, beanType, null);
@@ -39,6 +39,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.Ordered;
@@ -77,8 +78,8 @@ import org.springframework.util.ReflectionUtils;
  * @see #setDestroyAnnotationType
  */
 @SuppressWarnings("serial")
-public class InitDestroyAnnotationBeanPostProcessor
-		implements DestructionAwareBeanPostProcessor, MergedBeanDefinitionPostProcessor, PriorityOrdered, Serializable {
+public class InitDestroyAnnotationBeanPostProcessor implements DestructionAwareBeanPostProcessor,
+		MergedBeanDefinitionPostProcessor, SelectiveBeanPostProcessor, PriorityOrdered, Serializable {
 
 	private final transient LifecycleMetadata emptyLifecycleMetadata =
 			new LifecycleMetadata(Object.class, Collections.emptyList(), Collections.emptyList()) {
@@ -111,6 +112,8 @@ public class InitDestroyAnnotationBeanPostProcessor
 	@Nullable
 	private final transient Map<Class<?>, LifecycleMetadata> lifecycleMetadataCache = new ConcurrentHashMap<>(256);
 
+	private final boolean overriddenCallbacks = SelectiveBeanPostProcessor.overridesCallbacks(getClass());
+
 
 	/**
 	 * Specify the init annotation to check for, indicating initialization
@@ -143,6 +146,18 @@ public class InitDestroyAnnotationBeanPostProcessor
 		return this.order;
 	}
 
+	/**
+	 * Consider bean classes which may carry the init or destroy annotation.
+	 * Destruction callbacks are subject to {@link #requiresDestruction} instead.
+	 * @since 5.3.10
+	 * @see AnnotationUtils#isCandidateClass
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		return (this.overriddenCallbacks || AnnotationUtils.isCandidateClass(
+				beanClass, Arrays.asList(this.initAnnotationType, this.destroyAnnotationType)));
+	}
+
 
 	@Override
 	public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
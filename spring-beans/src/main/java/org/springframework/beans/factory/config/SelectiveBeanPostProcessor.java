@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.config;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Subinterface of {@link BeanPostProcessor} for post-processors which only
+ * apply to specific bean classes, e.g. beans implementing a certain callback
+ * interface or beans carrying certain annotations.
+ *
+ * <p>A bean factory determines the applicable post-processors once per bean
+ * class and caches the outcome, skipping all instantiation, property and
+ * initialization callbacks of a selective post-processor for beans of any
+ * non-candidate class. This avoids invoking every post-processor for every
+ * bean in large applications with many post-processors.
+ *
+ * <p>Implementations meant for subclassing should consider every bean class
+ * a candidate when a subclass overrides their callbacks without declaring
+ * {@link #isCandidateClass} itself, see {@link #overridesCallbacks}.
+ *
+ * <p>The bean class passed in is the raw class of the bean instance as
+ * created by the factory, before any wrapping through other post-processors.
+ * Destruction callbacks remain subject to
+ * {@link DestructionAwareBeanPostProcessor#requiresDestruction} instead.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see org.springframework.core.annotation.AnnotationUtils#isCandidateClass
+ */
+public interface SelectiveBeanPostProcessor extends BeanPostProcessor {
+
+	/**
+	 * Determine whether this post-processor applies to beans of the given class.
+	 * <p>The outcome is cached per bean class: Implementations need to return
+	 * the same result for the same class and should not depend on bean state.
+	 * @param beanClass the raw class of the bean
+	 * @return {@code true} if this post-processor may need to process beans of
+	 * the given class, or {@code false} if it can be skipped for the given class
+	 */
+	boolean isCandidateClass(Class<?> beanClass);
+
+
+	/**
+	 * Determine whether the given post-processor class overrides any of its
+	 * post-processor callbacks below the most specific declaration of
+	 * {@link #isCandidateClass}, e.g. in a custom subclass of a selective
+	 * post-processor which is not aware of the candidate check.
+	 * <p>Selective post-processors meant for subclassing may use this to
+	 * consider all bean classes as candidates for such subclasses.
+	 * @param processorClass the (runtime) class of the post-processor
+	 * @return {@code true} if callbacks have been overridden after the
+	 * candidate check, {@code false} otherwise
+	 */
+	static boolean overridesCallbacks(Class<? extends SelectiveBeanPostProcessor> processorClass) {
+		Set<Class<?>> callbackInterfaces = ClassUtils.getAllInterfacesForClassAsSet(processorClass);
+		callbackInterfaces.removeIf(ifc -> !BeanPostProcessor.class.isAssignableFrom(ifc));
+		Class<?> clazz = processorClass;
+		while (clazz != null && clazz != Object.class) {
+			boolean callbacks = false;
+			for (Method method : clazz.getDeclaredMethods()) {
+				if (method.isBridge() || Modifier.isStatic(method.getModifiers())) {
+					continue;
+				}
+				if (method.getName().equals("isCandidateClass") && method.getParameterCount() == 1 &&
+						method.getParameterTypes()[0] == Class.class) {
+					// Callbacks at this level and above are covered by the candidate check
+					return false;
+				}
+				for (Class<?> ifc : callbackInterfaces) {
+					if (ClassUtils.hasMethod(ifc, method)) {
+						callbacks = true;
+					}
+				}
+			}
+			if (callbacks) {
+				return true;
+			}
+			clazz = clazz.getSuperclass();
+		}
+		return false;
+	}
+
+}
@@ -35,6 +35,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
@@ -418,7 +419,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 
 		Object result = existingBean;
-		for (BeanPostProcessor processor : getBeanPostProcessors()) {
+		for (BeanPostProcessor processor : getBeanPostProcessorCache(existingBean.getClass()).beanPostProcessors) {
 			Object current = processor.postProcessBeforeInitialization(result, beanName);
 			if (current == null) {
 				return result;
@@ -433,7 +434,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 
 		Object result = existingBean;
-		for (BeanPostProcessor processor : getBeanPostProcessors()) {
+		for (BeanPostProcessor processor : getBeanPostProcessorCache(existingBean.getClass()).beanPostProcessors) {
 			Object current = processor.postProcessAfterInitialization(result, beanName);
 			if (current == null) {
 				return result;
@@ -560,6 +561,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (mbd.isSingleton()) {
 			instanceWrapper = this.factoryBeanInstanceCache.remove(beanName);
 		}
+		else if (args == null && mbd.instantiatedBefore) {
+			// Compile an instantiation plan for repeatedly created beans.
+			prepareInstantiationPlan(mbd);
+		}
 		if (instanceWrapper == null) {
 			instanceWrapper = createBeanInstance(beanName, mbd, args);
 		}
@@ -647,9 +652,58 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					mbd.getResourceDescription(), beanName, "Invalid destruction signature", ex);
 		}
 
+		if (!mbd.isSingleton()) {
+			mbd.instantiatedBefore = true;
+		}
 		return exposedObject;
 	}
 
+	/**
+	 * Compile an instantiation plan for the given non-singleton bean definition
+	 * if necessary, i.e. on the second creation of the bean: once its constructor
+	 * has been resolved and its merged bean definition has been post-processed.
+	 * <p>A plan gets recompiled after any change in the registered post-processors.
+	 * @param mbd the merged bean definition for the bean
+	 * @since 5.3.10
+	 * @see #getInstantiationPlan
+	 */
+	private void prepareInstantiationPlan(RootBeanDefinition mbd) {
+		BeanPostProcessorCache bpCache = getBeanPostProcessorCache();
+		Class<?> beanClass = mbd.resolvedTargetType;
+		InstantiationPlan plan = mbd.instantiationPlan;
+		if (beanClass == null || (plan != null && plan.isValidFor(bpCache, beanClass))) {
+			return;
+		}
+		synchronized (mbd.postProcessingLock) {
+			if (!mbd.postProcessed) {
+				return;
+			}
+		}
+		Class<?> strategyClass = getInstantiationStrategy().getClass();
+		boolean defaultInstantiation = (System.getSecurityManager() == null &&
+				(strategyClass == CglibSubclassingInstantiationStrategy.class ||
+						strategyClass == SimpleInstantiationStrategy.class));
+		mbd.instantiationPlan = InstantiationPlan.build(
+				mbd, beanClass, bpCache, bpCache.forBeanClass(beanClass), defaultInstantiation);
+	}
+
+	/**
+	 * Return the current instantiation plan for the given bean definition, if any.
+	 * @param mbd the merged bean definition for the bean
+	 * @param beanClass the raw class of the current bean instance
+	 * (or {@code null} before instantiation)
+	 * @return the instantiation plan, or {@code null} if none compiled (yet) or
+	 * if it has been compiled against a different post-processor configuration
+	 * or a different bean class
+	 * @since 5.3.10
+	 * @see #prepareInstantiationPlan
+	 */
+	@Nullable
+	private InstantiationPlan getInstantiationPlan(RootBeanDefinition mbd, @Nullable Class<?> beanClass) {
+		InstantiationPlan plan = mbd.instantiationPlan;
+		return (plan != null && plan.isValidFor(getBeanPostProcessorCache(), beanClass) ? plan : null);
+	}
+
 	@Override
 	@Nullable
 	protected Class<?> predictBeanType(String beanName, RootBeanDefinition mbd, Class<?>... typesToMatch) {
@@ -963,7 +1017,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	protected Object getEarlyBeanReference(String beanName, RootBeanDefinition mbd, Object bean) {
 		Object exposedObject = bean;
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			for (SmartInstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().smartInstantiationAware) {
+			for (SmartInstantiationAwareBeanPostProcessor bp :
+					getBeanPostProcessorCache(bean.getClass()).smartInstantiationAware) {
 				exposedObject = bp.getEarlyBeanReference(exposedObject, beanName);
 			}
 		}
@@ -985,7 +1040,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
+		Lock lock = acquireSingletonLock(beanName);
+		if (lock == null) {
+			// Locked by another thread which waits for a bean in creation in the current thread
+			return null;
+		}
+		try {
 			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
 			if (bw != null) {
 				return (FactoryBean<?>) bw.getWrappedInstance();
@@ -1038,6 +1098,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 			return fb;
 		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -1094,7 +1157,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 * @see MergedBeanDefinitionPostProcessor#postProcessMergedBeanDefinition
 	 */
 	protected void applyMergedBeanDefinitionPostProcessors(RootBeanDefinition mbd, Class<?> beanType, String beanName) {
-		for (MergedBeanDefinitionPostProcessor processor : getBeanPostProcessorCache().mergedDefinition) {
+		for (MergedBeanDefinitionPostProcessor processor : getBeanPostProcessorCache(beanType).mergedDefinition) {
 			processor.postProcessMergedBeanDefinition(mbd, beanType, beanName);
 		}
 	}
@@ -1138,7 +1201,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	protected Object applyBeanPostProcessorsBeforeInstantiation(Class<?> beanClass, String beanName) {
-		for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().instantiationAware) {
+		for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache(beanClass).instantiationAware) {
 			Object result = bp.postProcessBeforeInstantiation(beanClass, beanName);
 			if (result != null) {
 				return result;
@@ -1280,7 +1343,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throws BeansException {
 
 		if (beanClass != null && hasInstantiationAwareBeanPostProcessors()) {
-			for (SmartInstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().smartInstantiationAware) {
+			for (SmartInstantiationAwareBeanPostProcessor bp :
+					getBeanPostProcessorCache(beanClass).smartInstantiationAware) {
 				Constructor<?>[] ctors = bp.determineCandidateConstructors(beanClass, beanName);
 				if (ctors != null) {
 					return ctors;
@@ -1299,7 +1363,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	protected BeanWrapper instantiateBean(String beanName, RootBeanDefinition mbd) {
 		try {
 			Object beanInstance;
-			if (System.getSecurityManager() != null) {
+			InstantiationPlan plan = getInstantiationPlan(mbd, null);
+			if (plan != null && plan.hasConstructor()) {
+				beanInstance = plan.instantiate();
+			}
+			else if (System.getSecurityManager() != null) {
 				beanInstance = AccessController.doPrivileged(
 						(PrivilegedAction<Object>) () -> getInstantiationStrategy().instantiate(mbd, beanName, this),
 						getAccessControlContext());
@@ -1377,8 +1445,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// Give any InstantiationAwareBeanPostProcessors the opportunity to modify the
 		// state of the bean before properties are set. This can be used, for example,
 		// to support styles of field injection.
+		Class<?> beanClass = bw.getWrappedClass();
+		InstantiationPlan plan = getInstantiationPlan(mbd, beanClass);
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().instantiationAware) {
+			for (InstantiationAwareBeanPostProcessor bp : (plan != null ? plan.afterInstantiationProcessors :
+					getBeanPostProcessorCache(beanClass).instantiationAware)) {
 				if (!bp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
 					return;
 				}
@@ -1409,7 +1480,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			if (pvs == null) {
 				pvs = mbd.getPropertyValues();
 			}
-			for (InstantiationAwareBeanPostProcessor bp : getBeanPostProcessorCache().instantiationAware) {
+			for (InstantiationAwareBeanPostProcessor bp : (plan != null ? plan.propertyProcessors :
+					getBeanPostProcessorCache(beanClass).instantiationAware)) {
 				PropertyValues pvsToUse = bp.postProcessProperties(pvs, bw.getWrappedInstance(), beanName);
 				if (pvsToUse == null) {
 					if (filteredPds == null) {
@@ -1774,8 +1846,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 
 		Object wrappedBean = bean;
+		InstantiationPlan plan = (mbd != null ? getInstantiationPlan(mbd, bean.getClass()) : null);
 		if (mbd == null || !mbd.isSynthetic()) {
-			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			wrappedBean = (plan != null ?
+					applyPlannedBeanPostProcessors(wrappedBean, beanName, plan.beforeInitializationProcessors, true) :
+					applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName));
 		}
 
 		try {
@@ -1787,12 +1862,35 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					beanName, "Invocation of init method failed", ex);
 		}
 		if (mbd == null || !mbd.isSynthetic()) {
-			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			wrappedBean = (plan != null ?
+					applyPlannedBeanPostProcessors(wrappedBean, beanName, plan.afterInitializationProcessors, false) :
+					applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName));
 		}
 
 		return wrappedBean;
 	}
 
+	/**
+	 * Apply the given subset of post-processors from an instantiation plan,
+	 * analogous to {@link #applyBeanPostProcessorsBeforeInitialization} and
+	 * {@link #applyBeanPostProcessorsAfterInitialization}.
+	 */
+	private Object applyPlannedBeanPostProcessors(
+			Object existingBean, String beanName, List<BeanPostProcessor> processors, boolean beforeInitialization) {
+
+		Object result = existingBean;
+		for (BeanPostProcessor processor : processors) {
+			Object current = (beforeInitialization ?
+					processor.postProcessBeforeInitialization(result, beanName) :
+					processor.postProcessAfterInitialization(result, beanName));
+			if (current == null) {
+				return result;
+			}
+			result = current;
+		}
+		return result;
+	}
+
 	private void invokeAwareMethods(String beanName, Object bean) {
 		if (bean instanceof Aware) {
 			if (bean instanceof BeanNameAware) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -68,6 +68,7 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.Scope;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.AttributeAccessor;
 import org.springframework.core.DecoratingClassLoader;
@@ -982,26 +983,24 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	BeanPostProcessorCache getBeanPostProcessorCache() {
 		BeanPostProcessorCache bpCache = this.beanPostProcessorCache;
 		if (bpCache == null) {
-			bpCache = new BeanPostProcessorCache();
-			for (BeanPostProcessor bp : this.beanPostProcessors) {
-				if (bp instanceof InstantiationAwareBeanPostProcessor) {
-					bpCache.instantiationAware.add((InstantiationAwareBeanPostProcessor) bp);
-					if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-						bpCache.smartInstantiationAware.add((SmartInstantiationAwareBeanPostProcessor) bp);
-					}
-				}
-				if (bp instanceof DestructionAwareBeanPostProcessor) {
-					bpCache.destructionAware.add((DestructionAwareBeanPostProcessor) bp);
-				}
-				if (bp instanceof MergedBeanDefinitionPostProcessor) {
-					bpCache.mergedDefinition.add((MergedBeanDefinitionPostProcessor) bp);
-				}
-			}
+			bpCache = new BeanPostProcessorCache(this.beanPostProcessors, null);
 			this.beanPostProcessorCache = bpCache;
 		}
 		return bpCache;
 	}
 
+	/**
+	 * Return the internal cache of post-processors which apply to the given
+	 * bean class, leaving out {@link SelectiveBeanPostProcessor} instances
+	 * which do not consider the given class as a candidate.
+	 * @param beanClass the raw class of the bean
+	 * @since 5.3.10
+	 * @see SelectiveBeanPostProcessor#isCandidateClass
+	 */
+	BeanPostProcessorCache getBeanPostProcessorCache(Class<?> beanClass) {
+		return getBeanPostProcessorCache().forBeanClass(beanClass);
+	}
+
 	/**
 	 * Return whether this factory holds a InstantiationAwareBeanPostProcessor
 	 * that will get applied to singleton beans on creation.
@@ -2107,6 +2106,8 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	 */
 	static class BeanPostProcessorCache {
 
+		final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
+
 		final List<InstantiationAwareBeanPostProcessor> instantiationAware = new ArrayList<>();
 
 		final List<SmartInstantiationAwareBeanPostProcessor> smartInstantiationAware = new ArrayList<>();
@@ -2114,6 +2115,59 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		final List<DestructionAwareBeanPostProcessor> destructionAware = new ArrayList<>();
 
 		final List<MergedBeanDefinitionPostProcessor> mergedDefinition = new ArrayList<>();
+
+		/** Post-processor subsets per bean class, in case of selective post-processors. */
+		@Nullable
+		private final Map<Class<?>, BeanPostProcessorCache> beanClassCache;
+
+		BeanPostProcessorCache(List<BeanPostProcessor> candidates, @Nullable Class<?> beanClass) {
+			boolean selective = false;
+			for (BeanPostProcessor bp : candidates) {
+				if (bp instanceof SelectiveBeanPostProcessor) {
+					if (beanClass != null && !((SelectiveBeanPostProcessor) bp).isCandidateClass(beanClass)) {
+						continue;
+					}
+					selective = true;
+				}
+				this.beanPostProcessors.add(bp);
+				if (bp instanceof InstantiationAwareBeanPostProcessor) {
+					this.instantiationAware.add((InstantiationAwareBeanPostProcessor) bp);
+					if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
+						this.smartInstantiationAware.add((SmartInstantiationAwareBeanPostProcessor) bp);
+					}
+				}
+				if (bp instanceof DestructionAwareBeanPostProcessor) {
+					this.destructionAware.add((DestructionAwareBeanPostProcessor) bp);
+				}
+				if (bp instanceof MergedBeanDefinitionPostProcessor) {
+					this.mergedDefinition.add((MergedBeanDefinitionPostProcessor) bp);
+				}
+			}
+			this.beanClassCache = (beanClass == null && selective ? new ConcurrentHashMap<>(64) : null);
+		}
+
+		/**
+		 * Return the subset of post-processors which apply to the given bean class,
+		 * building it on first request for the class.
+		 * @param beanClass the raw class of the bean
+		 * @return the corresponding cache (this instance if there are no
+		 * selective post-processors to filter)
+		 */
+		BeanPostProcessorCache forBeanClass(Class<?> beanClass) {
+			Map<Class<?>, BeanPostProcessorCache> beanClassCache = this.beanClassCache;
+			if (beanClassCache == null) {
+				return this;
+			}
+			BeanPostProcessorCache bpCache = beanClassCache.get(beanClass);
+			if (bpCache == null) {
+				bpCache = new BeanPostProcessorCache(this.beanPostProcessors, beanClass);
+				BeanPostProcessorCache existing = beanClassCache.putIfAbsent(beanClass, bpCache);
+				if (existing != null) {
+					bpCache = existing;
+				}
+			}
+			return bpCache;
+		}
 	}
 
 }
@@ -0,0 +1,794 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanMetadataAttribute;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Snapshot of the bean definitions in a {@link BeanDefinitionRegistry},
+ * written to and read from a compact binary format. Allows for restoring
+ * the outcome of configuration processing (e.g. classpath scanning and
+ * configuration class parsing) on a subsequent startup of the same
+ * application, without repeating that processing.
+ *
+ * <p>A snapshot carries an arbitrary fingerprint String, identifying
+ * the state of the application that it has been taken for. It is up to
+ * the caller to compare that fingerprint before applying the snapshot.
+ *
+ * <p>Only declarative bean definition content is supported: bean classes,
+ * factory methods, common definition flags, String-based and primitive
+ * attributes, and constructor argument and property values consisting of
+ * Strings, bean references, managed collections and inner bean definitions.
+ * Bean definitions with instance suppliers, method overrides, qualifiers or
+ * other programmatic content cannot be included in a snapshot.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see #of(BeanDefinitionRegistry, String)
+ * @see #readFrom(InputStream, ClassLoader, boolean)
+ */
+public final class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 1;
+
+	private static final byte NULL = 0;
+
+	private static final byte STRING = 1;
+
+	private static final byte TYPED_STRING = 2;
+
+	private static final byte BEAN_REFERENCE = 3;
+
+	private static final byte BEAN_NAME_REFERENCE = 4;
+
+	private static final byte BOOLEAN = 5;
+
+	private static final byte INTEGER = 6;
+
+	private static final byte LONG = 7;
+
+	private static final byte CLASS = 8;
+
+	private static final byte LIST = 9;
+
+	private static final byte SET = 10;
+
+	private static final byte MAP = 11;
+
+	private static final byte BEAN_DEFINITION = 12;
+
+	private static final byte BEAN_DEFINITION_HOLDER = 13;
+
+	private static final byte GENERIC_BEAN_DEFINITION = 0;
+
+	private static final byte ROOT_BEAN_DEFINITION = 1;
+
+	private static final byte ATTRIBUTES_ONLY = 2;
+
+
+	private final String fingerprint;
+
+	private final Map<String, BeanDefinition> beanDefinitions;
+
+	private final Map<String, String[]> aliases;
+
+	private final Set<String> attributesOnlyBeanNames;
+
+
+	private BeanDefinitionSnapshot(String fingerprint, Map<String, BeanDefinition> beanDefinitions,
+			Map<String, String[]> aliases, Set<String> attributesOnlyBeanNames) {
+
+		this.fingerprint = fingerprint;
+		this.beanDefinitions = beanDefinitions;
+		this.aliases = aliases;
+		this.attributesOnlyBeanNames = attributesOnlyBeanNames;
+	}
+
+
+	/**
+	 * Return the fingerprint that this snapshot has been taken for.
+	 */
+	public String getFingerprint() {
+		return this.fingerprint;
+	}
+
+	/**
+	 * Return the number of bean definitions in this snapshot.
+	 */
+	public int getBeanDefinitionCount() {
+		return this.beanDefinitions.size();
+	}
+
+	/**
+	 * Register the bean definitions and aliases in this snapshot with the
+	 * given registry.
+	 * <p>Bean definitions which are already present in the registry (e.g. the
+	 * initially registered configuration classes) remain in place but receive
+	 * the attributes recorded for them, e.g. the configuration class markers.
+	 * @param registry the registry to register the bean definitions with
+	 * @throws IllegalStateException if a bean definition which has only been
+	 * captured with its attributes is not present in the given registry
+	 */
+	public void registerWith(BeanDefinitionRegistry registry) {
+		this.beanDefinitions.forEach((beanName, beanDefinition) -> {
+			if (this.attributesOnlyBeanNames.contains(beanName) && !registry.containsBeanDefinition(beanName)) {
+				throw new IllegalStateException("Bean definition '" + beanName +
+						"' captured with its attributes only, but not present in registry");
+			}
+			if (registry.containsBeanDefinition(beanName)) {
+				BeanDefinition existingDefinition = registry.getBeanDefinition(beanName);
+				for (String attributeName : beanDefinition.attributeNames()) {
+					existingDefinition.setAttribute(attributeName, beanDefinition.getAttribute(attributeName));
+				}
+			}
+			else {
+				registry.registerBeanDefinition(beanName, beanDefinition);
+			}
+		});
+		this.aliases.forEach((beanName, aliases) -> {
+			for (String alias : aliases) {
+				if (!registry.isAlias(alias)) {
+					registry.registerAlias(beanName, alias);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Write this snapshot to the given stream.
+	 * @param out the stream to write to (left open)
+	 * @throws IOException in case of I/O errors
+	 * @throws BeanDefinitionStoreException if a bean definition cannot be
+	 * included in a snapshot, e.g. because of an instance supplier
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeUTF(this.fingerprint);
+		dos.writeInt(this.beanDefinitions.size());
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			dos.writeUTF(beanName);
+			if (this.attributesOnlyBeanNames.contains(beanName)) {
+				dos.writeByte(ATTRIBUTES_ONLY);
+				writeAttributes(dos, beanName, entry.getValue());
+			}
+			else {
+				writeBeanDefinition(dos, beanName, entry.getValue());
+			}
+			writeStrings(dos, this.aliases.get(beanName));
+		}
+		dos.flush();
+	}
+
+
+	/**
+	 * Take a snapshot of the bean definitions in the given registry.
+	 * <p>Note that the bean definitions are captured by reference: The snapshot
+	 * is meant to be written right away, through {@link #writeTo(OutputStream)}.
+	 * @param registry the registry to take a snapshot of
+	 * @param fingerprint the fingerprint identifying the state of the application
+	 * @param attributesOnlyBeanNames the names of bean definitions to capture with
+	 * their attributes only, e.g. bean definitions which are going to be registered
+	 * before the snapshot is applied (which therefore do not need to be restored
+	 * and may also contain unsupported content such as instance suppliers)
+	 * @return the snapshot
+	 */
+	public static BeanDefinitionSnapshot of(BeanDefinitionRegistry registry, String fingerprint,
+			Set<String> attributesOnlyBeanNames) {
+
+		String[] beanNames = registry.getBeanDefinitionNames();
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>(beanNames.length);
+		Map<String, String[]> aliases = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			beanDefinitions.put(beanName, registry.getBeanDefinition(beanName));
+			String[] beanAliases = registry.getAliases(beanName);
+			if (beanAliases.length > 0) {
+				aliases.put(beanName, beanAliases);
+			}
+		}
+		Set<String> attributesOnly = new HashSet<>(attributesOnlyBeanNames);
+		attributesOnly.retainAll(beanDefinitions.keySet());
+		return new BeanDefinitionSnapshot(fingerprint, beanDefinitions, aliases, attributesOnly);
+	}
+
+	/**
+	 * Read the fingerprint of a snapshot from the given stream, without
+	 * reading and resolving the bean definitions in the snapshot.
+	 * @param in the stream to read from (left open)
+	 * @return the fingerprint
+	 * @throws IOException in case of I/O errors or an invalid snapshot format
+	 * @see #getFingerprint()
+	 */
+	public static String readFingerprint(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(in);
+		readHeader(dis);
+		return dis.readUTF();
+	}
+
+	/**
+	 * Read a snapshot from the given stream.
+	 * @param in the stream to read from (left open)
+	 * @param classLoader the ClassLoader to resolve classes with
+	 * (or {@code null} for the default ClassLoader)
+	 * @param resolveBeanClasses whether to resolve bean classes, target types
+	 * and factory methods right away, or to keep bean class names only (e.g.
+	 * to not interfere with load-time weaving)
+	 * @return the snapshot
+	 * @throws IOException in case of I/O errors or an invalid snapshot format
+	 * @throws ClassNotFoundException if a class in the snapshot cannot be resolved
+	 */
+	public static BeanDefinitionSnapshot readFrom(InputStream in, @Nullable ClassLoader classLoader,
+			boolean resolveBeanClasses) throws IOException, ClassNotFoundException {
+
+		DataInputStream dis = new DataInputStream(in);
+		readHeader(dis);
+		Reader reader = new Reader(dis, classLoader, resolveBeanClasses);
+		String fingerprint = dis.readUTF();
+		int count = dis.readInt();
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>(count);
+		Map<String, String[]> aliases = new LinkedHashMap<>();
+		Set<String> attributesOnlyBeanNames = new HashSet<>();
+		for (int i = 0; i < count; i++) {
+			String beanName = dis.readUTF();
+			byte kind = dis.readByte();
+			if (kind == ATTRIBUTES_ONLY) {
+				GenericBeanDefinition attributesHolder = new GenericBeanDefinition();
+				reader.readAttributes(attributesHolder);
+				beanDefinitions.put(beanName, attributesHolder);
+				attributesOnlyBeanNames.add(beanName);
+			}
+			else {
+				beanDefinitions.put(beanName, reader.readBeanDefinition(kind));
+			}
+			String[] beanAliases = reader.readStrings();
+			if (beanAliases != null) {
+				aliases.put(beanName, beanAliases);
+			}
+		}
+		return new BeanDefinitionSnapshot(fingerprint, beanDefinitions, aliases, attributesOnlyBeanNames);
+	}
+
+
+	private static void readHeader(DataInputStream dis) throws IOException {
+		if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+			throw new IOException("Not a bean definition snapshot in a supported format");
+		}
+	}
+
+	private static void writeBeanDefinition(DataOutputStream dos, String beanName, BeanDefinition bd)
+			throws IOException {
+
+		if (!(bd instanceof AbstractBeanDefinition)) {
+			throw unsupported(bd, beanName, "not an AbstractBeanDefinition");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		if (abd.getInstanceSupplier() != null) {
+			throw unsupported(bd, beanName, "instance supplier");
+		}
+		if (abd.hasMethodOverrides()) {
+			throw unsupported(bd, beanName, "method overrides");
+		}
+		if (!abd.getQualifiers().isEmpty()) {
+			throw unsupported(bd, beanName, "qualifiers");
+		}
+
+		RootBeanDefinition rbd = (bd instanceof RootBeanDefinition ? (RootBeanDefinition) bd : null);
+		dos.writeByte(rbd != null ? ROOT_BEAN_DEFINITION : GENERIC_BEAN_DEFINITION);
+		writeString(dos, abd.getParentName());
+		writeString(dos, abd.hasBeanClass() ?
+				ClassUtils.getUserClass(abd.getBeanClass()).getName() : abd.getBeanClassName());
+		writeString(dos, abd.getScope());
+		dos.writeBoolean(abd.isAbstract());
+		Boolean lazyInit = abd.getLazyInit();
+		dos.writeByte(lazyInit == null ? 0 : (lazyInit ? 1 : 2));
+		dos.writeInt(abd.getAutowireMode());
+		dos.writeInt(abd.getDependencyCheck());
+		writeStrings(dos, abd.getDependsOn());
+		dos.writeBoolean(abd.isAutowireCandidate());
+		dos.writeBoolean(abd.isPrimary());
+		dos.writeBoolean(abd.isNonPublicAccessAllowed());
+		dos.writeBoolean(abd.isLenientConstructorResolution());
+		writeString(dos, abd.getFactoryBeanName());
+		writeString(dos, abd.getFactoryMethodName());
+		writeString(dos, abd.getInitMethodName());
+		dos.writeBoolean(abd.isEnforceInitMethod());
+		writeString(dos, abd.getDestroyMethodName());
+		dos.writeBoolean(abd.isEnforceDestroyMethod());
+		dos.writeBoolean(abd.isSynthetic());
+		dos.writeInt(abd.getRole());
+		writeString(dos, abd.getDescription());
+		writeString(dos, abd.getResourceDescription());
+
+		if (rbd != null) {
+			if (rbd.getFactoryMethodName() != null && !rbd.isFactoryMethodUnique &&
+					rbd.getClass() != RootBeanDefinition.class) {
+				// Subclass may apply custom isFactoryMethod checks for overloaded methods
+				throw unsupported(bd, beanName, "overloaded factory method");
+			}
+			if (rbd.getQualifiedElement() != null) {
+				throw unsupported(bd, beanName, "qualified element");
+			}
+			dos.writeBoolean(rbd.isFactoryMethodUnique);
+			Method factoryMethod = rbd.getResolvedFactoryMethod();
+			if (factoryMethod != null) {
+				dos.writeBoolean(true);
+				dos.writeUTF(factoryMethod.getDeclaringClass().getName());
+				dos.writeUTF(factoryMethod.getName());
+				Class<?>[] parameterTypes = factoryMethod.getParameterTypes();
+				dos.writeInt(parameterTypes.length);
+				for (Class<?> parameterType : parameterTypes) {
+					dos.writeUTF(parameterType.getName());
+				}
+			}
+			else {
+				dos.writeBoolean(false);
+			}
+			ResolvableType targetType = rbd.targetType;
+			if (targetType != null && (targetType.hasGenerics() || targetType.resolve() == null)) {
+				throw unsupported(bd, beanName, "generic target type");
+			}
+			writeString(dos, targetType != null ? targetType.toClass().getName() : null);
+			BeanDefinitionHolder decoratedDefinition = rbd.getDecoratedDefinition();
+			dos.writeBoolean(decoratedDefinition != null);
+			if (decoratedDefinition != null) {
+				writeBeanDefinitionHolder(dos, decoratedDefinition);
+			}
+		}
+
+		writeAttributes(dos, beanName, abd);
+
+		ConstructorArgumentValues cav = abd.getConstructorArgumentValues();
+		Map<Integer, ConstructorArgumentValues.ValueHolder> indexedArgs = cav.getIndexedArgumentValues();
+		dos.writeInt(indexedArgs.size());
+		for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : indexedArgs.entrySet()) {
+			dos.writeInt(entry.getKey());
+			writeValueHolder(dos, beanName, bd, entry.getValue());
+		}
+		List<ConstructorArgumentValues.ValueHolder> genericArgs = cav.getGenericArgumentValues();
+		dos.writeInt(genericArgs.size());
+		for (ConstructorArgumentValues.ValueHolder valueHolder : genericArgs) {
+			writeValueHolder(dos, beanName, bd, valueHolder);
+		}
+
+		List<PropertyValue> pvs = abd.getPropertyValues().getPropertyValueList();
+		dos.writeInt(pvs.size());
+		for (PropertyValue pv : pvs) {
+			dos.writeUTF(pv.getName());
+			writeValue(dos, beanName, bd, pv.getValue());
+		}
+	}
+
+	private static void writeAttributes(DataOutputStream dos, String beanName, BeanDefinition bd)
+			throws IOException {
+
+		String[] attributeNames = bd.attributeNames();
+		dos.writeInt(attributeNames.length);
+		for (String attributeName : attributeNames) {
+			Object attribute = bd.getAttribute(attributeName);
+			if (attribute instanceof BeanMetadataAttribute) {
+				attribute = ((BeanMetadataAttribute) attribute).getValue();
+			}
+			if (attribute != null && !(attribute instanceof String || attribute instanceof Boolean ||
+					attribute instanceof Integer || attribute instanceof Long || attribute instanceof Class)) {
+				throw unsupported(bd, beanName, "attribute '" + attributeName + "' of type " +
+						attribute.getClass().getName());
+			}
+			dos.writeUTF(attributeName);
+			writeValue(dos, beanName, bd, attribute);
+		}
+	}
+
+	private static void writeBeanDefinitionHolder(DataOutputStream dos, BeanDefinitionHolder holder)
+			throws IOException {
+
+		dos.writeUTF(holder.getBeanName());
+		writeStrings(dos, holder.getAliases());
+		writeBeanDefinition(dos, holder.getBeanName(), holder.getBeanDefinition());
+	}
+
+	private static void writeValueHolder(DataOutputStream dos, String beanName, BeanDefinition bd,
+			ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+
+		writeValue(dos, beanName, bd, valueHolder.getValue());
+		writeString(dos, valueHolder.getType());
+		writeString(dos, valueHolder.getName());
+	}
+
+	private static void writeValue(DataOutputStream dos, String beanName, BeanDefinition bd, @Nullable Object value)
+			throws IOException {
+
+		if (value == null) {
+			dos.writeByte(NULL);
+		}
+		else if (value instanceof String) {
+			dos.writeByte(STRING);
+			dos.writeUTF((String) value);
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue typedValue = (TypedStringValue) value;
+			dos.writeByte(TYPED_STRING);
+			writeString(dos, typedValue.getValue());
+			writeString(dos, typedValue.hasTargetType() ?
+					typedValue.getTargetType().getName() : typedValue.getTargetTypeName());
+			dos.writeBoolean(typedValue.isDynamic());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (ref.getBeanType() != null) {
+				throw unsupported(bd, beanName, "type-based bean reference");
+			}
+			dos.writeByte(BEAN_REFERENCE);
+			dos.writeUTF(ref.getBeanName());
+			dos.writeBoolean(ref.isToParent());
+		}
+		else if (value instanceof RuntimeBeanNameReference) {
+			dos.writeByte(BEAN_NAME_REFERENCE);
+			dos.writeUTF(((RuntimeBeanNameReference) value).getBeanName());
+		}
+		else if (value instanceof Boolean) {
+			dos.writeByte(BOOLEAN);
+			dos.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			dos.writeByte(INTEGER);
+			dos.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			dos.writeByte(LONG);
+			dos.writeLong((Long) value);
+		}
+		else if (value instanceof Class) {
+			dos.writeByte(CLASS);
+			dos.writeUTF(((Class<?>) value).getName());
+		}
+		else if (value instanceof ManagedList) {
+			ManagedList<?> list = (ManagedList<?>) value;
+			dos.writeByte(LIST);
+			writeString(dos, list.getElementTypeName());
+			dos.writeBoolean(list.isMergeEnabled());
+			dos.writeInt(list.size());
+			for (Object element : list) {
+				writeValue(dos, beanName, bd, element);
+			}
+		}
+		else if (value instanceof ManagedSet) {
+			ManagedSet<?> set = (ManagedSet<?>) value;
+			dos.writeByte(SET);
+			writeString(dos, set.getElementTypeName());
+			dos.writeBoolean(set.isMergeEnabled());
+			dos.writeInt(set.size());
+			for (Object element : set) {
+				writeValue(dos, beanName, bd, element);
+			}
+		}
+		else if (value instanceof ManagedMap) {
+			ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+			dos.writeByte(MAP);
+			writeString(dos, map.getKeyTypeName());
+			writeString(dos, map.getValueTypeName());
+			dos.writeBoolean(map.isMergeEnabled());
+			dos.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(dos, beanName, bd, entry.getKey());
+				writeValue(dos, beanName, bd, entry.getValue());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			dos.writeByte(BEAN_DEFINITION_HOLDER);
+			writeBeanDefinitionHolder(dos, (BeanDefinitionHolder) value);
+		}
+		else if (value instanceof BeanDefinition) {
+			dos.writeByte(BEAN_DEFINITION);
+			writeBeanDefinition(dos, beanName, (BeanDefinition) value);
+		}
+		else {
+			throw unsupported(bd, beanName, "value of type " + value.getClass().getName());
+		}
+	}
+
+	private static void writeString(DataOutputStream dos, @Nullable String value) throws IOException {
+		dos.writeBoolean(value != null);
+		if (value != null) {
+			dos.writeUTF(value);
+		}
+	}
+
+	private static void writeStrings(DataOutputStream dos, @Nullable String[] values) throws IOException {
+		if (ObjectUtils.isEmpty(values)) {
+			dos.writeInt(0);
+			return;
+		}
+		dos.writeInt(values.length);
+		for (String value : values) {
+			dos.writeUTF(value);
+		}
+	}
+
+	private static BeanDefinitionStoreException unsupported(BeanDefinition bd, String beanName, String reason) {
+		return new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
+				"Bean definition cannot be included in a snapshot: unsupported " + reason);
+	}
+
+
+	/**
+	 * Reader for the snapshot format, resolving classes as necessary.
+	 */
+	private static class Reader {
+
+		private final DataInputStream dis;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		private final boolean resolveBeanClasses;
+
+		Reader(DataInputStream dis, @Nullable ClassLoader classLoader, boolean resolveBeanClasses) {
+			this.dis = dis;
+			this.classLoader = classLoader;
+			this.resolveBeanClasses = resolveBeanClasses;
+		}
+
+		AbstractBeanDefinition readBeanDefinition(byte kind) throws IOException, ClassNotFoundException {
+			DataInputStream dis = this.dis;
+			AbstractBeanDefinition abd;
+			if (kind == ROOT_BEAN_DEFINITION) {
+				abd = new RootBeanDefinition();
+			}
+			else if (kind == GENERIC_BEAN_DEFINITION) {
+				abd = new GenericBeanDefinition();
+			}
+			else {
+				throw new IOException("Invalid bean definition kind in snapshot: " + kind);
+			}
+			String parentName = readString();
+			if (parentName != null) {
+				abd.setParentName(parentName);
+			}
+			String beanClassName = readString();
+			if (beanClassName != null) {
+				if (this.resolveBeanClasses) {
+					abd.setBeanClass(ClassUtils.forName(beanClassName, this.classLoader));
+				}
+				else {
+					abd.setBeanClassName(beanClassName);
+				}
+			}
+			abd.setScope(readString());
+			abd.setAbstract(dis.readBoolean());
+			byte lazyInit = dis.readByte();
+			if (lazyInit != 0) {
+				abd.setLazyInit(lazyInit == 1);
+			}
+			abd.setAutowireMode(dis.readInt());
+			abd.setDependencyCheck(dis.readInt());
+			abd.setDependsOn(readStrings());
+			abd.setAutowireCandidate(dis.readBoolean());
+			abd.setPrimary(dis.readBoolean());
+			abd.setNonPublicAccessAllowed(dis.readBoolean());
+			abd.setLenientConstructorResolution(dis.readBoolean());
+			abd.setFactoryBeanName(readString());
+			abd.setFactoryMethodName(readString());
+			abd.setInitMethodName(readString());
+			abd.setEnforceInitMethod(dis.readBoolean());
+			abd.setDestroyMethodName(readString());
+			abd.setEnforceDestroyMethod(dis.readBoolean());
+			abd.setSynthetic(dis.readBoolean());
+			abd.setRole(dis.readInt());
+			abd.setDescription(readString());
+			abd.setResourceDescription(readString());
+
+			if (abd instanceof RootBeanDefinition) {
+				RootBeanDefinition rbd = (RootBeanDefinition) abd;
+				rbd.isFactoryMethodUnique = dis.readBoolean();
+				if (dis.readBoolean()) {
+					String declaringClassName = dis.readUTF();
+					String methodName = dis.readUTF();
+					String[] parameterTypeNames = new String[dis.readInt()];
+					for (int i = 0; i < parameterTypeNames.length; i++) {
+						parameterTypeNames[i] = dis.readUTF();
+					}
+					if (this.resolveBeanClasses) {
+						rbd.setResolvedFactoryMethod(resolveMethod(declaringClassName, methodName, parameterTypeNames));
+					}
+				}
+				String targetTypeName = readString();
+				if (targetTypeName != null && this.resolveBeanClasses) {
+					rbd.setTargetType(ClassUtils.forName(targetTypeName, this.classLoader));
+				}
+				if (dis.readBoolean()) {
+					rbd.setDecoratedDefinition(readBeanDefinitionHolder());
+				}
+			}
+
+			readAttributes(abd);
+
+			ConstructorArgumentValues cav = abd.getConstructorArgumentValues();
+			int indexedArgCount = dis.readInt();
+			for (int i = 0; i < indexedArgCount; i++) {
+				int index = dis.readInt();
+				cav.addIndexedArgumentValue(index, readValueHolder());
+			}
+			int genericArgCount = dis.readInt();
+			for (int i = 0; i < genericArgCount; i++) {
+				cav.addGenericArgumentValue(readValueHolder());
+			}
+
+			MutablePropertyValues pvs = abd.getPropertyValues();
+			int pvCount = dis.readInt();
+			for (int i = 0; i < pvCount; i++) {
+				String name = dis.readUTF();
+				pvs.addPropertyValue(name, readValue());
+			}
+			return abd;
+		}
+
+		void readAttributes(BeanDefinition bd) throws IOException, ClassNotFoundException {
+			int attributeCount = this.dis.readInt();
+			for (int i = 0; i < attributeCount; i++) {
+				String attributeName = this.dis.readUTF();
+				bd.setAttribute(attributeName, readValue());
+			}
+		}
+
+		@Nullable
+		private Method resolveMethod(String declaringClassName, String methodName, String[] parameterTypeNames)
+				throws ClassNotFoundException {
+
+			Class<?> declaringClass = ClassUtils.forName(declaringClassName, this.classLoader);
+			Class<?>[] parameterTypes = new Class<?>[parameterTypeNames.length];
+			for (int i = 0; i < parameterTypeNames.length; i++) {
+				parameterTypes[i] = ClassUtils.forName(parameterTypeNames[i], this.classLoader);
+			}
+			try {
+				return declaringClass.getDeclaredMethod(methodName, parameterTypes);
+			}
+			catch (NoSuchMethodException ex) {
+				// Leave it up to regular factory method resolution at runtime
+				return null;
+			}
+		}
+
+		private BeanDefinitionHolder readBeanDefinitionHolder() throws IOException, ClassNotFoundException {
+			String beanName = this.dis.readUTF();
+			String[] aliases = readStrings();
+			return new BeanDefinitionHolder(readBeanDefinition(this.dis.readByte()), beanName, aliases);
+		}
+
+		private ConstructorArgumentValues.ValueHolder readValueHolder() throws IOException, ClassNotFoundException {
+			Object value = readValue();
+			String type = readString();
+			String name = readString();
+			return new ConstructorArgumentValues.ValueHolder(value, type, name);
+		}
+
+		@Nullable
+		private Object readValue() throws IOException, ClassNotFoundException {
+			DataInputStream dis = this.dis;
+			byte tag = dis.readByte();
+			switch (tag) {
+				case NULL:
+					return null;
+				case STRING:
+					return dis.readUTF();
+				case TYPED_STRING:
+					String stringValue = readString();
+					TypedStringValue typedValue = new TypedStringValue(stringValue, readString());
+					if (dis.readBoolean()) {
+						typedValue.setDynamic();
+					}
+					return typedValue;
+				case BEAN_REFERENCE:
+					return new RuntimeBeanReference(dis.readUTF(), dis.readBoolean());
+				case BEAN_NAME_REFERENCE:
+					return new RuntimeBeanNameReference(dis.readUTF());
+				case BOOLEAN:
+					return dis.readBoolean();
+				case INTEGER:
+					return dis.readInt();
+				case LONG:
+					return dis.readLong();
+				case CLASS:
+					return ClassUtils.forName(dis.readUTF(), this.classLoader);
+				case LIST:
+					ManagedList<Object> list = new ManagedList<>();
+					list.setElementTypeName(readString());
+					list.setMergeEnabled(dis.readBoolean());
+					readElements(list);
+					return list;
+				case SET:
+					ManagedSet<Object> set = new ManagedSet<>();
+					set.setElementTypeName(readString());
+					set.setMergeEnabled(dis.readBoolean());
+					readElements(set);
+					return set;
+				case MAP:
+					ManagedMap<Object, Object> map = new ManagedMap<>();
+					map.setKeyTypeName(readString());
+					map.setValueTypeName(readString());
+					map.setMergeEnabled(dis.readBoolean());
+					int size = dis.readInt();
+					for (int i = 0; i < size; i++) {
+						Object key = readValue();
+						map.put(key, readValue());
+					}
+					return map;
+				case BEAN_DEFINITION:
+					return readBeanDefinition(dis.readByte());
+				case BEAN_DEFINITION_HOLDER:
+					return readBeanDefinitionHolder();
+				default:
+					throw new IOException("Invalid value tag in snapshot: " + tag);
+			}
+		}
+
+		private void readElements(Collection<Object> collection) throws IOException, ClassNotFoundException {
+			int size = this.dis.readInt();
+			for (int i = 0; i < size; i++) {
+				collection.add(readValue());
+			}
+		}
+
+		@Nullable
+		private String readString() throws IOException {
+			return (this.dis.readBoolean() ? this.dis.readUTF() : null);
+		}
+
+		@Nullable
+		String[] readStrings() throws IOException {
+			int length = this.dis.readInt();
+			if (length == 0) {
+				return null;
+			}
+			String[] values = new String[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = this.dis.readUTF();
+			}
+			return values;
+		}
+	}
+
+}
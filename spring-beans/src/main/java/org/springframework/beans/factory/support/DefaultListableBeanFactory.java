@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,20 +25,34 @@ import java.lang.annotation.Annotation;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -46,6 +60,7 @@ import java.util.stream.Stream;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -66,15 +81,20 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.core.OrderComparator;
+import org.springframework.core.Ordered;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.MergedAnnotation;
 import org.springframework.core.annotation.MergedAnnotations;
 import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.annotation.OrderUtils;
 import org.springframework.core.log.LogMessage;
 import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
@@ -150,6 +170,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads to pre-instantiate singletons with, 1 for sequential pre-instantiation. */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -172,6 +195,19 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names, keyed by dependency type. */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Map from bean name to the types that the bean exposes for by-type lookups. */
+	private final Map<String, BeanTypeIndexEntry> beanTypeIndex = new ConcurrentHashMap<>(256);
+
+	/** Map from exposed type to the names of the beans indexed for it. */
+	private final Map<Class<?>, Set<String>> indexedBeanNamesByType = new ConcurrentHashMap<>(256);
+
+	/** Names of beans that need to be (re-)evaluated or fully matched on indexed lookups. */
+	private final Set<String> unindexedBeanNames = ConcurrentHashMap.newKeySet(64);
+
+	/** Position of bean definition names and manual singleton names, in registration order. */
+	@Nullable
+	private volatile Map<String, Integer> beanTypeIndexOrder;
+
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
@@ -269,6 +305,37 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the number of threads to use for pre-instantiating non-lazy singletons.
+	 * <p>Default is 1, creating all singletons sequentially on the calling thread
+	 * in registration order. A higher value creates independent singletons in
+	 * parallel on a bounded {@link ForkJoinPool}, based on a dependency graph
+	 * derived from the merged bean definitions: "depends-on" declarations,
+	 * factory beans and direct bean references in constructor arguments and
+	 * property values. Singletons that declare an order through
+	 * {@link org.springframework.core.Ordered} or {@code @Order} are still
+	 * created one after the other in registration order, and
+	 * {@link SmartInitializingSingleton} callbacks are still invoked sequentially
+	 * on the calling thread once all singletons have been created.
+	 * <p>Dependencies which are only known at creation time (e.g. autowired
+	 * fields) are resolved on demand by the creating thread, as usual.
+	 * @param preInstantiationParallelism the maximum number of threads
+	 * @since 5.3.10
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating non-lazy singletons.
+	 * @since 5.3.10
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -324,6 +391,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware
 			setAutowireCandidateResolver(otherListableFactory.getAutowireCandidateResolver().cloneIfNecessary());
@@ -547,7 +615,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (resolvedBeanNames != null) {
 			return resolvedBeanNames;
 		}
-		resolvedBeanNames = doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, true);
+		resolvedBeanNames = (FactoryBean.class != type && !type.isArray() && !type.isPrimitive() &&
+				getTempClassLoader() == null ?
+				getBeanNamesForIndexedType(type, includeNonSingletons) :
+				doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, true));
 		if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
 			cache.put(type, resolvedBeanNames);
 		}
@@ -562,35 +633,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// Only consider bean as eligible if the bean name is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
 				try {
-					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-					// Only check bean definition if it is complete.
-					if (!mbd.isAbstract() && (allowEagerInit ||
-							(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
-									!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
-						boolean isFactoryBean = isFactoryBean(beanName, mbd);
-						BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
-						boolean matchFound = false;
-						boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
-						boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
-						if (!isFactoryBean) {
-							if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
-								matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-							}
-						}
-						else {
-							if (includeNonSingletons || isNonLazyDecorated ||
-									(allowFactoryBeanInit && isSingleton(beanName, mbd, dbd))) {
-								matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-							}
-							if (!matchFound) {
-								// In case of FactoryBean, try to match FactoryBean instance itself next.
-								beanName = FACTORY_BEAN_PREFIX + beanName;
-								matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-							}
-						}
-						if (matchFound) {
-							result.add(beanName);
-						}
+					String matchingName = matchBeanDefinition(beanName, type, includeNonSingletons, allowEagerInit);
+					if (matchingName != null) {
+						result.add(matchingName);
 					}
 				}
 				catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
@@ -614,19 +659,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// Check manually registered singletons too.
 		for (String beanName : this.manualSingletonNames) {
 			try {
-				// In case of FactoryBean, match object created by FactoryBean.
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
-					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					beanName = FACTORY_BEAN_PREFIX + beanName;
-				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
-					result.add(beanName);
+				String matchingName = matchManualSingleton(beanName, type, includeNonSingletons);
+				if (matchingName != null) {
+					result.add(matchingName);
 				}
 			}
 			catch (NoSuchBeanDefinitionException ex) {
@@ -639,6 +674,279 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Check whether the given bean definition matches the given type.
+	 * @return the matching name (the bean name or the FactoryBean dereference
+	 * of it), or {@code null} if the bean does not match
+	 */
+	@Nullable
+	private String matchBeanDefinition(String beanName, ResolvableType type,
+			boolean includeNonSingletons, boolean allowEagerInit) {
+
+		RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+		// Only check bean definition if it is complete.
+		if (!mbd.isAbstract() && (allowEagerInit ||
+				(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
+						!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
+			boolean isFactoryBean = isFactoryBean(beanName, mbd);
+			BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
+			boolean matchFound = false;
+			boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
+			boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
+			if (!isFactoryBean) {
+				if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
+					matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+				}
+			}
+			else {
+				if (includeNonSingletons || isNonLazyDecorated ||
+						(allowFactoryBeanInit && isSingleton(beanName, mbd, dbd))) {
+					matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+				}
+				if (!matchFound) {
+					// In case of FactoryBean, try to match FactoryBean instance itself next.
+					beanName = FACTORY_BEAN_PREFIX + beanName;
+					matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+				}
+			}
+			if (matchFound) {
+				return beanName;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Check whether the given manually registered singleton matches the given type.
+	 * @return the matching name (the bean name or the FactoryBean dereference
+	 * of it), or {@code null} if the bean does not match
+	 */
+	@Nullable
+	private String matchManualSingleton(String beanName, ResolvableType type, boolean includeNonSingletons) {
+		// In case of FactoryBean, match object created by FactoryBean.
+		if (isFactoryBean(beanName)) {
+			if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+				// Match found for this bean: do not match FactoryBean itself anymore.
+				return beanName;
+			}
+			// In case of FactoryBean, try to match FactoryBean itself next.
+			beanName = FACTORY_BEAN_PREFIX + beanName;
+		}
+		// Match raw bean instance (might be raw FactoryBean).
+		return (isTypeMatch(beanName, type) ? beanName : null);
+	}
+
+	/**
+	 * Variant of {@link #doGetBeanNamesForType} for a plain class with eager
+	 * initialization allowed, looking up the beans recorded for the given type
+	 * in the bean type index instead of running a full type match against
+	 * every bean.
+	 * <p>Index entries are determined on first use and dropped individually
+	 * once the corresponding bean definition or singleton changes. Beans that
+	 * cannot be indexed are matched in full on every lookup.
+	 */
+	private String[] getBeanNamesForIndexedType(Class<?> type, boolean includeNonSingletons) {
+		Map<String, Integer> order = getBeanTypeIndexOrder();
+		Map<Integer, String> result = new TreeMap<>();
+
+		for (String beanName : this.unindexedBeanNames) {
+			Integer position = order.get(beanName);
+			if (position == null) {
+				// Bean got removed in the meantime -> ignore.
+				this.unindexedBeanNames.remove(beanName);
+				continue;
+			}
+			try {
+				String matchingName = matchUnindexedBean(beanName, type, includeNonSingletons);
+				if (matchingName != null) {
+					result.put(position, matchingName);
+				}
+			}
+			catch (NoSuchBeanDefinitionException ex) {
+				// Bean definition got removed while we were iterating -> ignore.
+			}
+		}
+
+		Set<String> candidates = this.indexedBeanNamesByType.get(type);
+		if (candidates != null) {
+			for (String beanName : candidates) {
+				BeanTypeIndexEntry entry = this.beanTypeIndex.get(beanName);
+				Integer position = order.get(beanName);
+				if (entry != null && position != null) {
+					String matchingName = entry.match(beanName, type, includeNonSingletons);
+					if (matchingName != null) {
+						result.put(position, matchingName);
+					}
+				}
+			}
+		}
+
+		return StringUtils.toStringArray(result.values());
+	}
+
+	/**
+	 * Determine the index entry for a bean without one, storing it if possible,
+	 * and match the bean against the given type.
+	 * @return the matching name (the bean name or the FactoryBean dereference
+	 * of it), or {@code null} if the bean does not match
+	 */
+	@Nullable
+	private String matchUnindexedBean(String beanName, Class<?> type, boolean includeNonSingletons) {
+		// Remove first: a concurrent invalidation marks the bean as unindexed again
+		this.unindexedBeanNames.remove(beanName);
+		boolean manualSingleton = !containsBeanDefinition(beanName);
+		if (!manualSingleton && isAlias(beanName)) {
+			return null;
+		}
+		BeanTypeIndexEntry entry;
+		try {
+			entry = (manualSingleton ? createManualSingletonIndexEntry(beanName) :
+					createBeanDefinitionIndexEntry(beanName));
+		}
+		catch (RuntimeException ex) {
+			// Evaluate the bean again on the next lookup, e.g. failing again on an unloadable class
+			this.unindexedBeanNames.add(beanName);
+			throw ex;
+		}
+		// The type of a bean in creation may still change, e.g. through a proxy
+		if (entry == BeanTypeIndexEntry.NOT_INDEXABLE || isCurrentlyInCreation(beanName)) {
+			this.unindexedBeanNames.add(beanName);
+		}
+		else {
+			addBeanTypeIndexEntry(beanName, entry);
+		}
+		if (entry != BeanTypeIndexEntry.NOT_INDEXABLE) {
+			return entry.match(beanName, type, includeNonSingletons);
+		}
+		return (manualSingleton ? matchManualSingleton(beanName, ResolvableType.forRawClass(type), includeNonSingletons) :
+				matchBeanDefinition(beanName, ResolvableType.forRawClass(type), includeNonSingletons, true));
+	}
+
+	/**
+	 * Create the index entry for the given bean definition. Only types taken
+	 * from an actual singleton instance or from a final bean class are indexed,
+	 * since a predicted type does not reflect proxies or the actual class
+	 * behind a factory method return type.
+	 */
+	private BeanTypeIndexEntry createBeanDefinitionIndexEntry(String beanName) {
+		RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+		if (mbd.isAbstract()) {
+			return BeanTypeIndexEntry.NO_MATCH;
+		}
+		if (isSingletonCurrentlyInCreation(beanName)) {
+			return BeanTypeIndexEntry.NOT_INDEXABLE;
+		}
+		BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
+		Object beanInstance = getSingleton(beanName, false);
+		if (beanInstance instanceof NullBean) {
+			return BeanTypeIndexEntry.NOT_INDEXABLE;
+		}
+		if (beanInstance != null ? !(beanInstance instanceof FactoryBean) : !isFactoryBean(beanName, mbd)) {
+			if (dbd != null) {
+				// Decorated definitions are only matched against their target for FactoryBeans
+				return BeanTypeIndexEntry.NOT_INDEXABLE;
+			}
+			Class<?> beanType = (beanInstance != null ? beanInstance.getClass() : getType(beanName, true));
+			if (beanType == null || beanType.isArray() ||
+					(beanInstance == null && !Modifier.isFinal(beanType.getModifiers()))) {
+				// Not created yet and possibly a subclass or proxy at runtime: rather check again next time
+				return BeanTypeIndexEntry.NOT_INDEXABLE;
+			}
+			return new BeanTypeIndexEntry(beanType, isSingleton(beanName, mbd, null), null);
+		}
+		if (beanInstance == null) {
+			// FactoryBean not created yet: object type only available through prediction
+			return BeanTypeIndexEntry.NOT_INDEXABLE;
+		}
+		Class<?> objectType = getTypeForFactoryBean((FactoryBean<?>) beanInstance);
+		if (objectType == null || objectType.isArray()) {
+			return BeanTypeIndexEntry.NOT_INDEXABLE;
+		}
+		boolean singletonCandidate = ((dbd != null && !mbd.isLazyInit()) || isSingleton(beanName, mbd, dbd));
+		return new BeanTypeIndexEntry(objectType, singletonCandidate, beanInstance.getClass());
+	}
+
+	private BeanTypeIndexEntry createManualSingletonIndexEntry(String beanName) {
+		Class<?> beanType = getType(beanName);
+		if (beanType != null && beanType.isArray()) {
+			return BeanTypeIndexEntry.NOT_INDEXABLE;
+		}
+		if (isFactoryBean(beanName)) {
+			return new BeanTypeIndexEntry(beanType, isSingleton(beanName),
+					getType(FACTORY_BEAN_PREFIX + beanName));
+		}
+		return new BeanTypeIndexEntry(beanType, true, null);
+	}
+
+	private void addBeanTypeIndexEntry(String beanName, BeanTypeIndexEntry entry) {
+		BeanTypeIndexEntry previous = this.beanTypeIndex.put(beanName, entry);
+		for (Class<?> exposedType : entry.getExposedTypes()) {
+			this.indexedBeanNamesByType.computeIfAbsent(exposedType, key -> ConcurrentHashMap.newKeySet()).add(beanName);
+		}
+		if (previous != null) {
+			removeIndexedBeanName(beanName, previous, entry);
+		}
+	}
+
+	/**
+	 * Drop the index entry for the given bean, if any, and mark the bean
+	 * for re-evaluation on the next indexed lookup.
+	 */
+	private void removeBeanTypeIndexEntry(String beanName) {
+		this.unindexedBeanNames.add(beanName);
+		BeanTypeIndexEntry previous = this.beanTypeIndex.remove(beanName);
+		if (previous != null) {
+			removeIndexedBeanName(beanName, previous, null);
+		}
+	}
+
+	private void removeIndexedBeanName(String beanName, BeanTypeIndexEntry previous,
+			@Nullable BeanTypeIndexEntry current) {
+
+		for (Class<?> exposedType : previous.getExposedTypes()) {
+			if (current == null || !current.getExposedTypes().contains(exposedType)) {
+				Set<String> beanNames = this.indexedBeanNamesByType.get(exposedType);
+				if (beanNames != null) {
+					beanNames.remove(beanName);
+				}
+			}
+		}
+	}
+
+	private void clearBeanTypeIndex() {
+		this.beanTypeIndex.clear();
+		this.indexedBeanNamesByType.clear();
+		this.unindexedBeanNames.clear();
+		this.beanTypeIndexOrder = null;
+	}
+
+	/**
+	 * Return the position of every bean definition name and manual singleton
+	 * name in registration order, marking names without an index entry for
+	 * evaluation on the next indexed lookup.
+	 */
+	private Map<String, Integer> getBeanTypeIndexOrder() {
+		Map<String, Integer> order = this.beanTypeIndexOrder;
+		if (order == null) {
+			List<String> beanDefinitionNames = this.beanDefinitionNames;
+			Set<String> manualSingletonNames = this.manualSingletonNames;
+			order = CollectionUtils.newHashMap(beanDefinitionNames.size() + manualSingletonNames.size());
+			for (String beanName : beanDefinitionNames) {
+				order.putIfAbsent(beanName, order.size());
+			}
+			for (String beanName : manualSingletonNames) {
+				order.putIfAbsent(beanName, order.size());
+			}
+			for (String beanName : order.keySet()) {
+				if (!this.beanTypeIndex.containsKey(beanName)) {
+					this.unindexedBeanNames.add(beanName);
+				}
+			}
+			this.beanTypeIndexOrder = order;
+		}
+		return order;
+	}
+
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
 		return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
 	}
@@ -877,12 +1185,18 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void clearMergedBeanDefinition(String beanName) {
 		super.clearMergedBeanDefinition(beanName);
 		this.mergedBeanDefinitionHolders.remove(beanName);
+		removeBeanTypeIndexEntry(beanName);
 	}
 
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
 		this.mergedBeanDefinitionHolders.clear();
+		for (String beanName : this.beanTypeIndex.keySet()) {
+			if (!isBeanEligibleForMetadataCaching(beanName)) {
+				removeBeanTypeIndexEntry(beanName);
+			}
+		}
 		clearByTypeCache();
 	}
 
@@ -918,31 +1232,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged(
-									(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
-				}
+		if (this.preInstantiationParallelism > 1) {
+			preInstantiateSingletonsInParallel(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -967,6 +1262,215 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Instantiate the specified bean if it is a non-lazy singleton.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged(
+								(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Instantiate the non-lazy singletons among the given beans on a bounded
+	 * {@link ForkJoinPool}, creating each one once the singletons it statically
+	 * depends on have been created.
+	 * @param beanNames the names of the beans to consider, in registration order
+	 * @see #setPreInstantiationParallelism
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		Map<String, Set<String>> dependencyGraph = new LinkedHashMap<>();
+		String previousOrderedBeanName = null;
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				Set<String> dependencies = getStaticDependencies(bd);
+				if (isOrderedBean(beanName)) {
+					if (previousOrderedBeanName != null) {
+						dependencies.add(previousOrderedBeanName);
+					}
+					previousOrderedBeanName = beanName;
+				}
+				dependencyGraph.put(beanName, dependencies);
+			}
+		}
+
+		ClassLoader beanClassLoader = getBeanClassLoader();
+		AtomicInteger threadCount = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(this.preInstantiationParallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("singleton-preinstantiation-" + threadCount.incrementAndGet());
+			thread.setContextClassLoader(beanClassLoader);
+			return thread;
+		}, null, false);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		try {
+			Map<String, CompletableFuture<Void>> futures = new HashMap<>(dependencyGraph.size());
+			for (String beanName : dependencyGraph.keySet()) {
+				schedulePreInstantiation(beanName, dependencyGraph, futures, pool, failure);
+			}
+			try {
+				CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+			}
+			catch (CompletionException ex) {
+				// Report the first failure below
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		Throwable ex = failure.get();
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+	}
+
+	/**
+	 * Schedule the creation of the given bean and of its not yet scheduled
+	 * dependencies, walking the dependency graph depth-first with an explicit
+	 * stack so that long dependency chains do not exhaust the call stack.
+	 * Each bean is scheduled once all of its dependencies are scheduled.
+	 */
+	private void schedulePreInstantiation(String rootBeanName, Map<String, Set<String>> dependencyGraph,
+			Map<String, CompletableFuture<Void>> futures, ForkJoinPool pool, AtomicReference<Throwable> failure) {
+
+		if (futures.containsKey(rootBeanName)) {
+			return;
+		}
+		Deque<String> path = new ArrayDeque<>();
+		Deque<Iterator<String>> pendingDependencies = new ArrayDeque<>();
+		Set<String> inScheduling = new HashSet<>();
+		path.push(rootBeanName);
+		pendingDependencies.push(dependencyGraph.get(rootBeanName).iterator());
+		inScheduling.add(rootBeanName);
+		while (!path.isEmpty()) {
+			Iterator<String> dependencies = pendingDependencies.element();
+			if (dependencies.hasNext()) {
+				String dependency = dependencies.next();
+				// Circular references are left to the creating thread, as in sequential mode
+				if (dependencyGraph.containsKey(dependency) && !inScheduling.contains(dependency) &&
+						!futures.containsKey(dependency)) {
+					path.push(dependency);
+					pendingDependencies.push(dependencyGraph.get(dependency).iterator());
+					inScheduling.add(dependency);
+				}
+			}
+			else {
+				String beanName = path.pop();
+				pendingDependencies.pop();
+				inScheduling.remove(beanName);
+				List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+				for (String dependency : dependencyGraph.get(beanName)) {
+					CompletableFuture<Void> dependencyFuture = futures.get(dependency);
+					if (dependencyFuture != null) {
+						dependencyFutures.add(dependencyFuture);
+					}
+				}
+				futures.put(beanName, CompletableFuture.allOf(
+						dependencyFutures.toArray(new CompletableFuture<?>[0])).thenRunAsync(() -> {
+					if (failure.get() == null) {
+						try {
+							preInstantiateSingleton(beanName);
+						}
+						catch (Throwable ex) {
+							failure.compareAndSet(null, ex);
+							throw ex;
+						}
+					}
+				}, pool));
+			}
+		}
+	}
+
+	/**
+	 * Determine the names of the beans that the given bean definition refers to
+	 * statically: "depends-on" declarations, its factory bean and direct bean
+	 * references in its constructor arguments and property values.
+	 * @param mbd the merged bean definition
+	 * @return the canonical names of the referenced beans (mutable)
+	 */
+	private Set<String> getStaticDependencies(RootBeanDefinition mbd) {
+		Set<String> dependencies = new LinkedHashSet<>();
+		String[] dependsOn = mbd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				dependencies.add(transformedBeanName(dependency));
+			}
+		}
+		String factoryBeanName = mbd.getFactoryBeanName();
+		if (factoryBeanName != null) {
+			dependencies.add(transformedBeanName(factoryBeanName));
+		}
+		if (mbd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues argumentValues = mbd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : argumentValues.getIndexedArgumentValues().values()) {
+				addStaticDependency(valueHolder.getValue(), dependencies);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : argumentValues.getGenericArgumentValues()) {
+				addStaticDependency(valueHolder.getValue(), dependencies);
+			}
+		}
+		if (mbd.hasPropertyValues()) {
+			for (PropertyValue pv : mbd.getPropertyValues().getPropertyValueList()) {
+				addStaticDependency(pv.getValue(), dependencies);
+			}
+		}
+		return dependencies;
+	}
+
+	private void addStaticDependency(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof RuntimeBeanReference && ((RuntimeBeanReference) value).isToParent()) {
+			return;
+		}
+		if (value instanceof BeanReference) {
+			dependencies.add(transformedBeanName(((BeanReference) value).getBeanName()));
+		}
+	}
+
+	/**
+	 * Determine whether the specified bean declares an order, in which case it
+	 * is created after any ordered bean registered before it.
+	 * @param beanName the name of the bean
+	 */
+	private boolean isOrderedBean(String beanName) {
+		try {
+			Class<?> beanType = getType(beanName, false);
+			return (beanType != null &&
+					(Ordered.class.isAssignableFrom(beanType) || OrderUtils.getOrder(beanType) != null));
+		}
+		catch (BeansException ex) {
+			// Bean type not determinable - left to the actual bean creation to report
+			return false;
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -1037,6 +1541,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				removeManualSingletonName(beanName);
 			}
 			this.frozenBeanDefinitionNames = null;
+			this.beanTypeIndexOrder = null;
 		}
 
 		if (existingDefinition != null || containsSingleton(beanName)) {
@@ -1072,6 +1577,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndexOrder = null;
 
 		resetBeanDefinition(beanName);
 	}
@@ -1140,10 +1646,30 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	/**
+	 * Overridden to drop the bean type index entry as well: the actual
+	 * singleton instance may expose other types than predicted.
+	 */
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		removeBeanTypeIndexEntry(beanName);
+	}
+
+	/**
+	 * Overridden to drop the bean type index entry as well.
+	 */
+	@Override
+	protected void removeSingleton(String beanName) {
+		super.removeSingleton(beanName);
+		removeBeanTypeIndexEntry(beanName);
+	}
+
 	@Override
 	public void destroySingletons() {
 		super.destroySingletons();
 		updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
+		clearBeanTypeIndex();
 		clearByTypeCache();
 	}
 
@@ -1172,6 +1698,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 					Set<String> updatedSingletons = new LinkedHashSet<>(this.manualSingletonNames);
 					action.accept(updatedSingletons);
 					this.manualSingletonNames = updatedSingletons;
+					this.beanTypeIndexOrder = null;
 				}
 			}
 		}
@@ -1179,12 +1706,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// Still in startup registration phase
 			if (condition.test(this.manualSingletonNames)) {
 				action.accept(this.manualSingletonNames);
+				this.beanTypeIndexOrder = null;
 			}
 		}
 	}
 
 	/**
 	 * Remove any assumptions about by-type mappings.
+	 * <p>The per-bean entries of the bean type index are kept, so that the
+	 * by-type mappings can be rebuilt without full type matching.
 	 */
 	private void clearByTypeCache() {
 		this.allBeanNamesByType.clear();
@@ -1879,6 +2409,84 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Entry in the bean type index: the types that a bean is matched against
+	 * for by-type lookups of plain classes, each with all of its superclasses
+	 * and interfaces.
+	 */
+	private static final class BeanTypeIndexEntry {
+
+		/** Entry for a bean that never matches, e.g. an abstract bean definition. */
+		static final BeanTypeIndexEntry NO_MATCH = new BeanTypeIndexEntry(null, false, null);
+
+		/** Marker for a bean that requires a full type match on every lookup. */
+		static final BeanTypeIndexEntry NOT_INDEXABLE = new BeanTypeIndexEntry(null, false, null);
+
+		private final Set<Class<?>> beanTypes;
+
+		private final boolean singletonCandidate;
+
+		private final Set<Class<?>> factoryBeanTypes;
+
+		BeanTypeIndexEntry(@Nullable Class<?> beanType, boolean singletonCandidate,
+				@Nullable Class<?> factoryBeanType) {
+
+			this.beanTypes = getAssignableTypes(beanType);
+			this.singletonCandidate = singletonCandidate;
+			this.factoryBeanTypes = getAssignableTypes(factoryBeanType);
+		}
+
+		/**
+		 * Return all types that the bean and its FactoryBean can be assigned to.
+		 */
+		Set<Class<?>> getExposedTypes() {
+			if (this.factoryBeanTypes.isEmpty()) {
+				return this.beanTypes;
+			}
+			Set<Class<?>> exposedTypes = new HashSet<>(this.beanTypes);
+			exposedTypes.addAll(this.factoryBeanTypes);
+			return exposedTypes;
+		}
+
+		/**
+		 * Return the bean name or the FactoryBean dereference of it if matching
+		 * the given type, or {@code null} if the bean does not match.
+		 */
+		@Nullable
+		String match(String beanName, Class<?> type, boolean includeNonSingletons) {
+			if ((includeNonSingletons || this.singletonCandidate) && this.beanTypes.contains(type)) {
+				return beanName;
+			}
+			if (this.factoryBeanTypes.contains(type)) {
+				return FACTORY_BEAN_PREFIX + beanName;
+			}
+			return null;
+		}
+
+		private static Set<Class<?>> getAssignableTypes(@Nullable Class<?> type) {
+			if (type == null) {
+				return Collections.emptySet();
+			}
+			Set<Class<?>> assignableTypes = new HashSet<>();
+			collectAssignableTypes(type, assignableTypes);
+			assignableTypes.add(Object.class);
+			return assignableTypes;
+		}
+
+		private static void collectAssignableTypes(Class<?> type, Set<Class<?>> assignableTypes) {
+			if (assignableTypes.add(type)) {
+				Class<?> superclass = type.getSuperclass();
+				if (superclass != null) {
+					collectAssignableTypes(superclass, assignableTypes);
+				}
+				for (Class<?> ifc : type.getInterfaces()) {
+					collectAssignableTypes(ifc, assignableTypes);
+				}
+			}
+		}
+	}
+
+
 	/**
 	 * Minimal id reference to the factory.
 	 * Resolved to the actual factory instance on deserialization.
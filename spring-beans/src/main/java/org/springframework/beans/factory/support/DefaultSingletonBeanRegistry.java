@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,9 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -32,6 +35,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -61,6 +65,16 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>Singleton creation is guarded by a lock per bean name, allowing different
+ * singletons to be created in different threads at the same time (e.g. lazy-init
+ * singletons obtained from request threads). A thread requesting a singleton that
+ * is currently in creation in another thread waits for that creation to complete,
+ * unless the other thread in turn waits for a singleton in creation in the
+ * requesting thread: Such a circular reference across threads is resolved through
+ * an early singleton reference, just like a circular reference within a thread.
+ * The {@link #getSingletonMutex() singleton mutex} is only held for modifications
+ * of the registry itself.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #registerSingleton
@@ -73,6 +87,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Maximum number of suppressed exceptions to preserve. */
 	private static final int SUPPRESSED_EXCEPTIONS_LIMIT = 100;
 
+	/** Interval for re-checking a wait for a singleton lock for deadlocks, in milliseconds. */
+	private static final long SINGLETON_LOCK_CHECK_INTERVAL = 10;
+
 
 	/** Cache of singleton objects: bean name to bean instance. */
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
@@ -94,12 +111,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> inCreationCheckExclusions =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** Collection of suppressed Exceptions, available for associating related causes. */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	/** Creation locks for singletons: bean name to lock. */
+	private final Map<String, SingletonLock> singletonLocks = new ConcurrentHashMap<>(256);
+
+	/** Threads waiting for a singleton lock: thread to lock, guarded by the map itself. */
+	private final Map<Thread, SingletonLock> threadsWaitingForSingletonLock = new HashMap<>(16);
+
+	/** Suppressed Exceptions in the current thread, available for associating related causes. */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
@@ -183,26 +206,67 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			singletonObject = this.earlySingletonObjects.get(beanName);
 			if (singletonObject == null && allowEarlyReference) {
-				synchronized (this.singletonObjects) {
-					// Consistent creation of early reference within full singleton lock
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						singletonObject = this.earlySingletonObjects.get(beanName);
-						if (singletonObject == null) {
-							ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-							if (singletonFactory != null) {
-								singletonObject = singletonFactory.getObject();
-								this.earlySingletonObjects.put(beanName, singletonObject);
-								this.singletonFactories.remove(beanName);
-							}
-						}
+				// Wait for a creation in another thread, unless that thread waits for us in turn
+				Lock lock = acquireSingletonLock(beanName);
+				if (lock != null) {
+					try {
+						singletonObject = getEarlySingletonReference(beanName);
 					}
+					finally {
+						lock.unlock();
+					}
+				}
+				else {
+					// Circular reference across threads -> resolve like within a thread
+					singletonObject = getEarlySingletonReference(beanName);
 				}
 			}
 		}
 		return singletonObject;
 	}
 
+	/**
+	 * Obtain an early reference to the specified singleton, creating it through
+	 * the registered singleton factory if necessary.
+	 * <p>The singleton factory is invoked outside of the singleton mutex since
+	 * it may trigger the creation of further singletons.
+	 * @param beanName the name of the bean
+	 * @return the singleton object or the early reference to it, or {@code null}
+	 * if neither is available
+	 */
+	@Nullable
+	private Object getEarlySingletonReference(String beanName) {
+		ObjectFactory<?> singletonFactory;
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = this.earlySingletonObjects.get(beanName);
+			}
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory == null) {
+				return null;
+			}
+		}
+		Object earlySingletonReference = singletonFactory.getObject();
+		synchronized (this.singletonObjects) {
+			// Consistent registration of early reference within full singleton lock
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = this.earlySingletonObjects.get(beanName);
+			}
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			if (this.singletonFactories.remove(beanName) != null) {
+				this.earlySingletonObjects.put(beanName, earlySingletonReference);
+			}
+			return earlySingletonReference;
+		}
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -213,8 +277,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		synchronized (this.singletonObjects) {
-			Object singletonObject = this.singletonObjects.get(beanName);
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		Lock lock = acquireSingletonLock(beanName);
+		if (lock == null) {
+			throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in creation " +
+					"in another thread which waits for a bean in creation in the current thread: " +
+					"Is there an unresolvable circular reference across threads?");
+		}
+		try {
+			singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
 				if (this.singletonsCurrentlyInDestruction) {
 					throw new BeanCreationNotAllowedException(beanName,
@@ -226,9 +300,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				beforeSingletonCreation(beanName);
 				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+					this.suppressedExceptions.set(new LinkedHashSet<>());
 				}
 				try {
 					singletonObject = singletonFactory.getObject();
@@ -244,7 +318,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				catch (BeanCreationException ex) {
 					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
+						for (Exception suppressedException : this.suppressedExceptions.get()) {
 							ex.addRelatedCause(suppressedException);
 						}
 					}
@@ -252,7 +326,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				finally {
 					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+						this.suppressedExceptions.remove();
 					}
 					afterSingletonCreation(beanName);
 				}
@@ -262,22 +336,107 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			}
 			return singletonObject;
 		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acquire the creation lock for the given singleton, waiting for a creation
+	 * of the same singleton in another thread to complete if necessary.
+	 * <p>If the current thread holds the {@link #getSingletonMutex() singleton mutex},
+	 * the mutex is temporarily released while waiting, allowing the other thread
+	 * to register its singleton.
+	 * @param beanName the name of the singleton
+	 * @return the acquired lock, or {@code null} if waiting would deadlock since
+	 * the other thread in turn waits for a singleton locked by the current thread
+	 * (i.e. a circular reference between singletons created in different threads)
+	 * @throws BeanCreationException if interrupted while waiting
+	 * @since 5.3.10
+	 */
+	@Nullable
+	Lock acquireSingletonLock(String beanName) {
+		SingletonLock lock = this.singletonLocks.computeIfAbsent(beanName, name -> new SingletonLock());
+		if (lock.tryLock()) {
+			return lock;
+		}
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.threadsWaitingForSingletonLock) {
+			if (isWaitingForCurrentThread(lock, currentThread)) {
+				return null;
+			}
+			this.threadsWaitingForSingletonLock.put(currentThread, lock);
+		}
+		boolean holdsSingletonMutex = Thread.holdsLock(this.singletonObjects);
+		try {
+			while (true) {
+				if (holdsSingletonMutex) {
+					if (lock.tryLock()) {
+						return lock;
+					}
+					this.singletonObjects.wait(SINGLETON_LOCK_CHECK_INTERVAL);
+				}
+				else if (lock.tryLock(SINGLETON_LOCK_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+					return lock;
+				}
+				synchronized (this.threadsWaitingForSingletonLock) {
+					// Re-check within the same lock: only one thread in a cycle backs off
+					if (isWaitingForCurrentThread(lock, currentThread)) {
+						this.threadsWaitingForSingletonLock.remove(currentThread);
+						return null;
+					}
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanCreationException(beanName,
+					"Interrupted while waiting for creation of singleton bean in another thread", ex);
+		}
+		finally {
+			synchronized (this.threadsWaitingForSingletonLock) {
+				this.threadsWaitingForSingletonLock.remove(currentThread);
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the owner of the given lock (transitively) waits for
+	 * a singleton lock held by the current thread.
+	 * <p>To be called within synchronization on the map of waiting threads.
+	 */
+	private boolean isWaitingForCurrentThread(SingletonLock lock, Thread currentThread) {
+		SingletonLock lockToCheck = lock;
+		for (int i = 0; i <= this.threadsWaitingForSingletonLock.size(); i++) {
+			Thread owner = lockToCheck.getOwner();
+			if (owner == null) {
+				return false;
+			}
+			if (owner == currentThread) {
+				return true;
+			}
+			lockToCheck = this.threadsWaitingForSingletonLock.get(owner);
+			if (lockToCheck == null) {
+				return false;
+			}
+		}
+		return false;
 	}
 
 	/**
 	 * Register an exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
 	 * <p>The default implementation preserves any given exception in this registry's
-	 * collection of suppressed exceptions, up to a limit of 100 exceptions, adding
-	 * them as related causes to an eventual top-level {@link BeanCreationException}.
+	 * collection of suppressed exceptions for the current thread, up to a limit
+	 * of 100 exceptions, adding them as related causes to an eventual top-level
+	 * {@link BeanCreationException}.
 	 * @param ex the Exception to register
 	 * @see BeanCreationException#getRelatedCauses()
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null && this.suppressedExceptions.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null && suppressedExceptions.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -508,9 +667,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		if (logger.isTraceEnabled()) {
 			logger.trace("Destroying singletons in " + this);
 		}
-		synchronized (this.singletonObjects) {
-			this.singletonsCurrentlyInDestruction = true;
-		}
+		this.singletonsCurrentlyInDestruction = true;
 
 		String[] disposableBeanNames;
 		synchronized (this.disposableBeans) {
@@ -537,6 +694,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
+			this.singletonLocks.clear();
 			this.singletonsCurrentlyInDestruction = false;
 		}
 	}
@@ -627,10 +785,29 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * any sort of extended singleton creation phase. In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>As of 5.3.10, the mutex only guards modifications of the registry,
+	 * with singleton creation itself guarded by a lock per bean name.
+	 * A thread holding the mutex while obtaining a singleton in creation in
+	 * another thread temporarily releases the mutex while waiting for it.
 	 */
 	@Override
 	public final Object getSingletonMutex() {
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Creation lock for a specific singleton, exposing its owner thread
+	 * for the detection of circular references across threads.
+	 */
+	@SuppressWarnings("serial")
+	private static final class SingletonLock extends ReentrantLock {
+
+		@Override
+		@Nullable
+		public Thread getOwner() {
+			return super.getOwner();
+		}
+	}
+
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Pre-compiled instantiation plan for a non-singleton bean definition,
+ * built by {@link AbstractAutowireCapableBeanFactory} on the second creation
+ * of a bean and applied to all subsequent creations.
+ *
+ * <p>Holds a resolved constructor handle for default construction, as well as
+ * flat lists of the post-processors that actually implement the respective
+ * callbacks - skipping post-processors which rely on the no-op default
+ * implementations of the {@link BeanPostProcessor} interfaces.
+ *
+ * <p>A plan is only valid for the post-processor configuration that it has
+ * been built against; see {@link #isValidFor}.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ */
+final class InstantiationPlan {
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+
+	private final AbstractBeanFactory.BeanPostProcessorCache postProcessorCache;
+
+	private final Class<?> beanClass;
+
+	@Nullable
+	private final Constructor<?> constructor;
+
+	@Nullable
+	private final MethodHandle constructorHandle;
+
+	final List<InstantiationAwareBeanPostProcessor> afterInstantiationProcessors = new ArrayList<>();
+
+	final List<InstantiationAwareBeanPostProcessor> propertyProcessors = new ArrayList<>();
+
+	final List<BeanPostProcessor> beforeInitializationProcessors = new ArrayList<>();
+
+	final List<BeanPostProcessor> afterInitializationProcessors = new ArrayList<>();
+
+
+	private InstantiationPlan(Class<?> beanClass, AbstractBeanFactory.BeanPostProcessorCache postProcessorCache,
+			AbstractBeanFactory.BeanPostProcessorCache applicableProcessors, @Nullable Constructor<?> constructor) {
+
+		this.postProcessorCache = postProcessorCache;
+		this.beanClass = beanClass;
+		this.constructor = constructor;
+		this.constructorHandle = (constructor != null ? createConstructorHandle(constructor) : null);
+
+		for (InstantiationAwareBeanPostProcessor bp : applicableProcessors.instantiationAware) {
+			if (isImplemented(bp, InstantiationAwareBeanPostProcessor.class,
+					"postProcessAfterInstantiation", Object.class, String.class)) {
+				this.afterInstantiationProcessors.add(bp);
+			}
+			if (isImplemented(bp, InstantiationAwareBeanPostProcessor.class,
+					"postProcessProperties", PropertyValues.class, Object.class, String.class) ||
+					isImplemented(bp, InstantiationAwareBeanPostProcessor.class, "postProcessPropertyValues",
+							PropertyValues.class, PropertyDescriptor[].class, Object.class, String.class)) {
+				this.propertyProcessors.add(bp);
+			}
+		}
+		for (BeanPostProcessor bp : applicableProcessors.beanPostProcessors) {
+			if (isImplemented(bp, BeanPostProcessor.class, "postProcessBeforeInitialization", Object.class, String.class)) {
+				this.beforeInitializationProcessors.add(bp);
+			}
+			if (isImplemented(bp, BeanPostProcessor.class, "postProcessAfterInitialization", Object.class, String.class)) {
+				this.afterInitializationProcessors.add(bp);
+			}
+		}
+	}
+
+
+	/**
+	 * Determine whether this plan has been built against the given
+	 * post-processor configuration (which gets replaced on any change)
+	 * and the given bean class.
+	 * @param postProcessorCache the current post-processor cache of the factory
+	 * @param beanClass the raw class of the current bean instance
+	 * (or {@code null} to check the post-processor configuration only)
+	 */
+	boolean isValidFor(AbstractBeanFactory.BeanPostProcessorCache postProcessorCache, @Nullable Class<?> beanClass) {
+		return (this.postProcessorCache == postProcessorCache && (beanClass == null || this.beanClass == beanClass));
+	}
+
+	/**
+	 * Return whether this plan holds a pre-resolved default constructor.
+	 * @see #instantiate()
+	 */
+	boolean hasConstructor() {
+		return (this.constructorHandle != null);
+	}
+
+	/**
+	 * Create a new bean instance through the pre-resolved default constructor.
+	 * @return the new bean instance
+	 * @throws BeanInstantiationException if the constructor threw an exception
+	 */
+	Object instantiate() throws BeanInstantiationException {
+		MethodHandle constructorHandle = this.constructorHandle;
+		Constructor<?> constructor = this.constructor;
+		if (constructorHandle == null || constructor == null) {
+			throw new IllegalStateException("No pre-resolved constructor in instantiation plan");
+		}
+		try {
+			return (Object) constructorHandle.invokeExact();
+		}
+		catch (Throwable ex) {
+			throw new BeanInstantiationException(constructor, "Constructor threw exception", ex);
+		}
+	}
+
+
+	/**
+	 * Build an instantiation plan for the given bean definition.
+	 * @param mbd the merged bean definition, having been instantiated before
+	 * @param beanClass the raw class of the previously created bean instance
+	 * @param postProcessorCache the current post-processor cache of the factory
+	 * @param applicableProcessors the subset of post-processors for the bean class
+	 * @param defaultInstantiation whether the factory uses default instantiation
+	 * (i.e. no custom {@link InstantiationStrategy} and no SecurityManager)
+	 * @return the instantiation plan
+	 */
+	static InstantiationPlan build(RootBeanDefinition mbd, Class<?> beanClass,
+			AbstractBeanFactory.BeanPostProcessorCache postProcessorCache,
+			AbstractBeanFactory.BeanPostProcessorCache applicableProcessors, boolean defaultInstantiation) {
+
+		Constructor<?> constructor = null;
+		if (defaultInstantiation && mbd.getInstanceSupplier() == null && mbd.getFactoryMethodName() == null &&
+				!mbd.hasMethodOverrides()) {
+			synchronized (mbd.constructorArgumentLock) {
+				if (mbd.resolvedConstructorOrFactoryMethod instanceof Constructor &&
+						!mbd.constructorArgumentsResolved) {
+					constructor = (Constructor<?>) mbd.resolvedConstructorOrFactoryMethod;
+				}
+			}
+			if (constructor != null && (constructor.getParameterCount() != 0 ||
+					KotlinDetector.isKotlinType(constructor.getDeclaringClass()))) {
+				// Leave Kotlin and argument-bearing constructors to BeanUtils
+				constructor = null;
+			}
+		}
+		return new InstantiationPlan(beanClass, postProcessorCache, applicableProcessors, constructor);
+	}
+
+	@Nullable
+	private static MethodHandle createConstructorHandle(Constructor<?> constructor) {
+		try {
+			ReflectionUtils.makeAccessible(constructor);
+			return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+		}
+		catch (Throwable ex) {
+			// Fall back to regular instantiation via the InstantiationStrategy
+			return null;
+		}
+	}
+
+	/**
+	 * Determine whether the given post-processor provides its own implementation
+	 * of the specified callback method, rather than inheriting the interface's
+	 * no-op default method.
+	 */
+	private static boolean isImplemented(Object processor, Class<?> ifc, String methodName, Class<?>... paramTypes) {
+		try {
+			// Class.getMethod prefers class hierarchy implementations over interface defaults
+			Method method = processor.getClass().getMethod(methodName, paramTypes);
+			return (method.getDeclaringClass() != ifc);
+		}
+		catch (NoSuchMethodException ex) {
+			return true;
+		}
+	}
+
+}
@@ -118,6 +118,13 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	@Nullable
 	volatile Boolean beforeInstantiationResolved;
 
+	/** Package-visible field that marks a non-singleton bean as having been created before. */
+	volatile boolean instantiatedBefore;
+
+	/** Package-visible field for caching the instantiation plan for a non-singleton bean. */
+	@Nullable
+	volatile InstantiationPlan instantiationPlan;
+
 	@Nullable
 	private Set<Member> externallyManagedConfigMembers;
 
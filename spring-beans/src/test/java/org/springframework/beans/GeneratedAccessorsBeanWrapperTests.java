@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link BeanWrapperImpl} tests with generated property accessors enabled,
+ * running the full set of {@link BeanWrapperTests} against generated accessors.
+ */
+public class GeneratedAccessorsBeanWrapperTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setGeneratedAccessorsEnabled(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void generatedAccessorsSharedPerClass() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		GeneratedPropertyAccessors accessors = results.getGeneratedAccessors();
+		assertThat(accessors).isNotNull();
+		assertThat(results.getGeneratedAccessors()).isSameAs(accessors);
+		assertThat(accessors.getIndex(results.getPropertyDescriptor("name").getReadMethod())).isGreaterThanOrEqualTo(0);
+		assertThat(accessors.getIndex(results.getPropertyDescriptor("name").getWriteMethod())).isGreaterThanOrEqualTo(0);
+	}
+
+	@Test
+	public void noGeneratedAccessorsForCoreJdkClass() {
+		assertThat(CachedIntrospectionResults.forClass(StringBuilder.class).getGeneratedAccessors()).isNull();
+	}
+
+	@Test
+	public void nestedBeanWrapperInheritsGeneratedAccessorsSetting() {
+		TestBean target = new TestBean();
+		target.setSpouse(new TestBean());
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("spouse.name", "kerry");
+		assertThat(target.getSpouse().getName()).isEqualTo("kerry");
+		assertThat(accessor.getPropertyValue("spouse.name")).isEqualTo("kerry");
+		BeanWrapperImpl nestedAccessor = (BeanWrapperImpl) accessor.getPropertyAccessorForPropertyPath("spouse.name");
+		assertThat(nestedAccessor.isGeneratedAccessorsEnabled()).isTrue();
+	}
+
+	@Test
+	public void exceptionFromGeneratedSetterIsExposed() {
+		TestBean target = new TestBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		assertThatExceptionOfType(MethodInvocationException.class).isThrownBy(() ->
+				accessor.setPropertyValue("touchy", "a.b"))
+			.satisfies(ex -> assertThat(ex.getCause()).hasMessage("Can't contain a ."));
+	}
+
+}
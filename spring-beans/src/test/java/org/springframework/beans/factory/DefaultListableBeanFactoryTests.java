@@ -19,6 +19,7 @@ package org.springframework.beans.factory;
 import java.io.Closeable;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -26,6 +27,7 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -37,6 +39,7 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -51,6 +54,7 @@ import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.PropertyEditorRegistrar;
 import org.springframework.beans.PropertyEditorRegistry;
 import org.springframework.beans.PropertyValue;
+import org.springframework.beans.PropertyValues;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
@@ -63,6 +67,7 @@ import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.PropertiesFactoryBean;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.config.TypedStringValue;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanFactory;
@@ -76,12 +81,14 @@ import org.springframework.beans.factory.xml.ConstructorDependenciesBean;
 import org.springframework.beans.propertyeditors.CustomNumberEditor;
 import org.springframework.beans.testfixture.beans.DependenciesBean;
 import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.IOther;
 import org.springframework.beans.testfixture.beans.ITestBean;
 import org.springframework.beans.testfixture.beans.NestedTestBean;
 import org.springframework.beans.testfixture.beans.SideEffectBean;
 import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.beans.testfixture.beans.factory.DummyFactory;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.convert.converter.Converter;
@@ -1443,6 +1450,96 @@ class DefaultListableBeanFactoryTests {
 		assertThat(bean.getBeanName()).isEqualTo("bd1");
 	}
 
+	@Test
+	void getBeanNamesForTypeAgainstFrozenWithIncrementalChanges() {
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition prototype = new RootBeanDefinition(DerivedTestBean.class);
+		prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("prototype", prototype);
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		lbf.freezeConfiguration();
+
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("tb", "prototype", "factory");
+		assertThat(lbf.getBeanNamesForType(TestBean.class, false, true)).containsExactly("tb", "factory");
+		assertThat(lbf.getBeanNamesForType(DummyFactory.class)).containsExactly("&factory");
+		assertThat(lbf.getBeanNamesForType(ITestBean.class)).containsExactly("tb", "prototype", "factory");
+
+		lbf.registerSingleton("manual", new NestedTestBean());
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("tb", "prototype", "factory");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("manual");
+		lbf.registerBeanDefinition("late", new RootBeanDefinition(DerivedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(DerivedTestBean.class)).containsExactly("prototype", "late");
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(NestedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("prototype", "factory", "late");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("tb", "manual");
+		lbf.removeBeanDefinition("prototype");
+		lbf.destroySingleton("manual");
+		assertThat(lbf.getBeanNamesForType(DerivedTestBean.class)).containsExactly("late");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("tb");
+	}
+
+	@Test
+	void getBeanByTypeAgainstFrozenWithJdkProxy() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setDependsOn("lookup");
+		lbf.registerBeanDefinition("tb", bd);
+		// Looks up beans by type once "tb" got marked as created, before it got proxied
+		lbf.registerBeanDefinition("lookup", new RootBeanDefinition(Object.class, () -> {
+			lbf.getBeanNamesForType(Runnable.class);
+			return new Object();
+		}));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof ITestBean)) {
+					return bean;
+				}
+				return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ITestBean.class},
+						(proxy, method, args) -> method.invoke(bean, args));
+			}
+		});
+		lbf.freezeConfiguration();
+
+		Object proxy = lbf.getBean("tb");
+		assertThat(lbf.getBean(ITestBean.class)).isSameAs(proxy);
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).isEmpty();
+		assertThatExceptionOfType(NoSuchBeanDefinitionException.class).isThrownBy(() ->
+				lbf.getBean(TestBean.class));
+	}
+
+	@Test
+	void getBeanNamesForTypeAgainstFrozenWithInterfaceFactoryMethodReturnType() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBeanFactory.class);
+		bd.setFactoryMethodName("createInterfaceTypedTestBean");
+		bd.setDependsOn("lookup");
+		lbf.registerBeanDefinition("tb", bd);
+		lbf.registerBeanDefinition("lookup", new RootBeanDefinition(Object.class, () -> {
+			lbf.getBeanNamesForType(Runnable.class);
+			return new Object();
+		}));
+		lbf.freezeConfiguration();
+
+		Object bean = lbf.getBean("tb");
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("tb");
+		assertThat(lbf.getBean(IOther.class)).isSameAs(bean);
+	}
+
+	@Test
+	void getBeanNamesForTypeAgainstFrozenWithUnloadableBeanClass() {
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setBeanClassName("org.springframework.beans.factory.DoesNotExist");
+		lbf.registerBeanDefinition("unloadable", bd);
+		lbf.freezeConfiguration();
+
+		assertThatExceptionOfType(CannotLoadBeanClassException.class).isThrownBy(() ->
+				lbf.getBeanNamesForType(TestBean.class));
+		assertThatExceptionOfType(CannotLoadBeanClassException.class).isThrownBy(() ->
+				lbf.getBeanNamesForType(TestBean.class));
+		assertThatExceptionOfType(CannotLoadBeanClassException.class).isThrownBy(() ->
+				lbf.getBeanNamesForType(ITestBean.class));
+	}
+
 	@Test
 	void getBeanByTypeDefinedInParent() {
 		DefaultListableBeanFactory parent = new DefaultListableBeanFactory();
@@ -2248,6 +2345,74 @@ class DefaultListableBeanFactoryTests {
 		lbf.preInstantiateSingletons();
 	}
 
+	@Test
+	void parallelPreInstantiation() {
+		List<String> createdBeans = new CopyOnWriteArrayList<>();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 8; i++) {
+			lbf.registerBeanDefinition("bean" + i, creationRecordingBeanDefinition(CreationRecordingBean.class, createdBeans));
+		}
+		RootBeanDefinition dependent = creationRecordingBeanDefinition(CreationRecordingBean.class, createdBeans);
+		dependent.setDependsOn("dependency");
+		lbf.registerBeanDefinition("dependent", dependent);
+		lbf.registerBeanDefinition("dependency", creationRecordingBeanDefinition(CreationRecordingBean.class, createdBeans));
+		RootBeanDefinition referencing = creationRecordingBeanDefinition(CreationRecordingBean.class, createdBeans);
+		referencing.getPropertyValues().add("other", new RuntimeBeanReference("referenced"));
+		lbf.registerBeanDefinition("referencing", referencing);
+		lbf.registerBeanDefinition("referenced", creationRecordingBeanDefinition(CreationRecordingBean.class, createdBeans));
+		lbf.registerBeanDefinition("ordered1", creationRecordingBeanDefinition(OrderedCreationRecordingBean.class, createdBeans));
+		lbf.registerBeanDefinition("ordered2", creationRecordingBeanDefinition(OrderedCreationRecordingBean.class, createdBeans));
+		RootBeanDefinition lazy = creationRecordingBeanDefinition(CreationRecordingBean.class, createdBeans);
+		lazy.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", lazy);
+		lbf.registerBeanDefinition("smartInitializing",
+				creationRecordingBeanDefinition(SmartInitializingCreationRecordingBean.class, createdBeans));
+		lbf.preInstantiateSingletons();
+
+		assertThat(createdBeans).hasSize(15).doesNotContain("lazy");
+		assertThat(createdBeans.indexOf("dependency")).isLessThan(createdBeans.indexOf("dependent"));
+		assertThat(createdBeans.indexOf("referenced")).isLessThan(createdBeans.indexOf("referencing"));
+		assertThat(createdBeans.indexOf("ordered1")).isLessThan(createdBeans.indexOf("ordered2"));
+		SmartInitializingCreationRecordingBean smartInitializing =
+				lbf.getBean(SmartInitializingCreationRecordingBean.class);
+		assertThat(smartInitializing.initializedBeans).containsExactlyInAnyOrderElementsOf(createdBeans);
+		assertThat(smartInitializing.thread).isSameAs(Thread.currentThread());
+	}
+
+	@Test
+	void parallelPreInstantiationWithFailure() {
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("age", "invalid");
+		lbf.registerBeanDefinition("failing", bd);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(lbf::preInstantiateSingletons)
+			.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"));
+	}
+
+	@Test
+	void parallelPreInstantiationWithLongDependencyChain() {
+		lbf.setPreInstantiationParallelism(4);
+		int length = 20000;
+		for (int i = length - 1; i >= 0; i--) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			if (i > 0) {
+				bd.setDependsOn("chain" + (i - 1));
+			}
+			lbf.registerBeanDefinition("chain" + i, bd);
+		}
+		lbf.preInstantiateSingletons();
+		for (int i = 0; i < length; i++) {
+			assertThat(lbf.containsSingleton("chain" + i)).isTrue();
+		}
+	}
+
+	private RootBeanDefinition creationRecordingBeanDefinition(Class<?> beanClass, List<String> createdBeans) {
+		RootBeanDefinition bd = new RootBeanDefinition(beanClass);
+		bd.getPropertyValues().add("createdBeans", createdBeans);
+		return bd;
+	}
+
 	@Test
 	void lazyInitFlag() {
 		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
@@ -2391,6 +2556,29 @@ class DefaultListableBeanFactoryTests {
 		assertThat(BeanWithDestroyMethod.closeCount).as("Destroy methods invoked").isEqualTo(1);
 	}
 
+	@Test
+	void selectiveBeanPostProcessor() {
+		SelectiveRecordingPostProcessor bpp = new SelectiveRecordingPostProcessor(DerivedTestBean.class);
+		lbf.addBeanPostProcessor(bpp);
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("dtb", new RootBeanDefinition(DerivedTestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(DerivedTestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("prototype", bd);
+
+		lbf.preInstantiateSingletons();
+		assertThat(bpp.processedBeans).containsExactly("dtb:beforeInstantiation", "dtb:afterInstantiation",
+				"dtb:properties", "dtb:beforeInitialization", "dtb:afterInitialization");
+
+		bpp.processedBeans.clear();
+		for (int i = 0; i < 3; i++) {
+			lbf.getBean("prototype");
+		}
+		assertThat(bpp.processedBeans.stream().filter(name -> name.equals("prototype:afterInitialization")))
+				.hasSize(3);
+		assertThat(bpp.candidateChecks).containsExactly(TestBean.class, DerivedTestBean.class);
+	}
+
 	@Test
 	void destroyMethodOnInnerBean() {
 		RootBeanDefinition innerBd = new RootBeanDefinition(BeanWithDestroyMethod.class);
@@ -2690,6 +2878,55 @@ class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class CreationRecordingBean implements BeanNameAware {
+
+		private List<String> createdBeans;
+
+		private Object other;
+
+		public void setCreatedBeans(List<String> createdBeans) {
+			this.createdBeans = createdBeans;
+		}
+
+		public List<String> getCreatedBeans() {
+			return this.createdBeans;
+		}
+
+		public void setOther(Object other) {
+			this.other = other;
+		}
+
+		@Override
+		public void setBeanName(String name) {
+			this.createdBeans.add(name);
+		}
+	}
+
+
+	public static class OrderedCreationRecordingBean extends CreationRecordingBean implements Ordered {
+
+		@Override
+		public int getOrder() {
+			return 0;
+		}
+	}
+
+
+	public static class SmartInitializingCreationRecordingBean extends CreationRecordingBean
+			implements SmartInitializingSingleton {
+
+		private List<String> initializedBeans;
+
+		private Thread thread;
+
+		@Override
+		public void afterSingletonsInstantiated() {
+			this.initializedBeans = new ArrayList<>(getCreatedBeans());
+			this.thread = Thread.currentThread();
+		}
+	}
+
+
 	public static class ConstructorDependency implements BeanNameAware {
 
 		public TestBean spouse;
@@ -2961,6 +3198,10 @@ class DefaultListableBeanFactoryTests {
 			return new TestBean();
 		}
 
+		public static ITestBean createInterfaceTypedTestBean() {
+			return new TestBean();
+		}
+
 		public TestBean createTestBeanNonStatic() {
 			return new TestBean();
 		}
@@ -3017,6 +3258,57 @@ class DefaultListableBeanFactoryTests {
 	}
 
 
+	private static class SelectiveRecordingPostProcessor
+			implements InstantiationAwareBeanPostProcessor, SelectiveBeanPostProcessor {
+
+		private final Class<?> candidateClass;
+
+		final List<Class<?>> candidateChecks = new ArrayList<>();
+
+		final List<String> processedBeans = new ArrayList<>();
+
+		SelectiveRecordingPostProcessor(Class<?> candidateClass) {
+			this.candidateClass = candidateClass;
+		}
+
+		@Override
+		public boolean isCandidateClass(Class<?> beanClass) {
+			this.candidateChecks.add(beanClass);
+			return (beanClass == this.candidateClass);
+		}
+
+		@Override
+		public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+			this.processedBeans.add(beanName + ":beforeInstantiation");
+			return null;
+		}
+
+		@Override
+		public boolean postProcessAfterInstantiation(Object bean, String beanName) {
+			this.processedBeans.add(beanName + ":afterInstantiation");
+			return true;
+		}
+
+		@Override
+		public PropertyValues postProcessProperties(PropertyValues pvs, Object bean, String beanName) {
+			this.processedBeans.add(beanName + ":properties");
+			return pvs;
+		}
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) {
+			this.processedBeans.add(beanName + ":beforeInitialization");
+			return bean;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			this.processedBeans.add(beanName + ":afterInitialization");
+			return bean;
+		}
+	}
+
+
 	private static class CustomTypeConverter implements TypeConverter {
 
 		private final NumberFormat numberFormat;
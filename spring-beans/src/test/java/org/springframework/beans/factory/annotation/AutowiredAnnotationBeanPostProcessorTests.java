@@ -27,6 +27,7 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EventObject;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -46,6 +47,7 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import org.springframework.beans.PropertyValues;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanNameAware;
@@ -2326,6 +2328,63 @@ public class AutowiredAnnotationBeanPostProcessorTests {
 		assertThat(bean.testBean).isSameAs(bf.getBean("annotatedBean"));
 	}
 
+	@Test
+	public void testCandidateClasses() {
+		assertThat(bpp.isCandidateClass(ResourceInjectionBean.class)).isTrue();
+		assertThat(bpp.isCandidateClass(EventObject.class)).as("implicitly autowired constructor").isTrue();
+		assertThat(bpp.isCandidateClass(ArrayList.class)).isFalse();
+	}
+
+	@Test
+	public void testPostProcessorSkippedForNonCandidateClass() {
+		Set<String> processed = new HashSet<>();
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor processor = new AutowiredAnnotationBeanPostProcessor() {
+			@Override
+			public boolean isCandidateClass(Class<?> beanClass) {
+				return super.isCandidateClass(beanClass);
+			}
+			@Override
+			public PropertyValues postProcessProperties(PropertyValues pvs, Object bean, String beanName) {
+				processed.add(beanName);
+				return super.postProcessProperties(pvs, bean, beanName);
+			}
+		};
+		processor.setBeanFactory(factory);
+		factory.addBeanPostProcessor(processor);
+		factory.registerBeanDefinition("annotatedBean", new RootBeanDefinition(ResourceInjectionBean.class));
+		factory.registerBeanDefinition("list", new RootBeanDefinition(ArrayList.class));
+		TestBean tb = new TestBean();
+		factory.registerSingleton("testBean", tb);
+
+		assertThat(factory.getBean("annotatedBean", ResourceInjectionBean.class).getTestBean()).isSameAs(tb);
+		assertThat(factory.getBean("list")).isInstanceOf(ArrayList.class);
+		assertThat(processed).containsExactly("annotatedBean");
+	}
+
+	@Test
+	public void testPostProcessorSubclassWithOverriddenCallbackAppliesToAllClasses() {
+		Set<String> processed = new HashSet<>();
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor processor = new AutowiredAnnotationBeanPostProcessor() {
+			@Override
+			public PropertyValues postProcessProperties(PropertyValues pvs, Object bean, String beanName) {
+				processed.add(beanName);
+				return super.postProcessProperties(pvs, bean, beanName);
+			}
+		};
+		processor.setBeanFactory(factory);
+		factory.addBeanPostProcessor(processor);
+		factory.registerBeanDefinition("annotatedBean", new RootBeanDefinition(ResourceInjectionBean.class));
+		factory.registerBeanDefinition("list", new RootBeanDefinition(ArrayList.class));
+		factory.registerSingleton("testBean", new TestBean());
+
+		assertThat(processor.isCandidateClass(ArrayList.class)).isTrue();
+		factory.getBean("annotatedBean");
+		factory.getBean("list");
+		assertThat(processed).containsExactlyInAnyOrder("annotatedBean", "list");
+	}
+
 	private <E extends UnsatisfiedDependencyException> Consumer<E> methodParameterDeclaredOn(
 			Class<?> expected) {
 		return declaredOn(
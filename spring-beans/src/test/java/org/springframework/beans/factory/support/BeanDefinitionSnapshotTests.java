@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshot}.
+ */
+class BeanDefinitionSnapshotTests {
+
+	@Test
+	void roundTripWithResolvedClasses() throws Exception {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		RootBeanDefinition spouse = new RootBeanDefinition(TestBean.class);
+		spouse.getPropertyValues().add("name", "spouse");
+		spouse.setAttribute("marker", "lite");
+		bf.registerBeanDefinition("spouse", spouse);
+		bf.registerAlias("spouse", "partner");
+		GenericBeanDefinition tb = new GenericBeanDefinition();
+		tb.setBeanClass(TestBean.class);
+		tb.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		tb.setLazyInit(true);
+		tb.getConstructorArgumentValues().addIndexedArgumentValue(0, "name");
+		tb.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
+		ManagedList<Object> friends = new ManagedList<>();
+		friends.add(new RuntimeBeanReference("spouse"));
+		friends.add(new RootBeanDefinition(TestBean.class));
+		tb.getPropertyValues().add("friends", friends);
+		bf.registerBeanDefinition("tb", tb);
+		RootBeanDefinition factoryMethodBean = new RootBeanDefinition(Factory.class);
+		factoryMethodBean.setUniqueFactoryMethodName("create");
+		factoryMethodBean.setResolvedFactoryMethod(Factory.class.getMethod("create"));
+		bf.registerBeanDefinition("created", factoryMethodBean);
+
+		BeanDefinitionSnapshot snapshot = roundTrip(BeanDefinitionSnapshot.of(bf, "fp", Collections.emptySet()), true);
+		assertThat(snapshot.getFingerprint()).isEqualTo("fp");
+		assertThat(snapshot.getBeanDefinitionCount()).isEqualTo(3);
+
+		DefaultListableBeanFactory bf2 = new DefaultListableBeanFactory();
+		snapshot.registerWith(bf2);
+		assertThat(bf2.getBeanDefinitionNames()).containsExactly("spouse", "tb", "created");
+		assertThat(bf2.getAliases("spouse")).containsExactly("partner");
+		assertThat(bf2.getBeanDefinition("spouse").getAttribute("marker")).isEqualTo("lite");
+		assertThat(bf2.getBeanDefinition("tb").isPrototype()).isTrue();
+		assertThat(bf2.getBeanDefinition("tb").isLazyInit()).isTrue();
+		assertThat(((RootBeanDefinition) bf2.getBeanDefinition("created")).getResolvedFactoryMethod())
+				.isEqualTo(Factory.class.getMethod("create"));
+
+		TestBean restored = (TestBean) bf2.getBean("tb");
+		assertThat(restored.getName()).isEqualTo("name");
+		assertThat(restored.getSpouse()).isSameAs(bf2.getBean("partner"));
+		assertThat(restored.getSpouse().getName()).isEqualTo("spouse");
+		assertThat(restored.getFriends()).hasSize(2);
+		assertThat(bf2.getBean("created")).isInstanceOf(TestBean.class);
+	}
+
+	@Test
+	void roundTripWithClassNamesOnly() throws Exception {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+
+		BeanDefinitionSnapshot snapshot = roundTrip(BeanDefinitionSnapshot.of(bf, "fp", Collections.emptySet()), false);
+		DefaultListableBeanFactory bf2 = new DefaultListableBeanFactory();
+		snapshot.registerWith(bf2);
+		AbstractBeanDefinition bd = (AbstractBeanDefinition) bf2.getBeanDefinition("tb");
+		assertThat(bd.hasBeanClass()).isFalse();
+		assertThat(bd.getBeanClassName()).isEqualTo(TestBean.class.getName());
+		assertThat(bf2.getBean("tb")).isInstanceOf(TestBean.class);
+	}
+
+	@Test
+	void attributesOnlyForExistingBeanDefinition() throws Exception {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		RootBeanDefinition supplied = new RootBeanDefinition(TestBean.class, TestBean::new);
+		supplied.setAttribute("marker", "full");
+		bf.registerBeanDefinition("supplied", supplied);
+		bf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+
+		BeanDefinitionSnapshot snapshot =
+				roundTrip(BeanDefinitionSnapshot.of(bf, "fp", Collections.singleton("supplied")), true);
+		DefaultListableBeanFactory bf2 = new DefaultListableBeanFactory();
+		RootBeanDefinition existing = new RootBeanDefinition(TestBean.class, TestBean::new);
+		bf2.registerBeanDefinition("supplied", existing);
+		snapshot.registerWith(bf2);
+		assertThat(bf2.getBeanDefinition("supplied")).isSameAs(existing);
+		assertThat(existing.getAttribute("marker")).isEqualTo("full");
+		assertThat(bf2.containsBeanDefinition("tb")).isTrue();
+
+		assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
+				snapshot.registerWith(new DefaultListableBeanFactory()));
+	}
+
+	@Test
+	void unsupportedInstanceSupplier() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("supplied", new RootBeanDefinition(TestBean.class, TestBean::new));
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.of(bf, "fp", Collections.emptySet());
+		assertThatExceptionOfType(BeanDefinitionStoreException.class).isThrownBy(() ->
+				snapshot.writeTo(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	void readFingerprintOnly() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BeanDefinitionSnapshot.of(new DefaultListableBeanFactory(), "fp", Collections.emptySet()).writeTo(out);
+		assertThat(BeanDefinitionSnapshot.readFingerprint(new ByteArrayInputStream(out.toByteArray())))
+				.isEqualTo("fp");
+		assertThatExceptionOfType(IOException.class).isThrownBy(() ->
+				BeanDefinitionSnapshot.readFingerprint(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})));
+	}
+
+
+	private static BeanDefinitionSnapshot roundTrip(BeanDefinitionSnapshot snapshot, boolean resolveBeanClasses)
+			throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out);
+		return BeanDefinitionSnapshot.readFrom(new ByteArrayInputStream(out.toByteArray()),
+				BeanDefinitionSnapshotTests.class.getClassLoader(), resolveBeanClasses);
+	}
+
+
+	public static class Factory {
+
+		public static TestBean create() {
+			return new TestBean("created");
+		}
+	}
+
+}
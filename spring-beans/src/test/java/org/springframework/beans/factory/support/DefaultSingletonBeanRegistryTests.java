@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,12 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.BeansException;
@@ -83,6 +89,64 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(tb.wasDestroyed()).isTrue();
 	}
 
+	@Test
+	public void testSingletonCreationInDifferentThreads() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch tb2Created = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				// Only completes if "tb2" can be created while "tb" is in creation
+				await(tb2Created);
+				return new TestBean();
+			}));
+			Future<Object> tb2 = executor.submit(() -> beanRegistry.getSingleton("tb2", () -> {
+				tb2Created.countDown();
+				return new TestBean();
+			}));
+			assertThat(tb.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb"));
+			assertThat(tb2.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb2"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCircularReferenceAcrossThreads() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch tbExposed = new CountDownLatch(1);
+		CountDownLatch tb2Exposed = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				TestBean bean = new TestBean();
+				beanRegistry.addSingletonFactory("tb", () -> bean);
+				tbExposed.countDown();
+				await(tb2Exposed);
+				bean.setSpouse((TestBean) beanRegistry.getSingleton("tb2"));
+				return bean;
+			}));
+			Future<Object> tb2 = executor.submit(() -> beanRegistry.getSingleton("tb2", () -> {
+				TestBean bean = new TestBean();
+				beanRegistry.addSingletonFactory("tb2", () -> bean);
+				tb2Exposed.countDown();
+				await(tbExposed);
+				bean.setSpouse((TestBean) beanRegistry.getSingleton("tb"));
+				return bean;
+			}));
+			TestBean tbBean = (TestBean) tb.get(10, TimeUnit.SECONDS);
+			TestBean tb2Bean = (TestBean) tb2.get(10, TimeUnit.SECONDS);
+			assertThat(tbBean.getSpouse()).isSameAs(tb2Bean);
+			assertThat(tb2Bean.getSpouse()).isSameAs(tbBean);
+			assertThat(beanRegistry.getSingleton("tb")).isSameAs(tbBean);
+			assertThat(beanRegistry.getSingleton("tb2")).isSameAs(tb2Bean);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	@Test
 	public void testDependentRegistration() {
 		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
@@ -101,4 +165,14 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link InstantiationPlan} usage in {@link AbstractAutowireCapableBeanFactory}.
+ */
+class InstantiationPlanTests {
+
+	@Test
+	void planCompiledOnSecondCreation() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		RecordingPostProcessor bpp = new RecordingPostProcessor();
+		bf.addBeanPostProcessor(bpp);
+		bf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {});
+		bf.registerBeanDefinition("test", prototype(TestBean.class));
+
+		TestBean tb1 = (TestBean) bf.getBean("test");
+		assertThat(bf.getMergedLocalBeanDefinition("test").instantiationPlan).isNull();
+		TestBean tb2 = (TestBean) bf.getBean("test");
+		InstantiationPlan plan = bf.getMergedLocalBeanDefinition("test").instantiationPlan;
+		assertThat(plan).isNotNull();
+		assertThat(plan.hasConstructor()).isTrue();
+		assertThat(plan.beforeInitializationProcessors).containsExactly(bpp);
+		assertThat(plan.afterInitializationProcessors).isEmpty();
+		assertThat(plan.afterInstantiationProcessors).isEmpty();
+		assertThat(plan.propertyProcessors).isEmpty();
+
+		TestBean tb3 = (TestBean) bf.getBean("test");
+		assertThat(tb3).isNotSameAs(tb2).isNotSameAs(tb1);
+		assertThat(tb3.getName()).isEqualTo("name");
+		assertThat(bpp.processedBeans).containsExactly(tb1, tb2, tb3);
+	}
+
+	@Test
+	void planRecompiledOnPostProcessorChange() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("test", prototype(TestBean.class));
+		bf.getBean("test");
+		bf.getBean("test");
+		InstantiationPlan plan = bf.getMergedLocalBeanDefinition("test").instantiationPlan;
+		assertThat(plan).isNotNull();
+
+		RecordingPostProcessor bpp = new RecordingPostProcessor();
+		bf.addBeanPostProcessor(bpp);
+		Object tb = bf.getBean("test");
+		assertThat(bpp.processedBeans).containsExactly(tb);
+		assertThat(bf.getMergedLocalBeanDefinition("test").instantiationPlan).isNotSameAs(plan);
+	}
+
+	@Test
+	void constructorExceptionThroughPlan() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("test", prototype(FailingBean.class));
+		bf.getBean("test");
+		bf.getBean("test");
+		assertThat(bf.getMergedLocalBeanDefinition("test").instantiationPlan.hasConstructor()).isTrue();
+
+		FailingBean.fail = true;
+		try {
+			assertThatExceptionOfType(BeanCreationException.class).isThrownBy(() -> bf.getBean("test"))
+					.withCauseInstanceOf(BeanInstantiationException.class)
+					.withRootCauseInstanceOf(IllegalStateException.class);
+		}
+		finally {
+			FailingBean.fail = false;
+		}
+	}
+
+	@Test
+	void noPlanForSingleton() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		bf.getBean("test");
+		bf.getBean("test");
+		assertThat(bf.getMergedLocalBeanDefinition("test").instantiationPlan).isNull();
+	}
+
+
+	private static RootBeanDefinition prototype(Class<?> beanClass) {
+		RootBeanDefinition bd = new RootBeanDefinition(beanClass);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "name");
+		return bd;
+	}
+
+
+	private static class RecordingPostProcessor implements BeanPostProcessor {
+
+		final List<Object> processedBeans = new ArrayList<>();
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) {
+			this.processedBeans.add(bean);
+			return bean;
+		}
+	}
+
+
+	public static class FailingBean {
+
+		static boolean fail;
+
+		private String name;
+
+		public FailingBean() {
+			if (fail) {
+				throw new IllegalStateException("Constructor failure");
+			}
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+}
@@ -39,6 +39,10 @@ import javax.lang.model.element.TypeElement;
  * Annotation {@link Processor} that writes a {@link CandidateComponentsMetadata}
  * file for spring components.
  *
+ * <p>As of 5.3.10, the class structure and annotations of each candidate are
+ * recorded as well, allowing the runtime to build the candidate's annotation
+ * metadata without reading its class file.
+ *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
  * @since 5.0
@@ -51,6 +55,8 @@ public class CandidateComponentsIndexer implements Processor {
 
 	private TypeHelper typeHelper;
 
+	private ComponentMetadataEncoder componentMetadataEncoder;
+
 	private List<StereotypesProvider> stereotypesProviders;
 
 
@@ -73,6 +79,7 @@ public class CandidateComponentsIndexer implements Processor {
 	public synchronized void init(ProcessingEnvironment env) {
 		this.stereotypesProviders = getStereotypesProviders(env);
 		this.typeHelper = new TypeHelper(env);
+		this.componentMetadataEncoder = new ComponentMetadataEncoder(env);
 		this.metadataStore = new MetadataStore(env);
 		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata());
 	}
@@ -113,7 +120,10 @@ public class CandidateComponentsIndexer implements Processor {
 		Set<String> stereotypes = new LinkedHashSet<>();
 		this.stereotypesProviders.forEach(p -> stereotypes.addAll(p.getStereotypes(element)));
 		if (!stereotypes.isEmpty()) {
-			this.metadataCollector.add(new ItemMetadata(this.typeHelper.getType(element), stereotypes));
+			String componentMetadata = (element instanceof TypeElement ?
+					this.componentMetadataEncoder.encode((TypeElement) element) : null);
+			this.metadataCollector.add(
+					new ItemMetadata(this.typeHelper.getType(element), stereotypes, componentMetadata));
 		}
 	}
 
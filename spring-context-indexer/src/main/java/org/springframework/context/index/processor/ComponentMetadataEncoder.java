@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Encode the metadata of a candidate component type: its class structure,
+ * its runtime-retained annotations (with explicitly declared attribute values
+ * only) and its annotated methods and constructors, as exposed by the class file.
+ * The runtime can build the annotation metadata of the candidate from it,
+ * without reading the class file.
+ *
+ * <p>The encoded form is a JSON object, with class references expressed as
+ * binary class names and enum constants expressed as constant names.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see org.springframework.context.index.CandidateComponentsIndex#getCandidateMetadata
+ */
+class ComponentMetadataEncoder {
+
+	private final Elements elements;
+
+	private final Types types;
+
+
+	public ComponentMetadataEncoder(ProcessingEnvironment env) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+	}
+
+
+	/**
+	 * Encode the metadata of the specified type.
+	 * @param type the candidate type
+	 * @return the encoded metadata, or {@code null} if the metadata cannot be
+	 * fully represented (e.g. due to types which cannot be resolved)
+	 */
+	public String encode(TypeElement type) {
+		try {
+			StringBuilder json = new StringBuilder();
+			writeJson(json, getTypeMetadata(type));
+			return json.toString();
+		}
+		catch (UnsupportedMetadataException ex) {
+			return null;
+		}
+	}
+
+	private Map<String, Object> getTypeMetadata(TypeElement type) {
+		Map<String, Object> metadata = new LinkedHashMap<>();
+		Set<Modifier> modifiers = type.getModifiers();
+		boolean isInterface = type.getKind().isInterface();
+		metadata.put("name", getBinaryName(type));
+		putFlag(metadata, "interface", isInterface);
+		putFlag(metadata, "annotation", type.getKind() == ElementKind.ANNOTATION_TYPE);
+		putFlag(metadata, "abstract", isInterface || modifiers.contains(Modifier.ABSTRACT));
+		putFlag(metadata, "final", modifiers.contains(Modifier.FINAL));
+		Element enclosingElement = type.getEnclosingElement();
+		if (enclosingElement instanceof TypeElement) {
+			metadata.put("enclosingClass", getBinaryName((TypeElement) enclosingElement));
+			putFlag(metadata, "independent", modifiers.contains(Modifier.STATIC));
+		}
+		if (type.getSuperclass().getKind() != TypeKind.NONE) {
+			metadata.put("superClass", getTypeName(type.getSuperclass()));
+		}
+		List<Object> interfaceNames = new ArrayList<>();
+		for (TypeMirror interfaceType : type.getInterfaces()) {
+			interfaceNames.add(getTypeName(interfaceType));
+		}
+		metadata.put("interfaces", interfaceNames);
+
+		List<Object> memberClassNames = new ArrayList<>();
+		List<Object> annotatedMethods = new ArrayList<>();
+		for (Element element : type.getEnclosedElements()) {
+			if (element.getKind().isClass() || element.getKind().isInterface()) {
+				memberClassNames.add(getBinaryName((TypeElement) element));
+			}
+			else if (element.getKind() == ElementKind.METHOD || element.getKind() == ElementKind.CONSTRUCTOR) {
+				List<Object> annotations = getAnnotations(element);
+				if (!annotations.isEmpty()) {
+					annotatedMethods.add(getMethodMetadata((ExecutableElement) element, annotations));
+				}
+			}
+		}
+		metadata.put("memberClasses", memberClassNames);
+		metadata.put("annotations", getAnnotations(type));
+		metadata.put("methods", annotatedMethods);
+		return metadata;
+	}
+
+	private Map<String, Object> getMethodMetadata(ExecutableElement method, List<Object> annotations) {
+		Map<String, Object> metadata = new LinkedHashMap<>();
+		Set<Modifier> modifiers = method.getModifiers();
+		boolean isConstructor = (method.getKind() == ElementKind.CONSTRUCTOR);
+		metadata.put("name", isConstructor ? "<init>" : method.getSimpleName().toString());
+		metadata.put("returnType", isConstructor ? "void" : getTypeName(method.getReturnType()));
+		List<Object> parameterTypes = new ArrayList<>();
+		for (VariableElement parameter : method.getParameters()) {
+			parameterTypes.add(getTypeName(parameter.asType()));
+		}
+		metadata.put("parameterTypes", parameterTypes);
+		putFlag(metadata, "abstract", modifiers.contains(Modifier.ABSTRACT));
+		putFlag(metadata, "static", modifiers.contains(Modifier.STATIC));
+		putFlag(metadata, "final", modifiers.contains(Modifier.FINAL));
+		putFlag(metadata, "private", modifiers.contains(Modifier.PRIVATE));
+		metadata.put("annotations", annotations);
+		return metadata;
+	}
+
+	private List<Object> getAnnotations(Element element) {
+		List<Object> annotations = new ArrayList<>();
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (annotation.getAnnotationType().getKind() != TypeKind.DECLARED) {
+				throw new UnsupportedMetadataException();
+			}
+			Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+			if (retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+				annotations.add(getAnnotationMetadata(annotation));
+			}
+		}
+		return annotations;
+	}
+
+	private Map<String, Object> getAnnotationMetadata(AnnotationMirror annotation) {
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+				annotation.getElementValues().entrySet()) {
+			attributes.put(entry.getKey().getSimpleName().toString(), getValue(entry.getValue()));
+		}
+		Map<String, Object> metadata = new LinkedHashMap<>();
+		metadata.put("type", getTypeName(annotation.getAnnotationType()));
+		metadata.put("attributes", attributes);
+		return metadata;
+	}
+
+	private Object getValue(AnnotationValue annotationValue) {
+		Object value = annotationValue.getValue();
+		if (value instanceof String || value instanceof Boolean || value instanceof Integer ||
+				value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return value;
+		}
+		if (value instanceof Float || value instanceof Double) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				throw new UnsupportedMetadataException();
+			}
+			return value;
+		}
+		if (value instanceof Character) {
+			return value.toString();
+		}
+		if (value instanceof TypeMirror) {
+			return getTypeName((TypeMirror) value);
+		}
+		if (value instanceof VariableElement) {
+			// Enum constant
+			return ((VariableElement) value).getSimpleName().toString();
+		}
+		if (value instanceof AnnotationMirror) {
+			return getAnnotationMetadata((AnnotationMirror) value);
+		}
+		if (value instanceof List) {
+			List<Object> values = new ArrayList<>();
+			for (Object element : (List<?>) value) {
+				values.add(getValue((AnnotationValue) element));
+			}
+			return values;
+		}
+		throw new UnsupportedMetadataException();
+	}
+
+	private String getTypeName(TypeMirror type) {
+		TypeMirror erasure = this.types.erasure(type);
+		switch (erasure.getKind()) {
+			case DECLARED:
+				return getBinaryName((TypeElement) ((DeclaredType) erasure).asElement());
+			case ARRAY:
+				return getTypeName(((ArrayType) erasure).getComponentType()) + "[]";
+			case BOOLEAN: case BYTE: case SHORT: case INT: case LONG: case CHAR: case FLOAT: case DOUBLE: case VOID:
+				return erasure.getKind().name().toLowerCase();
+			default:
+				throw new UnsupportedMetadataException();
+		}
+	}
+
+	private String getBinaryName(TypeElement type) {
+		return this.elements.getBinaryName(type).toString();
+	}
+
+	private static void putFlag(Map<String, Object> metadata, String name, boolean flag) {
+		if (flag) {
+			metadata.put(name, true);
+		}
+	}
+
+	private static void writeJson(StringBuilder json, Object value) {
+		if (value instanceof Map) {
+			json.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first) {
+					json.append(',');
+				}
+				writeJson(json, entry.getKey());
+				json.append(':');
+				writeJson(json, entry.getValue());
+				first = false;
+			}
+			json.append('}');
+		}
+		else if (value instanceof List) {
+			json.append('[');
+			boolean first = true;
+			for (Object element : (List<?>) value) {
+				if (!first) {
+					json.append(',');
+				}
+				writeJson(json, element);
+				first = false;
+			}
+			json.append(']');
+		}
+		else if (value instanceof String) {
+			json.append('"');
+			for (char ch : ((String) value).toCharArray()) {
+				if (ch == '"' || ch == '\\') {
+					json.append('\\').append(ch);
+				}
+				else if (ch < 0x20) {
+					json.append(String.format("\\u%04x", (int) ch));
+				}
+				else {
+					json.append(ch);
+				}
+			}
+			json.append('"');
+		}
+		else {
+			// Boolean or Number
+			json.append(value);
+		}
+	}
+
+
+	/**
+	 * Thrown if a part of the metadata cannot be represented.
+	 */
+	@SuppressWarnings("serial")
+	private static class UnsupportedMetadataException extends RuntimeException {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,7 +23,8 @@ import java.util.Set;
  * Represents one entry in the index. The type defines the identify of the target
  * candidate (usually fully qualified name) and the stereotypes are "markers" that can
  * be used to retrieve the candidates. A typical use case is the presence of a given
- * annotation on the candidate.
+ * annotation on the candidate. The component metadata, if any, describes the
+ * candidate's class structure and annotations for use without reading its class file.
  *
  * @author Stephane Nicoll
  * @since 5.0
@@ -34,10 +35,17 @@ class ItemMetadata {
 
 	private final Set<String> stereotypes;
 
+	private final String componentMetadata;
+
 
 	public ItemMetadata(String type, Set<String> stereotypes) {
+		this(type, stereotypes, null);
+	}
+
+	public ItemMetadata(String type, Set<String> stereotypes, String componentMetadata) {
 		this.type = type;
 		this.stereotypes = new HashSet<>(stereotypes);
+		this.componentMetadata = componentMetadata;
 	}
 
 
@@ -49,4 +57,14 @@ class ItemMetadata {
 		return this.stereotypes;
 	}
 
+	/**
+	 * Return the encoded component metadata for the candidate, or {@code null}
+	 * if not available.
+	 * @since 5.3.10
+	 * @see ComponentMetadataEncoder
+	 */
+	public String getComponentMetadata() {
+		return this.componentMetadata;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,13 +39,46 @@ abstract class PropertiesMarshaller {
 		props.store(out, null);
 	}
 
+	/**
+	 * Write the component metadata of the given items, keyed by type.
+	 * @since 5.3.10
+	 */
+	public static void writeComponentMetadata(CandidateComponentsMetadata metadata, OutputStream out)
+			throws IOException {
+
+		Properties props = new SortedProperties(true);
+		metadata.getItems().forEach(m -> {
+			if (m.getComponentMetadata() != null) {
+				props.put(m.getType(), m.getComponentMetadata());
+			}
+		});
+		props.store(out, null);
+	}
+
 	public static CandidateComponentsMetadata read(InputStream in) throws IOException {
+		return read(in, null);
+	}
+
+	/**
+	 * Read the items from the given stereotypes content, associated with
+	 * the component metadata from the given component metadata content.
+	 * @param in the stereotypes content
+	 * @param componentMetadataIn the component metadata content, or {@code null} if none
+	 * @since 5.3.10
+	 */
+	public static CandidateComponentsMetadata read(InputStream in, InputStream componentMetadataIn)
+			throws IOException {
+
 		CandidateComponentsMetadata result = new CandidateComponentsMetadata();
 		Properties props = new Properties();
 		props.load(in);
+		Properties componentMetadata = new Properties();
+		if (componentMetadataIn != null) {
+			componentMetadata.load(componentMetadataIn);
+		}
 		props.forEach((type, value) -> {
 			Set<String> candidates = new HashSet<>(Arrays.asList(((String) value).split(",")));
-			result.add(new ItemMetadata((String) type, candidates));
+			result.add(new ItemMetadata((String) type, candidates, componentMetadata.getProperty((String) type)));
 		});
 		return result;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,10 @@ package org.springframework.context.index.processor;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Path;
+import java.util.Set;
 
 import javax.annotation.ManagedBean;
 import javax.inject.Named;
@@ -33,6 +36,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
 import org.springframework.context.index.sample.AbstractController;
 import org.springframework.context.index.sample.MetaControllerIndexed;
 import org.springframework.context.index.sample.SampleComponent;
@@ -40,6 +46,7 @@ import org.springframework.context.index.sample.SampleController;
 import org.springframework.context.index.sample.SampleEmbedded;
 import org.springframework.context.index.sample.SampleMetaController;
 import org.springframework.context.index.sample.SampleMetaIndexedController;
+import org.springframework.context.index.sample.SampleMetadataComponent;
 import org.springframework.context.index.sample.SampleNonStaticEmbedded;
 import org.springframework.context.index.sample.SampleNone;
 import org.springframework.context.index.sample.SampleRepository;
@@ -58,6 +65,9 @@ import org.springframework.context.index.sample.type.SampleSpecializedRepo;
 import org.springframework.context.index.sample.type.SmartRepo;
 import org.springframework.context.index.sample.type.SpecializedRepo;
 import org.springframework.context.index.test.TestCompiler;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
 
@@ -218,6 +228,80 @@ class CandidateComponentsIndexerTests {
 		assertThat(metadata.getItems()).hasSize(0);
 	}
 
+	@Test
+	void componentMetadataMatchesClassFile() throws IOException {
+		compile(SampleMetadataComponent.class);
+		File outputLocation = this.compiler.getOutputLocation();
+		assertThat(new File(outputLocation, MetadataStore.COMPONENT_METADATA_PATH)).isFile();
+
+		try (URLClassLoader classLoader = new URLClassLoader(
+				new URL[] {outputLocation.toURI().toURL()}, getClass().getClassLoader())) {
+			CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(classLoader);
+			assertThat(index).isNotNull();
+			String type = SampleMetadataComponent.class.getName();
+			AnnotationMetadata indexed = index.getCandidateMetadata(type, classLoader);
+			AnnotationMetadata expected = new SimpleMetadataReaderFactory(classLoader)
+					.getMetadataReader(type).getAnnotationMetadata();
+			assertThat(indexed).isNotNull();
+			assertSameMetadata(indexed, expected);
+			assertThat(indexed.getMemberClassNames()).containsExactly(SampleMetadataComponent.Member.class.getName());
+			assertThat(indexed.getAnnotatedMethods(Bean.class.getName())).hasSize(1);
+		}
+	}
+
+	@Test
+	void componentMetadataForNestedCandidate() throws IOException {
+		compile(SampleEmbedded.class);
+		File outputLocation = this.compiler.getOutputLocation();
+		try (URLClassLoader classLoader = new URLClassLoader(
+				new URL[] {outputLocation.toURI().toURL()}, getClass().getClassLoader())) {
+			CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(classLoader);
+			assertThat(index).isNotNull();
+			String type = SampleEmbedded.PublicCandidate.class.getName();
+			AnnotationMetadata indexed = index.getCandidateMetadata(type, classLoader);
+			assertThat(indexed).isNotNull();
+			assertSameMetadata(indexed, new SimpleMetadataReaderFactory(classLoader)
+					.getMetadataReader(type).getAnnotationMetadata());
+		}
+	}
+
+	private void assertSameMetadata(AnnotationMetadata actual, AnnotationMetadata expected) {
+		assertThat(actual.getClassName()).isEqualTo(expected.getClassName());
+		assertThat(actual.isInterface()).isEqualTo(expected.isInterface());
+		assertThat(actual.isAnnotation()).isEqualTo(expected.isAnnotation());
+		assertThat(actual.isAbstract()).isEqualTo(expected.isAbstract());
+		assertThat(actual.isFinal()).isEqualTo(expected.isFinal());
+		assertThat(actual.isIndependent()).isEqualTo(expected.isIndependent());
+		assertThat(actual.getEnclosingClassName()).isEqualTo(expected.getEnclosingClassName());
+		assertThat(actual.getSuperClassName()).isEqualTo(expected.getSuperClassName());
+		assertThat(actual.getInterfaceNames()).containsExactly(expected.getInterfaceNames());
+		assertThat(actual.getMemberClassNames()).containsExactlyInAnyOrder(expected.getMemberClassNames());
+		assertThat(actual.getAnnotationTypes()).isEqualTo(expected.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertThat(String.valueOf(actual.getAnnotationAttributes(annotationType, true)))
+					.isEqualTo(String.valueOf(expected.getAnnotationAttributes(annotationType, true)));
+			assertThat(actual.getAnnotatedMethods(annotationType))
+					.hasSameSizeAs(expected.getAnnotatedMethods(annotationType));
+		}
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertThat(actual.hasMetaAnnotation(annotationType)).isEqualTo(expected.hasMetaAnnotation(annotationType));
+		}
+		Set<MethodMetadata> expectedMethods = expected.getAnnotatedMethods(Bean.class.getName());
+		Set<MethodMetadata> actualMethods = actual.getAnnotatedMethods(Bean.class.getName());
+		assertThat(actualMethods).hasSameSizeAs(expectedMethods);
+		if (!expectedMethods.isEmpty()) {
+			MethodMetadata expectedMethod = expectedMethods.iterator().next();
+			MethodMetadata actualMethod = actualMethods.iterator().next();
+			assertThat(actualMethod.getMethodName()).isEqualTo(expectedMethod.getMethodName());
+			assertThat(actualMethod.getReturnTypeName()).isEqualTo(expectedMethod.getReturnTypeName());
+			assertThat(actualMethod.isStatic()).isEqualTo(expectedMethod.isStatic());
+			assertThat(actualMethod.isOverridable()).isEqualTo(expectedMethod.isOverridable());
+			assertThat(actualMethod.toString()).isEqualTo(expectedMethod.toString());
+			assertThat(String.valueOf(actualMethod.getAnnotationAttributes(Bean.class.getName(), true)))
+					.isEqualTo(String.valueOf(expectedMethod.getAnnotationAttributes(Bean.class.getName(), true)));
+		}
+	}
+
 	private void testComponent(Class<?>... classes) {
 		CandidateComponentsMetadata metadata = compile(classes);
 		for (Class<?> c : classes) {
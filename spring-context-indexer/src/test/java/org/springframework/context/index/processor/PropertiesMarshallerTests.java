@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,6 +63,26 @@ public class PropertiesMarshallerTests {
 		assertThat(contents.split(System.lineSeparator())).containsExactly("com.a=type", "com.b=type", "com.c=type");
 	}
 
+	@Test
+	public void readWriteComponentMetadata() throws IOException {
+		CandidateComponentsMetadata metadata = new CandidateComponentsMetadata();
+		metadata.add(new ItemMetadata("com.foo", new HashSet<>(Arrays.asList("first")), "{\"name\":\"com.foo\"}"));
+		metadata.add(createItem("com.bar", "first"));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		PropertiesMarshaller.write(metadata, outputStream);
+		ByteArrayOutputStream componentMetadataStream = new ByteArrayOutputStream();
+		PropertiesMarshaller.writeComponentMetadata(metadata, componentMetadataStream);
+		CandidateComponentsMetadata readMetadata = PropertiesMarshaller.read(
+				new ByteArrayInputStream(outputStream.toByteArray()),
+				new ByteArrayInputStream(componentMetadataStream.toByteArray()));
+		assertThat(readMetadata.getItems()).hasSize(2);
+		for (ItemMetadata item : readMetadata.getItems()) {
+			assertThat(item.getComponentMetadata()).isEqualTo(
+					item.getType().equals("com.foo") ? "{\"name\":\"com.foo\"}" : null);
+		}
+	}
+
 	private static ItemMetadata createItem(String type, String... stereotypes) {
 		return new ItemMetadata(type, new HashSet<>(Arrays.asList(stereotypes)));
 	}
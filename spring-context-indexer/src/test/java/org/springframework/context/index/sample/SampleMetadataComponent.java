@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample;
+
+import java.io.Serializable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Role;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Test candidate for {@link Component} with metadata to be recorded in the index.
+ */
+@Component("sampleMetadata")
+@Lazy
+@DependsOn({"one", "two"})
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+@org.springframework.context.annotation.Scope(value = "prototype", proxyMode = ScopedProxyMode.TARGET_CLASS)
+@SuppressWarnings("serial")
+public class SampleMetadataComponent extends SampleComponent implements Serializable {
+
+	@Autowired
+	public SampleMetadataComponent(String name) {
+	}
+
+	@Bean(name = {"first", "second"}, autowireCandidate = false)
+	@Scope("prototype")
+	public static String sampleBean(int[] values, SampleComponent[][] components) {
+		return "";
+	}
+
+	public void nonAnnotatedMethod() {
+	}
+
+
+	public static class Member {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,11 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.lang.Nullable;
 
@@ -100,6 +104,70 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the value to which this cache maps the specified key, wrapped
+	 * in a {@link CompletableFuture}, allowing for a non-blocking lookup
+	 * in a remote or otherwise asynchronous cache backend.
+	 * <p>The returned future completes with {@code null} if the cache contains
+	 * no mapping for this key; otherwise, with the cached value (which may be
+	 * {@code null} itself) in a {@link ValueWrapper}.
+	 * <p>The default implementation delegates to {@link #get(Object)}, completing
+	 * the returned future right away. Cache providers with a non-blocking API
+	 * are encouraged to override this method.
+	 * @param key the key whose associated value is to be returned
+	 * @return a future for the value to which this cache maps the specified key
+	 * @since 5.3.10
+	 * @see #get(Object)
+	 */
+	default CompletableFuture<ValueWrapper> retrieve(Object key) {
+		try {
+			return CompletableFuture.completedFuture(get(key));
+		}
+		catch (RuntimeException ex) {
+			CompletableFuture<ValueWrapper> future = new CompletableFuture<>();
+			future.completeExceptionally(ex);
+			return future;
+		}
+	}
+
+	/**
+	 * Return the values to which this cache maps the specified keys,
+	 * in a single round trip to the underlying store if possible.
+	 * <p>The default implementation calls {@link #get(Object)} for each key.
+	 * Implementations backed by a remote store are encouraged to override
+	 * this with a native multi-get operation.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key found in this cache to its value wrapper
+	 * (never {@code null}), with keys not found in this cache not included
+	 * @since 5.3.10
+	 * @see #get(Object)
+	 * @see #putAll(Map)
+	 */
+	default Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Associate the specified values with their keys in this cache,
+	 * in a single round trip to the underlying store if possible.
+	 * <p>The default implementation calls {@link #put(Object, Object)} for
+	 * each entry, with the same (potentially deferred) registration semantics.
+	 * @param entries the keys and values to associate
+	 * @since 5.3.10
+	 * @see #put(Object, Object)
+	 * @see #getAll(Collection)
+	 */
+	default void putAll(Map<?, ?> entries) {
+		entries.forEach(this::put);
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
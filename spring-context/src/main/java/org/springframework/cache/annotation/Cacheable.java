@@ -181,4 +181,31 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * Cache the result per element of the collection argument of the method,
+	 * for methods such as {@code Map<Long, Book> findBooks(Collection<Long> ids)}
+	 * which load several entries at once.
+	 * <p>Each element of the collection is used as a cache key, looking up all of
+	 * them through {@link org.springframework.cache.Cache#getAll}. The method is
+	 * only invoked for the missing elements, with a collection of just those
+	 * elements if the invocation allows for replacing the argument (as with
+	 * Spring AOP proxies), and the entries of the returned map are stored through
+	 * {@link org.springframework.cache.Cache#putAll}. The combined entries are
+	 * returned in the order of the requested elements. This leads to a couple
+	 * of limitations:
+	 * <ol>
+	 * <li>The method needs a single {@link java.util.Collection} parameter
+	 * and a {@link java.util.Map} return type, keyed by collection element</li>
+	 * <li>{@link #key()} is not supported, and any {@link #keyGenerator()}
+	 * is not used</li>
+	 * <li>{@link #unless()} is evaluated per entry, with {@code #result}
+	 * referring to the value of the entry</li>
+	 * <li>No other cache-related operation can be combined</li>
+	 * </ol>
+	 * @since 5.3.10
+	 * @see org.springframework.cache.Cache#getAll(java.util.Collection)
+	 * @see org.springframework.cache.Cache#putAll(java.util.Map)
+	 */
+	boolean bulk() default false;
+
 }
@@ -0,0 +1,907 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ConcurrentMap} implementation bounded in size and/or entry lifetime,
+ * suitable as the store of a {@link ConcurrentMapCache}.
+ *
+ * <p>Reads are lock-free: they merely check the entry's expiration and mark it
+ * as referenced. Writes perform the maintenance work under a lock: entries
+ * exceeding the configured maximum weight are evicted in approximate LRU order
+ * (CLOCK second-chance algorithm, sparing entries referenced since the last
+ * sweep), and expired entries are removed through a hierarchical timer wheel,
+ * so that expiration costs amortized constant time without a sweeper thread.
+ * Expired entries are never returned, even if not removed yet.
+ *
+ * <p>The {@link #size()} of this map may include expired entries which have
+ * not been cleaned up yet; {@link #cleanUp()} performs pending maintenance.
+ * {@code null} keys and values are not supported.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ * @see ConcurrentMapCacheManager#setExpireAfterWrite
+ * @see ConcurrentMapCacheManager#setExpireAfterAccess
+ */
+public class BoundedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+	private static final long UNBOUNDED = -1;
+
+
+	private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>(256);
+
+	private final ConcurrentHashMap<K, PendingLoad<V>> pendingLoads = new ConcurrentHashMap<>(16);
+
+	private final long maximumWeight;
+
+	@Nullable
+	private final ToLongBiFunction<? super K, ? super V> weigher;
+
+	private final long expireAfterWriteNanos;
+
+	private final long expireAfterAccessNanos;
+
+	private final LongSupplier ticker;
+
+	private final long origin;
+
+	private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+	private final ClockQueue<K, V> clock = new ClockQueue<>();
+
+	@Nullable
+	private final TimerWheel<K, V> timerWheel;
+
+	private long totalWeight;
+
+	@Nullable
+	private volatile BiConsumer<? super K, ? super V> evictionListener;
+
+	private final List<BiConsumer<? super K, ? super V>> additionalEvictionListeners = new CopyOnWriteArrayList<>();
+
+
+	/**
+	 * Create a new map holding at most the given number of entries.
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedConcurrentMap(long maximumSize) {
+		this(maximumSize, null, null, null);
+	}
+
+	/**
+	 * Create a new map with the given bounds.
+	 * @param maximumWeight the maximum total weight of all entries, as determined
+	 * by the given weigher (or the maximum number of entries if no weigher is
+	 * specified), or {@code -1} for no size bound
+	 * @param weigher the function computing the weight of each entry, if any
+	 * @param expireAfterWrite the time after which an entry expires once it has
+	 * been created or replaced, if any
+	 * @param expireAfterAccess the time after which an entry expires once it has
+	 * last been read or written, if any
+	 */
+	public BoundedConcurrentMap(long maximumWeight, @Nullable ToLongBiFunction<? super K, ? super V> weigher,
+			@Nullable Duration expireAfterWrite, @Nullable Duration expireAfterAccess) {
+
+		this(maximumWeight, weigher, expireAfterWrite, expireAfterAccess, System::nanoTime);
+	}
+
+	BoundedConcurrentMap(long maximumWeight, @Nullable ToLongBiFunction<? super K, ? super V> weigher,
+			@Nullable Duration expireAfterWrite, @Nullable Duration expireAfterAccess, LongSupplier ticker) {
+
+		Assert.isTrue(maximumWeight >= 0 || maximumWeight == UNBOUNDED,
+				"Maximum weight must be -1 (unbounded) or not negative");
+		Assert.isTrue(expireAfterWrite == null || !expireAfterWrite.isNegative(),
+				"Expire-after-write duration must not be negative");
+		Assert.isTrue(expireAfterAccess == null || !expireAfterAccess.isNegative(),
+				"Expire-after-access duration must not be negative");
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.expireAfterWriteNanos = (expireAfterWrite != null ? expireAfterWrite.toNanos() : UNBOUNDED);
+		this.expireAfterAccessNanos = (expireAfterAccess != null ? expireAfterAccess.toNanos() : UNBOUNDED);
+		this.ticker = ticker;
+		this.origin = ticker.getAsLong();
+		this.timerWheel = (expireAfterWrite != null || expireAfterAccess != null ? new TimerWheel<>() : null);
+	}
+
+
+	/**
+	 * Specify a callback for entries removed because of the size bound
+	 * or their expiration, not including explicit removals.
+	 * <p>The callback is invoked while holding the maintenance lock and
+	 * should therefore return quickly.
+	 */
+	public void setEvictionListener(@Nullable BiConsumer<? super K, ? super V> evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+
+	/**
+	 * Add a callback for entries removed because of the size bound or their
+	 * expiration, in addition to the {@link #setEvictionListener main listener}.
+	 * <p>Useful for observers such as metrics which should not replace a
+	 * listener registered by the creator of this map.
+	 */
+	public void addEvictionListener(BiConsumer<? super K, ? super V> evictionListener) {
+		Assert.notNull(evictionListener, "Eviction listener must not be null");
+		this.additionalEvictionListeners.add(evictionListener);
+	}
+
+	/**
+	 * Return the maximum total weight of all entries, or {@code -1} if unbounded.
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Return the total weight of the entries currently held.
+	 */
+	public long getTotalWeight() {
+		this.maintenanceLock.lock();
+		try {
+			return this.totalWeight;
+		}
+		finally {
+			this.maintenanceLock.unlock();
+		}
+	}
+
+	/**
+	 * Perform any pending maintenance, in particular the removal of
+	 * expired entries. Called as part of regular write operations.
+	 */
+	public void cleanUp() {
+		this.maintenanceLock.lock();
+		try {
+			expireEntries(now());
+		}
+		finally {
+			this.maintenanceLock.unlock();
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public V get(Object key) {
+		Node<K, V> node = this.data.get(key);
+		if (node == null) {
+			return null;
+		}
+		long now = now();
+		if (isExpired(node, now)) {
+			expire(node);
+			return null;
+		}
+		afterRead(node, now);
+		return node.value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		Node<K, V> node = this.data.get(key);
+		return (node != null && !isExpired(node, now()));
+	}
+
+	@Override
+	@Nullable
+	public V put(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		Node<K, V> node = newNode(key, value);
+		Node<K, V> previous = this.data.put(key, node);
+		afterWrite(node, previous);
+		return (previous != null && !isExpired(previous, node.writeTime) ? previous.value : null);
+	}
+
+	@Override
+	@Nullable
+	public V putIfAbsent(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		Node<K, V> node = newNode(key, value);
+		Object[] replaced = new Object[1];
+		Node<K, V> current = this.data.compute(key, (k, existing) -> {
+			if (existing == null || isExpired(existing, node.writeTime)) {
+				replaced[0] = existing;
+				return node;
+			}
+			return existing;
+		});
+		if (current != node) {
+			afterRead(current, node.writeTime);
+			return current.value;
+		}
+		afterWrite(node, castNode(replaced[0]));
+		return null;
+	}
+
+	/**
+	 * Return the value for the given key, computing it through the given
+	 * function if absent or expired.
+	 * <p>In contrast to {@link ConcurrentHashMap#computeIfAbsent}, the function
+	 * is invoked without holding any lock on the map, so it may access this map
+	 * itself. Concurrent invocations for the same key wait for the loading thread;
+	 * if its function fails or returns {@code null}, they try on their own.
+	 * @throws IllegalStateException in case of a recursive computation for the same key
+	 */
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Assert.notNull(key, "Key must not be null");
+		while (true) {
+			Node<K, V> existing = this.data.get(key);
+			if (existing != null) {
+				long now = now();
+				if (!isExpired(existing, now)) {
+					afterRead(existing, now);
+					return existing.value;
+				}
+			}
+			PendingLoad<V> load = new PendingLoad<>();
+			PendingLoad<V> pending = this.pendingLoads.putIfAbsent(key, load);
+			if (pending == null) {
+				try {
+					return load(key, mappingFunction, load);
+				}
+				finally {
+					this.pendingLoads.remove(key, load);
+				}
+			}
+			Assert.state(pending.owner != Thread.currentThread(), () -> "Recursive computation for key: " + key);
+			V value = pending.join();
+			if (value != null) {
+				return value;
+			}
+		}
+	}
+
+	@Nullable
+	private V load(K key, Function<? super K, ? extends V> mappingFunction, PendingLoad<V> load) {
+		V value = null;
+		try {
+			// Check again: another load may have completed in the meantime
+			Node<K, V> existing = this.data.get(key);
+			long now = now();
+			if (existing != null && !isExpired(existing, now)) {
+				afterRead(existing, now);
+				value = existing.value;
+			}
+			else {
+				value = mappingFunction.apply(key);
+				if (value != null) {
+					V previous = putIfAbsent(key, value);
+					if (previous != null) {
+						value = previous;
+					}
+				}
+			}
+			return value;
+		}
+		finally {
+			load.complete(value);
+		}
+	}
+
+	@Override
+	@Nullable
+	public V remove(Object key) {
+		Node<K, V> node = this.data.remove(key);
+		if (node == null) {
+			return null;
+		}
+		afterRemoval(node);
+		return (!isExpired(node, now()) ? node.value : null);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		Object[] removed = new Object[1];
+		this.data.computeIfPresent(castKey(key), (k, node) -> {
+			if (!isExpired(node, now()) && node.value.equals(value)) {
+				removed[0] = node;
+				return null;
+			}
+			return node;
+		});
+		Node<K, V> node = castNode(removed[0]);
+		if (node != null) {
+			afterRemoval(node);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Assert.notNull(newValue, "Value must not be null");
+		Node<K, V> newNode = newNode(key, newValue);
+		Object[] replaced = new Object[1];
+		this.data.computeIfPresent(key, (k, node) -> {
+			if (!isExpired(node, newNode.writeTime) && node.value.equals(oldValue)) {
+				replaced[0] = node;
+				return newNode;
+			}
+			return node;
+		});
+		Node<K, V> replacedNode = castNode(replaced[0]);
+		if (replacedNode != null) {
+			afterWrite(newNode, replacedNode);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	@Nullable
+	public V replace(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		Node<K, V> newNode = newNode(key, value);
+		Object[] replaced = new Object[1];
+		this.data.computeIfPresent(key, (k, node) -> {
+			if (!isExpired(node, newNode.writeTime)) {
+				replaced[0] = node;
+				return newNode;
+			}
+			return node;
+		});
+		Node<K, V> replacedNode = castNode(replaced[0]);
+		if (replacedNode != null) {
+			afterWrite(newNode, replacedNode);
+			return replacedNode.value;
+		}
+		return null;
+	}
+
+	@Override
+	public void clear() {
+		this.maintenanceLock.lock();
+		try {
+			for (Node<K, V> node : this.data.values()) {
+				if (this.data.remove(node.key, node)) {
+					node.retired = true;
+					unlink(node);
+				}
+			}
+		}
+		finally {
+			this.maintenanceLock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.data.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.data.isEmpty();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new EntrySet();
+	}
+
+
+	private Node<K, V> newNode(K key, V value) {
+		Assert.notNull(key, "Key must not be null");
+		long weight = (this.weigher != null ? this.weigher.applyAsLong(key, value) : 1);
+		Assert.isTrue(weight >= 0, "Weight must not be negative");
+		return new Node<>(key, value, weight, now());
+	}
+
+	private long now() {
+		return this.ticker.getAsLong() - this.origin;
+	}
+
+	private boolean isExpired(Node<K, V> node, long now) {
+		return (now - expirationTime(node) >= 0);
+	}
+
+	private long expirationTime(Node<K, V> node) {
+		long expirationTime = Long.MAX_VALUE;
+		if (this.expireAfterWriteNanos != UNBOUNDED) {
+			expirationTime = saturatedAdd(node.writeTime, this.expireAfterWriteNanos);
+		}
+		if (this.expireAfterAccessNanos != UNBOUNDED) {
+			expirationTime = Math.min(expirationTime, saturatedAdd(node.accessTime, this.expireAfterAccessNanos));
+		}
+		return expirationTime;
+	}
+
+	private void afterRead(Node<K, V> node, long now) {
+		if (this.expireAfterAccessNanos != UNBOUNDED) {
+			node.accessTime = now;
+		}
+		if (!node.referenced) {
+			node.referenced = true;
+		}
+		if (this.timerWheel != null && this.timerWheel.isDue(now) && this.maintenanceLock.tryLock()) {
+			try {
+				expireEntries(now);
+			}
+			finally {
+				this.maintenanceLock.unlock();
+			}
+		}
+	}
+
+	private void afterWrite(@Nullable Node<K, V> node, @Nullable Node<K, V> replaced) {
+		if (replaced != null) {
+			replaced.retired = true;
+		}
+		this.maintenanceLock.lock();
+		try {
+			long now = now();
+			if (replaced != null) {
+				unlink(replaced);
+				if (isExpired(replaced, now)) {
+					notifyEviction(replaced);
+				}
+			}
+			if (node != null && !node.retired) {
+				this.clock.add(node);
+				this.totalWeight += node.weight;
+				if (this.timerWheel != null) {
+					if (isExpired(node, now)) {
+						evict(node);
+					}
+					else {
+						this.timerWheel.schedule(node, expirationTime(node));
+					}
+				}
+			}
+			expireEntries(now);
+			evictEntries();
+		}
+		finally {
+			this.maintenanceLock.unlock();
+		}
+	}
+
+	private void afterRemoval(Node<K, V> node) {
+		node.retired = true;
+		this.maintenanceLock.lock();
+		try {
+			unlink(node);
+		}
+		finally {
+			this.maintenanceLock.unlock();
+		}
+	}
+
+	private void expire(Node<K, V> node) {
+		if (this.data.remove(node.key, node)) {
+			node.retired = true;
+			this.maintenanceLock.lock();
+			try {
+				unlink(node);
+				notifyEviction(node);
+			}
+			finally {
+				this.maintenanceLock.unlock();
+			}
+		}
+	}
+
+	private void expireEntries(long now) {
+		if (this.timerWheel != null) {
+			this.timerWheel.advance(now, node -> {
+				long expirationTime = expirationTime(node);
+				if (now - expirationTime >= 0) {
+					evict(node);
+				}
+				else {
+					// Accessed since scheduled: reschedule for the actual expiration time
+					this.timerWheel.schedule(node, expirationTime);
+				}
+			});
+		}
+	}
+
+	private void evictEntries() {
+		if (this.maximumWeight == UNBOUNDED) {
+			return;
+		}
+		// Bound the number of second chances in case of concurrent reads
+		int secondChances = this.data.size() + 1;
+		while (this.totalWeight > this.maximumWeight) {
+			Node<K, V> candidate = this.clock.peek();
+			if (candidate == null) {
+				break;
+			}
+			if (candidate.referenced && secondChances-- > 0) {
+				// Second chance for an entry accessed since the last sweep
+				candidate.referenced = false;
+				this.clock.moveToBack(candidate);
+			}
+			else {
+				evict(candidate);
+			}
+		}
+	}
+
+	private void evict(Node<K, V> node) {
+		unlink(node);
+		if (this.data.remove(node.key, node)) {
+			node.retired = true;
+			notifyEviction(node);
+		}
+	}
+
+	private void unlink(Node<K, V> node) {
+		if (this.clock.contains(node)) {
+			this.clock.remove(node);
+			this.totalWeight -= node.weight;
+		}
+		if (this.timerWheel != null) {
+			TimerWheel.unschedule(node);
+		}
+	}
+
+	private void notifyEviction(Node<K, V> node) {
+		BiConsumer<? super K, ? super V> listener = this.evictionListener;
+		if (listener != null) {
+			listener.accept(node.key, node.value);
+		}
+		for (BiConsumer<? super K, ? super V> additionalListener : this.additionalEvictionListeners) {
+			additionalListener.accept(node.key, node.value);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private Node<K, V> castNode(@Nullable Object node) {
+		return (Node<K, V>) node;
+	}
+
+	@SuppressWarnings("unchecked")
+	private K castKey(Object key) {
+		return (K) key;
+	}
+
+	private static long saturatedAdd(long time, long duration) {
+		long result = time + duration;
+		return (((time ^ result) & (duration ^ result)) < 0 ? Long.MAX_VALUE : result);
+	}
+
+
+	/**
+	 * Map entry with its bookkeeping state. Replacing the value of a key
+	 * creates a new node, retiring the previous one.
+	 */
+	private static final class Node<K, V> {
+
+		final K key;
+
+		final V value;
+
+		final long weight;
+
+		final long writeTime;
+
+		volatile long accessTime;
+
+		volatile boolean referenced;
+
+		volatile boolean retired;
+
+		// Guarded by the maintenance lock
+
+		@Nullable
+		Node<K, V> previous;
+
+		@Nullable
+		Node<K, V> next;
+
+		@Nullable
+		Node<K, V> previousInTimer;
+
+		@Nullable
+		Node<K, V> nextInTimer;
+
+		Node(@Nullable K key, @Nullable V value, long weight, long writeTime) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = writeTime;
+			this.accessTime = writeTime;
+		}
+	}
+
+
+	/**
+	 * Value being computed by {@link #computeIfAbsent}, allowing concurrent
+	 * callers for the same key to wait for it. Completed with {@code null}
+	 * if the computation failed or did not produce a value.
+	 */
+	@SuppressWarnings("serial")
+	private static final class PendingLoad<V> extends CompletableFuture<V> {
+
+		final Thread owner = Thread.currentThread();
+	}
+
+
+	/**
+	 * Queue of linked entries swept by the CLOCK eviction algorithm.
+	 */
+	private static final class ClockQueue<K, V> {
+
+		@Nullable
+		private Node<K, V> first;
+
+		@Nullable
+		private Node<K, V> last;
+
+		boolean contains(Node<K, V> node) {
+			return (node.previous != null || node.next != null || node == this.first);
+		}
+
+		@Nullable
+		Node<K, V> peek() {
+			return this.first;
+		}
+
+		void add(Node<K, V> node) {
+			Node<K, V> last = this.last;
+			this.last = node;
+			if (last == null) {
+				this.first = node;
+			}
+			else {
+				last.next = node;
+				node.previous = last;
+			}
+		}
+
+		void remove(Node<K, V> node) {
+			Node<K, V> previous = node.previous;
+			Node<K, V> next = node.next;
+			if (previous == null) {
+				this.first = next;
+			}
+			else {
+				previous.next = next;
+				node.previous = null;
+			}
+			if (next == null) {
+				this.last = previous;
+			}
+			else {
+				next.previous = previous;
+				node.next = null;
+			}
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (node != this.last) {
+				remove(node);
+				add(node);
+			}
+		}
+	}
+
+
+	/**
+	 * Hierarchical timer wheel: each level is an array of buckets covering
+	 * a time span, with entries cascading to finer levels as time advances.
+	 */
+	private static final class TimerWheel<K, V> {
+
+		private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+		// Powers of two roughly matching 1 second, 1 minute, 1 hour, 1 day and 4 days
+		private static final long[] SPANS = {1L << 30, 1L << 36, 1L << 42, 1L << 47, 1L << 49, 1L << 49};
+
+		private static final int[] SHIFT = {30, 36, 42, 47, 49};
+
+		private final Node<K, V>[][] wheel;
+
+		private volatile long time;
+
+		@SuppressWarnings("unchecked")
+		TimerWheel() {
+			this.wheel = new Node[BUCKETS.length][];
+			for (int i = 0; i < this.wheel.length; i++) {
+				this.wheel[i] = new Node[BUCKETS[i]];
+				for (int j = 0; j < this.wheel[i].length; j++) {
+					Node<K, V> sentinel = new Node<>(null, null, 0, 0);
+					sentinel.previousInTimer = sentinel;
+					sentinel.nextInTimer = sentinel;
+					this.wheel[i][j] = sentinel;
+				}
+			}
+		}
+
+		/**
+		 * Determine whether at least one tick of the finest level has passed.
+		 */
+		boolean isDue(long now) {
+			return ((now >>> SHIFT[0]) != (this.time >>> SHIFT[0]));
+		}
+
+		void schedule(Node<K, V> node, long expirationTime) {
+			unschedule(node);
+			Node<K, V> sentinel = findBucket(expirationTime);
+			Node<K, V> last = sentinel.previousInTimer;
+			node.previousInTimer = last;
+			node.nextInTimer = sentinel;
+			last.nextInTimer = node;
+			sentinel.previousInTimer = node;
+		}
+
+		static <K, V> void unschedule(Node<K, V> node) {
+			Node<K, V> previous = node.previousInTimer;
+			Node<K, V> next = node.nextInTimer;
+			if (previous != null && next != null) {
+				previous.nextInTimer = next;
+				next.previousInTimer = previous;
+				node.previousInTimer = null;
+				node.nextInTimer = null;
+			}
+		}
+
+		/**
+		 * Advance the wheel to the given time, handing each entry of an elapsed
+		 * bucket to the given processor (which either evicts or reschedules it).
+		 */
+		void advance(long now, Consumer<Node<K, V>> processor) {
+			long previousTime = this.time;
+			if (now - previousTime <= 0) {
+				return;
+			}
+			this.time = now;
+			for (int i = 0; i < SHIFT.length; i++) {
+				long previousTicks = (previousTime >>> SHIFT[i]);
+				long currentTicks = (now >>> SHIFT[i]);
+				if (currentTicks - previousTicks <= 0) {
+					break;
+				}
+				expireBuckets(i, previousTicks, currentTicks - previousTicks, processor);
+			}
+		}
+
+		private void expireBuckets(int level, long previousTicks, long delta,
+				Consumer<Node<K, V>> processor) {
+
+			Node<K, V>[] buckets = this.wheel[level];
+			int mask = buckets.length - 1;
+			int steps = (int) Math.min(delta + 1, buckets.length);
+			int start = (int) (previousTicks & mask);
+			for (int i = start; i < start + steps; i++) {
+				Node<K, V> sentinel = buckets[i & mask];
+				Node<K, V> node = sentinel.nextInTimer;
+				sentinel.previousInTimer = sentinel;
+				sentinel.nextInTimer = sentinel;
+				while (node != sentinel) {
+					Node<K, V> next = node.nextInTimer;
+					node.previousInTimer = null;
+					node.nextInTimer = null;
+					processor.accept(node);
+					node = next;
+				}
+			}
+		}
+
+		private Node<K, V> findBucket(long expirationTime) {
+			long duration = expirationTime - this.time;
+			int length = this.wheel.length - 1;
+			for (int i = 0; i < length; i++) {
+				if (duration < SPANS[i + 1]) {
+					long ticks = (expirationTime >>> SHIFT[i]);
+					int index = (int) (ticks & (this.wheel[i].length - 1));
+					return this.wheel[i][index];
+				}
+			}
+			return this.wheel[length][0];
+		}
+	}
+
+
+	/**
+	 * Entry view over the non-expired entries of this map.
+	 */
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			Iterator<Node<K, V>> nodes = data.values().iterator();
+			return new Iterator<Entry<K, V>>() {
+				@Nullable
+				private Node<K, V> next = advance();
+				@Nullable
+				private Node<K, V> current;
+
+				@Nullable
+				private Node<K, V> advance() {
+					long now = now();
+					while (nodes.hasNext()) {
+						Node<K, V> node = nodes.next();
+						if (!isExpired(node, now)) {
+							return node;
+						}
+					}
+					return null;
+				}
+				@Override
+				public boolean hasNext() {
+					return (this.next != null);
+				}
+				@Override
+				public Entry<K, V> next() {
+					Node<K, V> node = this.next;
+					if (node == null) {
+						throw new NoSuchElementException();
+					}
+					this.current = node;
+					this.next = advance();
+					return new SimpleImmutableEntry<>(node.key, node.value);
+				}
+				@Override
+				public void remove() {
+					Assert.state(this.current != null, "No current entry");
+					BoundedConcurrentMap.this.remove(this.current.key, this.current.value);
+					this.current = null;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return BoundedConcurrentMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			V value = get(entry.getKey());
+			return (value != null && value.equals(entry.getValue()));
+		}
+
+		@Override
+		public void clear() {
+			BoundedConcurrentMap.this.clear();
+		}
+	}
+
+}
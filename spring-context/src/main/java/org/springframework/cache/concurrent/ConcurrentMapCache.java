@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,12 @@ import org.springframework.util.Assert;
  * them with a predefined internal object. This behavior can be changed through the
  * {@link #ConcurrentMapCache(String, ConcurrentMap, boolean)} constructor.
  *
+ * <p>The cache is unbounded by default. A {@link BoundedConcurrentMap} may be
+ * used as the store in order to limit the number of entries and their lifetime,
+ * and hit/miss/load statistics may be recorded through a
+ * {@link ConcurrentMapCacheStatistics} instance; both are typically configured
+ * through {@link ConcurrentMapCacheManager}.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @author Stephane Nicoll
@@ -53,6 +59,9 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 	@Nullable
 	private final SerializationDelegate serialization;
 
+	@Nullable
+	private final ConcurrentMapCacheStatistics statistics;
+
 
 	/**
 	 * Create a new ConcurrentMapCache with the specified name.
@@ -100,12 +109,36 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 	protected ConcurrentMapCache(String name, ConcurrentMap<Object, Object> store,
 			boolean allowNullValues, @Nullable SerializationDelegate serialization) {
 
+		this(name, store, allowNullValues, serialization, null);
+	}
+
+	/**
+	 * Create a new ConcurrentMapCache with the specified name and the
+	 * given internal {@link ConcurrentMap} to use, recording statistics
+	 * into the given {@link ConcurrentMapCacheStatistics} instance.
+	 * <p>The given store is used as-is: evictions from a {@link BoundedConcurrentMap}
+	 * are only recorded if its creator registers a corresponding eviction listener,
+	 * as done by {@link ConcurrentMapCacheManager}.
+	 * @param name the name of the cache
+	 * @param store the ConcurrentMap to use as an internal store
+	 * @param allowNullValues whether to allow {@code null} values
+	 * (adapting them to an internal null holder value)
+	 * @param serialization the {@link SerializationDelegate} to use
+	 * to serialize cache entry or {@code null} to store the reference
+	 * @param statistics the statistics to record into,
+	 * or {@code null} for not recording any statistics
+	 * @since 5.3.10
+	 */
+	protected ConcurrentMapCache(String name, ConcurrentMap<Object, Object> store, boolean allowNullValues,
+			@Nullable SerializationDelegate serialization, @Nullable ConcurrentMapCacheStatistics statistics) {
+
 		super(allowNullValues);
 		Assert.notNull(name, "Name must not be null");
 		Assert.notNull(store, "Store must not be null");
 		this.name = name;
 		this.store = store;
 		this.serialization = serialization;
+		this.statistics = statistics;
 	}
 
 
@@ -119,6 +152,17 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 		return (this.serialization != null);
 	}
 
+	/**
+	 * Return the statistics recorded for this cache, if enabled.
+	 * @return the statistics, or {@code null} if not recording any
+	 * @since 5.3.10
+	 * @see ConcurrentMapCacheManager#setRecordStats
+	 */
+	@Nullable
+	public final ConcurrentMapCacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
 	@Override
 	public final String getName() {
 		return this.name;
@@ -132,21 +176,54 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 	@Override
 	@Nullable
 	protected Object lookup(Object key) {
-		return this.store.get(key);
+		Object storeValue = this.store.get(key);
+		if (this.statistics != null) {
+			if (storeValue != null) {
+				this.statistics.recordHit();
+			}
+			else {
+				this.statistics.recordMiss();
+			}
+		}
+		return storeValue;
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	@Nullable
 	public <T> T get(Object key, Callable<T> valueLoader) {
-		return (T) fromStoreValue(this.store.computeIfAbsent(key, k -> {
+		ConcurrentMapCacheStatistics statistics = this.statistics;
+		if (statistics == null) {
+			return (T) fromStoreValue(this.store.computeIfAbsent(key, k -> {
+				try {
+					return toStoreValue(valueLoader.call());
+				}
+				catch (Throwable ex) {
+					throw new ValueRetrievalException(key, valueLoader, ex);
+				}
+			}));
+		}
+		boolean[] loaded = new boolean[1];
+		Object storeValue = this.store.computeIfAbsent(key, k -> {
+			loaded[0] = true;
+			long startTime = System.nanoTime();
 			try {
-				return toStoreValue(valueLoader.call());
+				Object value = toStoreValue(valueLoader.call());
+				statistics.recordLoadSuccess(System.nanoTime() - startTime);
+				return value;
 			}
 			catch (Throwable ex) {
+				statistics.recordLoadFailure(System.nanoTime() - startTime);
 				throw new ValueRetrievalException(key, valueLoader, ex);
 			}
-		}));
+		});
+		if (loaded[0]) {
+			statistics.recordMiss();
+		}
+		else {
+			statistics.recordHit();
+		}
+		return (T) fromStoreValue(storeValue);
 	}
 
 	@Override
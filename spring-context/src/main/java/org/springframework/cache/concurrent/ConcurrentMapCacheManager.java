@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,18 +16,22 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongBiFunction;
 
 import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,9 +39,11 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
- * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
+ * <p>Caches are unbounded by default. A maximum size or weight as well as
+ * expire-after-write and expire-after-access durations may be configured, in
+ * which case each cache is backed by a {@link BoundedConcurrentMap}; statistics
+ * may be recorded through {@link #setRecordStats}. Beyond that, this is by no
+ * means a sophisticated CacheManager. For advanced local caching needs, consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager},
  * {@link org.springframework.cache.ehcache.EhCacheCacheManager},
  * {@link org.springframework.cache.caffeine.CaffeineCacheManager}.
@@ -59,6 +65,21 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	@Nullable
 	private SerializationDelegate serialization;
 
+	private long maximumSize = -1;
+
+	private long maximumWeight = -1;
+
+	@Nullable
+	private ToLongBiFunction<Object, Object> weigher;
+
+	@Nullable
+	private Duration expireAfterWrite;
+
+	@Nullable
+	private Duration expireAfterAccess;
+
+	private boolean recordStats = false;
+
 
 	/**
 	 * Construct a dynamic ConcurrentMapCacheManager,
@@ -146,6 +167,154 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries in each cache, evicting entries
+	 * which have not been used recently once the limit has been reached.
+	 * <p>Default is -1, not limiting the number of entries. Ignored if a
+	 * {@link #setMaximumWeight "maximumWeight"} has been specified.
+	 * <p>Note: A change of the maximum size will reset all existing caches,
+	 * if any, to reconfigure them with the new bound.
+	 * @since 5.3.10
+	 * @see BoundedConcurrentMap
+	 */
+	public void setMaximumSize(long maximumSize) {
+		Assert.isTrue(maximumSize >= -1, "Maximum size must be -1 (unbounded) or not negative");
+		if (maximumSize != this.maximumSize) {
+			this.maximumSize = maximumSize;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the maximum number of entries in each cache, or -1 if unbounded.
+	 * @since 5.3.10
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Specify the maximum total weight of the entries in each cache, as
+	 * determined by the {@link #setWeigher "weigher"}, evicting entries which
+	 * have not been used recently once the limit has been reached.
+	 * <p>Default is -1, not limiting the total weight. Takes precedence
+	 * over {@link #setMaximumSize "maximumSize"} if both are specified.
+	 * <p>Note: A change of the maximum weight will reset all existing caches,
+	 * if any, to reconfigure them with the new bound.
+	 * @since 5.3.10
+	 * @see #setWeigher
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		Assert.isTrue(maximumWeight >= -1, "Maximum weight must be -1 (unbounded) or not negative");
+		if (maximumWeight != this.maximumWeight) {
+			this.maximumWeight = maximumWeight;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the maximum total weight of the entries in each cache,
+	 * or -1 if unbounded.
+	 * @since 5.3.10
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Specify the function computing the weight of each cache entry,
+	 * to be used in combination with {@link #setMaximumWeight "maximumWeight"}
+	 * (each entry having a weight of 1 otherwise).
+	 * <p>The function receives the key and the internal store value, i.e.
+	 * the {@link org.springframework.cache.support.NullValue} holder for
+	 * {@code null} values and the serialized form in store-by-value mode.
+	 * <p>Note: A change of the weigher will reset all existing caches,
+	 * if any, to reconfigure them with the new weigher.
+	 * @since 5.3.10
+	 */
+	public void setWeigher(@Nullable ToLongBiFunction<Object, Object> weigher) {
+		if (weigher != this.weigher) {
+			this.weigher = weigher;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the time after which an entry expires once it has been
+	 * created or replaced.
+	 * <p>Default is none. Expired entries are removed as part of the regular
+	 * cache operations, with no background thread involved.
+	 * <p>Note: A change of the expiration will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration.
+	 * @since 5.3.10
+	 */
+	public void setExpireAfterWrite(@Nullable Duration expireAfterWrite) {
+		if (!ObjectUtils.nullSafeEquals(expireAfterWrite, this.expireAfterWrite)) {
+			this.expireAfterWrite = expireAfterWrite;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the time after which an entry expires once it has been
+	 * created or replaced, if any.
+	 * @since 5.3.10
+	 */
+	@Nullable
+	public Duration getExpireAfterWrite() {
+		return this.expireAfterWrite;
+	}
+
+	/**
+	 * Specify the time after which an entry expires once it has last
+	 * been read or written.
+	 * <p>Default is none. Expired entries are removed as part of the regular
+	 * cache operations, with no background thread involved.
+	 * <p>Note: A change of the expiration will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration.
+	 * @since 5.3.10
+	 */
+	public void setExpireAfterAccess(@Nullable Duration expireAfterAccess) {
+		if (!ObjectUtils.nullSafeEquals(expireAfterAccess, this.expireAfterAccess)) {
+			this.expireAfterAccess = expireAfterAccess;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the time after which an entry expires once it has last
+	 * been read or written, if any.
+	 * @since 5.3.10
+	 */
+	@Nullable
+	public Duration getExpireAfterAccess() {
+		return this.expireAfterAccess;
+	}
+
+	/**
+	 * Specify whether to record hit, miss, load and eviction statistics
+	 * for all caches in this cache manager.
+	 * <p>Default is "false". The statistics of each cache are available
+	 * through {@link ConcurrentMapCache#getStatistics()}.
+	 * <p>Note: A change of the statistics setting will reset all existing caches,
+	 * if any, to reconfigure them with the new statistics requirement.
+	 * @since 5.3.10
+	 */
+	public void setRecordStats(boolean recordStats) {
+		if (recordStats != this.recordStats) {
+			this.recordStats = recordStats;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return whether this cache manager records statistics for all of its caches.
+	 * @since 5.3.10
+	 */
+	public boolean isRecordStats() {
+		return this.recordStats;
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -190,7 +359,27 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 */
 	protected Cache createConcurrentMapCache(String name) {
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
-		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256), isAllowNullValues(), actualSerialization);
+		ConcurrentMapCacheStatistics statistics = (isRecordStats() ? new ConcurrentMapCacheStatistics() : null);
+		ConcurrentMap<Object, Object> store = createStore();
+		if (statistics != null && store instanceof BoundedConcurrentMap) {
+			((BoundedConcurrentMap<Object, Object>) store).setEvictionListener((key, value) -> statistics.recordEviction());
+		}
+		return new ConcurrentMapCache(name, store, isAllowNullValues(), actualSerialization, statistics);
+	}
+
+	/**
+	 * Create the internal store for a new ConcurrentMapCache instance:
+	 * a {@link BoundedConcurrentMap} if any bound has been specified,
+	 * a plain {@link ConcurrentHashMap} otherwise.
+	 * @since 5.3.10
+	 */
+	protected ConcurrentMap<Object, Object> createStore() {
+		long bound = (this.maximumWeight != -1 ? this.maximumWeight : this.maximumSize);
+		if (bound == -1 && this.expireAfterWrite == null && this.expireAfterAccess == null) {
+			return new ConcurrentHashMap<>(256);
+		}
+		return new BoundedConcurrentMap<>(bound, (this.maximumWeight != -1 ? this.weigher : null),
+				this.expireAfterWrite, this.expireAfterAccess);
 	}
 
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, load and eviction counters of a {@link ConcurrentMapCache},
+ * updated concurrently as the cache is being used.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see ConcurrentMapCache#getStatistics()
+ * @see ConcurrentMapCacheManager#setRecordStats
+ */
+public final class ConcurrentMapCacheStatistics {
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder loadSuccessCount = new LongAdder();
+
+	private final LongAdder loadFailureCount = new LongAdder();
+
+	private final LongAdder totalLoadTime = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	void recordHit() {
+		this.hitCount.increment();
+	}
+
+	void recordMiss() {
+		this.missCount.increment();
+	}
+
+	void recordLoadSuccess(long loadTime) {
+		this.loadSuccessCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+
+	void recordLoadFailure(long loadTime) {
+		this.loadFailureCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+
+	void recordEviction() {
+		this.evictionCount.increment();
+	}
+
+
+	/**
+	 * Return the number of lookups which found a cached value.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups which did not find a cached value.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the ratio of hits among all lookups, or {@code 1.0}
+	 * if there have not been any lookups yet.
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long lookups = hits + getMissCount();
+		return (lookups == 0 ? 1.0 : (double) hits / lookups);
+	}
+
+	/**
+	 * Return the number of values successfully loaded through a
+	 * {@link ConcurrentMapCache#get(Object, java.util.concurrent.Callable) value loader}.
+	 */
+	public long getLoadSuccessCount() {
+		return this.loadSuccessCount.sum();
+	}
+
+	/**
+	 * Return the number of value loader invocations which threw an exception.
+	 */
+	public long getLoadFailureCount() {
+		return this.loadFailureCount.sum();
+	}
+
+	/**
+	 * Return the total time spent in value loaders, in nanoseconds.
+	 */
+	public long getTotalLoadTime() {
+		return this.totalLoadTime.sum();
+	}
+
+	/**
+	 * Return the average time spent per value loader invocation,
+	 * in nanoseconds.
+	 */
+	public double getAverageLoadPenalty() {
+		long loads = getLoadSuccessCount() + getLoadFailureCount();
+		return (loads == 0 ? 0.0 : (double) getTotalLoadTime() / loads);
+	}
+
+	/**
+	 * Return the number of entries evicted because of the size bound
+	 * or their expiration.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+
+	@Override
+	public String toString() {
+		return "ConcurrentMapCacheStatistics: hits=" + getHitCount() + ", misses=" + getMissCount() +
+				", loadSuccesses=" + getLoadSuccessCount() + ", loadFailures=" + getLoadFailureCount() +
+				", totalLoadTime=" + getTotalLoadTime() + "ns, evictions=" + getEvictionCount();
+	}
+
+}
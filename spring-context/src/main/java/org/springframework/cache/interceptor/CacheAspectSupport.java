@@ -18,17 +18,31 @@ package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -41,9 +55,17 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.CacheMetricsRecorder;
 import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.ResolvableType;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -69,6 +91,15 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>Concurrent cache misses for the same key may optionally be coalesced into a
+ * single method invocation, see {@link #setCoalesceConcurrentMisses}.
+ *
+ * <p>For methods returning a {@link CompletableFuture} or a reactive type
+ * supported by the {@link ReactiveAdapterRegistry} (with Reactor on the
+ * classpath), the eventual value may optionally be cached rather than the
+ * returned handle, with the elements of a multi-value publisher being cached
+ * as a {@link List}, see {@link #setCacheAsyncValues}.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -83,11 +114,15 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
-	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
+	private CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
 
 	@Nullable
 	private CacheOperationSource cacheOperationSource;
@@ -100,6 +135,27 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	@Nullable
+	private BeanFactoryResolver beanFactoryResolver;
+
+	private boolean coalesceConcurrentMisses = false;
+
+	private boolean cacheAsyncValues = false;
+
+	private boolean compileExpressions = false;
+
+	@Nullable
+	private Duration coalescingTimeout;
+
+	@Nullable
+	private CacheMetricsRecorder metricsRecorder;
+
+	private final Map<Object, InFlightInvocation> inFlightInvocations = new ConcurrentHashMap<>(64);
+
+	@Nullable
+	private final ReactiveCachingHandler reactiveCachingHandler =
+			(reactorPresent ? new ReactiveCachingHandler() : null);
+
 	private boolean initialized = false;
 
 
@@ -194,6 +250,130 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Specify whether concurrent cache misses for the same key(s) of a
+	 * {@code @Cacheable} method without {@code sync=true} should share a single
+	 * invocation of the underlying method, with the other callers waiting for
+	 * its result instead of invoking the method themselves.
+	 * <p>Default is "false". In contrast to {@code sync=true}, this works with any
+	 * {@link Cache} implementation and also for operations with several caches,
+	 * several {@code @Cacheable} declarations, or {@code condition} and
+	 * {@code unless} attributes. Methods with {@code @CachePut} operations are
+	 * always invoked. If the shared invocation fails, its exception is rethrown
+	 * to all waiting callers.
+	 * @since 5.3.10
+	 * @see #setCoalescingTimeout
+	 */
+	public void setCoalesceConcurrentMisses(boolean coalesceConcurrentMisses) {
+		this.coalesceConcurrentMisses = coalesceConcurrentMisses;
+	}
+
+	/**
+	 * Return whether concurrent cache misses for the same key(s) are coalesced.
+	 * @since 5.3.10
+	 */
+	public boolean isCoalesceConcurrentMisses() {
+		return this.coalesceConcurrentMisses;
+	}
+
+	/**
+	 * Specify the maximum time to wait for a shared invocation when
+	 * {@link #setCoalesceConcurrentMisses coalescing concurrent misses},
+	 * after which a waiting caller invokes the underlying method itself.
+	 * <p>Default is none, waiting for the shared invocation to complete.
+	 * @since 5.3.10
+	 */
+	public void setCoalescingTimeout(@Nullable Duration coalescingTimeout) {
+		Assert.isTrue(coalescingTimeout == null || !coalescingTimeout.isNegative(),
+				"Coalescing timeout must not be negative");
+		this.coalescingTimeout = coalescingTimeout;
+	}
+
+	/**
+	 * Return the maximum time to wait for a shared invocation, if any.
+	 * @since 5.3.10
+	 */
+	@Nullable
+	public Duration getCoalescingTimeout() {
+		return this.coalescingTimeout;
+	}
+
+	/**
+	 * Specify whether to compile the SpEL expressions of cache operations
+	 * ({@code key}, {@code condition} and {@code unless}) to bytecode right
+	 * away, see {@link SpelCompilerMode#IMMEDIATE}.
+	 * <p>Default is "false", compiling expressions only if requested through the
+	 * {@code spring.expression.compiler.mode} property. An expression whose
+	 * compiled form fails at runtime, e.g. for an argument of a different type
+	 * than before, falls back to interpretation from then on.
+	 * @since 5.3.10
+	 */
+	public void setCompileExpressions(boolean compileExpressions) {
+		this.evaluator = (compileExpressions ?
+				new CacheOperationExpressionEvaluator(SpelCompilerMode.IMMEDIATE) :
+				new CacheOperationExpressionEvaluator());
+		this.compileExpressions = compileExpressions;
+	}
+
+	/**
+	 * Return whether the SpEL expressions of cache operations are compiled right away.
+	 * @since 5.3.10
+	 */
+	public boolean isCompileExpressions() {
+		return this.compileExpressions;
+	}
+
+	/**
+	 * Specify whether to cache the eventual value of methods returning a
+	 * {@link CompletableFuture} or a reactive type such as {@code Mono} or
+	 * {@code Flux}, rather than the returned handle itself.
+	 * <p>Default is "false", caching the returned handle like any other value.
+	 * Switch this to "true" for looking up cached values through
+	 * {@link Cache#retrieve(Object)}, storing the value once the returned future
+	 * or publisher completes, and sharing the in-flight invocation between
+	 * concurrent misses for the same key(s). A failed invocation is not cached.
+	 * Late evictions are processed once the value is available as well.
+	 * <p>The elements of multi-value publishers such as {@code Flux} are collected
+	 * into a {@link List}, which is the value cached and exposed as {@code #result}
+	 * to {@code unless} expressions, and replayed as a publisher on a cache hit.
+	 * Operations with {@code sync=true} are not affected by this setting.
+	 * @since 5.3.10
+	 */
+	public void setCacheAsyncValues(boolean cacheAsyncValues) {
+		this.cacheAsyncValues = cacheAsyncValues;
+	}
+
+	/**
+	 * Return whether the eventual value of asynchronous methods is cached.
+	 * @since 5.3.10
+	 */
+	public boolean isCacheAsyncValues() {
+		return this.cacheAsyncValues;
+	}
+
+	/**
+	 * Set a recorder for the time spent generating cache keys and evaluating
+	 * {@code condition}/{@code unless} expressions.
+	 * <p>Default is none. Cache hits and misses are recorded by the caches
+	 * themselves, e.g. through an
+	 * {@link org.springframework.cache.support.InstrumentedCacheManager} which may
+	 * share the same recorder.
+	 * @since 5.3.10
+	 * @see org.springframework.cache.support.InstrumentedCacheManager#setMetricsRecorder
+	 */
+	public void setMetricsRecorder(@Nullable CacheMetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/**
+	 * Return the recorder for cache operation timings, if any.
+	 * @since 5.3.10
+	 */
+	@Nullable
+	public CacheMetricsRecorder getMetricsRecorder() {
+		return this.metricsRecorder;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -202,6 +382,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		this.beanFactoryResolver = new BeanFactoryResolver(beanFactory);
 	}
 
 
@@ -372,6 +553,21 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		// Special handling of asynchronous return types, caching the eventual value
+		if (this.cacheAsyncValues && !contexts.isSynchronized()) {
+			Class<?> returnType = method.getReturnType();
+			if (CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class)) {
+				return executeAsync(invoker, method, contexts, returnValue -> (returnValue != null ?
+						((CompletionStage<?>) returnValue).toCompletableFuture() : CompletableFuture.completedFuture(null)));
+			}
+			if (this.reactiveCachingHandler != null) {
+				Object result = this.reactiveCachingHandler.executeReactive(invoker, method, contexts);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
@@ -393,6 +589,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 		}
 
+		// Special handling of bulk invocation
+		if (contexts.isBulk()) {
+			return executeBulk(invoker, method, contexts.get(CacheableOperation.class).iterator().next());
+		}
 
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
@@ -408,6 +608,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 					CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
 		}
 
+		if (cacheHit == null && this.coalesceConcurrentMisses && !cachePutRequests.isEmpty() &&
+				contexts.get(CachePutOperation.class).isEmpty()) {
+			return executeCoalesced(invoker, method, contexts, cachePutRequests);
+		}
+
 		Object cacheValue;
 		Object returnValue;
 
@@ -436,6 +641,404 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return returnValue;
 	}
 
+	/**
+	 * Look up the elements of the collection argument as individual keys, invoking
+	 * the method for the missing elements only and caching the returned entries.
+	 * <p>The method is invoked with a copy of the original arguments, requiring a
+	 * {@link CacheOperationInvoker.ArgumentsInvoker}; for any other invoker, the
+	 * method is invoked with all requested elements in case of a partial miss.
+	 * @return the combined entries, in the order of the requested elements
+	 */
+	@Nullable
+	private Object executeBulk(CacheOperationInvoker invoker, Method method, CacheOperationContext context) {
+		if (!isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+			// No caching required, only call the underlying method
+			return invokeOperation(invoker);
+		}
+		Object[] args = context.getArgs();
+		int index = getBulkParameterIndex(method);
+		Collection<?> elements = (Collection<?>) args[index];
+		if (CollectionUtils.isEmpty(elements)) {
+			return invokeOperation(invoker);
+		}
+
+		// Look up all elements, moving on to the next cache for any missing ones
+		Map<Object, Cache.ValueWrapper> cacheHits = new HashMap<>(elements.size());
+		Set<Object> missingElements = new LinkedHashSet<>(elements);
+		for (Cache cache : context.getCaches()) {
+			Map<Object, Cache.ValueWrapper> found = doGetAll(cache, missingElements);
+			cacheHits.putAll(found);
+			missingElements.removeAll(found.keySet());
+			if (missingElements.isEmpty()) {
+				break;
+			}
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Bulk lookup for " + elements.size() + " element(s) in cache(s) " +
+					context.getCacheNames() + " missed " + missingElements.size());
+		}
+
+		Map<?, ?> loadedEntries = null;
+		if (!missingElements.isEmpty()) {
+			if (missingElements.size() < elements.size() &&
+					invoker instanceof CacheOperationInvoker.ArgumentsInvoker) {
+				// Invoke the method for the missing elements only
+				Collection<Object> missingArg = CollectionFactory.createCollection(
+						method.getParameterTypes()[index], getBulkElementType(method, index), missingElements.size());
+				missingArg.addAll(missingElements);
+				Object[] missingArgs = args.clone();
+				missingArgs[index] = missingArg;
+				CacheOperationInvoker.ArgumentsInvoker argumentsInvoker = (CacheOperationInvoker.ArgumentsInvoker) invoker;
+				loadedEntries = (Map<?, ?>) invokeOperation(() -> argumentsInvoker.invoke(missingArgs));
+			}
+			else {
+				loadedEntries = (Map<?, ?>) invokeOperation(invoker);
+			}
+			if (loadedEntries != null) {
+				Map<Object, Object> cacheEntries = new LinkedHashMap<>(loadedEntries.size());
+				loadedEntries.forEach((element, value) -> {
+					if (context.canPutToCache(value)) {
+						cacheEntries.put(element, value);
+					}
+				});
+				if (!cacheEntries.isEmpty()) {
+					for (Cache cache : context.getCaches()) {
+						doPutAll(cache, cacheEntries);
+					}
+				}
+			}
+		}
+
+		Map<Object, Object> result = CollectionFactory.createMap(method.getReturnType(), elements.size());
+		for (Object element : elements) {
+			if (loadedEntries != null && loadedEntries.containsKey(element)) {
+				result.put(element, loadedEntries.get(element));
+			}
+			else {
+				Cache.ValueWrapper cacheHit = cacheHits.get(element);
+				if (cacheHit != null) {
+					result.put(element, cacheHit.get());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Determine the element type of the bulk {@link Collection} parameter, if declared.
+	 */
+	@Nullable
+	private static Class<?> getBulkElementType(Method method, int index) {
+		return ResolvableType.forMethodParameter(method, index).asCollection().resolveGeneric();
+	}
+
+	/**
+	 * Determine the index of the single {@link Collection} parameter of the
+	 * given method, or {@code -1} if it has no such parameter or several.
+	 */
+	private static int getBulkParameterIndex(Method method) {
+		int index = -1;
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+				if (index != -1) {
+					return -1;
+				}
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Invoke the method for a cache miss, sharing the invocation with concurrent
+	 * callers missing the same keys in the same caches.
+	 */
+	@Nullable
+	private Object executeCoalesced(CacheOperationInvoker invoker, Method method,
+			CacheOperationContexts contexts, List<CachePutRequest> cachePutRequests) {
+
+		Object invocationKey = createInvocationKey(method, cachePutRequests);
+		Object returnValue;
+		InFlightInvocation invocation = new InFlightInvocation();
+		InFlightInvocation inFlight = this.inFlightInvocations.putIfAbsent(invocationKey, invocation);
+		if (inFlight == null) {
+			try {
+				returnValue = invokeOperation(invoker);
+				Object cacheValue = unwrapReturnValue(returnValue);
+				for (CachePutRequest cachePutRequest : cachePutRequests) {
+					cachePutRequest.apply(cacheValue);
+				}
+				invocation.complete(returnValue);
+			}
+			catch (Throwable ex) {
+				invocation.completeExceptionally(ex);
+				throw ex;
+			}
+			finally {
+				this.inFlightInvocations.remove(invocationKey, invocation);
+			}
+		}
+		else {
+			returnValue = awaitCoalescedInvocation(invoker, inFlight, cachePutRequests);
+		}
+
+		// Process any late evictions
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, unwrapReturnValue(returnValue));
+
+		return returnValue;
+	}
+
+	/**
+	 * Create a key identifying invocations of the given method which
+	 * miss the same keys in the same caches.
+	 */
+	private Object createInvocationKey(Method method, List<CachePutRequest> cachePutRequests) {
+		List<Object> invocationKey = new ArrayList<>(cachePutRequests.size() * 2 + 1);
+		invocationKey.add(method);
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			invocationKey.add(cachePutRequest.context.getCacheNames());
+			invocationKey.add(cachePutRequest.key);
+		}
+		return invocationKey;
+	}
+
+	@Nullable
+	private Object awaitCoalescedInvocation(CacheOperationInvoker invoker,
+			InFlightInvocation inFlight, List<CachePutRequest> cachePutRequests) {
+
+		try {
+			if (inFlight.isOwnedByCurrentThread()) {
+				// Recursive invocation for the same key(s): waiting would never return
+				if (logger.isTraceEnabled()) {
+					logger.trace("Recursive invocation for key(s) " + cachePutRequests +
+							" - invoking method without coalescing");
+				}
+			}
+			else if (this.coalescingTimeout != null) {
+				return inFlight.get(this.coalescingTimeout.toNanos(), TimeUnit.NANOSECONDS);
+			}
+			else {
+				return inFlight.get();
+			}
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Unexpected exception from shared invocation", cause);
+		}
+		catch (TimeoutException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Timeout waiting for concurrent invocation after " + this.coalescingTimeout +
+						" - invoking method again for key(s) " + cachePutRequests);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		// No shared result available: invoke the method ourselves
+		Object returnValue = invokeOperation(invoker);
+		Object cacheValue = unwrapReturnValue(returnValue);
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			cachePutRequest.apply(cacheValue);
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Execute the cache operations for a method with an asynchronous return type,
+	 * looking up and storing the eventual value rather than the returned handle.
+	 * Concurrent misses for the same keys share the in-flight invocation; if it
+	 * fails, the keys are evicted and the failure is propagated to all callers.
+	 * <p>If the method itself throws an exception rather than returning a failed
+	 * future, and the cache lookup completed right away, the exception is rethrown
+	 * (wrapped in a {@link CacheOperationInvoker.ThrowableWrapper}) instead.
+	 * @param valueFutureAdapter adapts the method's return value to a future
+	 * for its eventual (cacheable) value
+	 * @return a future for the cached or newly computed value
+	 */
+	private CompletableFuture<Object> executeAsync(CacheOperationInvoker invoker, Method method,
+			CacheOperationContexts contexts, Function<Object, CompletableFuture<?>> valueFutureAdapter) {
+
+		// Process any early evictions
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+				CacheOperationExpressionEvaluator.NO_RESULT);
+
+		CompletableFuture<Object> result = lookupAndInvokeAsync(invoker, method, contexts, valueFutureAdapter);
+		if (result.isCompletedExceptionally()) {
+			try {
+				result.join();
+			}
+			catch (CompletionException ex) {
+				if (ex.getCause() instanceof CacheOperationInvoker.ThrowableWrapper) {
+					// Synchronous failure of the method itself: rethrow like for any other method
+					throw (CacheOperationInvoker.ThrowableWrapper) ex.getCause();
+				}
+			}
+		}
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		result.whenComplete((value, ex) -> {
+			if (ex == null) {
+				future.complete(value);
+			}
+			else {
+				future.completeExceptionally(unwrapAsyncFailure(ex));
+			}
+		});
+		return future;
+	}
+
+	private CompletableFuture<Object> lookupAndInvokeAsync(CacheOperationInvoker invoker, Method method,
+			CacheOperationContexts contexts, Function<Object, CompletableFuture<?>> valueFutureAdapter) {
+
+		Collection<CacheOperationContext> cacheableContexts = contexts.get(CacheableOperation.class);
+		return findCachedItemAsync(cacheableContexts).thenCompose(cacheHit -> {
+			if (cacheHit != null && !hasCachePut(contexts)) {
+				return CompletableFuture.completedFuture(cacheHit.get());
+			}
+			// Collect puts from any @Cacheable miss, if no cached item is found
+			List<CachePutRequest> cachePutRequests = new ArrayList<>();
+			if (cacheHit == null) {
+				collectPutRequests(cacheableContexts, CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+			}
+			return invokeAsync(invoker, method, cachePutRequests, valueFutureAdapter);
+		}).thenApply(cacheValue -> {
+			// Process any explicit @CachePuts
+			List<CachePutRequest> cachePutRequests = new ArrayList<>();
+			collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
+			for (CachePutRequest cachePutRequest : cachePutRequests) {
+				cachePutRequest.apply(cacheValue);
+			}
+			// Process any late evictions
+			processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+			return cacheValue;
+		});
+	}
+
+	private CompletableFuture<Cache.ValueWrapper> findCachedItemAsync(Collection<CacheOperationContext> contexts) {
+		List<Cache> caches = new ArrayList<>();
+		List<Object> keys = new ArrayList<>();
+		Object result = CacheOperationExpressionEvaluator.NO_RESULT;
+		for (CacheOperationContext context : contexts) {
+			if (isConditionPassing(context, result)) {
+				Object key = generateKey(context, result);
+				for (Cache cache : context.getCaches()) {
+					caches.add(cache);
+					keys.add(key);
+				}
+			}
+		}
+		return findInCachesAsync(caches, keys, 0);
+	}
+
+	private CompletableFuture<Cache.ValueWrapper> findInCachesAsync(List<Cache> caches, List<Object> keys, int index) {
+		if (index == caches.size()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		Cache cache = caches.get(index);
+		Object key = keys.get(index);
+		return doRetrieve(cache, key).thenCompose(wrapper -> {
+			if (wrapper != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Cache entry for key '" + key + "' found in cache '" + cache.getName() + "'");
+				}
+				return CompletableFuture.completedFuture(wrapper);
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("No cache entry for key '" + key + "' in cache '" + cache.getName() + "'");
+			}
+			return findInCachesAsync(caches, keys, index + 1);
+		});
+	}
+
+	private CompletableFuture<Object> invokeAsync(CacheOperationInvoker invoker, Method method,
+			List<CachePutRequest> cachePutRequests, Function<Object, CompletableFuture<?>> valueFutureAdapter) {
+
+		if (cachePutRequests.isEmpty()) {
+			// Nothing to cache from a @Cacheable miss: no invocation to share
+			return valueFutureAdapter.apply(invokeOperation(invoker)).thenApply(value -> value);
+		}
+
+		Object invocationKey = createInvocationKey(method, cachePutRequests);
+		InFlightInvocation invocation = new InFlightInvocation();
+		InFlightInvocation inFlight = this.inFlightInvocations.putIfAbsent(invocationKey, invocation);
+		if (inFlight != null) {
+			if (!inFlight.isOwnedByCurrentThread()) {
+				return inFlight;
+			}
+			// Recursive invocation for the same key(s): the shared future would wait for itself
+			return valueFutureAdapter.apply(invokeOperation(invoker)).thenApply(value -> value);
+		}
+
+		Object returnValue;
+		try {
+			returnValue = invokeOperation(invoker);
+		}
+		catch (Throwable ex) {
+			this.inFlightInvocations.remove(invocationKey, invocation);
+			invocation.completeExceptionally(unwrapAsyncFailure(ex));
+			throw ex;
+		}
+		// From here on, the same thread may share the invocation like any other caller
+		invocation.releaseOwner();
+
+		try {
+			valueFutureAdapter.apply(returnValue).whenComplete((value, ex) -> {
+				try {
+					if (ex == null) {
+						for (CachePutRequest cachePutRequest : cachePutRequests) {
+							cachePutRequest.apply(value);
+						}
+					}
+					else {
+						for (CachePutRequest cachePutRequest : cachePutRequests) {
+							cachePutRequest.evict();
+						}
+					}
+				}
+				catch (Throwable cacheEx) {
+					ex = cacheEx;
+				}
+				finally {
+					this.inFlightInvocations.remove(invocationKey, invocation);
+				}
+				if (ex == null) {
+					invocation.complete(value);
+				}
+				else {
+					invocation.completeExceptionally(ex);
+				}
+			});
+		}
+		catch (Throwable ex) {
+			this.inFlightInvocations.remove(invocationKey, invocation);
+			invocation.completeExceptionally(ex);
+		}
+		return invocation;
+	}
+
+	/**
+	 * Determine the exception to expose from a failed asynchronous operation,
+	 * stripping {@link CompletionException} and
+	 * {@link CacheOperationInvoker.ThrowableWrapper} from the original failure.
+	 */
+	private static Throwable unwrapAsyncFailure(Throwable ex) {
+		Throwable failure = ex;
+		if (failure instanceof CompletionException && failure.getCause() != null) {
+			failure = failure.getCause();
+		}
+		if (failure instanceof CacheOperationInvoker.ThrowableWrapper) {
+			failure = ((CacheOperationInvoker.ThrowableWrapper) failure).getOriginal();
+		}
+		return failure;
+	}
+
 	@Nullable
 	private Object handleSynchronizedGet(CacheOperationInvoker invoker, Object key, Cache cache) {
 		InvocationAwareResult invocationResult = new InvocationAwareResult();
@@ -607,6 +1210,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final boolean sync;
 
+		private final boolean bulk;
+
 		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
 				Object[] args, Object target, Class<?> targetClass) {
 
@@ -615,6 +1220,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
 			}
 			this.sync = determineSyncFlag(method);
+			this.bulk = determineBulkFlag(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -626,6 +1232,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.sync;
 		}
 
+		public boolean isBulk() {
+			return this.bulk;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -661,6 +1271,59 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			return false;
 		}
+
+		private boolean determineBulkFlag(Method method) {
+			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
+			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
+				return false;
+			}
+			boolean bulkEnabled = false;
+			for (CacheOperationContext cacheOperationContext : cacheOperationContexts) {
+				if (((CacheableOperation) cacheOperationContext.getOperation()).isBulk()) {
+					bulkEnabled = true;
+					break;
+				}
+			}
+			if (bulkEnabled) {
+				if (this.contexts.size() > 1 || cacheOperationContexts.size() > 1) {
+					throw new IllegalStateException(
+							"@Cacheable(bulk=true) cannot be combined with other cache operations on '" + method + "'");
+				}
+				CacheableOperation operation = (CacheableOperation) cacheOperationContexts.get(0).getOperation();
+				if (this.sync) {
+					throw new IllegalStateException(
+							"@Cacheable(bulk=true) cannot be combined with sync=true on '" + operation + "'");
+				}
+				if (StringUtils.hasText(operation.getKey())) {
+					throw new IllegalStateException(
+							"@Cacheable(bulk=true) does not support key attribute on '" + operation + "'");
+				}
+				int index = getBulkParameterIndex(method);
+				if (index == -1 || !Map.class.isAssignableFrom(method.getReturnType())) {
+					throw new IllegalStateException("@Cacheable(bulk=true) requires a single Collection " +
+							"parameter and a Map return type on '" + method + "'");
+				}
+				Class<?> parameterType = method.getParameterTypes()[index];
+				try {
+					CollectionFactory.createCollection(parameterType, getBulkElementType(method, index), 0);
+				}
+				catch (IllegalArgumentException ex) {
+					throw new IllegalStateException("@Cacheable(bulk=true) cannot create a Collection of type [" +
+							parameterType.getName() + "] for the missing elements on '" + method + "': " +
+							"declare a Collection, List or Set parameter or a type with a default constructor", ex);
+				}
+				try {
+					CollectionFactory.createMap(method.getReturnType(), 0);
+				}
+				catch (IllegalArgumentException ex) {
+					throw new IllegalStateException("@Cacheable(bulk=true) cannot create a Map of type [" +
+							method.getReturnType().getName() + "] for the combined entries on '" + method + "': " +
+							"declare a Map return type or a type with a default constructor", ex);
+				}
+				return true;
+			}
+			return false;
+		}
 	}
 
 
@@ -684,6 +1347,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		@Nullable
+		private volatile ParameterNameDiscoverer parameterNameDiscoverer;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
@@ -717,6 +1383,12 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		@Nullable
 		private Boolean conditionPassing;
 
+		@Nullable
+		private EvaluationContext evaluationContext;
+
+		@Nullable
+		private Object evaluationResult;
+
 		public CacheOperationContext(CacheOperationMetadata metadata, Object[] args, Object target) {
 			this.metadata = metadata;
 			this.args = extractArgs(metadata.method, args);
@@ -759,9 +1431,13 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		protected boolean isConditionPassing(@Nullable Object result) {
 			if (this.conditionPassing == null) {
 				if (StringUtils.hasText(this.metadata.operation.getCondition())) {
+					long start = (metricsRecorder != null ? System.nanoTime() : 0);
 					EvaluationContext evaluationContext = createEvaluationContext(result);
 					this.conditionPassing = evaluator.condition(this.metadata.operation.getCondition(),
 							this.metadata.methodKey, evaluationContext);
+					if (metricsRecorder != null) {
+						metricsRecorder.recordConditionEvaluation(System.nanoTime() - start);
+					}
 				}
 				else {
 					this.conditionPassing = true;
@@ -779,8 +1455,13 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				unless = ((CachePutOperation) this.metadata.operation).getUnless();
 			}
 			if (StringUtils.hasText(unless)) {
+				long start = (metricsRecorder != null ? System.nanoTime() : 0);
 				EvaluationContext evaluationContext = createEvaluationContext(value);
-				return !evaluator.unless(unless, this.metadata.methodKey, evaluationContext);
+				boolean vetoed = evaluator.unless(unless, this.metadata.methodKey, evaluationContext);
+				if (metricsRecorder != null) {
+					metricsRecorder.recordConditionEvaluation(System.nanoTime() - start);
+				}
+				return !vetoed;
 			}
 			return true;
 		}
@@ -790,6 +1471,20 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		 */
 		@Nullable
 		protected Object generateKey(@Nullable Object result) {
+			if (metricsRecorder == null) {
+				return doGenerateKey(result);
+			}
+			long start = System.nanoTime();
+			try {
+				return doGenerateKey(result);
+			}
+			finally {
+				metricsRecorder.recordKeyGeneration(System.nanoTime() - start);
+			}
+		}
+
+		@Nullable
+		private Object doGenerateKey(@Nullable Object result) {
 			if (StringUtils.hasText(this.metadata.operation.getKey())) {
 				EvaluationContext evaluationContext = createEvaluationContext(result);
 				return evaluator.key(this.metadata.operation.getKey(), this.metadata.methodKey, evaluationContext);
@@ -798,8 +1493,22 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 		private EvaluationContext createEvaluationContext(@Nullable Object result) {
-			return evaluator.createEvaluationContext(this.caches, this.metadata.method, this.args,
-					this.target, this.metadata.targetClass, this.metadata.targetMethod, result, beanFactory);
+			// Reuse the context for subsequent expressions against the same result
+			EvaluationContext evaluationContext = this.evaluationContext;
+			if (evaluationContext != null && this.evaluationResult == result) {
+				return evaluationContext;
+			}
+			ParameterNameDiscoverer parameterNameDiscoverer = this.metadata.parameterNameDiscoverer;
+			if (parameterNameDiscoverer == null) {
+				parameterNameDiscoverer = evaluator.resolveParameterNames(this.metadata.targetMethod);
+				this.metadata.parameterNameDiscoverer = parameterNameDiscoverer;
+			}
+			evaluationContext = evaluator.createEvaluationContext(this.caches, this.metadata.method, this.args,
+					this.target, this.metadata.targetClass, this.metadata.targetMethod,
+					parameterNameDiscoverer, result, beanFactoryResolver);
+			this.evaluationContext = evaluationContext;
+			this.evaluationResult = result;
+			return evaluationContext;
 		}
 
 		protected Collection<? extends Cache> getCaches() {
@@ -838,6 +1547,17 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				}
 			}
 		}
+
+		public void evict() {
+			for (Cache cache : this.context.getCaches()) {
+				doEvict(cache, this.key, false);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return this.context.getCacheNames() + "=" + this.key;
+		}
 	}
 
 
@@ -885,6 +1605,40 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 	}
 
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime:
+	 * caches the value emitted by a reactive return type rather than
+	 * the publisher itself, collecting multi-value publishers into a list.
+	 */
+	private class ReactiveCachingHandler {
+
+		private final ReactiveAdapterRegistry registry = ReactiveAdapterRegistry.getSharedInstance();
+
+		@Nullable
+		@SuppressWarnings("unchecked")
+		public Object executeReactive(CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+			ReactiveAdapter adapter = this.registry.getAdapter(method.getReturnType());
+			if (adapter == null || adapter.isNoValue()) {
+				return null;
+			}
+			// Process any early evictions right away, like for a non-reactive method
+			processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+					CacheOperationExpressionEvaluator.NO_RESULT);
+			if (adapter.isMultiValue()) {
+				// Cache the collected elements, replaying them from the list on a cache hit
+				return adapter.fromPublisher(Flux.defer(() -> Mono.fromFuture(lookupAndInvokeAsync(invoker, method, contexts,
+								returnValue -> Flux.from(adapter.toPublisher(returnValue)).collectList().toFuture())))
+						.onErrorMap(CacheAspectSupport::unwrapAsyncFailure)
+						.flatMapIterable(value -> (value instanceof Iterable ?
+								(Iterable<Object>) value : Collections.singletonList(value))));
+			}
+			return adapter.fromPublisher(Mono.defer(() -> Mono.fromFuture(lookupAndInvokeAsync(invoker, method, contexts,
+					returnValue -> Mono.from(adapter.toPublisher(returnValue)).toFuture())))
+					.onErrorMap(CacheAspectSupport::unwrapAsyncFailure));
+		}
+	}
+
+
 	/**
 	 * Internal holder class for recording that a cache method was invoked.
 	 */
@@ -894,4 +1648,24 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	}
 
+
+	/**
+	 * A method invocation shared between callers missing the same key(s),
+	 * remembering the thread that performs it in order to detect recursion.
+	 */
+	@SuppressWarnings("serial")
+	private static final class InFlightInvocation extends CompletableFuture<Object> {
+
+		@Nullable
+		private volatile Thread owner = Thread.currentThread();
+
+		boolean isOwnedByCurrentThread() {
+			return (this.owner == Thread.currentThread());
+		}
+
+		void releaseOwner() {
+			this.owner = null;
+		}
+	}
+
 }
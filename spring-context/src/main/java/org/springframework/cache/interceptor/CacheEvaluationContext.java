@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,17 @@
 package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.MethodFilter;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 import org.springframework.lang.Nullable;
 
 /**
@@ -44,7 +50,12 @@ import org.springframework.lang.Nullable;
  */
 class CacheEvaluationContext extends MethodBasedEvaluationContext {
 
-	private final Set<String> unavailableVariables = new HashSet<>(1);
+	@Nullable
+	private Set<String> unavailableVariables;
+
+	private boolean sharedPropertyAccessors;
+
+	private boolean sharedMethodResolvers;
 
 
 	CacheEvaluationContext(Object rootObject, Method method, Object[] arguments,
@@ -53,6 +64,23 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		super(rootObject, method, arguments, parameterNameDiscoverer);
 	}
 
+	/**
+	 * Create a new context with the given property accessors and method resolvers,
+	 * typically unmodifiable lists shared with other contexts. The lists are only
+	 * copied once this context gets modified.
+	 * @since 5.3.10
+	 */
+	CacheEvaluationContext(Object rootObject, Method method, Object[] arguments,
+			ParameterNameDiscoverer parameterNameDiscoverer,
+			List<PropertyAccessor> propertyAccessors, List<MethodResolver> methodResolvers) {
+
+		super(rootObject, method, arguments, parameterNameDiscoverer);
+		setPropertyAccessors(propertyAccessors);
+		setMethodResolvers(methodResolvers);
+		this.sharedPropertyAccessors = true;
+		this.sharedMethodResolvers = true;
+	}
+
 
 	/**
 	 * Add the specified variable name as unavailable for that context.
@@ -62,17 +90,87 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 	 * trying to use that variable should therefore fail to evaluate.
 	 */
 	public void addUnavailableVariable(String name) {
+		if (this.unavailableVariables == null) {
+			this.unavailableVariables = new HashSet<>(1);
+		}
 		this.unavailableVariables.add(name);
 	}
 
 
+	@Override
+	public void setPropertyAccessors(List<PropertyAccessor> propertyAccessors) {
+		super.setPropertyAccessors(propertyAccessors);
+		this.sharedPropertyAccessors = false;
+	}
+
+	@Override
+	public void addPropertyAccessor(PropertyAccessor accessor) {
+		copySharedPropertyAccessors();
+		super.addPropertyAccessor(accessor);
+	}
+
+	@Override
+	public boolean removePropertyAccessor(PropertyAccessor accessor) {
+		copySharedPropertyAccessors();
+		return super.removePropertyAccessor(accessor);
+	}
+
+	@Override
+	public void setMethodResolvers(List<MethodResolver> methodResolvers) {
+		super.setMethodResolvers(methodResolvers);
+		this.sharedMethodResolvers = false;
+	}
+
+	@Override
+	public void addMethodResolver(MethodResolver resolver) {
+		copySharedMethodResolvers();
+		super.addMethodResolver(resolver);
+	}
+
+	@Override
+	public boolean removeMethodResolver(MethodResolver methodResolver) {
+		copySharedMethodResolvers();
+		return super.removeMethodResolver(methodResolver);
+	}
+
+	@Override
+	public void registerMethodFilter(Class<?> type, MethodFilter filter) throws IllegalStateException {
+		if (this.sharedMethodResolvers) {
+			// Register the filter with a resolver of this context only
+			List<MethodResolver> methodResolvers = new ArrayList<>(getMethodResolvers());
+			methodResolvers.replaceAll(resolver -> (resolver instanceof ReflectiveMethodResolver ?
+					new ReflectiveMethodResolver() : resolver));
+			setMethodResolvers(methodResolvers);
+		}
+		for (MethodResolver resolver : getMethodResolvers()) {
+			if (resolver instanceof ReflectiveMethodResolver) {
+				((ReflectiveMethodResolver) resolver).registerMethodFilter(type, filter);
+				return;
+			}
+		}
+		throw new IllegalStateException(
+				"Method filter cannot be set as the reflective method resolver is not in use");
+	}
+
+	private void copySharedPropertyAccessors() {
+		if (this.sharedPropertyAccessors) {
+			setPropertyAccessors(new ArrayList<>(getPropertyAccessors()));
+		}
+	}
+
+	private void copySharedMethodResolvers() {
+		if (this.sharedMethodResolvers) {
+			setMethodResolvers(new ArrayList<>(getMethodResolvers()));
+		}
+	}
+
 	/**
 	 * Load the param information only when needed.
 	 */
 	@Override
 	@Nullable
 	public Object lookupVariable(String name) {
-		if (this.unavailableVariables.contains(name)) {
+		if (this.unavailableVariables != null && this.unavailableVariables.contains(name)) {
 			throw new VariableNotAvailableException(name);
 		}
 		return super.lookupVariable(name);
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import org.springframework.aop.ProxyMethodInvocation;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -49,14 +50,8 @@ public class CacheInterceptor extends CacheAspectSupport implements MethodInterc
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 		Method method = invocation.getMethod();
 
-		CacheOperationInvoker aopAllianceInvoker = () -> {
-			try {
-				return invocation.proceed();
-			}
-			catch (Throwable ex) {
-				throw new CacheOperationInvoker.ThrowableWrapper(ex);
-			}
-		};
+		CacheOperationInvoker aopAllianceInvoker = (invocation instanceof ProxyMethodInvocation ?
+				new ProxyMethodInvocationInvoker((ProxyMethodInvocation) invocation) : () -> proceed(invocation));
 
 		Object target = invocation.getThis();
 		Assert.state(target != null, "Target must not be null");
@@ -68,4 +63,40 @@ public class CacheInterceptor extends CacheAspectSupport implements MethodInterc
 		}
 	}
 
+	@Nullable
+	private static Object proceed(MethodInvocation invocation) {
+		try {
+			return invocation.proceed();
+		}
+		catch (Throwable ex) {
+			throw new CacheOperationInvoker.ThrowableWrapper(ex);
+		}
+	}
+
+
+	/**
+	 * Invoker for a {@link ProxyMethodInvocation}, proceeding with a clone of
+	 * the invocation when to be invoked with other arguments.
+	 */
+	private static class ProxyMethodInvocationInvoker implements CacheOperationInvoker.ArgumentsInvoker {
+
+		private final ProxyMethodInvocation invocation;
+
+		ProxyMethodInvocationInvoker(ProxyMethodInvocation invocation) {
+			this.invocation = invocation;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke() {
+			return proceed(this.invocation);
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object[] args) {
+			return proceed(this.invocation.invocableClone(args));
+		}
+	}
+
 }
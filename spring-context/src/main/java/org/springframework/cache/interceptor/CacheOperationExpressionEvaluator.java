@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
 
 package org.springframework.cache.interceptor;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -26,8 +29,20 @@ import org.springframework.cache.Cache;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.BeanResolver;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.lang.Nullable;
 
 /**
@@ -37,6 +52,13 @@ import org.springframework.lang.Nullable;
  * <p>Performs internal caching for performance reasons
  * using {@link AnnotatedElementKey}.
  *
+ * <p>As of 5.3.10, expressions may be compiled, either for a specific
+ * {@link CacheAspectSupport#setCompileExpressions cache aspect} or through the
+ * {@code spring.expression.compiler.mode} property, with an expression whose
+ * compiled form fails at runtime permanently falling back to interpretation.
+ * Evaluation contexts share the same reflective property accessor and method
+ * resolver, copying the corresponding lists only when modified.
+ *
  * @author Costin Leau
  * @author Phillip Webb
  * @author Sam Brannen
@@ -67,6 +89,32 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 	private final Map<ExpressionKey, Expression> unlessCache = new ConcurrentHashMap<>(64);
 
+	private final SpelExpressionParser interpretingParser =
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, null));
+
+	private final List<PropertyAccessor> propertyAccessors =
+			Collections.singletonList(new ReflectivePropertyAccessor());
+
+	private final List<MethodResolver> methodResolvers =
+			Collections.singletonList(new ReflectiveMethodResolver());
+
+
+	/**
+	 * Create a new evaluator, compiling expressions according to the
+	 * {@code spring.expression.compiler.mode} property (off by default).
+	 */
+	CacheOperationExpressionEvaluator() {
+	}
+
+	/**
+	 * Create a new evaluator with the given compiler mode for all expressions.
+	 * @param compilerMode the compiler mode to use
+	 * @since 5.3.10
+	 */
+	CacheOperationExpressionEvaluator(SpelCompilerMode compilerMode) {
+		super(new SpelExpressionParser(new SpelParserConfiguration(compilerMode, null)));
+	}
+
 
 	/**
 	 * Create an {@link EvaluationContext}.
@@ -83,35 +131,86 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 			Method method, Object[] args, Object target, Class<?> targetClass, Method targetMethod,
 			@Nullable Object result, @Nullable BeanFactory beanFactory) {
 
+		return createEvaluationContext(caches, method, args, target, targetClass, targetMethod,
+				getParameterNameDiscoverer(), result, (beanFactory != null ? new BeanFactoryResolver(beanFactory) : null));
+	}
+
+	/**
+	 * Create an {@link EvaluationContext} based on pre-resolved state.
+	 * @param parameterNameDiscoverer the discoverer to use for the method
+	 * parameters, typically obtained from {@link #resolveParameterNames}
+	 * @param beanResolver the bean resolver to use, if any
+	 * @since 5.3.10
+	 * @see #createEvaluationContext(Collection, Method, Object[], Object, Class, Method, Object, BeanFactory)
+	 */
+	public EvaluationContext createEvaluationContext(Collection<? extends Cache> caches,
+			Method method, Object[] args, Object target, Class<?> targetClass, Method targetMethod,
+			ParameterNameDiscoverer parameterNameDiscoverer, @Nullable Object result,
+			@Nullable BeanResolver beanResolver) {
+
 		CacheExpressionRootObject rootObject = new CacheExpressionRootObject(
 				caches, method, args, target, targetClass);
-		CacheEvaluationContext evaluationContext = new CacheEvaluationContext(
-				rootObject, targetMethod, args, getParameterNameDiscoverer());
+		CacheEvaluationContext evaluationContext = new CacheEvaluationContext(rootObject, targetMethod, args,
+				parameterNameDiscoverer, this.propertyAccessors, this.methodResolvers);
 		if (result == RESULT_UNAVAILABLE) {
 			evaluationContext.addUnavailableVariable(RESULT_VARIABLE);
 		}
 		else if (result != NO_RESULT) {
 			evaluationContext.setVariable(RESULT_VARIABLE, result);
 		}
-		if (beanFactory != null) {
-			evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+		if (beanResolver != null) {
+			evaluationContext.setBeanResolver(beanResolver);
 		}
 		return evaluationContext;
 	}
 
+	/**
+	 * Resolve the parameter names of the specified method once, returning a
+	 * {@link ParameterNameDiscoverer} that exposes them to any number of
+	 * subsequently created evaluation contexts.
+	 * @param method the method to introspect
+	 * @since 5.3.10
+	 */
+	public ParameterNameDiscoverer resolveParameterNames(Method method) {
+		return new ResolvedParameterNameDiscoverer(method, getParameterNameDiscoverer().getParameterNames(method));
+	}
+
 	@Nullable
 	public Object key(String keyExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
-		return getExpression(this.keyCache, methodKey, keyExpression).getValue(evalContext);
+		return getValue(this.keyCache, methodKey, keyExpression, evalContext, null);
 	}
 
 	public boolean condition(String conditionExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
-		return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
-				evalContext, Boolean.class)));
+		return (Boolean.TRUE.equals(getValue(
+				this.conditionCache, methodKey, conditionExpression, evalContext, Boolean.class)));
 	}
 
 	public boolean unless(String unlessExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
-		return (Boolean.TRUE.equals(getExpression(this.unlessCache, methodKey, unlessExpression).getValue(
-				evalContext, Boolean.class)));
+		return (Boolean.TRUE.equals(getValue(
+				this.unlessCache, methodKey, unlessExpression, evalContext, Boolean.class)));
+	}
+
+	@Nullable
+	private <T> T getValue(Map<ExpressionKey, Expression> cache, AnnotatedElementKey methodKey,
+			String expression, EvaluationContext evalContext, @Nullable Class<T> expectedType) {
+
+		Expression expr = getExpression(cache, methodKey, expression);
+		try {
+			return expr.getValue(evalContext, expectedType);
+		}
+		catch (SpelEvaluationException ex) {
+			if (ex.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+				throw ex;
+			}
+			if (ex.getCause() instanceof EvaluationException) {
+				// Regular evaluation failure, e.g. an unavailable variable
+				throw (EvaluationException) ex.getCause();
+			}
+			// Compiled form does not match the actual arguments: interpret from now on
+			Expression interpreted = this.interpretingParser.parseExpression(expression);
+			cache.put(createKey(methodKey, expression), interpreted);
+			return interpreted.getValue(evalContext, expectedType);
+		}
 	}
 
 	/**
@@ -123,4 +222,34 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		this.unlessCache.clear();
 	}
 
+
+	/**
+	 * {@link ParameterNameDiscoverer} exposing the pre-resolved parameter names
+	 * of a single method.
+	 */
+	private static final class ResolvedParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+		private final Method method;
+
+		@Nullable
+		private final String[] parameterNames;
+
+		ResolvedParameterNameDiscoverer(Method method, @Nullable String[] parameterNames) {
+			this.method = method;
+			this.parameterNames = parameterNames;
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Method method) {
+			return (this.method.equals(method) ? this.parameterNames : null);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Constructor<?> ctor) {
+			return null;
+		}
+	}
+
 }
@@ -42,6 +42,26 @@ public interface CacheOperationInvoker {
 	Object invoke() throws ThrowableWrapper;
 
 
+	/**
+	 * Extension of {@link CacheOperationInvoker} which is able to invoke the
+	 * operation with other arguments than the original ones, as needed for
+	 * {@code @Cacheable(bulk=true)} methods with only some elements missing.
+	 * @since 5.3.10
+	 */
+	interface ArgumentsInvoker extends CacheOperationInvoker {
+
+		/**
+		 * Invoke the cache operation with the given arguments instead of
+		 * the arguments of the original invocation.
+		 * @param args the arguments to use
+		 * @return the result of the operation
+		 * @throws ThrowableWrapper if an error occurred while invoking the operation
+		 */
+		@Nullable
+		Object invoke(Object[] args) throws ThrowableWrapper;
+	}
+
+
 	/**
 	 * Wrap any exception thrown while invoking {@link #invoke()}.
 	 */
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy for propagating cache invalidations between the local caches of
+ * several {@link NearCacheManager} instances, typically running in different
+ * processes which share the same remote caches.
+ *
+ * <p>Implementations may be backed by any kind of messaging infrastructure.
+ * Delivery is expected to be best effort: local caches are bounded by a short
+ * time-to-live anyway, limiting the staleness caused by any lost message.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see NearCacheManager#setInvalidationBroadcaster
+ * @see SimpleCacheInvalidationBroadcaster
+ */
+public interface CacheInvalidationBroadcaster {
+
+	/**
+	 * Broadcast the invalidation of the given key to all registered listeners,
+	 * including the ones in the current process.
+	 * @param cacheName the name of the affected cache
+	 * @param key the invalidated key, or {@code null} if the entire cache
+	 * has been cleared
+	 */
+	void broadcastInvalidation(String cacheName, @Nullable Object key);
+
+	/**
+	 * Register a listener for invalidations broadcast by any participant.
+	 * @param listener the listener to register
+	 */
+	void addInvalidationListener(InvalidationListener listener);
+
+
+	/**
+	 * Callback interface for receiving broadcast invalidations.
+	 */
+	@FunctionalInterface
+	interface InvalidationListener {
+
+		/**
+		 * Handle the invalidation of the given key.
+		 * @param cacheName the name of the affected cache
+		 * @param key the invalidated key, or {@code null} if the entire cache
+		 * has been cleared
+		 */
+		void onInvalidation(String cacheName, @Nullable Object key);
+	}
+
+}
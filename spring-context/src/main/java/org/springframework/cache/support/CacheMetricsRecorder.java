@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+/**
+ * Strategy for recording cache usage metrics, as reported by
+ * {@link InstrumentedCache} for any {@link org.springframework.cache.Cache}
+ * implementation and by {@link org.springframework.cache.interceptor.CacheAspectSupport}
+ * for the evaluation of cache operations.
+ *
+ * <p>Implementations are expected to be thread-safe and cheap to call, since
+ * they are invoked on every cache access. All times are given in nanoseconds.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see InstrumentedCacheManager#setMetricsRecorder
+ * @see org.springframework.cache.interceptor.CacheAspectSupport#setMetricsRecorder
+ * @see InMemoryCacheMetricsRecorder
+ */
+public interface CacheMetricsRecorder {
+
+	/**
+	 * Record the given number of lookups which found a value in the specified cache.
+	 */
+	void recordHits(String cacheName, int count);
+
+	/**
+	 * Record the given number of lookups which did not find a value in the specified cache.
+	 */
+	void recordMisses(String cacheName, int count);
+
+	/**
+	 * Record the given number of values stored in the specified cache.
+	 */
+	void recordPuts(String cacheName, int count);
+
+	/**
+	 * Record the given number of entries evicted from the specified cache,
+	 * either explicitly or by the cache provider itself where supported.
+	 * @see InstrumentedCacheManager#registerEvictionListener
+	 */
+	void recordEvictions(String cacheName, int count);
+
+	/**
+	 * Record the invocation of a value loader for the specified cache.
+	 * @param cacheName the name of the cache
+	 * @param loadTime the time spent in the value loader
+	 * @param success whether the value loader returned a value
+	 * (as opposed to throwing an exception)
+	 */
+	void recordLoad(String cacheName, long loadTime, boolean success);
+
+	/**
+	 * Record the generation of a cache key for a cache operation.
+	 * <p>The default implementation is empty.
+	 * @param time the time spent generating the key
+	 */
+	default void recordKeyGeneration(long time) {
+	}
+
+	/**
+	 * Record the evaluation of a {@code condition} or {@code unless}
+	 * expression for a cache operation.
+	 * <p>The default implementation is empty.
+	 * @param time the time spent evaluating the expression
+	 */
+	default void recordConditionEvaluation(long time) {
+	}
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheMetricsRecorder} implementation which keeps all metrics in memory,
+ * with counters per cache name and latency histograms for value loading, key
+ * generation and condition evaluation.
+ *
+ * <p>Histograms use power-of-two buckets, which keeps recording cheap and
+ * allocation-free at the expense of reporting percentiles as the upper bound
+ * of the bucket they fall into.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ */
+public class InMemoryCacheMetricsRecorder implements CacheMetricsRecorder {
+
+	private final ConcurrentMap<String, CacheMetrics> cacheMetrics = new ConcurrentHashMap<>(16);
+
+	private final LatencyHistogram keyGenerationTime = new LatencyHistogram();
+
+	private final LatencyHistogram conditionEvaluationTime = new LatencyHistogram();
+
+
+	@Override
+	public void recordHits(String cacheName, int count) {
+		obtainCacheMetrics(cacheName).hitCount.add(count);
+	}
+
+	@Override
+	public void recordMisses(String cacheName, int count) {
+		obtainCacheMetrics(cacheName).missCount.add(count);
+	}
+
+	@Override
+	public void recordPuts(String cacheName, int count) {
+		obtainCacheMetrics(cacheName).putCount.add(count);
+	}
+
+	@Override
+	public void recordEvictions(String cacheName, int count) {
+		obtainCacheMetrics(cacheName).evictionCount.add(count);
+	}
+
+	@Override
+	public void recordLoad(String cacheName, long loadTime, boolean success) {
+		CacheMetrics metrics = obtainCacheMetrics(cacheName);
+		(success ? metrics.loadSuccessCount : metrics.loadFailureCount).increment();
+		metrics.loadTime.record(loadTime);
+	}
+
+	@Override
+	public void recordKeyGeneration(long time) {
+		this.keyGenerationTime.record(time);
+	}
+
+	@Override
+	public void recordConditionEvaluation(long time) {
+		this.conditionEvaluationTime.record(time);
+	}
+
+	private CacheMetrics obtainCacheMetrics(String cacheName) {
+		CacheMetrics metrics = this.cacheMetrics.get(cacheName);
+		if (metrics == null) {
+			metrics = this.cacheMetrics.computeIfAbsent(cacheName, name -> new CacheMetrics());
+		}
+		return metrics;
+	}
+
+
+	/**
+	 * Return the names of all caches that metrics have been recorded for.
+	 */
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.cacheMetrics.keySet());
+	}
+
+	/**
+	 * Return the metrics recorded for the specified cache.
+	 * @param cacheName the name of the cache
+	 * @return the metrics, or {@code null} if none have been recorded yet
+	 */
+	@Nullable
+	public CacheMetrics getCacheMetrics(String cacheName) {
+		return this.cacheMetrics.get(cacheName);
+	}
+
+	/**
+	 * Return the histogram of key generation times across all cache operations.
+	 */
+	public LatencyHistogram getKeyGenerationTime() {
+		return this.keyGenerationTime;
+	}
+
+	/**
+	 * Return the histogram of {@code condition}/{@code unless} evaluation times
+	 * across all cache operations.
+	 */
+	public LatencyHistogram getConditionEvaluationTime() {
+		return this.conditionEvaluationTime;
+	}
+
+
+	/**
+	 * Metrics recorded for a specific cache.
+	 */
+	public static final class CacheMetrics {
+
+		private final LongAdder hitCount = new LongAdder();
+
+		private final LongAdder missCount = new LongAdder();
+
+		private final LongAdder putCount = new LongAdder();
+
+		private final LongAdder evictionCount = new LongAdder();
+
+		private final LongAdder loadSuccessCount = new LongAdder();
+
+		private final LongAdder loadFailureCount = new LongAdder();
+
+		private final LatencyHistogram loadTime = new LatencyHistogram();
+
+		private CacheMetrics() {
+		}
+
+		public long getHitCount() {
+			return this.hitCount.sum();
+		}
+
+		public long getMissCount() {
+			return this.missCount.sum();
+		}
+
+		/**
+		 * Return the ratio of hits among all lookups, or {@code 1.0}
+		 * if there have not been any lookups yet.
+		 */
+		public double getHitRatio() {
+			long hits = getHitCount();
+			long lookups = hits + getMissCount();
+			return (lookups == 0 ? 1.0 : (double) hits / lookups);
+		}
+
+		public long getPutCount() {
+			return this.putCount.sum();
+		}
+
+		public long getEvictionCount() {
+			return this.evictionCount.sum();
+		}
+
+		public long getLoadSuccessCount() {
+			return this.loadSuccessCount.sum();
+		}
+
+		public long getLoadFailureCount() {
+			return this.loadFailureCount.sum();
+		}
+
+		/**
+		 * Return the histogram of value loader invocation times.
+		 */
+		public LatencyHistogram getLoadTime() {
+			return this.loadTime;
+		}
+
+		@Override
+		public String toString() {
+			return "CacheMetrics: hits=" + getHitCount() + ", misses=" + getMissCount() +
+					", puts=" + getPutCount() + ", evictions=" + getEvictionCount() +
+					", loadSuccesses=" + getLoadSuccessCount() + ", loadFailures=" + getLoadFailureCount() +
+					", loadTime=[" + this.loadTime + "]";
+		}
+	}
+
+
+	/**
+	 * Concurrent histogram of nanosecond latencies with power-of-two buckets.
+	 */
+	public static final class LatencyHistogram {
+
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder totalTime = new LongAdder();
+
+		private LatencyHistogram() {
+		}
+
+		void record(long time) {
+			int bucket = Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(time, 1));
+			this.buckets.incrementAndGet(bucket);
+			this.count.increment();
+			this.totalTime.add(time);
+		}
+
+		/**
+		 * Return the number of recorded latencies.
+		 */
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Return the sum of all recorded latencies, in nanoseconds.
+		 */
+		public long getTotalTime() {
+			return this.totalTime.sum();
+		}
+
+		/**
+		 * Return the mean of all recorded latencies, in nanoseconds.
+		 */
+		public double getMean() {
+			long count = getCount();
+			return (count == 0 ? 0.0 : (double) getTotalTime() / count);
+		}
+
+		/**
+		 * Return an upper bound for the given percentile of recorded latencies,
+		 * in nanoseconds, accurate up to a factor of two.
+		 * @param percentile the percentile, between 0.0 and 1.0 (e.g. 0.99)
+		 * @return the upper bound, or 0 if no latencies have been recorded yet
+		 */
+		public long getPercentile(double percentile) {
+			Assert.isTrue(percentile >= 0.0 && percentile <= 1.0, "Percentile must be between 0.0 and 1.0");
+			long total = 0;
+			for (int i = 0; i < Long.SIZE; i++) {
+				total += this.buckets.get(i);
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long threshold = (long) Math.ceil(percentile * total);
+			long cumulative = 0;
+			for (int i = 0; i < Long.SIZE; i++) {
+				cumulative += this.buckets.get(i);
+				if (cumulative >= threshold && cumulative > 0) {
+					return (i >= Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount() + ", mean=" + (long) getMean() + "ns, p50=" + getPercentile(0.5) +
+					"ns, p99=" + getPercentile(0.99) + "ns";
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Cache decorator which reports hits, misses, puts, evictions and value loader
+ * invocations of the target {@link Cache} to a {@link CacheMetricsRecorder},
+ * providing uniform metrics for any cache implementation.
+ *
+ * <p>Note that a cached {@code null} value counts as a hit, and that evictions
+ * are only counted for keys present at the time of the eviction request.
+ * Clearing the cache is not counted as evictions since the number of affected
+ * entries is unknown. Entries evicted by the cache provider itself are only
+ * counted if reported through a native eviction callback, as registered by
+ * {@link InstrumentedCacheManager}.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see InstrumentedCacheManager
+ */
+public class InstrumentedCache implements Cache {
+
+	private final Cache targetCache;
+
+	private final CacheMetricsRecorder metricsRecorder;
+
+
+	/**
+	 * Create a new InstrumentedCache for the given target Cache.
+	 * @param targetCache the target Cache to decorate
+	 * @param metricsRecorder the recorder to report metrics to
+	 */
+	public InstrumentedCache(Cache targetCache, CacheMetricsRecorder metricsRecorder) {
+		Assert.notNull(targetCache, "Target Cache must not be null");
+		Assert.notNull(metricsRecorder, "CacheMetricsRecorder must not be null");
+		this.targetCache = targetCache;
+		this.metricsRecorder = metricsRecorder;
+	}
+
+
+	/**
+	 * Return the target Cache that this Cache should delegate to.
+	 */
+	public Cache getTargetCache() {
+		return this.targetCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.targetCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.targetCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.targetCache.get(key);
+		recordLookup(wrapper != null);
+		return wrapper;
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		T value = this.targetCache.get(key, type);
+		// A null value may still be a cached null: check for the presence of the entry
+		recordLookup(value != null || this.targetCache.get(key) != null);
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		boolean[] loaded = new boolean[1];
+		try {
+			return this.targetCache.get(key, () -> {
+				loaded[0] = true;
+				long start = System.nanoTime();
+				boolean success = false;
+				try {
+					T result = valueLoader.call();
+					success = true;
+					return result;
+				}
+				finally {
+					this.metricsRecorder.recordLoad(getName(), System.nanoTime() - start, success);
+				}
+			});
+		}
+		finally {
+			recordLookup(!loaded[0]);
+		}
+	}
+
+	@Override
+	public CompletableFuture<ValueWrapper> retrieve(Object key) {
+		return this.targetCache.retrieve(key).thenApply(wrapper -> {
+			recordLookup(wrapper != null);
+			return wrapper;
+		});
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = this.targetCache.getAll(keys);
+		if (!result.isEmpty()) {
+			this.metricsRecorder.recordHits(getName(), result.size());
+		}
+		if (result.size() < keys.size()) {
+			this.metricsRecorder.recordMisses(getName(), keys.size() - result.size());
+		}
+		return result;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.targetCache.put(key, value);
+		this.metricsRecorder.recordPuts(getName(), 1);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		this.targetCache.putAll(entries);
+		this.metricsRecorder.recordPuts(getName(), entries.size());
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ValueWrapper existing = this.targetCache.putIfAbsent(key, value);
+		if (existing == null) {
+			this.metricsRecorder.recordPuts(getName(), 1);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		// Keep the potentially deferred eviction semantics of the target,
+		// only counting the eviction if the key is actually present
+		boolean present = (this.targetCache.get(key) != null);
+		this.targetCache.evict(key);
+		if (present) {
+			this.metricsRecorder.recordEvictions(getName(), 1);
+		}
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		boolean evicted = this.targetCache.evictIfPresent(key);
+		if (evicted) {
+			this.metricsRecorder.recordEvictions(getName(), 1);
+		}
+		return evicted;
+	}
+
+	@Override
+	public void clear() {
+		this.targetCache.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		return this.targetCache.invalidate();
+	}
+
+	private void recordLookup(boolean hit) {
+		if (hit) {
+			this.metricsRecorder.recordHits(getName(), 1);
+		}
+		else {
+			this.metricsRecorder.recordMisses(getName(), 1);
+		}
+	}
+
+}
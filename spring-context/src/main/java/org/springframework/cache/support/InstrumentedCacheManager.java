@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.BoundedConcurrentMap;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Proxy for a target {@link CacheManager}, exposing {@link InstrumentedCache}
+ * decorators which report the usage of every {@link Cache} to a common
+ * {@link CacheMetricsRecorder}, independent of the cache provider.
+ *
+ * <p>Can be combined with other {@link CacheManager} decorators, e.g. with
+ * a {@code TransactionAwareCacheManagerProxy} as target.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see #setTargetCacheManager
+ * @see #setMetricsRecorder
+ * @see InstrumentedCache
+ */
+public class InstrumentedCacheManager implements CacheManager, InitializingBean {
+
+	@Nullable
+	private CacheManager targetCacheManager;
+
+	private CacheMetricsRecorder metricsRecorder = new InMemoryCacheMetricsRecorder();
+
+	private final ConcurrentMap<String, InstrumentedCache> cacheMap = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Create a new InstrumentedCacheManager, setting the target CacheManager
+	 * through the {@link #setTargetCacheManager} bean property.
+	 */
+	public InstrumentedCacheManager() {
+	}
+
+	/**
+	 * Create a new InstrumentedCacheManager for the given target CacheManager.
+	 * @param targetCacheManager the target CacheManager to proxy
+	 */
+	public InstrumentedCacheManager(CacheManager targetCacheManager) {
+		Assert.notNull(targetCacheManager, "Target CacheManager must not be null");
+		this.targetCacheManager = targetCacheManager;
+	}
+
+
+	/**
+	 * Set the target CacheManager to proxy.
+	 */
+	public void setTargetCacheManager(CacheManager targetCacheManager) {
+		this.targetCacheManager = targetCacheManager;
+	}
+
+	/**
+	 * Set the recorder to report cache metrics to.
+	 * <p>Default is a new {@link InMemoryCacheMetricsRecorder}.
+	 */
+	public void setMetricsRecorder(CacheMetricsRecorder metricsRecorder) {
+		Assert.notNull(metricsRecorder, "CacheMetricsRecorder must not be null");
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/**
+	 * Return the recorder that cache metrics are reported to.
+	 */
+	public CacheMetricsRecorder getMetricsRecorder() {
+		return this.metricsRecorder;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.targetCacheManager == null) {
+			throw new IllegalArgumentException("Property 'targetCacheManager' is required");
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Assert.state(this.targetCacheManager != null, "No target CacheManager set");
+		Cache targetCache = this.targetCacheManager.getCache(name);
+		if (targetCache == null) {
+			return null;
+		}
+		InstrumentedCache cache = this.cacheMap.get(name);
+		if (cache == null || cache.getTargetCache() != targetCache) {
+			// Target cache not seen before or recreated by the target CacheManager
+			cache = this.cacheMap.compute(name, (key, existing) -> {
+				if (existing != null && existing.getTargetCache() == targetCache) {
+					return existing;
+				}
+				registerEvictionListener(targetCache);
+				return new InstrumentedCache(targetCache, this.metricsRecorder);
+			});
+		}
+		return cache;
+	}
+
+	/**
+	 * Register a callback for entries evicted by the given target cache itself,
+	 * e.g. because of a size bound or expiration, reporting them as evictions.
+	 * Invoked once per target cache instance.
+	 * <p>The default implementation supports a {@link BoundedConcurrentMap} as
+	 * native cache, e.g. from a {@code ConcurrentMapCacheManager} with bounds.
+	 * Other native caches typically need to be built with a corresponding
+	 * listener upfront; their provider-driven evictions are not counted here.
+	 * @param targetCache the target cache as obtained from the target CacheManager
+	 */
+	protected void registerEvictionListener(Cache targetCache) {
+		Object nativeCache = targetCache.getNativeCache();
+		if (nativeCache instanceof BoundedConcurrentMap) {
+			String name = targetCache.getName();
+			((BoundedConcurrentMap<?, ?>) nativeCache).addEvictionListener(
+					(key, value) -> this.metricsRecorder.recordEvictions(name, 1));
+		}
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		Assert.state(this.targetCacheManager != null, "No target CacheManager set");
+		return this.targetCacheManager.getCacheNames();
+	}
+
+}
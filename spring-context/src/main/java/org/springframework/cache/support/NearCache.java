@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Two-level {@link Cache} implementation which keeps a local copy of recently
+ * used entries in front of a delegate (typically remote) cache.
+ *
+ * <p>Lookups are served from the local store if possible, reading through
+ * to the delegate cache otherwise. Modifications are written through to the
+ * delegate cache and announced via the given {@link CacheInvalidationBroadcaster},
+ * if any, for other near caches to drop their local copies.
+ *
+ * <p>The local store is meant to be bounded in size and to expire its entries
+ * after a short time-to-live, since a concurrent modification on another node
+ * may leave a stale local copy behind until it expires.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see NearCacheManager
+ */
+public class NearCache extends AbstractValueAdaptingCache {
+
+	private final Cache delegate;
+
+	private final ConcurrentMap<Object, Object> localStore;
+
+	@Nullable
+	private final CacheInvalidationBroadcaster invalidationBroadcaster;
+
+
+	/**
+	 * Create a new NearCache for the given delegate cache.
+	 * @param delegate the (typically remote) cache to read and write through to
+	 * @param localStore the local store to keep recently used entries in
+	 * @param invalidationBroadcaster the broadcaster to announce modifications
+	 * with (or {@code null} for local invalidation only)
+	 */
+	public NearCache(Cache delegate, ConcurrentMap<Object, Object> localStore,
+			@Nullable CacheInvalidationBroadcaster invalidationBroadcaster) {
+
+		super(true);
+		Assert.notNull(delegate, "Delegate Cache must not be null");
+		Assert.notNull(localStore, "Local store must not be null");
+		this.delegate = delegate;
+		this.localStore = localStore;
+		this.invalidationBroadcaster = invalidationBroadcaster;
+	}
+
+
+	@Override
+	public final String getName() {
+		return this.delegate.getName();
+	}
+
+	/**
+	 * Return the delegate cache that this near cache reads and writes through to.
+	 */
+	@Override
+	public final Cache getNativeCache() {
+		return this.delegate;
+	}
+
+	/**
+	 * Return the local store that this near cache keeps recently used entries in.
+	 */
+	public final ConcurrentMap<Object, Object> getLocalStore() {
+		return this.localStore;
+	}
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		Object storeValue = this.localStore.get(key);
+		if (storeValue != null) {
+			return storeValue;
+		}
+		ValueWrapper wrapper = this.delegate.get(key);
+		if (wrapper == null) {
+			return null;
+		}
+		storeValue = toStoreValue(wrapper.get());
+		this.localStore.put(key, storeValue);
+		return storeValue;
+	}
+
+	@Override
+	public CompletableFuture<ValueWrapper> retrieve(Object key) {
+		Object storeValue = this.localStore.get(key);
+		if (storeValue != null) {
+			return CompletableFuture.completedFuture(toValueWrapper(storeValue));
+		}
+		return this.delegate.retrieve(key).thenApply(wrapper -> {
+			if (wrapper != null) {
+				this.localStore.put(key, toStoreValue(wrapper.get()));
+			}
+			return wrapper;
+		});
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		List<Object> missingKeys = new ArrayList<>();
+		for (Object key : keys) {
+			Object storeValue = this.localStore.get(key);
+			if (storeValue != null) {
+				result.put(key, toValueWrapper(storeValue));
+			}
+			else {
+				missingKeys.add(key);
+			}
+		}
+		if (!missingKeys.isEmpty()) {
+			this.delegate.getAll(missingKeys).forEach((key, wrapper) -> {
+				this.localStore.put(key, toStoreValue(wrapper.get()));
+				result.put(key, wrapper);
+			});
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object storeValue = this.localStore.get(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+		T value = this.delegate.get(key, valueLoader);
+		this.localStore.put(key, toStoreValue(value));
+		return value;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.delegate.put(key, value);
+		broadcastInvalidation(key);
+		this.localStore.put(key, toStoreValue(value));
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		this.delegate.putAll(entries);
+		entries.forEach((key, value) -> {
+			broadcastInvalidation(key);
+			this.localStore.put(key, toStoreValue(value));
+		});
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ValueWrapper existing = this.delegate.putIfAbsent(key, value);
+		if (existing == null) {
+			broadcastInvalidation(key);
+			this.localStore.put(key, toStoreValue(value));
+		}
+		else {
+			this.localStore.put(key, toStoreValue(existing.get()));
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.delegate.evict(key);
+		this.localStore.remove(key);
+		broadcastInvalidation(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		boolean evicted = this.delegate.evictIfPresent(key);
+		this.localStore.remove(key);
+		broadcastInvalidation(key);
+		return evicted;
+	}
+
+	@Override
+	public void clear() {
+		this.delegate.clear();
+		this.localStore.clear();
+		broadcastInvalidation(null);
+	}
+
+	@Override
+	public boolean invalidate() {
+		boolean invalidated = this.delegate.invalidate();
+		this.localStore.clear();
+		broadcastInvalidation(null);
+		return invalidated;
+	}
+
+	/**
+	 * Drop the local copy of the given key, leaving the delegate cache untouched.
+	 * @param key the key to drop, or {@code null} to drop all local copies
+	 */
+	public void invalidateLocal(@Nullable Object key) {
+		if (key != null) {
+			this.localStore.remove(key);
+		}
+		else {
+			this.localStore.clear();
+		}
+	}
+
+	private void broadcastInvalidation(@Nullable Object key) {
+		if (this.invalidationBroadcaster != null) {
+			this.invalidationBroadcaster.broadcastInvalidation(getName(), key);
+		}
+	}
+
+}
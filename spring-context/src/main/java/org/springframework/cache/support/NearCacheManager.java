@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.BoundedConcurrentMap;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Composite {@link CacheManager} implementation which puts a bounded local
+ * {@link NearCache} in front of every cache obtained from the delegate
+ * {@link CacheManager} instances, saving round trips to a remote cache
+ * provider for frequently used entries.
+ *
+ * <p>Local entries expire after a short {@link #setLocalTimeToLive time-to-live}.
+ * Modifications are written through to the delegate caches; for local copies
+ * on other nodes to be dropped right away, configure a shared
+ * {@link #setInvalidationBroadcaster CacheInvalidationBroadcaster}.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see NearCache
+ */
+public class NearCacheManager extends CompositeCacheManager {
+
+	private final ConcurrentMap<String, DecoratedCache> cacheMap = new ConcurrentHashMap<>(16);
+
+	private long localMaximumSize = 10000;
+
+	private Duration localTimeToLive = Duration.ofSeconds(30);
+
+	@Nullable
+	private CacheInvalidationBroadcaster invalidationBroadcaster;
+
+
+	/**
+	 * Construct an empty NearCacheManager, with delegate CacheManagers to
+	 * be added via the {@link #setCacheManagers "cacheManagers"} property.
+	 */
+	public NearCacheManager() {
+	}
+
+	/**
+	 * Construct a NearCacheManager for the given delegate CacheManagers.
+	 * @param cacheManagers the CacheManagers to obtain the delegate caches from
+	 */
+	public NearCacheManager(CacheManager... cacheManagers) {
+		super(cacheManagers);
+	}
+
+
+	/**
+	 * Specify the maximum number of entries to keep locally per cache.
+	 * Default is 10000.
+	 */
+	public void setLocalMaximumSize(long localMaximumSize) {
+		Assert.isTrue(localMaximumSize > 0, "Local maximum size must be positive");
+		this.localMaximumSize = localMaximumSize;
+	}
+
+	/**
+	 * Return the maximum number of entries to keep locally per cache.
+	 */
+	public long getLocalMaximumSize() {
+		return this.localMaximumSize;
+	}
+
+	/**
+	 * Specify the time after which a local entry expires, bounding the staleness
+	 * of local copies which missed an invalidation. Default is 30 seconds.
+	 */
+	public void setLocalTimeToLive(Duration localTimeToLive) {
+		Assert.isTrue(!localTimeToLive.isNegative() && !localTimeToLive.isZero(),
+				"Local time-to-live must be positive");
+		this.localTimeToLive = localTimeToLive;
+	}
+
+	/**
+	 * Return the time after which a local entry expires.
+	 */
+	public Duration getLocalTimeToLive() {
+		return this.localTimeToLive;
+	}
+
+	/**
+	 * Specify the broadcaster to announce local modifications with and to
+	 * receive modifications on other nodes from. Default is none, only
+	 * keeping the local copies of this CacheManager itself up to date.
+	 * @see SimpleCacheInvalidationBroadcaster
+	 */
+	public void setInvalidationBroadcaster(@Nullable CacheInvalidationBroadcaster invalidationBroadcaster) {
+		this.invalidationBroadcaster = invalidationBroadcaster;
+	}
+
+	/**
+	 * Return the broadcaster to announce local modifications with, if any.
+	 */
+	@Nullable
+	public CacheInvalidationBroadcaster getInvalidationBroadcaster() {
+		return this.invalidationBroadcaster;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		if (this.invalidationBroadcaster != null) {
+			this.invalidationBroadcaster.addInvalidationListener(this::invalidateLocal);
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache delegate = super.getCache(name);
+		if (delegate == null) {
+			return null;
+		}
+		DecoratedCache cache = this.cacheMap.get(name);
+		if (cache == null || cache.delegate != delegate) {
+			// Delegate cache not seen before or recreated by the delegate CacheManager;
+			// nothing to keep locally for a cache without a backing store
+			cache = new DecoratedCache(delegate, (delegate instanceof NoOpCache ? delegate : decorateCache(delegate)));
+			this.cacheMap.put(name, cache);
+		}
+		return cache.cache;
+	}
+
+	/**
+	 * Put a {@link NearCache} in front of the given delegate cache.
+	 * @param delegate the delegate cache, as obtained from the CacheManagers
+	 * @return the near cache to expose
+	 */
+	protected Cache decorateCache(Cache delegate) {
+		return new NearCache(delegate, createLocalStore(delegate.getName()), this.invalidationBroadcaster);
+	}
+
+	/**
+	 * Create the local store for the given cache: by default, a
+	 * {@link BoundedConcurrentMap} according to the configured size and
+	 * time-to-live.
+	 * @param name the name of the cache
+	 */
+	protected ConcurrentMap<Object, Object> createLocalStore(String name) {
+		return new BoundedConcurrentMap<>(this.localMaximumSize, null, this.localTimeToLive, null);
+	}
+
+	/**
+	 * Drop the local copy of the given key in the specified cache, if any.
+	 * Invoked for invalidations broadcast by any participant.
+	 * @param cacheName the name of the affected cache
+	 * @param key the key to drop, or {@code null} to drop all local copies
+	 */
+	protected void invalidateLocal(String cacheName, @Nullable Object key) {
+		DecoratedCache cache = this.cacheMap.get(cacheName);
+		if (cache != null && cache.cache instanceof NearCache) {
+			((NearCache) cache.cache).invalidateLocal(key);
+		}
+	}
+
+
+	/**
+	 * A cache to expose, along with the delegate cache it has been created for.
+	 */
+	private static final class DecoratedCache {
+
+		final Cache delegate;
+
+		final Cache cache;
+
+		DecoratedCache(Cache delegate, Cache cache) {
+			this.delegate = delegate;
+			this.cache = cache;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.function.Supplier;
 
@@ -146,6 +147,23 @@ public class AnnotationConfigApplicationContext extends GenericApplicationContex
 		this.scanner.setScopeMetadataResolver(scopeMetadataResolver);
 	}
 
+	/**
+	 * Specify a file for persisting the bean definitions which result from
+	 * configuration class processing, restoring them on subsequent startups
+	 * instead of scanning the classpath and parsing configuration classes again.
+	 * <p>The file gets written on the first refresh and applied on any later
+	 * refresh with an unchanged classpath and unchanged component classes.
+	 * <p>Any call to this method must occur prior to {@link #refresh()}.
+	 * Note that {@link #scan(String...)} calls are performed regardless;
+	 * use {@link ComponentScan @ComponentScan} for scanning to be covered.
+	 * @param snapshotFile the snapshot file (does not need to exist yet)
+	 * @since 5.3.10
+	 * @see BeanDefinitionSnapshotPostProcessor
+	 */
+	public void setBeanDefinitionSnapshotFile(File snapshotFile) {
+		addBeanFactoryPostProcessor(new BeanDefinitionSnapshotPostProcessor(snapshotFile));
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of AnnotationConfigRegistry
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionSnapshot;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * {@link BeanDefinitionRegistryPostProcessor} that persists the outcome of
+ * configuration class processing as a {@link BeanDefinitionSnapshot} file,
+ * restoring the bean definitions from that file on subsequent startups
+ * instead of scanning the classpath and parsing configuration classes again.
+ *
+ * <p>A snapshot is only applied if its fingerprint matches the current
+ * application: the archives behind the resource roots of the bean
+ * {@code ClassLoader} (including size and last-modified timestamp of each
+ * outermost archive file), the initially registered bean definitions, and the
+ * active and default profiles. Resource roots in directories (e.g. exploded
+ * {@code WEB-INF/classes}) or in non-file archives cannot be fingerprinted
+ * that way: in such a case, no snapshot is written or applied unless a
+ * build-time marker is specified through {@link #setClassPathFingerprint}.
+ * Conditions which depend on anything else (e.g. on environment properties)
+ * are not reflected in the fingerprint; the snapshot file needs to be deleted
+ * when such conditions change their outcome.
+ *
+ * <p>Needs to be registered with the application context before refresh,
+ * e.g. through {@link AnnotationConfigApplicationContext#setBeanDefinitionSnapshotFile},
+ * so that it runs ahead of {@link ConfigurationClassPostProcessor}. No snapshot
+ * is written if other {@link BeanDefinitionRegistryPostProcessor} beans are
+ * present, if {@code @PropertySource} declarations have been processed, if
+ * load-time weaving is enabled, or if any bean definition cannot be included
+ * in a snapshot (e.g. due to an instance supplier).
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see BeanDefinitionSnapshot
+ * @see ConfigurationClassPostProcessor
+ */
+public class BeanDefinitionSnapshotPostProcessor implements BeanDefinitionRegistryPostProcessor {
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshotPostProcessor.class);
+
+	private final File snapshotFile;
+
+	@Nullable
+	private String classPathFingerprint;
+
+	@Nullable
+	private BeanDefinitionRegistry registry;
+
+	@Nullable
+	private String fingerprint;
+
+	private Set<String> initialBeanNames = new LinkedHashSet<>();
+
+	@Nullable
+	private List<String> propertySourceNames;
+
+	private boolean snapshotApplied;
+
+
+	/**
+	 * Create a new {@code BeanDefinitionSnapshotPostProcessor} for the given file.
+	 * @param snapshotFile the file to read the snapshot from and to write it to
+	 * (the file does not need to exist on first startup)
+	 */
+	public BeanDefinitionSnapshotPostProcessor(File snapshotFile) {
+		Assert.notNull(snapshotFile, "Snapshot file must not be null");
+		this.snapshotFile = snapshotFile;
+	}
+
+
+	/**
+	 * Specify a build-time marker for the application classes, e.g. a build
+	 * number or a version control revision, to be used instead of a fingerprint
+	 * derived from the resource roots of the bean {@code ClassLoader}.
+	 * <p>Needs to change whenever any class or resource changes. Required for
+	 * applications which run from class directories rather than archives.
+	 */
+	public void setClassPathFingerprint(@Nullable String classPathFingerprint) {
+		this.classPathFingerprint = classPathFingerprint;
+	}
+
+	/**
+	 * Return whether the bean definitions have been restored from the snapshot
+	 * file (as opposed to being created through regular processing).
+	 */
+	public boolean isSnapshotApplied() {
+		return this.snapshotApplied;
+	}
+
+
+	@Override
+	public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+		this.registry = registry;
+		this.initialBeanNames = new LinkedHashSet<>(Arrays.asList(registry.getBeanDefinitionNames()));
+		Environment environment = (registry instanceof SingletonBeanRegistry ?
+				getEnvironment((SingletonBeanRegistry) registry) : null);
+		this.propertySourceNames = getPropertySourceNames(environment);
+		ClassLoader classLoader = (registry instanceof ConfigurableListableBeanFactory ?
+				((ConfigurableListableBeanFactory) registry).getBeanClassLoader() : ClassUtils.getDefaultClassLoader());
+		try {
+			this.fingerprint = buildFingerprint(registry, environment, classLoader);
+		}
+		catch (IOException ex) {
+			logger.debug("Failed to compute bean definition snapshot fingerprint", ex);
+			return;
+		}
+		if (this.fingerprint == null || !this.snapshotFile.isFile()) {
+			return;
+		}
+		BeanDefinitionSnapshot snapshot;
+		try {
+			try (InputStream in = Files.newInputStream(this.snapshotFile.toPath())) {
+				if (!this.fingerprint.equals(BeanDefinitionSnapshot.readFingerprint(in))) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Ignoring outdated bean definition snapshot [" + this.snapshotFile + "]");
+					}
+					return;
+				}
+			}
+			boolean resolveBeanClasses = (registry instanceof ConfigurableListableBeanFactory &&
+					((ConfigurableListableBeanFactory) registry).getTempClassLoader() == null);
+			try (InputStream in = Files.newInputStream(this.snapshotFile.toPath())) {
+				snapshot = BeanDefinitionSnapshot.readFrom(in, classLoader, resolveBeanClasses);
+			}
+		}
+		catch (IOException | ClassNotFoundException | LinkageError ex) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Failed to read bean definition snapshot [" + this.snapshotFile +
+						"] - proceeding with regular configuration processing: " + ex);
+			}
+			return;
+		}
+		snapshot.registerWith(registry);
+		this.snapshotApplied = true;
+		if (logger.isDebugEnabled()) {
+			logger.debug("Restored " + snapshot.getBeanDefinitionCount() +
+					" bean definitions from snapshot [" + this.snapshotFile + "]");
+		}
+	}
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+		BeanDefinitionRegistry registry = this.registry;
+		String fingerprint = this.fingerprint;
+		if (this.snapshotApplied || registry == null || fingerprint == null) {
+			return;
+		}
+		String reason = checkSnapshotCapability(beanFactory);
+		if (reason != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not writing bean definition snapshot: " + reason);
+			}
+			return;
+		}
+
+		recordImportingClasses(beanFactory, registry);
+
+		Path target = this.snapshotFile.toPath().toAbsolutePath();
+		Path tempFile = null;
+		try {
+			Files.createDirectories(target.getParent());
+			tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+			try (OutputStream out = Files.newOutputStream(tempFile)) {
+				BeanDefinitionSnapshot.of(registry, fingerprint, this.initialBeanNames).writeTo(out);
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			tempFile = null;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Written bean definition snapshot [" + this.snapshotFile + "]");
+			}
+		}
+		catch (IOException | BeanDefinitionStoreException ex) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Failed to write bean definition snapshot [" + this.snapshotFile + "]: " + ex);
+			}
+		}
+		finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether the bean definitions in the given factory can be restored
+	 * from a snapshot on the next startup.
+	 * @return the reason why no snapshot can be written, or {@code null} if capable
+	 */
+	@Nullable
+	private String checkSnapshotCapability(ConfigurableListableBeanFactory beanFactory) {
+		if (beanFactory.containsBean(ConfigurableApplicationContext.LOAD_TIME_WEAVER_BEAN_NAME)) {
+			return "load-time weaving requires lazy bean class resolution";
+		}
+		List<String> propertySourceNames = getPropertySourceNames(getEnvironment(beanFactory));
+		if (propertySourceNames != null && !propertySourceNames.equals(this.propertySourceNames)) {
+			return "property sources have been added during configuration processing";
+		}
+		for (String ppName : beanFactory.getBeanNamesForType(BeanDefinitionRegistryPostProcessor.class, true, false)) {
+			if (beanFactory.getType(ppName) != ConfigurationClassPostProcessor.class) {
+				return "custom BeanDefinitionRegistryPostProcessor '" + ppName + "' present";
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Record the importing class of each imported bean as a definition attribute,
+	 * for {@link ImportAware} beans restored from the snapshot.
+	 */
+	private static void recordImportingClasses(ConfigurableListableBeanFactory beanFactory,
+			BeanDefinitionRegistry registry) {
+
+		if (!beanFactory.containsSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME)) {
+			return;
+		}
+		ImportRegistry importRegistry = beanFactory.getBean(
+				ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class);
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			String beanClassName = bd.getBeanClassName();
+			AnnotationMetadata importingClass =
+					(beanClassName != null ? importRegistry.getImportingClassFor(beanClassName) : null);
+			if (importingClass != null) {
+				bd.setAttribute(ConfigurationClassPostProcessor.IMPORTING_CLASS_ATTRIBUTE, importingClass.getClassName());
+			}
+		}
+	}
+
+	@Nullable
+	private static Environment getEnvironment(SingletonBeanRegistry beanFactory) {
+		Object environment = beanFactory.getSingleton(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME);
+		return (environment instanceof Environment ? (Environment) environment : null);
+	}
+
+	@Nullable
+	private static List<String> getPropertySourceNames(@Nullable Environment environment) {
+		if (!(environment instanceof ConfigurableEnvironment)) {
+			return null;
+		}
+		List<String> names = new ArrayList<>();
+		for (PropertySource<?> propertySource : ((ConfigurableEnvironment) environment).getPropertySources()) {
+			names.add(propertySource.getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Build the fingerprint for the given registry.
+	 * @return the fingerprint, or {@code null} if the class path cannot be fingerprinted
+	 */
+	@Nullable
+	private String buildFingerprint(BeanDefinitionRegistry registry, @Nullable Environment environment,
+			@Nullable ClassLoader classLoader) throws IOException {
+
+		StringBuilder content = new StringBuilder();
+		if (this.classPathFingerprint != null) {
+			content.append("marker:").append(this.classPathFingerprint).append('\n');
+		}
+		else if (classLoader == null || !appendClassPathArchives(content, classLoader)) {
+			return null;
+		}
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			content.append("bean:").append(beanName).append('=').append(bd.getBeanClassName()).append('\n');
+		}
+		if (environment != null) {
+			content.append("active:").append(Arrays.toString(environment.getActiveProfiles())).append('\n');
+			content.append("default:").append(Arrays.toString(environment.getDefaultProfiles())).append('\n');
+		}
+		return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Append the size and timestamp of the outermost archive file behind each
+	 * resource root of the given {@code ClassLoader}, covering nested archives
+	 * through their enclosing archive.
+	 * @return {@code false} if any resource root cannot be fingerprinted
+	 */
+	private static boolean appendClassPathArchives(StringBuilder content, ClassLoader classLoader)
+			throws IOException {
+
+		Set<String> archives = new LinkedHashSet<>();
+		List<URL> roots = new ArrayList<>(Collections.list(classLoader.getResources("")));
+		roots.addAll(Collections.list(classLoader.getResources(JarFile.MANIFEST_NAME)));
+		for (URL root : roots) {
+			if (!ResourceUtils.isJarURL(root)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Not using bean definition snapshot: cannot fingerprint resource root [" +
+							root + "] without a class path fingerprint");
+				}
+				return false;
+			}
+			archives.add(ResourceUtils.extractArchiveURL(root).toString());
+		}
+		for (String archive : archives) {
+			URL archiveUrl = new URL(archive);
+			if (!ResourceUtils.isFileURL(archiveUrl)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Not using bean definition snapshot: cannot fingerprint archive [" +
+							archive + "] without a class path fingerprint");
+				}
+				return false;
+			}
+			File file = ResourceUtils.getFile(archiveUrl);
+			content.append("cp:").append(file.getAbsolutePath()).append(':').append(file.length()).append(':')
+					.append(file.lastModified()).append('\n');
+		}
+		return true;
+	}
+
+}
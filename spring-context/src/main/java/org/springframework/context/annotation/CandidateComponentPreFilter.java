@@ -0,0 +1,299 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Cheap pre-check for candidate component classes, inspecting the raw class
+ * file for class-level annotation types before a full ASM-based metadata
+ * visit. Classes which do not declare any annotation matching one of the
+ * include filters (directly or through meta-annotations) can be skipped.
+ *
+ * <p>Only applicable if all include filters are plain {@link AnnotationTypeFilter}
+ * instances which consider the candidate class itself only (i.e. neither
+ * superclasses nor interfaces), as is the case for the default stereotype
+ * filters. For any unexpected class file content, the pre-check reports a
+ * potential match, leaving the decision to regular filter processing.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see ClassPathScanningCandidateComponentProvider#scanCandidateComponents
+ */
+final class CandidateComponentPreFilter {
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS =
+			"RuntimeVisibleAnnotations".getBytes(StandardCharsets.US_ASCII);
+
+
+	private final List<AnnotationTypeFilter> filters;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final Map<String, Boolean> matchingAnnotationTypes = new ConcurrentHashMap<>();
+
+
+	private CandidateComponentPreFilter(List<AnnotationTypeFilter> filters, @Nullable ClassLoader classLoader) {
+		this.filters = filters;
+		this.classLoader = classLoader;
+	}
+
+
+	/**
+	 * Determine whether the given class file may match any of the include filters.
+	 * @param resource the class file resource
+	 * @return {@code false} if the class certainly does not match, or {@code true}
+	 * if it may match and needs to go through regular filter processing
+	 * @throws IOException if the resource could not be read
+	 */
+	boolean mayMatch(Resource resource) throws IOException {
+		byte[] bytes;
+		try (InputStream is = resource.getInputStream()) {
+			bytes = FileCopyUtils.copyToByteArray(is);
+		}
+		try {
+			return mayMatch(bytes);
+		}
+		catch (IndexOutOfBoundsException ex) {
+			// Malformed class file: let regular processing report it
+			return true;
+		}
+	}
+
+	private boolean mayMatch(byte[] b) throws IOException {
+		if (readInt(b, 0) != MAGIC) {
+			return true;
+		}
+		int poolCount = readU2(b, 8);
+		int[] utf8Offsets = new int[poolCount];
+		boolean annotationsPresent = false;
+		int offset = 10;
+		for (int i = 1; i < poolCount; i++) {
+			int tag = b[offset];
+			switch (tag) {
+				case 1:  // Utf8
+					utf8Offsets[i] = offset + 1;
+					int length = readU2(b, offset + 1);
+					if (!annotationsPresent && matches(b, offset + 3, length, RUNTIME_VISIBLE_ANNOTATIONS)) {
+						annotationsPresent = true;
+					}
+					offset += 3 + length;
+					break;
+				case 7: case 8: case 16: case 19: case 20:  // Class, String, MethodType, Module, Package
+					offset += 3;
+					break;
+				case 15:  // MethodHandle
+					offset += 4;
+					break;
+				case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+					offset += 5;
+					break;
+				case 5: case 6:  // Long, Double: two constant pool slots
+					offset += 9;
+					i++;
+					break;
+				default:
+					return true;
+			}
+		}
+		if (!annotationsPresent) {
+			// No runtime-visible annotations anywhere in the class
+			return false;
+		}
+
+		// Skip access flags, this class, super class, interfaces, fields and methods
+		offset += 6;
+		offset += 2 + readU2(b, offset) * 2;
+		for (int i = 0; i < 2; i++) {
+			int memberCount = readU2(b, offset);
+			offset += 2;
+			for (int j = 0; j < memberCount; j++) {
+				offset = skipAttributes(b, offset + 6);
+			}
+		}
+
+		int attributeCount = readU2(b, offset);
+		offset += 2;
+		for (int i = 0; i < attributeCount; i++) {
+			int nameOffset = utf8Offsets[readU2(b, offset)];
+			int attributeLength = readInt(b, offset + 2);
+			if (nameOffset != 0 &&
+					matches(b, nameOffset + 2, readU2(b, nameOffset), RUNTIME_VISIBLE_ANNOTATIONS)) {
+				int annotationOffset = offset + 6;
+				int annotationCount = readU2(b, annotationOffset);
+				annotationOffset += 2;
+				for (int j = 0; j < annotationCount; j++) {
+					int typeOffset = utf8Offsets[readU2(b, annotationOffset)];
+					if (typeOffset == 0 || isMatchingAnnotationType(readUtf8(b, typeOffset))) {
+						return true;
+					}
+					annotationOffset = skipAnnotation(b, annotationOffset);
+				}
+				return false;
+			}
+			offset += 6 + attributeLength;
+		}
+		// Annotations on members only
+		return false;
+	}
+
+	private boolean isMatchingAnnotationType(String descriptor) {
+		if (descriptor.length() < 3 || descriptor.charAt(0) != 'L') {
+			return true;
+		}
+		String className = descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+		return this.matchingAnnotationTypes.computeIfAbsent(className, this::determineMatchingAnnotationType);
+	}
+
+	private boolean determineMatchingAnnotationType(String className) {
+		for (AnnotationTypeFilter filter : this.filters) {
+			if (filter.getAnnotationType().getName().equals(className)) {
+				return true;
+			}
+		}
+		Class<?> annotationType;
+		try {
+			annotationType = ClassUtils.forName(className, this.classLoader);
+		}
+		catch (Throwable ex) {
+			// Not resolvable: let regular processing decide
+			return true;
+		}
+		if (!annotationType.isAnnotation()) {
+			return true;
+		}
+		MergedAnnotations metaAnnotations = MergedAnnotations.from(annotationType);
+		for (AnnotationTypeFilter filter : this.filters) {
+			if (filter.isConsiderMetaAnnotations() && metaAnnotations.isPresent(filter.getAnnotationType())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Create a pre-filter for the given include filters, if applicable.
+	 * @param includeFilters the include filters of the scanning component provider
+	 * @param classLoader the ClassLoader to resolve annotation types with
+	 * @return the pre-filter, or {@code null} if not applicable to the given filters
+	 */
+	@Nullable
+	static CandidateComponentPreFilter forIncludeFilters(List<TypeFilter> includeFilters,
+			@Nullable ClassLoader classLoader) {
+
+		if (includeFilters.isEmpty()) {
+			return null;
+		}
+		List<AnnotationTypeFilter> filters = new ArrayList<>(includeFilters.size());
+		for (TypeFilter filter : includeFilters) {
+			if (filter.getClass() != AnnotationTypeFilter.class) {
+				return null;
+			}
+			AnnotationTypeFilter annotationFilter = (AnnotationTypeFilter) filter;
+			if (annotationFilter.isConsiderInherited() || annotationFilter.isConsiderInterfaces()) {
+				return null;
+			}
+			filters.add(annotationFilter);
+		}
+		return new CandidateComponentPreFilter(filters, classLoader);
+	}
+
+	private static int skipAttributes(byte[] b, int offset) {
+		int attributeCount = readU2(b, offset);
+		offset += 2;
+		for (int i = 0; i < attributeCount; i++) {
+			offset += 6 + readInt(b, offset + 2);
+		}
+		return offset;
+	}
+
+	private static int skipAnnotation(byte[] b, int offset) {
+		int pairCount = readU2(b, offset + 2);
+		offset += 4;
+		for (int i = 0; i < pairCount; i++) {
+			offset = skipElementValue(b, offset + 2);
+		}
+		return offset;
+	}
+
+	private static int skipElementValue(byte[] b, int offset) {
+		char tag = (char) b[offset];
+		switch (tag) {
+			case 'e':
+				return offset + 5;
+			case '@':
+				return skipAnnotation(b, offset + 1);
+			case '[':
+				int valueCount = readU2(b, offset + 1);
+				offset += 3;
+				for (int i = 0; i < valueCount; i++) {
+					offset = skipElementValue(b, offset);
+				}
+				return offset;
+			default:
+				return offset + 3;
+		}
+	}
+
+	private static boolean matches(byte[] b, int offset, int length, byte[] expected) {
+		if (length != expected.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (b[offset + i] != expected[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String readUtf8(byte[] b, int offset) throws IOException {
+		// Modified UTF-8, as expected by DataInput
+		int length = readU2(b, offset);
+		return new DataInputStream(new ByteArrayInputStream(b, offset, length + 2)).readUTF();
+	}
+
+	private static int readU2(byte[] b, int offset) {
+		return ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+	}
+
+	private static int readInt(byte[] b, int offset) {
+		return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16) |
+				((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+	}
+
+}
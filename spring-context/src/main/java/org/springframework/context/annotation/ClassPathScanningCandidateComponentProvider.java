@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,15 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +39,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -45,6 +50,7 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
@@ -59,6 +65,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A component provider that provides candidate components from a base package. Can
@@ -88,6 +95,17 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	/**
+	 * System property that instructs Spring to read and filter candidate
+	 * component classes in parallel during classpath scanning:
+	 * {@code "spring.context.scan.parallel"}.
+	 * <p>The default is "false", scanning on the calling thread. Parallel scanning
+	 * requires thread-safe type filters and {@link Condition} implementations.
+	 * @since 5.3.10
+	 * @see #setParallelScanning
+	 */
+	public static final String PARALLEL_SCANNING_PROPERTY_NAME = "spring.context.scan.parallel";
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -112,6 +130,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	private boolean parallelScanning = SpringProperties.getFlag(PARALLEL_SCANNING_PROPERTY_NAME);
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -161,6 +181,21 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		this.resourcePattern = resourcePattern;
 	}
 
+	/**
+	 * Specify whether to read and filter the class files found during classpath
+	 * scanning in parallel, using the common {@link java.util.concurrent.ForkJoinPool}.
+	 * The resulting candidate components are returned in the same order as
+	 * with sequential scanning.
+	 * <p>Default is "false", unless the {@link #PARALLEL_SCANNING_PROPERTY_NAME}
+	 * system property is set to "true". Only switch this on if all configured
+	 * type filters and conditions are thread-safe, as is the case for the
+	 * default stereotype filters.
+	 * @since 5.3.10
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
 	/**
 	 * Add an include type filter to the <i>end</i> of the inclusion list.
 	 */
@@ -383,7 +418,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			boolean traceEnabled = logger.isTraceEnabled();
 			boolean debugEnabled = logger.isDebugEnabled();
 			for (String type : types) {
-				MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(type);
+				MetadataReader metadataReader = getIndexedMetadataReader(index, type);
+				if (metadataReader == null) {
+					metadataReader = getMetadataReaderFactory().getMetadataReader(type);
+				}
 				if (isCandidateComponent(metadataReader)) {
 					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
 					sbd.setSource(metadataReader.getResource());
@@ -412,58 +450,119 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Obtain a {@link MetadataReader} for the specified candidate type, based on
+	 * the metadata recorded in the index, i.e. without reading the class file.
+	 * @param index the index to use
+	 * @param type the candidate type
+	 * @return the MetadataReader, or {@code null} if the index does not provide
+	 * (compatible) metadata for the specified type
+	 * @since 5.3.10
+	 * @see CandidateComponentsIndex#getCandidateMetadata
+	 */
+	@Nullable
+	private MetadataReader getIndexedMetadataReader(CandidateComponentsIndex index, String type) {
+		ResourcePatternResolver resourcePatternResolver = getResourcePatternResolver();
+		AnnotationMetadata metadata = index.getCandidateMetadata(type, resourcePatternResolver.getClassLoader());
+		if (metadata == null) {
+			return null;
+		}
+		Resource resource = resourcePatternResolver.getResource(ResourceLoader.CLASSPATH_URL_PREFIX +
+				ClassUtils.convertClassNameToResourcePath(type) + ClassUtils.CLASS_FILE_SUFFIX);
+		return new IndexedMetadataReader(resource, metadata);
+	}
+
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
-			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
-			for (Resource resource : resources) {
-				if (traceEnabled) {
-					logger.trace("Scanning " + resource);
+			CandidateComponentPreFilter preFilter = (isDefaultCandidateComponentCheck() ?
+					CandidateComponentPreFilter.forIncludeFilters(
+							this.includeFilters, getResourcePatternResolver().getClassLoader()) : null);
+			if (this.parallelScanning && resources.length > 1) {
+				// Ordered parallel stream: results in the same order as sequential scanning
+				candidates.addAll(Arrays.stream(resources).parallel()
+						.map(resource -> scanCandidateComponent(resource, preFilter))
+						.filter(Objects::nonNull)
+						.collect(Collectors.toList()));
+			}
+			else {
+				for (Resource resource : resources) {
+					ScannedGenericBeanDefinition sbd = scanCandidateComponent(resource, preFilter);
+					if (sbd != null) {
+						candidates.add(sbd);
+					}
 				}
-				if (resource.isReadable()) {
-					try {
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
-						if (isCandidateComponent(metadataReader)) {
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							sbd.setSource(resource);
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
-						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Determine whether {@link #isCandidateComponent(MetadataReader)} applies
+	 * the include filters as implemented here, not having been overridden
+	 * with custom logic that a pre-filter of class files would not be aware of.
+	 */
+	private boolean isDefaultCandidateComponentCheck() {
+		Method method = ReflectionUtils.findMethod(getClass(), "isCandidateComponent", MetadataReader.class);
+		return (method != null && method.getDeclaringClass() == ClassPathScanningCandidateComponentProvider.class);
+	}
+
+	@Nullable
+	private ScannedGenericBeanDefinition scanCandidateComponent(
+			Resource resource, @Nullable CandidateComponentPreFilter preFilter) {
+
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		if (traceEnabled) {
+			logger.trace("Scanning " + resource);
+		}
+		if (resource.isReadable()) {
+			try {
+				if (preFilter != null && !preFilter.mayMatch(resource)) {
+					if (traceEnabled) {
+						logger.trace("Ignored because not matching any filter: " + resource);
+					}
+					return null;
+				}
+				MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+				if (isCandidateComponent(metadataReader)) {
+					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+					sbd.setSource(resource);
+					if (isCandidateComponent(sbd)) {
+						if (debugEnabled) {
+							logger.debug("Identified candidate component class: " + resource);
 						}
+						return sbd;
 					}
-					catch (Throwable ex) {
-						throw new BeanDefinitionStoreException(
-								"Failed to read candidate component class: " + resource, ex);
+					else {
+						if (debugEnabled) {
+							logger.debug("Ignored because not a concrete top-level class: " + resource);
+						}
 					}
 				}
 				else {
 					if (traceEnabled) {
-						logger.trace("Ignored because not readable: " + resource);
+						logger.trace("Ignored because not matching any filter: " + resource);
 					}
 				}
 			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class: " + resource, ex);
+			}
 		}
-		catch (IOException ex) {
-			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		else {
+			if (traceEnabled) {
+				logger.trace("Ignored because not readable: " + resource);
+			}
 		}
-		return candidates;
+		return null;
 	}
 
 
@@ -539,4 +638,36 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		}
 	}
 
+
+	/**
+	 * {@link MetadataReader} exposing the metadata of a candidate component
+	 * as recorded in the {@link CandidateComponentsIndex}.
+	 */
+	private static class IndexedMetadataReader implements MetadataReader {
+
+		private final Resource resource;
+
+		private final AnnotationMetadata annotationMetadata;
+
+		IndexedMetadataReader(Resource resource, AnnotationMetadata annotationMetadata) {
+			this.resource = resource;
+			this.annotationMetadata = annotationMetadata;
+		}
+
+		@Override
+		public Resource getResource() {
+			return this.resource;
+		}
+
+		@Override
+		public ClassMetadata getClassMetadata() {
+			return this.annotationMetadata;
+		}
+
+		@Override
+		public AnnotationMetadata getAnnotationMetadata() {
+			return this.annotationMetadata;
+		}
+	}
+
 }
@@ -289,6 +289,18 @@ public class CommonAnnotationBeanPostProcessor extends InitDestroyAnnotationBean
 	}
 
 
+	/**
+	 * Consider bean classes which may carry resource annotations,
+	 * in addition to the init and destroy annotations.
+	 * @since 5.3.10
+	 * @see AnnotationUtils#isCandidateClass
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		return (super.isCandidateClass(beanClass) ||
+				AnnotationUtils.isCandidateClass(beanClass, resourceAnnotationTypes));
+	}
+
 	@Override
 	public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
 		super.postProcessMergedBeanDefinition(beanDefinition, beanType, beanName);
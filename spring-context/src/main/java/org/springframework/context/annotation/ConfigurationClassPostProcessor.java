@@ -39,6 +39,7 @@ import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
 import org.springframework.beans.factory.parsing.FailFastProblemReporter;
 import org.springframework.beans.factory.parsing.PassThroughSourceExtractor;
@@ -52,6 +53,7 @@ import org.springframework.context.ApplicationStartupAware;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ConfigurationClassEnhancer.EnhancedConfiguration;
+import org.springframework.core.Conventions;
 import org.springframework.core.NativeDetector;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
@@ -103,9 +105,17 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public static final AnnotationBeanNameGenerator IMPORT_BEAN_NAME_GENERATOR =
 			FullyQualifiedAnnotationBeanNameGenerator.INSTANCE;
 
-	private static final String IMPORT_REGISTRY_BEAN_NAME =
+	static final String IMPORT_REGISTRY_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
 
+	/**
+	 * Bean definition attribute holding the name of the importing class,
+	 * recorded for {@link ImportAware} beans restored from a snapshot.
+	 * @see BeanDefinitionSnapshotPostProcessor
+	 */
+	static final String IMPORTING_CLASS_ATTRIBUTE =
+			Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "importingClass");
+
 
 	private final Log logger = LogFactory.getLog(getClass());
 
@@ -457,7 +467,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	}
 
 
-	private static class ImportAwareBeanPostProcessor implements InstantiationAwareBeanPostProcessor {
+	private static class ImportAwareBeanPostProcessor
+			implements InstantiationAwareBeanPostProcessor, SelectiveBeanPostProcessor {
 
 		private final BeanFactory beanFactory;
 
@@ -465,6 +476,12 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			this.beanFactory = beanFactory;
 		}
 
+		@Override
+		public boolean isCandidateClass(Class<?> beanClass) {
+			return (EnhancedConfiguration.class.isAssignableFrom(beanClass) ||
+					ImportAware.class.isAssignableFrom(beanClass));
+		}
+
 		@Override
 		public PropertyValues postProcessProperties(@Nullable PropertyValues pvs, Object bean, String beanName) {
 			// Inject the BeanFactory before AutowiredAnnotationBeanPostProcessor's
@@ -478,14 +495,47 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		@Override
 		public Object postProcessBeforeInitialization(Object bean, String beanName) {
 			if (bean instanceof ImportAware) {
-				ImportRegistry ir = this.beanFactory.getBean(IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class);
-				AnnotationMetadata importingClass = ir.getImportingClassFor(ClassUtils.getUserClass(bean).getName());
+				AnnotationMetadata importingClass = null;
+				if (this.beanFactory.containsBean(IMPORT_REGISTRY_BEAN_NAME)) {
+					ImportRegistry ir = this.beanFactory.getBean(IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class);
+					importingClass = ir.getImportingClassFor(ClassUtils.getUserClass(bean).getName());
+				}
+				if (importingClass == null) {
+					importingClass = getImportingClassFromAttribute(beanName);
+				}
 				if (importingClass != null) {
 					((ImportAware) bean).setImportMetadata(importingClass);
 				}
 			}
 			return bean;
 		}
+
+		/**
+		 * Determine the importing class from the bean definition attribute,
+		 * in case of configuration classes restored from a snapshot.
+		 * @see BeanDefinitionSnapshotPostProcessor
+		 */
+		@Nullable
+		private AnnotationMetadata getImportingClassFromAttribute(String beanName) {
+			if (!(this.beanFactory instanceof ConfigurableListableBeanFactory)) {
+				return null;
+			}
+			ConfigurableListableBeanFactory clbf = (ConfigurableListableBeanFactory) this.beanFactory;
+			if (!clbf.containsBeanDefinition(beanName)) {
+				return null;
+			}
+			Object importingClassName = clbf.getBeanDefinition(beanName).getAttribute(IMPORTING_CLASS_ATTRIBUTE);
+			if (!(importingClassName instanceof String)) {
+				return null;
+			}
+			try {
+				return AnnotationMetadata.introspect(
+						ClassUtils.forName((String) importingClassName, clbf.getBeanClassLoader()));
+			}
+			catch (ClassNotFoundException ex) {
+				throw new IllegalStateException("Cannot load importing class [" + importingClassName + "]", ex);
+			}
+		}
 	}
 
 }
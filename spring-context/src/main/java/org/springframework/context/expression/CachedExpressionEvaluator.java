@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -92,7 +92,13 @@ public abstract class CachedExpressionEvaluator {
 		return expr;
 	}
 
-	private ExpressionKey createKey(AnnotatedElementKey elementKey, String expression) {
+	/**
+	 * Create the key under which the specified expression is cached.
+	 * @param elementKey the element on which the expression is defined
+	 * @param expression the expression
+	 * @since 5.3.10
+	 */
+	protected ExpressionKey createKey(AnnotatedElementKey elementKey, String expression) {
 		return new ExpressionKey(elementKey, expression);
 	}
 
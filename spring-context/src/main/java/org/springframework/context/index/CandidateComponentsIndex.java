@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,18 @@
 package org.springframework.context.index;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
@@ -43,6 +50,10 @@ import org.springframework.util.MultiValueMap;
  * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
  * a target type but it can be any marker really.
  *
+ * <p>As of 5.3.10, the index may also provide the full {@link AnnotationMetadata}
+ * of a candidate type, as recorded in {@code META-INF/spring.components.metadata}
+ * at compile time, allowing for candidate introspection without reading class files.
+ *
  * @author Stephane Nicoll
  * @since 5.0
  */
@@ -50,11 +61,20 @@ public class CandidateComponentsIndex {
 
 	private static final AntPathMatcher pathMatcher = new AntPathMatcher(".");
 
+	private static final Log logger = LogFactory.getLog(CandidateComponentsIndex.class);
+
 	private final MultiValueMap<String, Entry> index;
 
+	private final Map<String, String> componentMetadata;
+
 
 	CandidateComponentsIndex(List<Properties> content) {
+		this(content, Collections.emptyList());
+	}
+
+	CandidateComponentsIndex(List<Properties> content, List<Properties> componentMetadata) {
 		this.index = parseIndex(content);
+		this.componentMetadata = parseComponentMetadata(componentMetadata);
 	}
 
 	private static MultiValueMap<String, Entry> parseIndex(List<Properties> content) {
@@ -70,6 +90,14 @@ public class CandidateComponentsIndex {
 		return index;
 	}
 
+	private static Map<String, String> parseComponentMetadata(List<Properties> content) {
+		Map<String, String> componentMetadata = new HashMap<>();
+		for (Properties entry : content) {
+			entry.forEach((type, metadata) -> componentMetadata.putIfAbsent((String) type, (String) metadata));
+		}
+		return componentMetadata;
+	}
+
 
 	/**
 	 * Return the candidate types that are associated with the specified stereotype.
@@ -89,6 +117,34 @@ public class CandidateComponentsIndex {
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Return the {@link AnnotationMetadata} recorded for the specified candidate type.
+	 * <p>The returned metadata is equivalent to the metadata read from the class file
+	 * of the candidate, with annotation types resolved against the given ClassLoader.
+	 * @param type the candidate type, as returned by {@link #getCandidateTypes}
+	 * @param classLoader the ClassLoader to resolve annotation types with
+	 * (may be {@code null} to use the default ClassLoader)
+	 * @return the metadata of the candidate, or {@code null} if none has been recorded
+	 * or if the recorded metadata does not match the annotation types at runtime
+	 * @since 5.3.10
+	 */
+	@Nullable
+	public AnnotationMetadata getCandidateMetadata(String type, @Nullable ClassLoader classLoader) {
+		String metadata = this.componentMetadata.get(type);
+		if (metadata == null) {
+			return null;
+		}
+		try {
+			return ComponentMetadataDecoder.decode(metadata, classLoader);
+		}
+		catch (RuntimeException | LinkageError ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring indexed metadata for candidate type [" + type + "]", ex);
+			}
+			return null;
+		}
+	}
+
 
 	private static class Entry {
 
@@ -47,6 +47,15 @@ public final class CandidateComponentsIndexLoader {
 	 */
 	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
 
+	/**
+	 * The location to look for the metadata of the indexed components.
+	 * <p>Can be present in multiple JAR files, next to the corresponding
+	 * {@value #COMPONENTS_RESOURCE_LOCATION} file.
+	 * @since 5.3.10
+	 * @see CandidateComponentsIndex#getCandidateMetadata
+	 */
+	public static final String COMPONENT_METADATA_RESOURCE_LOCATION = "META-INF/spring.components.metadata";
+
 	/**
 	 * System property that instructs Spring to ignore the components index, i.e.
 	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
@@ -110,7 +119,7 @@ public final class CandidateComponentsIndexLoader {
 				logger.debug("Loaded " + result.size() + "] index(es)");
 			}
 			int totalCount = result.stream().mapToInt(Properties::size).sum();
-			return (totalCount > 0 ? new CandidateComponentsIndex(result) : null);
+			return (totalCount > 0 ? new CandidateComponentsIndex(result, loadComponentMetadata(classLoader)) : null);
 		}
 		catch (IOException ex) {
 			throw new IllegalStateException("Unable to load indexes from location [" +
@@ -118,4 +127,14 @@ public final class CandidateComponentsIndexLoader {
 		}
 	}
 
+	private static List<Properties> loadComponentMetadata(ClassLoader classLoader) throws IOException {
+		List<Properties> result = new ArrayList<>();
+		Enumeration<URL> urls = classLoader.getResources(COMPONENT_METADATA_RESOURCE_LOCATION);
+		while (urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			result.add(PropertiesLoaderUtils.loadProperties(new UrlResource(url)));
+		}
+		return result;
+	}
+
 }
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.annotation.AnnotationFilter;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Decode the component metadata recorded by the {@code spring-context-indexer}
+ * annotation processor into {@link AnnotationMetadata}.
+ *
+ * <p>Annotation types are resolved against the given {@link ClassLoader}, the same
+ * way as for ASM-based metadata: annotations whose type cannot be resolved are
+ * skipped, while class attribute values are exposed as class names.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see IndexedAnnotationMetadata
+ */
+final class ComponentMetadataDecoder {
+
+	private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+
+	private ComponentMetadataDecoder() {
+	}
+
+
+	/**
+	 * Decode the given component metadata.
+	 * @param encoded the encoded metadata, as recorded in the index
+	 * @param classLoader the ClassLoader to resolve annotation types with
+	 * @return the corresponding {@link AnnotationMetadata}
+	 * @throws IllegalArgumentException if the encoded metadata is malformed
+	 * @throws IllegalStateException if the metadata does not match the
+	 * annotation types available at runtime
+	 */
+	static AnnotationMetadata decode(String encoded, @Nullable ClassLoader classLoader) {
+		Map<String, Object> metadata = asMap(new JsonReader(encoded).read());
+		String className = asString(metadata.get("name"));
+		List<MethodMetadata> annotatedMethods = new ArrayList<>();
+		for (Object method : asList(metadata.get("methods"))) {
+			MethodMetadata methodMetadata = decodeMethod(asMap(method), className, classLoader);
+			if (methodMetadata != null) {
+				annotatedMethods.add(methodMetadata);
+			}
+		}
+		return new IndexedAnnotationMetadata(className, getFlag(metadata, "interface"),
+				getFlag(metadata, "annotation"), getFlag(metadata, "abstract"), getFlag(metadata, "final"),
+				(String) metadata.get("enclosingClass"), getFlag(metadata, "independent"),
+				(String) metadata.get("superClass"), asStringArray(metadata.get("interfaces")),
+				asStringArray(metadata.get("memberClasses")), annotatedMethods.toArray(new MethodMetadata[0]),
+				decodeAnnotations(metadata.get("annotations"), classLoader, className));
+	}
+
+	@Nullable
+	private static MethodMetadata decodeMethod(
+			Map<String, Object> metadata, String declaringClassName, @Nullable ClassLoader classLoader) {
+
+		String methodName = asString(metadata.get("name"));
+		String signature = declaringClassName + '.' + methodName + '(' +
+				StringUtils.arrayToCommaDelimitedString(asStringArray(metadata.get("parameterTypes"))) + ')';
+		MergedAnnotations annotations = decodeAnnotations(metadata.get("annotations"), classLoader, signature);
+		if (!annotations.iterator().hasNext()) {
+			return null;
+		}
+		return new IndexedMethodMetadata(methodName, declaringClassName, asString(metadata.get("returnType")),
+				getFlag(metadata, "abstract"), getFlag(metadata, "static"), getFlag(metadata, "final"),
+				getFlag(metadata, "private"), signature, annotations);
+	}
+
+	private static MergedAnnotations decodeAnnotations(
+			@Nullable Object annotations, @Nullable ClassLoader classLoader, Object source) {
+
+		List<MergedAnnotation<?>> result = new ArrayList<>();
+		for (Object annotation : asList(annotations)) {
+			Map<String, Object> metadata = asMap(annotation);
+			String typeName = asString(metadata.get("type"));
+			if (AnnotationFilter.PLAIN.matches(typeName)) {
+				continue;
+			}
+			Class<?> type;
+			try {
+				type = ClassUtils.forName(typeName, classLoader);
+			}
+			catch (ClassNotFoundException | LinkageError ex) {
+				// Not available at runtime: skip, as for annotations read from the class file
+				continue;
+			}
+			result.add(decodeAnnotation(type, metadata, classLoader, source));
+		}
+		return MergedAnnotations.of(result);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MergedAnnotation<Annotation> decodeAnnotation(
+			Class<?> type, Map<String, Object> metadata, @Nullable ClassLoader classLoader, Object source) {
+
+		if (!type.isAnnotation()) {
+			throw new IllegalStateException("Type [" + type.getName() + "] is not an annotation");
+		}
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		for (Map.Entry<String, Object> entry : asMap(metadata.get("attributes")).entrySet()) {
+			Class<?> attributeType;
+			try {
+				attributeType = type.getDeclaredMethod(entry.getKey()).getReturnType();
+			}
+			catch (NoSuchMethodException ex) {
+				throw new IllegalStateException("Annotation [" + type.getName() +
+						"] does not declare attribute '" + entry.getKey() + "'");
+			}
+			attributes.put(entry.getKey(), decodeValue(entry.getValue(), attributeType, classLoader, source));
+		}
+		return MergedAnnotation.of(classLoader, source, (Class<Annotation>) type, attributes);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object decodeValue(
+			@Nullable Object value, Class<?> type, @Nullable ClassLoader classLoader, Object source) {
+
+		if (type.isArray()) {
+			List<?> elements = (value instanceof List ? (List<?>) value : Collections.singletonList(value));
+			Class<?> componentType = type.getComponentType();
+			Class<?> arrayType = (componentType == Class.class ? String.class :
+					componentType.isAnnotation() ? MergedAnnotation.class : componentType);
+			Object array = Array.newInstance(arrayType, elements.size());
+			for (int i = 0; i < elements.size(); i++) {
+				Array.set(array, i, decodeValue(elements.get(i), componentType, classLoader, source));
+			}
+			return array;
+		}
+		if (type == String.class || type == Class.class) {
+			return asString(value);
+		}
+		if (type.isAnnotation()) {
+			return decodeAnnotation(type, asMap(value), classLoader, source);
+		}
+		if (type.isEnum()) {
+			return Enum.valueOf((Class<Enum>) type, asString(value));
+		}
+		if (type == boolean.class) {
+			if (!(value instanceof Boolean)) {
+				throw new IllegalArgumentException("Expected boolean value but got [" + value + "]");
+			}
+			return value;
+		}
+		if (type == char.class) {
+			String string = asString(value);
+			if (string.length() != 1) {
+				throw new IllegalArgumentException("Expected char value but got [" + string + "]");
+			}
+			return string.charAt(0);
+		}
+		if (!(value instanceof Number)) {
+			throw new IllegalArgumentException("Expected numeric value but got [" + value + "]");
+		}
+		Number number = (Number) value;
+		if (type == int.class) {
+			return number.intValue();
+		}
+		if (type == long.class) {
+			return number.longValue();
+		}
+		if (type == short.class) {
+			return number.shortValue();
+		}
+		if (type == byte.class) {
+			return number.byteValue();
+		}
+		if (type == float.class) {
+			return number.floatValue();
+		}
+		if (type == double.class) {
+			return number.doubleValue();
+		}
+		throw new IllegalStateException("Unsupported attribute type [" + type.getName() + "]");
+	}
+
+	private static boolean getFlag(Map<String, Object> metadata, String name) {
+		return Boolean.TRUE.equals(metadata.get(name));
+	}
+
+	private static String asString(@Nullable Object value) {
+		if (!(value instanceof String)) {
+			throw new IllegalArgumentException("Expected string value but got [" + value + "]");
+		}
+		return (String) value;
+	}
+
+	private static String[] asStringArray(@Nullable Object value) {
+		List<Object> list = asList(value);
+		if (list.isEmpty()) {
+			return EMPTY_STRING_ARRAY;
+		}
+		String[] result = new String[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = asString(list.get(i));
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> asList(@Nullable Object value) {
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		if (!(value instanceof List)) {
+			throw new IllegalArgumentException("Expected array value but got [" + value + "]");
+		}
+		return (List<Object>) value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> asMap(@Nullable Object value) {
+		if (value == null) {
+			return Collections.emptyMap();
+		}
+		if (!(value instanceof Map)) {
+			throw new IllegalArgumentException("Expected object value but got [" + value + "]");
+		}
+		return (Map<String, Object>) value;
+	}
+
+
+	/**
+	 * Minimal reader for the JSON subset written by the annotation processor:
+	 * objects, arrays, strings, numbers and booleans.
+	 */
+	private static class JsonReader {
+
+		private final String json;
+
+		private int index;
+
+		JsonReader(String json) {
+			this.json = json;
+		}
+
+		Object read() {
+			Object value = readValue();
+			skipWhitespace();
+			if (this.index != this.json.length()) {
+				throw error("Unexpected trailing content");
+			}
+			return value;
+		}
+
+		@Nullable
+		private Object readValue() {
+			skipWhitespace();
+			switch (peek()) {
+				case '{':
+					return readObject();
+				case '[':
+					return readArray();
+				case '"':
+					return readString();
+				case 't':
+					return readLiteral("true", Boolean.TRUE);
+				case 'f':
+					return readLiteral("false", Boolean.FALSE);
+				case 'n':
+					return readLiteral("null", null);
+				default:
+					return readNumber();
+			}
+		}
+
+		private Map<String, Object> readObject() {
+			Map<String, Object> result = new LinkedHashMap<>();
+			this.index++;
+			skipWhitespace();
+			if (peek() == '}') {
+				this.index++;
+				return result;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = readString();
+				skipWhitespace();
+				expect(':');
+				result.put(key, readValue());
+				skipWhitespace();
+				if (peek() == '}') {
+					this.index++;
+					return result;
+				}
+				expect(',');
+			}
+		}
+
+		private List<Object> readArray() {
+			List<Object> result = new ArrayList<>();
+			this.index++;
+			skipWhitespace();
+			if (peek() == ']') {
+				this.index++;
+				return result;
+			}
+			while (true) {
+				result.add(readValue());
+				skipWhitespace();
+				if (peek() == ']') {
+					this.index++;
+					return result;
+				}
+				expect(',');
+			}
+		}
+
+		private String readString() {
+			expect('"');
+			StringBuilder result = new StringBuilder();
+			while (true) {
+				char ch = next();
+				if (ch == '"') {
+					return result.toString();
+				}
+				if (ch == '\\') {
+					ch = next();
+					switch (ch) {
+						case 'u':
+							if (this.index + 4 > this.json.length()) {
+								throw error("Incomplete unicode escape");
+							}
+							result.append((char) Integer.parseInt(this.json.substring(this.index, this.index + 4), 16));
+							this.index += 4;
+							break;
+						case 'n':
+							result.append('\n');
+							break;
+						case 'r':
+							result.append('\r');
+							break;
+						case 't':
+							result.append('\t');
+							break;
+						case 'b':
+							result.append('\b');
+							break;
+						case 'f':
+							result.append('\f');
+							break;
+						default:
+							result.append(ch);
+					}
+				}
+				else {
+					result.append(ch);
+				}
+			}
+		}
+
+		@Nullable
+		private Object readLiteral(String literal, @Nullable Object value) {
+			if (!this.json.startsWith(literal, this.index)) {
+				throw error("Unexpected content");
+			}
+			this.index += literal.length();
+			return value;
+		}
+
+		private Number readNumber() {
+			int start = this.index;
+			boolean decimal = false;
+			while (this.index < this.json.length()) {
+				char ch = this.json.charAt(this.index);
+				if (ch == '.' || ch == 'e' || ch == 'E') {
+					decimal = true;
+				}
+				else if (!Character.isDigit(ch) && ch != '-' && ch != '+') {
+					break;
+				}
+				this.index++;
+			}
+			if (start == this.index) {
+				throw error("Unexpected content");
+			}
+			String number = this.json.substring(start, this.index);
+			return (decimal ? (Number) Double.valueOf(number) : (Number) Long.valueOf(number));
+		}
+
+		private void skipWhitespace() {
+			while (this.index < this.json.length() && Character.isWhitespace(this.json.charAt(this.index))) {
+				this.index++;
+			}
+		}
+
+		private void expect(char expected) {
+			if (next() != expected) {
+				this.index--;
+				throw error("Expected '" + expected + "'");
+			}
+		}
+
+		private char peek() {
+			if (this.index >= this.json.length()) {
+				throw error("Unexpected end of content");
+			}
+			return this.json.charAt(this.index);
+		}
+
+		private char next() {
+			char ch = peek();
+			this.index++;
+			return ch;
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at index " + this.index + " in [" + this.json + "]");
+		}
+	}
+
+}
@@ -26,6 +26,8 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -62,7 +64,8 @@ import org.springframework.util.function.SingletonSupplier;
  * @see ScheduledAnnotationBeanPostProcessor
  */
 @SuppressWarnings("serial")
-public class AsyncAnnotationBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+public class AsyncAnnotationBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor
+		implements SelectiveBeanPostProcessor {
 
 	/**
 	 * The default name of the {@link TaskExecutor} bean to pick up: "taskExecutor".
@@ -86,6 +89,8 @@ public class AsyncAnnotationBeanPostProcessor extends AbstractBeanFactoryAwareAd
 	@Nullable
 	private Class<? extends Annotation> asyncAnnotationType;
 
+	private final boolean overriddenCallbacks = SelectiveBeanPostProcessor.overridesCallbacks(getClass());
+
 
 
 	public AsyncAnnotationBeanPostProcessor() {
@@ -154,4 +159,17 @@ public class AsyncAnnotationBeanPostProcessor extends AbstractBeanFactoryAwareAd
 		this.advisor = advisor;
 	}
 
+	/**
+	 * Consider bean classes which may carry the async annotation type,
+	 * or any of the default ones if not specified.
+	 * @since 5.3.10
+	 * @see AnnotationUtils#isCandidateClass
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		Class<? extends Annotation> asyncAnnotationType = this.asyncAnnotationType;
+		return (this.overriddenCallbacks || AnnotationUtils.isCandidateClass(beanClass,
+				asyncAnnotationType != null ? asyncAnnotationType : Async.class));
+	}
+
 }
@@ -49,6 +49,7 @@ import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
@@ -104,7 +105,7 @@ import org.springframework.util.StringValueResolver;
  */
 public class ScheduledAnnotationBeanPostProcessor
 		implements ScheduledTaskHolder, MergedBeanDefinitionPostProcessor, DestructionAwareBeanPostProcessor,
-		Ordered, EmbeddedValueResolverAware, BeanNameAware, BeanFactoryAware, ApplicationContextAware,
+		SelectiveBeanPostProcessor, Ordered, EmbeddedValueResolverAware, BeanNameAware, BeanFactoryAware, ApplicationContextAware,
 		SmartInitializingSingleton, ApplicationListener<ContextRefreshedEvent>, DisposableBean {
 
 	/**
@@ -139,6 +140,8 @@ public class ScheduledAnnotationBeanPostProcessor
 
 	private final Map<Object, Set<ScheduledTask>> scheduledTasks = new IdentityHashMap<>(16);
 
+	private final boolean overriddenCallbacks = SelectiveBeanPostProcessor.overridesCallbacks(getClass());
+
 
 	/**
 	 * Create a default {@code ScheduledAnnotationBeanPostProcessor}.
@@ -336,6 +339,18 @@ public class ScheduledAnnotationBeanPostProcessor
 	}
 
 
+	/**
+	 * Consider bean classes which may carry {@link Scheduled @Scheduled} methods.
+	 * Destruction callbacks are subject to {@link #requiresDestruction} instead.
+	 * @since 5.3.10
+	 * @see AnnotationUtils#isCandidateClass
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		return (this.overriddenCallbacks ||
+				AnnotationUtils.isCandidateClass(beanClass, Arrays.asList(Scheduled.class, Schedules.class)));
+	}
+
 	@Override
 	public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
 	}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.InMemoryCacheMetricsRecorder;
+import org.springframework.cache.support.InMemoryCacheMetricsRecorder.CacheMetrics;
+import org.springframework.cache.support.InMemoryCacheMetricsRecorder.LatencyHistogram;
+import org.springframework.cache.support.InstrumentedCache;
+import org.springframework.cache.support.InstrumentedCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link InstrumentedCacheManager}.
+ */
+public class InstrumentedCacheManagerTests {
+
+	private final ConcurrentMapCacheManager targetCacheManager = new ConcurrentMapCacheManager();
+
+	private final InMemoryCacheMetricsRecorder metricsRecorder = new InMemoryCacheMetricsRecorder();
+
+	private final InstrumentedCacheManager cacheManager = new InstrumentedCacheManager(this.targetCacheManager);
+
+
+	@BeforeEach
+	public void setup() {
+		this.cacheManager.setMetricsRecorder(this.metricsRecorder);
+	}
+
+
+	@Test
+	public void cachesAreDecorated() {
+		Cache cache = this.cacheManager.getCache("c1");
+		assertThat(cache).isInstanceOf(InstrumentedCache.class);
+		assertThat(this.cacheManager.getCache("c1")).isSameAs(cache);
+		assertThat(((InstrumentedCache) cache).getTargetCache()).isSameAs(this.targetCacheManager.getCache("c1"));
+
+		this.targetCacheManager.setAllowNullValues(false);
+		Cache recreated = this.cacheManager.getCache("c1");
+		assertThat(((InstrumentedCache) recreated).getTargetCache()).isSameAs(this.targetCacheManager.getCache("c1"));
+	}
+
+	@Test
+	public void hitsMissesPutsAndEvictions() {
+		Cache cache = this.cacheManager.getCache("c1");
+		assertThat(cache.get("key")).isNull();
+		cache.put("key", "value");
+		assertThat(cache.get("key")).isNotNull();
+		assertThat(cache.get("key", String.class)).isEqualTo("value");
+		assertThat(cache.putIfAbsent("key", "other")).isNotNull();
+		assertThat(cache.getAll(Arrays.asList("key", "other"))).hasSize(1);
+		cache.evict("key");
+		assertThat(cache.evictIfPresent("key")).isFalse();
+
+		CacheMetrics metrics = this.metricsRecorder.getCacheMetrics("c1");
+		assertThat(metrics.getHitCount()).isEqualTo(3);
+		assertThat(metrics.getMissCount()).isEqualTo(2);
+		assertThat(metrics.getHitRatio()).isEqualTo(0.6);
+		assertThat(metrics.getPutCount()).isEqualTo(1);
+		assertThat(metrics.getEvictionCount()).isEqualTo(1);
+		assertThat(this.metricsRecorder.getCacheNames()).containsExactly("c1");
+	}
+
+	@Test
+	public void cachedNullValueIsRecordedAsHit() {
+		Cache cache = this.cacheManager.getCache("c1");
+		cache.put("key", null);
+		assertThat(cache.get("key", String.class)).isNull();
+		assertThat(cache.get("other", String.class)).isNull();
+
+		CacheMetrics metrics = this.metricsRecorder.getCacheMetrics("c1");
+		assertThat(metrics.getHitCount()).isEqualTo(1);
+		assertThat(metrics.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void evictionOfAbsentKeyIsNotRecorded() {
+		Cache cache = this.cacheManager.getCache("c1");
+		cache.evict("key");
+		cache.put("key", "value");
+		cache.evict("key");
+		cache.evict("key");
+
+		CacheMetrics metrics = this.metricsRecorder.getCacheMetrics("c1");
+		assertThat(metrics.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void nativeEvictionsAreRecorded() {
+		this.targetCacheManager.setMaximumSize(2);
+		this.targetCacheManager.setRecordStats(true);
+		Cache cache = this.cacheManager.getCache("c1");
+		cache.put("key1", "value1");
+		cache.put("key2", "value2");
+		cache.put("key3", "value3");
+		cache.evict("key3");
+
+		CacheMetrics metrics = this.metricsRecorder.getCacheMetrics("c1");
+		assertThat(metrics.getEvictionCount()).isEqualTo(2);
+		// Statistics of the target cache still get notified as well
+		ConcurrentMapCache targetCache = (ConcurrentMapCache) ((InstrumentedCache) cache).getTargetCache();
+		assertThat(targetCache.getStatistics().getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void valueLoaderInvocations() {
+		Cache cache = this.cacheManager.getCache("c1");
+		assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+		assertThat(cache.get("key", () -> "other")).isEqualTo("value");
+		assertThatExceptionOfType(Cache.ValueRetrievalException.class).isThrownBy(() ->
+				cache.get("failure", () -> {
+					throw new IllegalStateException("failure");
+				}));
+
+		CacheMetrics metrics = this.metricsRecorder.getCacheMetrics("c1");
+		assertThat(metrics.getHitCount()).isEqualTo(1);
+		assertThat(metrics.getLoadSuccessCount()).isEqualTo(1);
+		assertThat(metrics.getLoadFailureCount()).isEqualTo(1);
+		assertThat(metrics.getLoadTime().getCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void latencyHistogramPercentiles() {
+		InMemoryCacheMetricsRecorder recorder = new InMemoryCacheMetricsRecorder();
+		for (int i = 0; i < 99; i++) {
+			recorder.recordKeyGeneration(100);
+		}
+		recorder.recordKeyGeneration(5000);
+		LatencyHistogram histogram = recorder.getKeyGenerationTime();
+		assertThat(histogram.getCount()).isEqualTo(100);
+		assertThat(histogram.getTotalTime()).isEqualTo(14900);
+		assertThat(histogram.getPercentile(0.5)).isBetween(100L, 200L);
+		assertThat(histogram.getPercentile(0.99)).isBetween(100L, 200L);
+		assertThat(histogram.getPercentile(1.0)).isBetween(5000L, 10000L);
+		assertThat(recorder.getConditionEvaluationTime().getPercentile(0.5)).isEqualTo(0);
+	}
+
+}
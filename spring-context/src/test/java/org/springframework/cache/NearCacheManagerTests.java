@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NearCache;
+import org.springframework.cache.support.NearCacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheInvalidationBroadcaster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link NearCacheManager}.
+ */
+public class NearCacheManagerTests {
+
+	private final ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager();
+
+	private final SimpleCacheInvalidationBroadcaster broadcaster = new SimpleCacheInvalidationBroadcaster();
+
+	private NearCacheManager node1;
+
+	private NearCacheManager node2;
+
+
+	@BeforeEach
+	public void setup() {
+		this.node1 = createNearCacheManager();
+		this.node2 = createNearCacheManager();
+	}
+
+	private NearCacheManager createNearCacheManager() {
+		NearCacheManager cacheManager = new NearCacheManager(this.remoteCacheManager);
+		cacheManager.setInvalidationBroadcaster(this.broadcaster);
+		cacheManager.setLocalMaximumSize(2);
+		cacheManager.afterPropertiesSet();
+		return cacheManager;
+	}
+
+
+	@Test
+	public void readThrough() {
+		Cache remoteCache = this.remoteCacheManager.getCache("c1");
+		Cache cache = this.node1.getCache("c1");
+		assertThat(cache).isInstanceOf(NearCache.class);
+		assertThat(this.node1.getCache("c1")).isSameAs(cache);
+		assertThat(cache.getNativeCache()).isSameAs(remoteCache);
+
+		remoteCache.put("key", "value");
+		assertThat(cache.get("key").get()).isEqualTo("value");
+		assertThat(((NearCache) cache).getLocalStore()).containsKey("key");
+
+		// Served locally now
+		remoteCache.evict("key");
+		assertThat(cache.get("key", String.class)).isEqualTo("value");
+	}
+
+	@Test
+	public void recreatedDelegateCacheIsDecoratedAgain() {
+		Cache cache = this.node1.getCache("c1");
+		cache.put("key", "value");
+		this.remoteCacheManager.setAllowNullValues(false);
+		Cache remoteCache = this.remoteCacheManager.getCache("c1");
+
+		Cache recreated = this.node1.getCache("c1");
+		assertThat(recreated).isNotSameAs(cache).isInstanceOf(NearCache.class);
+		assertThat(recreated.getNativeCache()).isSameAs(remoteCache);
+		assertThat(recreated.get("key")).isNull();
+		assertThat(this.node1.getCache("c1")).isSameAs(recreated);
+	}
+
+	@Test
+	public void writeThroughInvalidatesOtherNodes() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		cache1.put("key", "value1");
+		assertThat(cache2.get("key").get()).isEqualTo("value1");
+
+		cache1.put("key", "value2");
+		assertThat(this.remoteCacheManager.getCache("c1").get("key").get()).isEqualTo("value2");
+		assertThat(((NearCache) cache2).getLocalStore()).doesNotContainKey("key");
+		assertThat(cache2.get("key").get()).isEqualTo("value2");
+		assertThat(cache1.get("key").get()).isEqualTo("value2");
+
+		cache2.evict("key");
+		assertThat(cache1.get("key")).isNull();
+	}
+
+	@Test
+	public void clearInvalidatesOtherNodes() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		cache1.put("key", "value");
+		assertThat(cache2.get("key")).isNotNull();
+		cache1.clear();
+		assertThat(((NearCache) cache2).getLocalStore()).isEmpty();
+		assertThat(cache2.get("key")).isNull();
+	}
+
+	@Test
+	public void valueLoaderAndNullValues() {
+		Cache cache = this.node1.getCache("c1");
+		assertThat(cache.get("key", () -> "loaded")).isEqualTo("loaded");
+		assertThat(cache.get("key", () -> "other")).isEqualTo("loaded");
+		cache.put("nullKey", null);
+		assertThat(cache.get("nullKey")).isNotNull();
+		assertThat(cache.get("nullKey").get()).isNull();
+		assertThat(this.node2.getCache("c1").get("nullKey").get()).isNull();
+	}
+
+	@Test
+	public void localStoreIsBounded() {
+		Cache cache = this.node1.getCache("c1");
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, "value" + i);
+		}
+		assertThat(((NearCache) cache).getLocalStore().size()).isLessThanOrEqualTo(2);
+		for (int i = 0; i < 10; i++) {
+			assertThat(cache.get(i).get()).isEqualTo("value" + i);
+		}
+	}
+
+	@Test
+	public void noOpFallbackIsNotDecorated() {
+		NearCacheManager cacheManager = new NearCacheManager();
+		cacheManager.setFallbackToNoOpCache(true);
+		cacheManager.afterPropertiesSet();
+		assertThat(cacheManager.getCache("c1")).isInstanceOf(NoOpCache.class);
+	}
+
+}
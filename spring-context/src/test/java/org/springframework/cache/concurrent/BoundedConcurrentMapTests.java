@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BoundedConcurrentMap}.
+ */
+class BoundedConcurrentMapTests {
+
+	private final AtomicLong ticker = new AtomicLong();
+
+
+	@Test
+	void evictsEntriesBeyondMaximumSize() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(3);
+		map.put("a", "1");
+		map.put("b", "2");
+		map.put("c", "3");
+		assertThat(map.get("a")).isEqualTo("1");
+		map.put("d", "4");
+		assertThat(map).hasSize(3);
+		assertThat(map).containsKeys("a", "c", "d");
+		assertThat(map.getTotalWeight()).isEqualTo(3);
+	}
+
+	@Test
+	void evictsEntriesBeyondMaximumWeight() {
+		BoundedConcurrentMap<String, String> map =
+				new BoundedConcurrentMap<>(10, (key, value) -> value.length(), null, null);
+		map.put("a", "12345");
+		map.put("b", "1234");
+		assertThat(map).hasSize(2);
+		map.put("c", "12");
+		assertThat(map).hasSize(2);
+		assertThat(map).containsKeys("b", "c");
+		assertThat(map.getTotalWeight()).isEqualTo(6);
+	}
+
+	@Test
+	void replacingEntryUpdatesWeight() {
+		BoundedConcurrentMap<String, String> map =
+				new BoundedConcurrentMap<>(10, (key, value) -> value.length(), null, null);
+		assertThat(map.put("a", "12345")).isNull();
+		assertThat(map.put("a", "12")).isEqualTo("12345");
+		assertThat(map.replace("a", "123")).isEqualTo("12");
+		assertThat(map.replace("a", "123", "1234")).isTrue();
+		assertThat(map.getTotalWeight()).isEqualTo(4);
+		assertThat(map.remove("a", "1234")).isTrue();
+		assertThat(map.getTotalWeight()).isEqualTo(0);
+		assertThat(map).isEmpty();
+	}
+
+	@Test
+	void expiresAfterWrite() {
+		List<String> evicted = new ArrayList<>();
+		BoundedConcurrentMap<String, String> map =
+				new BoundedConcurrentMap<>(-1, null, Duration.ofSeconds(10), null, this.ticker::get);
+		map.setEvictionListener((key, value) -> evicted.add(key));
+		map.put("a", "1");
+		advance(Duration.ofSeconds(5));
+		assertThat(map.get("a")).isEqualTo("1");
+		advance(Duration.ofSeconds(5));
+		assertThat(map.get("a")).isNull();
+		assertThat(map.containsKey("a")).isFalse();
+		assertThat(map).isEmpty();
+		assertThat(evicted).containsExactly("a");
+	}
+
+	@Test
+	void expiresAfterAccess() {
+		BoundedConcurrentMap<String, String> map =
+				new BoundedConcurrentMap<>(-1, null, null, Duration.ofMinutes(1), this.ticker::get);
+		map.put("a", "1");
+		map.put("b", "2");
+		for (int i = 0; i < 10; i++) {
+			advance(Duration.ofSeconds(30));
+			assertThat(map.get("a")).isEqualTo("1");
+		}
+		assertThat(map.get("b")).isNull();
+		advance(Duration.ofMinutes(1));
+		assertThat(map.get("a")).isNull();
+	}
+
+	@Test
+	void cleanUpRemovesExpiredEntriesWithoutAccess() {
+		AtomicLong evictions = new AtomicLong();
+		BoundedConcurrentMap<Integer, String> map =
+				new BoundedConcurrentMap<>(-1, null, Duration.ofHours(2), null, this.ticker::get);
+		map.setEvictionListener((key, value) -> evictions.incrementAndGet());
+		for (int i = 0; i < 1000; i++) {
+			map.put(i, "value");
+		}
+		advance(Duration.ofHours(1));
+		map.cleanUp();
+		assertThat(map).hasSize(1000);
+		advance(Duration.ofHours(1).plusMinutes(1));
+		map.cleanUp();
+		assertThat(map).isEmpty();
+		assertThat(evictions.get()).isEqualTo(1000);
+	}
+
+	@Test
+	void putIfAbsentReplacesExpiredEntry() {
+		BoundedConcurrentMap<String, String> map =
+				new BoundedConcurrentMap<>(-1, null, Duration.ofSeconds(1), null, this.ticker::get);
+		assertThat(map.putIfAbsent("a", "1")).isNull();
+		assertThat(map.putIfAbsent("a", "2")).isEqualTo("1");
+		advance(Duration.ofSeconds(2));
+		assertThat(map.putIfAbsent("a", "3")).isNull();
+		assertThat(map.get("a")).isEqualTo("3");
+	}
+
+	@Test
+	void computeIfAbsent() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(2);
+		assertThat(map.computeIfAbsent("a", key -> key + "1")).isEqualTo("a1");
+		assertThat(map.computeIfAbsent("a", key -> key + "2")).isEqualTo("a1");
+		assertThat(map.computeIfAbsent("b", key -> null)).isNull();
+		assertThat(map).hasSize(1);
+		assertThat(map.entrySet()).hasSize(1);
+	}
+
+	@Test
+	void computeIfAbsentWithLoaderWritingToSameMap() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(10);
+		assertThat(map.computeIfAbsent("a", key -> {
+			map.put("b", "2");
+			return map.computeIfAbsent("c", other -> "3") + "1";
+		})).isEqualTo("31");
+		assertThat(map).containsKeys("a", "b", "c");
+		assertThat(map.getTotalWeight()).isEqualTo(3);
+	}
+
+	@Test
+	void computeIfAbsentWithRecursiveComputationForSameKey() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(10);
+		assertThatIllegalStateException().isThrownBy(() ->
+				map.computeIfAbsent("a", key -> map.computeIfAbsent("a", other -> "1")));
+		assertThat(map.computeIfAbsent("a", key -> "2")).isEqualTo("2");
+	}
+
+	@Test
+	void computeIfAbsentWhileEvicting() throws Exception {
+		BoundedConcurrentMap<Integer, Integer> map = new BoundedConcurrentMap<>(16);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			int offset = i;
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 10000; j++) {
+					int key = (j * 7 + offset) % 64;
+					map.computeIfAbsent(key, k -> {
+						map.put(k + 64, k);
+						return k;
+					});
+					if (j % 100 == 0) {
+						map.clear();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+			assertThat(thread.isAlive()).isFalse();
+		}
+		assertThat(map.size()).isLessThanOrEqualTo(16);
+	}
+
+
+	private void advance(Duration duration) {
+		this.ticker.addAndGet(duration.toNanos());
+	}
+
+}
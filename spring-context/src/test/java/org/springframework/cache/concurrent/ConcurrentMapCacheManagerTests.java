@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cache.Cache;
@@ -131,4 +134,46 @@ public class ConcurrentMapCacheManagerTests {
 		assertThat(cache1x.get("key")).isNull();
 	}
 
+	@Test
+	public void testBoundedCaches() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		Cache cache1 = cm.getCache("c1");
+		assertThat(((ConcurrentMapCache) cache1).getNativeCache()).isInstanceOf(ConcurrentHashMap.class);
+
+		cm.setMaximumSize(2);
+		cm.setExpireAfterWrite(Duration.ofMinutes(10));
+		Cache cache1x = cm.getCache("c1");
+		assertThat(cache1x != cache1).isTrue();
+		assertThat(((ConcurrentMapCache) cache1x).getNativeCache()).isInstanceOf(BoundedConcurrentMap.class);
+
+		cache1x.put("key1", "value1");
+		cache1x.put("key2", "value2");
+		cache1x.put("key3", "value3");
+		assertThat(((ConcurrentMapCache) cache1x).getNativeCache()).hasSize(2);
+		assertThat(cache1x.get("key3").get()).isEqualTo("value3");
+	}
+
+	@Test
+	public void testRecordStats() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		assertThat(((ConcurrentMapCache) cm.getCache("c1")).getStatistics()).isNull();
+
+		cm.setMaximumSize(1);
+		cm.setRecordStats(true);
+		ConcurrentMapCache cache1 = (ConcurrentMapCache) cm.getCache("c1");
+		ConcurrentMapCacheStatistics statistics = cache1.getStatistics();
+		assertThat(statistics).isNotNull();
+
+		assertThat(cache1.get("key1")).isNull();
+		assertThat(cache1.get("key1", () -> "value1")).isEqualTo("value1");
+		assertThat(cache1.get("key1").get()).isEqualTo("value1");
+		assertThat(cache1.get("key2", () -> "value2")).isEqualTo("value2");
+		assertThat(statistics.getHitCount()).isEqualTo(1);
+		assertThat(statistics.getMissCount()).isEqualTo(3);
+		assertThat(statistics.getHitRatio()).isEqualTo(0.25);
+		assertThat(statistics.getLoadSuccessCount()).isEqualTo(2);
+		assertThat(statistics.getLoadFailureCount()).isEqualTo(0);
+		assertThat(statistics.getEvictionCount()).isEqualTo(1);
+	}
+
 }
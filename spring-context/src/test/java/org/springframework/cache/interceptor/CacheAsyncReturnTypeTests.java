@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link CacheAspectSupport#setCacheAsyncValues caching the eventual value}
+ * of methods returning a {@link CompletableFuture} or a reactive type.
+ */
+public class CacheAsyncReturnTypeTests {
+
+	private ConfigurableApplicationContext context;
+
+	private CacheInterceptor cacheInterceptor;
+
+	private AsyncService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.cacheInterceptor = this.context.getBean(CacheInterceptor.class);
+		this.cacheInterceptor.setCacheAsyncValues(true);
+		this.service = this.context.getBean(AsyncService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("first");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void completableFutureValueIsCached() throws Exception {
+		CompletableFuture<String> first = new CompletableFuture<>();
+		this.service.pending = first;
+		CompletableFuture<String> result = this.service.findFuture("key");
+		assertThat(this.cache.get("key")).isNull();
+		first.complete("value");
+		assertThat(result.get()).isEqualTo("value");
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+
+		assertThat(this.service.findFuture("key").get()).isEqualTo("value");
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void pendingCompletableFutureIsShared() throws Exception {
+		CompletableFuture<String> first = new CompletableFuture<>();
+		this.service.pending = first;
+		CompletableFuture<String> result1 = this.service.findFuture("key");
+		CompletableFuture<String> result2 = this.service.findFuture("key");
+		first.complete("value");
+		assertThat(result1.get()).isEqualTo("value");
+		assertThat(result2.get()).isEqualTo("value");
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void failedCompletableFutureIsNotCached() throws Exception {
+		CompletableFuture<String> first = new CompletableFuture<>();
+		this.service.pending = first;
+		CompletableFuture<String> result = this.service.findFuture("key");
+		first.completeExceptionally(new IllegalStateException("failure"));
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(result::get)
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.cache.get("key")).isNull();
+
+		this.service.pending = CompletableFuture.completedFuture("value");
+		assertThat(this.service.findFuture("key").get()).isEqualTo("value");
+		assertThat(this.service.invocations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void monoValueIsCached() {
+		Mono<String> result = this.service.findMono("key");
+		assertThat(this.service.invocations.get()).isEqualTo(0);
+		assertThat(result.block()).isEqualTo("key-1");
+		assertThat(this.cache.get("key").get()).isEqualTo("key-1");
+		assertThat(this.service.findMono("key").block()).isEqualTo("key-1");
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void completableFutureIsCachedAsReturnedByDefault() throws Exception {
+		this.cacheInterceptor.setCacheAsyncValues(false);
+		CompletableFuture<String> first = new CompletableFuture<>();
+		this.service.pending = first;
+		CompletableFuture<String> result = this.service.findFuture("key");
+		assertThat(result).isSameAs(first);
+		assertThat(this.cache.get("key").get()).isSameAs(first);
+		assertThat(this.service.findFuture("key")).isSameAs(first);
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void completableFutureIsCachedAsReturnedWithSync() throws Exception {
+		CompletableFuture<String> first = CompletableFuture.completedFuture("value");
+		this.service.pending = first;
+		assertThat(this.service.findFutureSync("key")).isSameAs(first);
+		assertThat(this.cache.get("key").get()).isSameAs(first);
+	}
+
+	@Test
+	public void synchronousFailureIsRethrown() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.failFuture("key"))
+				.withMessage("failure");
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	public void synchronousFailureWithoutCachePutIsRethrown() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.failFutureUncached("key"))
+				.withMessage("failure");
+	}
+
+	@Test
+	public void synchronousFailureIsPropagatedAsMonoError() {
+		Mono<String> result = this.service.failMono("key");
+		assertThatIllegalStateException().isThrownBy(result::block).withMessage("failure");
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	public void fluxElementsAreCached() {
+		Flux<String> result = this.service.findFlux("key");
+		assertThat(this.service.invocations.get()).isEqualTo(0);
+		assertThat(result.collectList().block()).containsExactly("key", "1");
+		assertThat(this.cache.get("key").get()).isEqualTo(Arrays.asList("key", "1"));
+		assertThat(this.service.findFlux("key").collectList().block()).containsExactly("key", "1");
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void fluxIsCachedAsReturnedByDefault() {
+		this.cacheInterceptor.setCacheAsyncValues(false);
+		Flux<String> result = this.service.findFlux("key");
+		assertThat(this.cache.get("key").get()).isSameAs(result);
+		assertThat(this.service.findFlux("key")).isSameAs(result);
+		assertThat(result.collectList().block()).containsExactly("key", "1");
+	}
+
+	@Test
+	public void evictionWithMono() {
+		assertThat(this.service.findMono("key").block()).isEqualTo("key-1");
+		this.service.clear("key").block();
+		assertThat(this.cache.get("key")).isNull();
+		assertThat(this.service.findMono("key").block()).isEqualTo("key-2");
+	}
+
+
+	static class AsyncService {
+
+		final AtomicInteger invocations = new AtomicInteger();
+
+		CompletableFuture<String> pending;
+
+		@Cacheable("first")
+		public CompletableFuture<String> findFuture(String key) {
+			this.invocations.incrementAndGet();
+			return this.pending;
+		}
+
+		@Cacheable(cacheNames = "first", sync = true)
+		public CompletableFuture<String> findFutureSync(String key) {
+			this.invocations.incrementAndGet();
+			return this.pending;
+		}
+
+		@Cacheable("first")
+		public CompletableFuture<String> failFuture(String key) {
+			throw new IllegalStateException("failure");
+		}
+
+		@Cacheable(cacheNames = "first", condition = "#key.length() < 0")
+		public CompletableFuture<String> failFutureUncached(String key) {
+			throw new IllegalStateException("failure");
+		}
+
+		@Cacheable("first")
+		public Mono<String> failMono(String key) {
+			throw new IllegalStateException("failure");
+		}
+
+		@Cacheable("first")
+		public Mono<String> findMono(String key) {
+			return Mono.fromSupplier(() -> key + "-" + this.invocations.incrementAndGet());
+		}
+
+		@Cacheable("first")
+		public Flux<String> findFlux(String key) {
+			return Flux.defer(() -> {
+				List<String> elements = Arrays.asList(key, String.valueOf(this.invocations.incrementAndGet()));
+				return Flux.fromIterable(elements);
+			});
+		}
+
+		@CacheEvict("first")
+		public Mono<Void> clear(String key) {
+			return Mono.empty();
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public AsyncService asyncService() {
+			return new AsyncService();
+		}
+	}
+
+}
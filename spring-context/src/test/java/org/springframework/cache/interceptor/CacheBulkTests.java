@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@code @Cacheable(bulk=true)} methods.
+ */
+public class CacheBulkTests {
+
+	private ConfigurableApplicationContext context;
+
+	private BookService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(BookService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("books");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void elementsAreCachedIndividually() {
+		Map<Long, String> books = this.service.findBooks(Arrays.asList(1L, 2L, 3L));
+		assertThat(books).containsExactly(entry(1L, "book1"), entry(2L, "book2"), entry(3L, "book3"));
+		assertThat(this.cache.get(2L).get()).isEqualTo("book2");
+		assertThat(this.service.invocations).containsExactly(Arrays.asList(1L, 2L, 3L));
+	}
+
+	@Test
+	public void methodIsOnlyInvokedForMissingElements() {
+		this.service.findBooks(Arrays.asList(1L, 2L));
+		Map<Long, String> books = this.service.findBooks(Arrays.asList(3L, 2L, 4L, 1L));
+		assertThat(books).containsExactly(
+				entry(3L, "book3"), entry(2L, "book2"), entry(4L, "book4"), entry(1L, "book1"));
+		assertThat(this.service.invocations).containsExactly(Arrays.asList(1L, 2L), Arrays.asList(3L, 4L));
+
+		this.service.findBooks(Arrays.asList(4L, 3L, 2L, 1L));
+		assertThat(this.service.invocations).hasSize(2);
+	}
+
+	@Test
+	public void missingElementsArePassedInDeclaredCollectionType() {
+		this.service.findBookSet(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+		Map<Long, String> books = this.service.findBookSet(new LinkedHashSet<>(Arrays.asList(1L, 2L, 3L)));
+		assertThat(books).hasSize(3);
+		assertThat(this.service.invocations.get(1)).containsExactly(3L);
+		assertThat(this.service.argumentTypes.get(1)).isEqualTo(LinkedHashSet.class);
+	}
+
+	@Test
+	public void missingElementsArePassedInConcreteCollectionType() {
+		this.service.findBookList(new ArrayList<>(Arrays.asList(1L, 2L)));
+		Map<Long, String> books = this.service.findBookList(new ArrayList<>(Arrays.asList(1L, 2L, 3L)));
+		assertThat(books).hasSize(3);
+		assertThat(this.service.invocations.get(1)).containsExactly(3L);
+		assertThat(this.service.argumentTypes.get(1)).isEqualTo(ArrayList.class);
+	}
+
+	@Test
+	public void unsupportedCollectionTypeIsRejected() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.findBookQueue(new ArrayDeque<>()))
+				.withMessageContaining(Queue.class.getName());
+		assertThat(this.service.invocations).isEmpty();
+	}
+
+	@Test
+	public void unlessIsEvaluatedPerEntry() {
+		Map<Long, String> books = this.service.findBooks(Arrays.asList(1L, 13L));
+		assertThat(books).containsExactly(entry(1L, "book1"), entry(13L, null));
+		assertThat(this.cache.get(13L)).isNull();
+
+		this.service.findBooks(Arrays.asList(1L, 13L));
+		assertThat(this.service.invocations).containsExactly(Arrays.asList(1L, 13L), Arrays.asList(13L));
+	}
+
+	@Test
+	public void invalidBulkDeclaration() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.findBook(1L))
+				.withMessageContaining("bulk=true");
+	}
+
+
+	static class BookService {
+
+		final List<Collection<Long>> invocations = new ArrayList<>();
+
+		final List<Class<?>> argumentTypes = new ArrayList<>();
+
+		@Cacheable(cacheNames = "books", bulk = true, unless = "#result == null")
+		public Map<Long, String> findBooks(Collection<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "bookSets", bulk = true)
+		public Map<Long, String> findBookSet(Set<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "bookLists", bulk = true)
+		public Map<Long, String> findBookList(ArrayList<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "bookQueues", bulk = true)
+		public Map<Long, String> findBookQueue(Queue<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "books", bulk = true)
+		public String findBook(Long id) {
+			return "book" + id;
+		}
+
+		private Map<Long, String> load(Collection<Long> ids) {
+			this.invocations.add(new ArrayList<>(ids));
+			this.argumentTypes.add(ids.getClass());
+			Map<Long, String> books = new HashMap<>();
+			for (Long id : ids) {
+				books.put(id, (id == 13L ? null : "book" + id));
+			}
+			return books;
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public BookService bookService() {
+			return new BookService();
+		}
+	}
+
+}
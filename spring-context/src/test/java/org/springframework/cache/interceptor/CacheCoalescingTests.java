@@ -0,0 +1,227 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link CacheAspectSupport#setCoalesceConcurrentMisses coalescing}
+ * of concurrent cache misses.
+ */
+public class CacheCoalescingTests {
+
+	private ConfigurableApplicationContext context;
+
+	private CacheInterceptor cacheInterceptor;
+
+	private SlowService service;
+
+	private ExecutorService executor;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.cacheInterceptor = this.context.getBean(CacheInterceptor.class);
+		this.cacheInterceptor.setCoalesceConcurrentMisses(true);
+		this.service = this.context.getBean(SlowService.class);
+		this.executor = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.executor.shutdownNow();
+		this.context.close();
+	}
+
+
+	@Test
+	public void concurrentMissesShareInvocation() throws Exception {
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(this.executor.submit(() -> this.service.find("key")));
+		}
+		awaitInvocations(1);
+		this.service.release.countDown();
+		for (Future<Object> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+		assertThat(this.service.find("key")).isEqualTo("key-1");
+	}
+
+	@Test
+	public void concurrentMissesForMultipleCachesWithCondition() throws Exception {
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(this.executor.submit(() -> this.service.findInSeveralCaches("key")));
+		}
+		awaitInvocations(1);
+		this.service.release.countDown();
+		for (Future<Object> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+		CacheManager cacheManager = this.context.getBean(CacheManager.class);
+		assertThat(cacheManager.getCache("first").get("key").get()).isEqualTo("key-1");
+		assertThat(cacheManager.getCache("second").get("key").get()).isEqualTo("key-1");
+	}
+
+	@Test
+	public void differentKeysAreNotCoalesced() throws Exception {
+		Future<Object> first = this.executor.submit(() -> this.service.find("key1"));
+		Future<Object> second = this.executor.submit(() -> this.service.find("key2"));
+		awaitInvocations(2);
+		this.service.release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNotEqualTo(second.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void waitingCallerInvokesMethodAfterTimeout() throws Exception {
+		this.cacheInterceptor.setCoalescingTimeout(Duration.ofMillis(50));
+		Future<Object> first = this.executor.submit(() -> this.service.find("key"));
+		awaitInvocations(1);
+		Future<Object> second = this.executor.submit(() -> this.service.find("key"));
+		awaitInvocations(2);
+		this.service.release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(second.get(5, TimeUnit.SECONDS)).isNotNull();
+	}
+
+	@Test
+	public void failureIsPropagatedToWaitingCallers() throws Exception {
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(this.executor.submit(() -> this.service.fail("key")));
+		}
+		awaitInvocations(1);
+		this.service.release.countDown();
+		for (Future<Object> result : results) {
+			assertThatIllegalStateException().isThrownBy(() -> {
+				try {
+					result.get(5, TimeUnit.SECONDS);
+				}
+				catch (ExecutionException ex) {
+					throw ex.getCause();
+				}
+			}).withMessage("failure");
+		}
+	}
+
+	@Test
+	public void recursiveMissForSameKeyInvokesMethodDirectly() throws Exception {
+		this.service.release.countDown();
+		this.service.setSelf(this.service);
+		Future<Object> result = this.executor.submit(() -> this.service.findRecursively("key", 2));
+		assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-3");
+		assertThat(this.service.invocations.get()).isEqualTo(3);
+		assertThat(this.service.findRecursively("key", 2)).isEqualTo("key-3");
+	}
+
+	private void awaitInvocations(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (this.service.invocations.get() < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(this.service.invocations.get()).isEqualTo(count);
+	}
+
+
+	static class SlowService {
+
+		final AtomicInteger invocations = new AtomicInteger();
+
+		final CountDownLatch release = new CountDownLatch(1);
+
+		private SlowService self;
+
+		public void setSelf(SlowService self) {
+			this.self = self;
+		}
+
+		@Cacheable("first")
+		public Object find(String key) throws InterruptedException {
+			int invocation = this.invocations.incrementAndGet();
+			this.release.await(5, TimeUnit.SECONDS);
+			return key + "-" + invocation;
+		}
+
+		@Cacheable(cacheNames = {"first", "second"}, condition = "#key.length() > 0", unless = "#result == null")
+		public Object findInSeveralCaches(String key) throws InterruptedException {
+			int invocation = this.invocations.incrementAndGet();
+			this.release.await(5, TimeUnit.SECONDS);
+			return key + "-" + invocation;
+		}
+
+		@Cacheable(cacheNames = "first", key = "#key")
+		public Object findRecursively(String key, int depth) throws InterruptedException {
+			if (depth > 0) {
+				this.self.findRecursively(key, depth - 1);
+			}
+			return find(key);
+		}
+
+		@Cacheable("first")
+		public Object fail(String key) throws InterruptedException {
+			this.invocations.incrementAndGet();
+			this.release.await(5, TimeUnit.SECONDS);
+			throw new IllegalStateException("failure");
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public SlowService slowService() {
+			return new SlowService();
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.InMemoryCacheMetricsRecorder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CacheAspectSupport#setMetricsRecorder recording} the time
+ * spent in key generation and expression evaluation.
+ */
+public class CacheOperationMetricsTests {
+
+	private ConfigurableApplicationContext context;
+
+	private final InMemoryCacheMetricsRecorder metricsRecorder = new InMemoryCacheMetricsRecorder();
+
+	private SimpleService service;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.context.getBean(CacheInterceptor.class).setMetricsRecorder(this.metricsRecorder);
+		this.service = this.context.getBean(SimpleService.class);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void keyGenerationIsTimedPerKey() {
+		this.service.find("key");
+		// Lookup and put on a miss
+		assertThat(this.metricsRecorder.getKeyGenerationTime().getCount()).isEqualTo(2);
+		this.service.find("key");
+		// Lookup only on a hit
+		assertThat(this.metricsRecorder.getKeyGenerationTime().getCount()).isEqualTo(3);
+		assertThat(this.metricsRecorder.getConditionEvaluationTime().getCount()).isEqualTo(0);
+		assertThat(this.service.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void conditionAndUnlessEvaluationIsTimed() {
+		this.service.findConditionally("key");
+		// Condition evaluated once per invocation, unless evaluated for the put
+		assertThat(this.metricsRecorder.getConditionEvaluationTime().getCount()).isEqualTo(2);
+		this.service.findConditionally("key");
+		assertThat(this.metricsRecorder.getConditionEvaluationTime().getCount()).isEqualTo(3);
+		assertThat(this.metricsRecorder.getKeyGenerationTime().getCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void noKeyGenerationForFailingCondition() {
+		this.service.findConditionally("");
+		assertThat(this.metricsRecorder.getConditionEvaluationTime().getCount()).isEqualTo(1);
+		assertThat(this.metricsRecorder.getKeyGenerationTime().getCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void nothingRecordedWithoutRecorder() {
+		this.context.getBean(CacheInterceptor.class).setMetricsRecorder(null);
+		this.service.findConditionally("key");
+		assertThat(this.metricsRecorder.getConditionEvaluationTime().getCount()).isEqualTo(0);
+		assertThat(this.metricsRecorder.getKeyGenerationTime().getCount()).isEqualTo(0);
+	}
+
+
+	static class SimpleService {
+
+		final AtomicInteger invocations = new AtomicInteger();
+
+		@Cacheable("first")
+		public Object find(String key) {
+			return key + "-" + this.invocations.incrementAndGet();
+		}
+
+		@Cacheable(cacheNames = "second", condition = "#key.length() > 0", unless = "#result == null")
+		public Object findConditionally(String key) {
+			return key + "-" + this.invocations.incrementAndGet();
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public SimpleService simpleService() {
+			return new SimpleService();
+		}
+	}
+
+}
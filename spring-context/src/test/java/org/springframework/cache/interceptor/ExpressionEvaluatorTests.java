@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,9 +20,11 @@ import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -30,10 +32,17 @@ import org.springframework.cache.annotation.AnnotationCacheOperationSource;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.context.expression.MapAccessor;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -49,6 +58,9 @@ public class ExpressionEvaluatorTests {
 
 	private final CacheOperationExpressionEvaluator eval = new CacheOperationExpressionEvaluator();
 
+	private final CacheOperationExpressionEvaluator compilingEval =
+			new CacheOperationExpressionEvaluator(SpelCompilerMode.IMMEDIATE);
+
 	private final AnnotationCacheOperationSource source = new AnnotationCacheOperationSource();
 
 
@@ -136,6 +148,100 @@ public class ExpressionEvaluatorTests {
 		assertThat(value).isEqualTo(String.class.getName());
 	}
 
+	@Test
+	public void compiledExpressionFallsBackToInterpretation() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		AnnotatedElementKey key = new AnnotatedElementKey(method, AnnotatedClass.class);
+		for (int i = 0; i < 3; i++) {
+			EvaluationContext context = createEvaluationContext(method, new Object[] {"abc", i});
+			assertThat(this.compilingEval.key("#p0.length() + #p1", key, context)).isEqualTo(3 + i);
+			assertThat(this.compilingEval.key("#root.methodName", key, context)).isEqualTo("multipleCaching");
+		}
+		EvaluationContext context = createEvaluationContext(method, new Object[] {new StringBuilder("ab"), 5});
+		assertThat(this.compilingEval.key("#p0.length() + #p1", key, context)).isEqualTo(7);
+		context = createEvaluationContext(method, new Object[] {"abc", 1});
+		assertThat(this.compilingEval.key("#p0.length() + #p1", key, context)).isEqualTo(4);
+	}
+
+	@Test
+	public void compiledExpressionWithUnavailableReturnValue() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		AnnotatedElementKey key = new AnnotatedElementKey(method, AnnotatedClass.class);
+		for (int i = 0; i < 3; i++) {
+			assertThat(this.compilingEval.unless("#result == 'r'", key, createEvaluationContext("r"))).isTrue();
+		}
+		EvaluationContext context = createEvaluationContext(CacheOperationExpressionEvaluator.RESULT_UNAVAILABLE);
+		assertThatExceptionOfType(VariableNotAvailableException.class).isThrownBy(() ->
+				this.compilingEval.unless("#result == 'r'", key, context));
+	}
+
+	@Test
+	public void evaluationContextsShareAccessorListsUntilModified() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		StandardEvaluationContext context1 =
+				(StandardEvaluationContext) createEvaluationContext(method, new Object[] {"a", 1});
+		StandardEvaluationContext context2 =
+				(StandardEvaluationContext) createEvaluationContext(method, new Object[] {"b", 2});
+		assertThat(context1.getPropertyAccessors()).isSameAs(context2.getPropertyAccessors());
+		assertThat(context1.getMethodResolvers()).isSameAs(context2.getMethodResolvers());
+
+		context1.addPropertyAccessor(new MapAccessor());
+		context1.addMethodResolver(new ReflectiveMethodResolver());
+		assertThat(context1.getPropertyAccessors()).hasSize(2);
+		assertThat(context1.getMethodResolvers()).hasSize(2);
+		assertThat(context2.getPropertyAccessors()).hasSize(1);
+		assertThat(context2.getMethodResolvers()).hasSize(1);
+		assertThat(context1.getPropertyAccessors()).contains(context2.getPropertyAccessors().get(0));
+	}
+
+	@Test
+	public void methodFilterDoesNotAffectOtherEvaluationContexts() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		StandardEvaluationContext context1 =
+				(StandardEvaluationContext) createEvaluationContext(method, new Object[] {"a", 1});
+		StandardEvaluationContext context2 =
+				(StandardEvaluationContext) createEvaluationContext(method, new Object[] {"bc", 2});
+		context1.registerMethodFilter(String.class, methods -> Collections.emptyList());
+
+		Expression expression = new SpelExpressionParser().parseExpression("#p0.length()");
+		assertThatExceptionOfType(SpelEvaluationException.class).isThrownBy(() ->
+				expression.getValue(context1));
+		assertThat(expression.getValue(context2)).isEqualTo(2);
+	}
+
+	@Test
+	public void cacheInterceptorWithCompiledExpressions() {
+		CacheInterceptor interceptor = new CacheInterceptor();
+		interceptor.setCacheManager(new ConcurrentMapCacheManager("greetings"));
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.setCompileExpressions(true);
+		interceptor.afterPropertiesSet();
+		interceptor.afterSingletonsInstantiated();
+		assertThat(interceptor.isCompileExpressions()).isTrue();
+
+		SimpleGreeter target = new SimpleGreeter();
+		ProxyFactory proxyFactory = new ProxyFactory(target);
+		proxyFactory.addAdvice(interceptor);
+		Greeter greeter = (Greeter) proxyFactory.getProxy();
+		for (int i = 0; i < 3; i++) {
+			assertThat(greeter.greet("john")).isEqualTo("Hello john!");
+			assertThat(greeter.greet("JOHN")).isEqualTo("Hello john!");
+			assertThat(greeter.greet("j")).isEqualTo("Hello j!");
+		}
+		assertThat(target.invocations).hasValue(4);
+	}
+
+	private EvaluationContext createEvaluationContext(Method method, Object[] args) {
+		AnnotatedClass target = new AnnotatedClass();
+		return this.eval.createEvaluationContext(Collections.emptyList(), method, args, target,
+				target.getClass(), method, this.eval.resolveParameterNames(method),
+				CacheOperationExpressionEvaluator.NO_RESULT, null);
+	}
+
 	private EvaluationContext createEvaluationContext(Object result) {
 		return createEvaluationContext(result, null);
 	}
@@ -151,6 +257,25 @@ public class ExpressionEvaluatorTests {
 	}
 
 
+	interface Greeter {
+
+		@Cacheable(cacheNames = "greetings", key = "#p0.toUpperCase()", condition = "#p0.length() > 1")
+		String greet(String name);
+	}
+
+
+	private static class SimpleGreeter implements Greeter {
+
+		final AtomicInteger invocations = new AtomicInteger();
+
+		@Override
+		public String greet(String name) {
+			this.invocations.incrementAndGet();
+			return "Hello " + name + "!";
+		}
+	}
+
+
 	private static class AnnotatedClass {
 
 		@Caching(cacheable = { @Cacheable(value = "test", key = "#a"), @Cacheable(value = "test", key = "#b") })
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.type.AnnotationMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshotPostProcessor}.
+ */
+class BeanDefinitionSnapshotPostProcessorTests {
+
+	@Test
+	void snapshotWrittenAndApplied(@TempDir Path tempDir) {
+		File snapshotFile = tempDir.resolve("beans.snapshot").toFile();
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-1");
+		ctx.refresh();
+		assertThat(getSnapshotPostProcessor(ctx).isSnapshotApplied()).isFalse();
+		assertThat(snapshotFile.isFile()).isTrue();
+		assertRegularBeans(ctx);
+		ctx.close();
+
+		ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-1");
+		ctx.refresh();
+		assertThat(getSnapshotPostProcessor(ctx).isSnapshotApplied()).isTrue();
+		assertRegularBeans(ctx);
+		ctx.close();
+	}
+
+	@Test
+	void outdatedSnapshotIgnored(@TempDir Path tempDir) {
+		File snapshotFile = tempDir.resolve("beans.snapshot").toFile();
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class, OtherConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-1");
+		ctx.refresh();
+		assertThat(snapshotFile.isFile()).isTrue();
+		ctx.close();
+
+		ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-1");
+		ctx.refresh();
+		assertThat(getSnapshotPostProcessor(ctx).isSnapshotApplied()).isFalse();
+		assertRegularBeans(ctx);
+		ctx.close();
+	}
+
+	@Test
+	void snapshotIgnoredForChangedClassPathFingerprint(@TempDir Path tempDir) {
+		File snapshotFile = tempDir.resolve("beans.snapshot").toFile();
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-1");
+		ctx.refresh();
+		assertThat(snapshotFile.isFile()).isTrue();
+		ctx.close();
+
+		ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-2");
+		ctx.refresh();
+		assertThat(getSnapshotPostProcessor(ctx).isSnapshotApplied()).isFalse();
+		assertRegularBeans(ctx);
+		ctx.close();
+	}
+
+	@Test
+	void noSnapshotForClassDirectoriesWithoutClassPathFingerprint(@TempDir Path tempDir) {
+		File snapshotFile = tempDir.resolve("beans.snapshot").toFile();
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(ImportingConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		ctx.refresh();
+		assertThat(snapshotFile.exists()).isFalse();
+		assertRegularBeans(ctx);
+		ctx.close();
+	}
+
+	@Test
+	void importingClassNotRecordedWithoutSnapshot() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(ImportingConfig.class);
+		for (String beanName : ctx.getBeanDefinitionNames()) {
+			assertThat(ctx.getBeanFactory().getBeanDefinition(beanName)
+					.hasAttribute(ConfigurationClassPostProcessor.IMPORTING_CLASS_ATTRIBUTE)).isFalse();
+		}
+		assertRegularBeans(ctx);
+		ctx.close();
+	}
+
+	@Test
+	void noSnapshotWithPropertySource(@TempDir Path tempDir) {
+		File snapshotFile = tempDir.resolve("beans.snapshot").toFile();
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(PropertySourceConfig.class);
+		ctx.setBeanDefinitionSnapshotFile(snapshotFile);
+		getSnapshotPostProcessor(ctx).setClassPathFingerprint("build-1");
+		ctx.refresh();
+		assertThat(snapshotFile.exists()).isFalse();
+		ctx.close();
+	}
+
+
+	private static BeanDefinitionSnapshotPostProcessor getSnapshotPostProcessor(AnnotationConfigApplicationContext ctx) {
+		return (BeanDefinitionSnapshotPostProcessor) ctx.getBeanFactoryPostProcessors().get(0);
+	}
+
+	private static void assertRegularBeans(AnnotationConfigApplicationContext ctx) {
+		assertThat(ctx.getBean("testBean", TestBean.class).getName()).isEqualTo("tb");
+		assertThat(ctx.getBean("importedBean", TestBean.class).getSpouse()).isSameAs(ctx.getBean("testBean"));
+		AnnotationMetadata importMetadata = ctx.getBean(ImportedConfig.class).importMetadata;
+		assertThat(importMetadata).isNotNull();
+		assertThat(importMetadata.getClassName()).isEqualTo(ImportingConfig.class.getName());
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	static class ImportingConfig {
+
+		@Bean
+		public TestBean testBean() {
+			return new TestBean("tb");
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+
+		@Bean
+		public TestBean importedBean(TestBean testBean) {
+			TestBean tb = new TestBean("imported");
+			tb.setSpouse(testBean);
+			return tb;
+		}
+	}
+
+
+	@Configuration
+	static class OtherConfig {
+
+		@Bean
+		public String otherBean() {
+			return "other";
+		}
+	}
+
+
+	@Configuration
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class PropertySourceConfig {
+	}
+
+}
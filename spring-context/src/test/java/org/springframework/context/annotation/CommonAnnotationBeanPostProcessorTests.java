@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.util.ArrayList;
 import java.util.Properties;
 
 import javax.annotation.PostConstruct;
@@ -513,6 +514,22 @@ public class CommonAnnotationBeanPostProcessorTests {
 		assertThat(tb.getName()).isEqualTo("notLazyAnymore");
 	}
 
+	@Test
+	public void testCandidateClasses() {
+		CommonAnnotationBeanPostProcessor bpp = new CommonAnnotationBeanPostProcessor();
+		assertThat(bpp.isCandidateClass(AnnotatedInitDestroyBean.class)).isTrue();
+		assertThat(bpp.isCandidateClass(ResourceInjectionBean.class)).isTrue();
+		assertThat(bpp.isCandidateClass(ArrayList.class)).isFalse();
+
+		CommonAnnotationBeanPostProcessor customBpp = new CommonAnnotationBeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return super.postProcessBeforeInitialization(bean, beanName);
+			}
+		};
+		assertThat(customBpp.isCandidateClass(ArrayList.class)).isTrue();
+	}
+
 
 	public static class AnnotatedInitDestroyBean {
 
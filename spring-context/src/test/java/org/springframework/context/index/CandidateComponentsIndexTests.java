@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,14 @@ import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.stereotype.Component;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -76,6 +84,66 @@ public class CandidateComponentsIndexTests {
 				.contains("com.example.Foo");
 	}
 
+	@Test
+	public void getCandidateMetadata() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(
+				Collections.singletonList(createProperties("com.example.Foo", Component.class.getName())),
+				Collections.singletonList(createProperties("com.example.Foo", "{" +
+						"\"name\":\"com.example.Foo\",\"superClass\":\"java.lang.Object\"," +
+						"\"interfaces\":[\"java.io.Serializable\"],\"memberClasses\":[]," +
+						"\"annotations\":[" +
+						"{\"type\":\"" + Component.class.getName() + "\",\"attributes\":{\"value\":\"foo\"}}," +
+						"{\"type\":\"" + Lazy.class.getName() + "\",\"attributes\":{}}," +
+						"{\"type\":\"" + DependsOn.class.getName() + "\",\"attributes\":{\"value\":\"bar\"}}," +
+						"{\"type\":\"" + Scope.class.getName() + "\",\"attributes\":" +
+						"{\"proxyMode\":\"TARGET_CLASS\"}}," +
+						"{\"type\":\"com.example.Unknown\",\"attributes\":{}}]," +
+						"\"methods\":[{\"name\":\"<init>\",\"returnType\":\"void\"," +
+						"\"parameterTypes\":[\"int[]\"],\"annotations\":" +
+						"[{\"type\":\"" + Lazy.class.getName() + "\",\"attributes\":{\"value\":false}}]}]}")));
+
+		AnnotationMetadata metadata = index.getCandidateMetadata("com.example.Foo", getClass().getClassLoader());
+		assertThat(metadata).isNotNull();
+		assertThat(metadata.getClassName()).isEqualTo("com.example.Foo");
+		assertThat(metadata.isConcrete()).isTrue();
+		assertThat(metadata.isIndependent()).isTrue();
+		assertThat(metadata.getSuperClassName()).isEqualTo("java.lang.Object");
+		assertThat(metadata.getInterfaceNames()).containsExactly("java.io.Serializable");
+		assertThat(metadata.getAnnotationTypes()).containsExactly(Component.class.getName(),
+				Lazy.class.getName(), DependsOn.class.getName(), Scope.class.getName());
+		assertThat(metadata.getAnnotations().get(Component.class).getString("value")).isEqualTo("foo");
+		assertThat(metadata.getAnnotations().get(Lazy.class).getBoolean("value")).isTrue();
+		assertThat(metadata.getAnnotations().get(DependsOn.class).getStringArray("value")).containsExactly("bar");
+		assertThat(metadata.getAnnotations().get(Scope.class).getEnum("proxyMode", ScopedProxyMode.class))
+				.isEqualTo(ScopedProxyMode.TARGET_CLASS);
+
+		Set<MethodMetadata> methods = metadata.getAnnotatedMethods(Lazy.class.getName());
+		assertThat(methods).hasSize(1);
+		MethodMetadata method = methods.iterator().next();
+		assertThat(method.getMethodName()).isEqualTo("<init>");
+		assertThat(method.toString()).isEqualTo("com.example.Foo.<init>(int[])");
+		assertThat(method.getAnnotations().get(Lazy.class).getBoolean("value")).isFalse();
+	}
+
+	@Test
+	public void getCandidateMetadataWithoutRecordedMetadata() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(
+				Collections.singletonList(createSampleProperties()));
+		assertThat(index.getCandidateMetadata("com.example.service.One", getClass().getClassLoader())).isNull();
+	}
+
+	@Test
+	public void getCandidateMetadataWithIncompatibleMetadata() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(
+				Collections.singletonList(createProperties("com.example.Foo", Component.class.getName())),
+				Arrays.asList(createProperties("com.example.Foo", "{\"name\":\"com.example.Foo\"," +
+						"\"annotations\":[{\"type\":\"" + Component.class.getName() + "\"," +
+						"\"attributes\":{\"unknown\":\"foo\"}}]}"),
+				createProperties("com.example.Bar", "{\"name\":")));
+		assertThat(index.getCandidateMetadata("com.example.Foo", getClass().getClassLoader())).isNull();
+		assertThat(index.getCandidateMetadata("com.example.Bar", getClass().getClassLoader())).isNull();
+	}
+
 	private static Properties createProperties(String key, String stereotypes) {
 		Properties properties = new Properties();
 		properties.put(key, String.join(",", stereotypes));
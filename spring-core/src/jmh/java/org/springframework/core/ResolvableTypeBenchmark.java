@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * Benchmarks for {@link ResolvableType}, covering the lookup patterns of
+ * codec selection and of converter lookups in the conversion service.
+ *
+ * @author Spring Framework contributors
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forClass(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forClass(state.valueClass));
+	}
+
+	@Benchmark
+	public void forField(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forField(state.field));
+	}
+
+	@Benchmark
+	public void forMethodParameter(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodParameter(state.method, 0));
+	}
+
+	@Benchmark
+	public void codecCanDecode(BenchmarkState state, Blackhole bh) {
+		// e.g. StringDecoder#canDecode, Jackson codecs against the element type
+		ResolvableType elementType = ResolvableType.forClass(state.valueClass);
+		bh.consume(ResolvableType.forClass(String.class).isAssignableFrom(elementType));
+		bh.consume(ResolvableType.forClass(Object.class).isAssignableFrom(elementType));
+	}
+
+	@Benchmark
+	public void codecCanEncodeInstance(BenchmarkState state, Blackhole bh) {
+		// e.g. AbstractEncoder#canEncode with the type of a value to write
+		bh.consume(ResolvableType.forInstance(state.value).isAssignableFrom(ResolvableType.forClass(ArrayList.class)));
+	}
+
+	@Benchmark
+	public void collectionElementType(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forField(state.field).asCollection().getGeneric().resolve());
+	}
+
+	@Benchmark
+	public void mapValueType(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forClass(state.mapClass).asMap().getGeneric(1).resolve());
+	}
+
+	@Benchmark
+	public void converterLookup(BenchmarkState state, Blackhole bh) {
+		// GenericConversionService: TypeDescriptor per source value, assignability against the converter
+		TypeDescriptor sourceType = TypeDescriptor.valueOf(state.valueClass);
+		bh.consume(state.converterSourceType.isAssignableFrom(sourceType.getResolvableType()));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		Class<?> valueClass;
+
+		Class<?> mapClass;
+
+		Object value;
+
+		Field field;
+
+		Method method;
+
+		ResolvableType converterSourceType;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.valueClass = String.class;
+			this.mapClass = StringIntegerMap.class;
+			this.value = new ArrayList<String>();
+			this.field = Payload.class.getField("items");
+			this.method = Payload.class.getMethod("setItems", List.class);
+			this.converterSourceType = ResolvableType.forClass(CharSequence.class);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class StringIntegerMap extends HashMap<String, Integer> {
+	}
+
+
+	public static class Payload {
+
+		public List<String> items;
+
+		public void setItems(List<String> items) {
+			this.items = items;
+		}
+	}
+
+}
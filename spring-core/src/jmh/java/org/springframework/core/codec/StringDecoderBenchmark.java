@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.springframework.core.codec;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -52,6 +53,11 @@ public class StringDecoderBenchmark {
 		blackhole.consume(state.parseLines().blockLast());
 	}
 
+	@Benchmark
+	public void parseNdjsonLines(NdjsonLinesState state, Blackhole blackhole) {
+		blackhole.consume(state.parseLines().blockLast());
+	}
+
 
 	@State(Scope.Benchmark)
 	@SuppressWarnings({"NotNullFieldNotInitialized", "ConstantConditions"})
@@ -107,4 +113,54 @@ public class StringDecoderBenchmark {
 		}
 	}
 
+
+	@State(Scope.Benchmark)
+	@SuppressWarnings({"NotNullFieldNotInitialized", "ConstantConditions"})
+	public static class NdjsonLinesState {
+
+		private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+		private static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(String.class);
+
+
+		@Param("65536")
+		int totalSize;
+
+		@Param({"2000", "16384"})
+		int chunkSize;
+
+		List<DataBuffer> chunks;
+
+		StringDecoder decoder = StringDecoder.textPlainOnly(Collections.singletonList("\n"), true);
+
+		MimeType mimeType = new MimeType("text", "plain", CHARSET);
+
+
+		@Setup(Level.Trial)
+		public void setup() {
+			String lineTemplate = "{\"id\":%1$s,\"type\":\"some-event\"," +
+					"\"data\":\"abcdefg-%1$s-hijklmnop-%1$s-qrstuvw-%1$s-xyz-%1$s\"}\n";
+
+			StringBuilder builder = new StringBuilder();
+			for (int index = 1; builder.length() < this.totalSize; index++) {
+				builder.append(String.format(lineTemplate, String.format("%05d", index)));
+			}
+			byte[] bytes = builder.toString().getBytes(CHARSET);
+
+			DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < bytes.length; offset += this.chunkSize) {
+				int length = Math.min(this.chunkSize, bytes.length - offset);
+				DataBuffer buffer = bufferFactory.allocateBuffer(length);
+				buffer.write(bytes, offset, length);
+				this.chunks.add(buffer);
+			}
+		}
+
+		public Flux<String> parseLines() {
+			Flux<DataBuffer> input = Flux.fromIterable(this.chunks).doOnNext(DataBufferUtils::retain);
+			return this.decoder.decode(input, ELEMENT_TYPE, this.mimeType, Collections.emptyMap());
+		}
+	}
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link PooledDefaultDataBufferFactory} against
+ * {@link DefaultDataBufferFactory}, allocating, filling and releasing
+ * buffers of a given size from concurrent threads.
+ *
+ * @author Spring Framework contributors
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(Threads.MAX)
+public class DataBufferFactoryBenchmark {
+
+	@Benchmark
+	public void allocateAndRelease(BenchmarkData data, Blackhole bh) {
+		DataBuffer buffer = data.bufferFactory.allocateBuffer(data.bufferSize);
+		buffer.write(data.content);
+		bh.consume(buffer.read());
+		DataBufferUtils.release(buffer);
+	}
+
+	@Benchmark
+	public void allocateGrowAndRelease(BenchmarkData data, Blackhole bh) {
+		DataBuffer buffer = data.bufferFactory.allocateBuffer();
+		for (int i = 0; i < data.bufferSize; i += data.content.length) {
+			buffer.write(data.content);
+		}
+		bh.consume(buffer.read());
+		DataBufferUtils.release(buffer);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"default", "pooled"})
+		public String factory;
+
+		@Param({"true", "false"})
+		public boolean preferDirect;
+
+		@Param({"256", "8192", "65536"})
+		public int bufferSize;
+
+		DataBufferFactory bufferFactory;
+
+		byte[] content;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.bufferFactory = ("pooled".equals(this.factory) ?
+					new PooledDefaultDataBufferFactory(this.preferDirect) :
+					new DefaultDataBufferFactory(this.preferDirect));
+			this.content = new byte[128];
+		}
+	}
+
+}
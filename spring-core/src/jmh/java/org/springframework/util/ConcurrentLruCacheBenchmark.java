@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ConcurrentLruCache} under concurrent lookups,
+ * with a key space fitting the cache and one exceeding it.
+ *
+ * @author Spring Framework contributors
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(Threads.MAX)
+public class ConcurrentLruCacheBenchmark {
+
+	@Benchmark
+	public void lookup(BenchmarkData data, Blackhole bh) {
+		int index = ThreadLocalRandom.current().nextInt(data.keys.length);
+		bh.consume(data.lruCache.get(data.keys[index]));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		ConcurrentLruCache<String, String> lruCache;
+
+		@Param({"64"})
+		public int capacity;
+
+		@Param({"0.5", "2.0"})
+		public double keySpaceRatio;
+
+		String[] keys;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.lruCache = new ConcurrentLruCache<>(this.capacity, key -> key + "value");
+			this.keys = new String[(int) (this.capacity * this.keySpaceRatio)];
+			for (int i = 0; i < this.keys.length; i++) {
+				this.keys[i] = "key" + i;
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,6 +94,9 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final ConcurrentReferenceHashMap<Class<?>, ResolvableType> classCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -125,13 +128,13 @@ public class ResolvableType implements Serializable {
 	private Class<?> resolved;
 
 	@Nullable
-	private volatile ResolvableType superType;
+	private transient volatile ResolvableType superType;
 
 	@Nullable
-	private volatile ResolvableType[] interfaces;
+	private transient volatile ResolvableType[] interfaces;
 
 	@Nullable
-	private volatile ResolvableType[] generics;
+	private transient volatile ResolvableType[] generics;
 
 
 	/**
@@ -286,6 +289,11 @@ public class ResolvableType implements Serializable {
 			return false;
 		}
 
+		// Any type is assignable from itself, e.g. for identical canonical instances
+		if (this == other) {
+			return true;
+		}
+
 		// Deal with array by delegating to the component type
 		if (isArray()) {
 			return (other.isArray() && getComponentType().isAssignableFrom(other.getComponentType()));
@@ -352,6 +360,10 @@ public class ResolvableType implements Serializable {
 		if (checkGenerics) {
 			// Recursively check each generic
 			ResolvableType[] ourGenerics = getGenerics();
+			if (ourGenerics.length == 0) {
+				// Nothing to match - no need to traverse the other type's hierarchy
+				return true;
+			}
 			ResolvableType[] typeGenerics = other.as(ourResolved).getGenerics();
 			if (ourGenerics.length != typeGenerics.length) {
 				return false;
@@ -1007,7 +1019,16 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		Class<?> key = (clazz != null ? clazz : Object.class);
+		ResolvableType resolvableType = classCache.get(key);
+		if (resolvableType == null) {
+			resolvableType = new ResolvableType(key);
+			ResolvableType existing = classCache.putIfAbsent(key, resolvableType);
+			if (existing != null) {
+				resolvableType = existing;
+			}
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1425,8 +1446,12 @@ public class ResolvableType implements Serializable {
 		}
 
 		// For simple Class references, build the wrapper right away -
-		// no expensive resolution necessary, so not worth caching...
+		// no expensive resolution necessary, just sharing the canonical
+		// instance (with its lazily built hierarchy) where possible...
 		if (type instanceof Class) {
+			if (typeProvider == null && variableResolver == null) {
+				return forClass((Class<?>) type);
+			}
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
@@ -1440,6 +1465,10 @@ public class ResolvableType implements Serializable {
 			cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
 			cache.put(cachedType, cachedType);
 		}
+		// Without a source or owner to retain, the cached instance is canonical
+		if (typeProvider == null && variableResolver == null) {
+			return cachedType;
+		}
 		resultType.resolved = cachedType.resolved;
 		return resultType;
 	}
@@ -1450,6 +1479,7 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		classCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.core.codec;
 
+import java.io.IOException;
 import java.util.Map;
 
 import reactor.core.publisher.Flux;
@@ -44,6 +45,17 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 	 */
 	public static final int DEFAULT_BUFFER_SIZE = StreamUtils.BUFFER_SIZE;
 
+	/**
+	 * The hint key for a {@code Boolean} indicating whether the consumer of the
+	 * encoded buffers supports a zero-copy transfer of file content, in which
+	 * case file-based resources, as well as regions of them encoded by the
+	 * {@link ResourceRegionEncoder}, are encoded as
+	 * {@link org.springframework.core.io.buffer.FileRegionDataBuffer FileRegionDataBuffers}.
+	 * @since 5.3.10
+	 * @see DataBufferUtils#readFileRegion
+	 */
+	public static final String ZERO_COPY_HINT = ResourceEncoder.class.getName() + ".zeroCopy";
+
 	private final int bufferSize;
 
 
@@ -72,7 +84,30 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 			String logPrefix = Hints.getLogPrefix(hints);
 			logger.debug(logPrefix + "Writing [" + resource + "]");
 		}
-		return DataBufferUtils.read(resource, bufferFactory, this.bufferSize);
+		Flux<DataBuffer> fileRegion = readFileRegion(resource, 0, Long.MAX_VALUE, bufferFactory, hints);
+		return (fileRegion != null ? fileRegion : DataBufferUtils.read(resource, bufferFactory, this.bufferSize));
+	}
+
+
+	/**
+	 * Read the given region of a file-based resource as
+	 * {@link org.springframework.core.io.buffer.FileRegionDataBuffer FileRegionDataBuffers},
+	 * if requested through the {@link #ZERO_COPY_HINT}.
+	 * @return the file region, or {@code null} if the resource is to be read
+	 */
+	@Nullable
+	static Flux<DataBuffer> readFileRegion(Resource resource, long position, long count,
+			DataBufferFactory bufferFactory, @Nullable Map<String, Object> hints) {
+
+		if (hints != null && Boolean.TRUE.equals(hints.get(ZERO_COPY_HINT)) && resource.isFile()) {
+			try {
+				return DataBufferUtils.readFileRegion(resource.getFile().toPath(), position, count, bufferFactory);
+			}
+			catch (IOException ex) {
+				// fall back to reading the resource
+			}
+		}
+		return null;
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -129,6 +129,10 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 					"Writing region " + position + "-" + (position + count) + " of [" + resource + "]");
 		}
 
+		Flux<DataBuffer> fileRegion = ResourceEncoder.readFileRegion(resource, position, count, bufferFactory, hints);
+		if (fileRegion != null) {
+			return fileRegion;
+		}
 		Flux<DataBuffer> in = DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize);
 		if (logger.isDebugEnabled()) {
 			in = in.doOnNext(buffer -> Hints.touchDataBuffer(buffer, hints, logger));
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.core.env;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
 
 /**
@@ -31,9 +35,23 @@ import org.springframework.lang.Nullable;
  */
 public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
+	/**
+	 * System property that instructs Spring to use a property index by default:
+	 * see {@link #setUsePropertyIndex}.
+	 * <p>The default is "false", looking up every property in the property sources.
+	 * @since 5.3.10
+	 */
+	public static final String USE_PROPERTY_INDEX_PROPERTY_NAME = "spring.env.property-index";
+
+
 	@Nullable
 	private final PropertySources propertySources;
 
+	private boolean usePropertyIndex = SpringProperties.getFlag(USE_PROPERTY_INDEX_PROPERTY_NAME);
+
+	@Nullable
+	private volatile PropertyIndex propertyIndex;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -44,9 +62,45 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Set whether to remember the outcome of property lookups in an index, turning
+	 * repeated lookups of the same key into a single hash lookup.
+	 * <p>Only lookups that are fully determined by {@link EnumerablePropertySource}
+	 * instances are indexed, including relaxed name matches in a
+	 * {@link SystemEnvironmentPropertySource}. Lookups involving other property
+	 * sources are always delegated to the property sources.
+	 * <p>The index is a snapshot: it is discarded on any change to the
+	 * {@link MutablePropertySources} arrangement, but changes to the content of
+	 * an individual property source are not reflected until then, or until
+	 * {@link #clearPropertyIndex()} is called. The index is only applied to
+	 * {@link MutablePropertySources}.
+	 * <p>Default is "false", unless the {@value #USE_PROPERTY_INDEX_PROPERTY_NAME}
+	 * property has been set to "true".
+	 * @since 5.3.10
+	 */
+	public void setUsePropertyIndex(boolean usePropertyIndex) {
+		this.usePropertyIndex = usePropertyIndex;
+		this.propertyIndex = null;
+	}
+
+	/**
+	 * Clear the property index, if any, e.g. after changing the content of a
+	 * property source.
+	 * @since 5.3.10
+	 * @see #setUsePropertyIndex
+	 */
+	public void clearPropertyIndex() {
+		this.propertyIndex = null;
+	}
+
+
 	@Override
 	public boolean containsProperty(String key) {
 		if (this.propertySources != null) {
+			PropertyIndex propertyIndex = obtainPropertyIndex();
+			if (propertyIndex != null && propertyIndex.get(key) instanceof IndexedProperty) {
+				return true;
+			}
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (propertySource.containsProperty(key)) {
 					return true;
@@ -77,18 +131,32 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
 		if (this.propertySources != null) {
-			for (PropertySource<?> propertySource : this.propertySources) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Searching for key '" + key + "' in PropertySource '" +
-							propertySource.getName() + "'");
-				}
-				Object value = propertySource.getProperty(key);
-				if (value != null) {
-					if (resolveNestedPlaceholders && value instanceof String) {
-						value = resolveNestedPlaceholders((String) value);
+			PropertyIndex propertyIndex = obtainPropertyIndex();
+			Object property = (propertyIndex != null ? propertyIndex.get(key) : null);
+			if (property instanceof IndexedProperty) {
+				IndexedProperty indexedProperty = (IndexedProperty) property;
+				return resolveValue(key, indexedProperty.propertySource, indexedProperty.value,
+						targetValueType, resolveNestedPlaceholders);
+			}
+			else if (property == null) {
+				// Indexable as long as only enumerable property sources are involved
+				boolean indexable = (propertyIndex != null);
+				for (PropertySource<?> propertySource : this.propertySources) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Searching for key '" + key + "' in PropertySource '" +
+								propertySource.getName() + "'");
+					}
+					indexable = (indexable && propertySource instanceof EnumerablePropertySource);
+					Object value = propertySource.getProperty(key);
+					if (value != null) {
+						if (indexable) {
+							propertyIndex.put(key, new IndexedProperty(propertySource, value));
+						}
+						return resolveValue(key, propertySource, value, targetValueType, resolveNestedPlaceholders);
 					}
-					logKeyFound(key, propertySource, value);
-					return convertValueIfNecessary(value, targetValueType);
+				}
+				if (indexable) {
+					propertyIndex.put(key, PropertyIndex.NOT_FOUND);
 				}
 			}
 		}
@@ -98,6 +166,37 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	@Nullable
+	private <T> T resolveValue(String key, PropertySource<?> propertySource, Object value,
+			Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+
+		if (resolveNestedPlaceholders && value instanceof String) {
+			value = resolveNestedPlaceholders((String) value);
+		}
+		logKeyFound(key, propertySource, value);
+		return convertValueIfNecessary(value, targetValueType);
+	}
+
+	/**
+	 * Obtain the current property index, creating a new one if the property
+	 * sources have been modified since the index was created.
+	 * @return the property index, or {@code null} if not applicable
+	 */
+	@Nullable
+	private PropertyIndex obtainPropertyIndex() {
+		if (!this.usePropertyIndex || !(this.propertySources instanceof MutablePropertySources)) {
+			return null;
+		}
+		// Determine the modification count before any lookup in the property sources
+		int modificationCount = ((MutablePropertySources) this.propertySources).getModificationCount();
+		PropertyIndex propertyIndex = this.propertyIndex;
+		if (propertyIndex == null || propertyIndex.modificationCount != modificationCount) {
+			propertyIndex = new PropertyIndex(modificationCount);
+			this.propertyIndex = propertyIndex;
+		}
+		return propertyIndex;
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -117,4 +216,50 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+
+	/**
+	 * The outcome of property lookups for a specific arrangement of property sources.
+	 */
+	private static final class PropertyIndex {
+
+		static final Object NOT_FOUND = new Object();
+
+		final int modificationCount;
+
+		private final Map<String, Object> properties = new ConcurrentHashMap<>(256);
+
+		PropertyIndex(int modificationCount) {
+			this.modificationCount = modificationCount;
+		}
+
+		/**
+		 * Return the {@link IndexedProperty} for the given key, {@link #NOT_FOUND}
+		 * if the key is known to be absent, or {@code null} if not indexed yet.
+		 */
+		@Nullable
+		Object get(String key) {
+			return this.properties.get(key);
+		}
+
+		void put(String key, Object property) {
+			this.properties.put(key, property);
+		}
+	}
+
+
+	/**
+	 * A property value along with the property source that it has been found in.
+	 */
+	private static final class IndexedProperty {
+
+		final PropertySource<?> propertySource;
+
+		final Object value;
+
+		IndexedProperty(PropertySource<?> propertySource, Object value) {
+			this.propertySource = propertySource;
+			this.value = value;
+		}
+	}
+
 }
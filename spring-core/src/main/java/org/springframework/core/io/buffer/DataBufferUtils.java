@@ -21,15 +21,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -65,6 +69,14 @@ public abstract class DataBufferUtils {
 
 	private static final Consumer<DataBuffer> RELEASE_CONSUMER = DataBufferUtils::release;
 
+	private static final long MAX_FILE_REGION_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * Minimum number of bytes for a delimiter scan to be performed a word at
+	 * a time, compensating for the cost of obtaining a {@code ByteBuffer} view.
+	 */
+	private static final int SWAR_SCAN_THRESHOLD = 32;
+
 
 	//---------------------------------------------------------------------
 	// Reading
@@ -232,6 +244,95 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Read the given file into a {@code Flux} of {@code DataBuffer}s that wrap
+	 * slices of a memory mapping of the file, without copying its content.
+	 * <p>Mappings are kept in an LRU cache of recently read files, and remapped
+	 * when the size or last-modified time of a file changes. Repeated reads of
+	 * the same file can therefore be served straight from the page cache, which
+	 * makes this variant well suited for read-mostly files such as static assets.
+	 * Note that a mapped file must not be truncated while its content is in use.
+	 * @param path the path of the file to read
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory to wrap the mapped content with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers for the file content
+	 * @since 5.3.10
+	 * @see #read(Path, DataBufferFactory, int, OpenOption...)
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Path path, long position, DataBufferFactory bufferFactory, int bufferSize) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(bufferSize > 0, "'bufferSize' must be > 0");
+
+		return Flux.defer(() -> {
+			MappedFileCache.MappedFile mappedFile;
+			try {
+				mappedFile = MappedFileCache.sharedInstance.get(path);
+			}
+			catch (IOException ex) {
+				return Flux.error(ex);
+			}
+			return Flux.generate(() -> position, (currentPosition, sink) -> {
+				if (currentPosition >= mappedFile.size()) {
+					sink.complete();
+					return currentPosition;
+				}
+				ByteBuffer slice = mappedFile.slice(currentPosition,
+						(int) Math.min(bufferSize, mappedFile.size() - currentPosition));
+				sink.next(bufferFactory.wrap(slice));
+				return currentPosition + slice.remaining();
+			});
+		});
+	}
+
+	/**
+	 * Obtain the given region of a file as a {@code Flux} of
+	 * {@link FileRegionDataBuffer FileRegionDataBuffers}, allowing for a zero-copy
+	 * transfer of the file content where supported by the consumer of the buffers.
+	 * <p>The content of the returned buffers is memory-mapped rather than read,
+	 * so consumers that do not support zero-copy transfer can process them like
+	 * any other buffer. Each buffer maps at most 16 MB of the region, and is only
+	 * mapped once requested by the consumer.
+	 * @param path the path of the file
+	 * @param position the position of the region within the file
+	 * @param count the maximum number of bytes in the region
+	 * @param bufferFactory the factory to wrap the file content with
+	 * @return a Flux of data buffers for the file region
+	 * @since 5.3.10
+	 */
+	public static Flux<DataBuffer> readFileRegion(
+			Path path, long position, long count, DataBufferFactory bufferFactory) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(count >= 0, "'count' must be >= 0");
+
+		return Flux.using(() -> FileChannel.open(path, StandardOpenOption.READ),
+				channel -> Flux.generate(() -> position, (regionPosition, sink) -> {
+					try {
+						long end = Math.min(channel.size(), position + Math.min(count, Long.MAX_VALUE - position));
+						if (regionPosition >= end) {
+							sink.complete();
+							return regionPosition;
+						}
+						long regionSize = Math.min(end - regionPosition, MAX_FILE_REGION_SIZE);
+						MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, regionPosition, regionSize);
+						sink.next(new FileRegionDataBuffer(bufferFactory.wrap(content), path, regionPosition));
+						return regionPosition + regionSize;
+					}
+					catch (IOException ex) {
+						sink.error(ex);
+						return regionPosition;
+					}
+				}),
+				DataBufferUtils::closeChannel);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -618,6 +719,64 @@ public abstract class DataBufferUtils {
 		}
 	}
 
+	/**
+	 * Return a {@code long} with all of its bytes set to the given byte,
+	 * for use with {@link #indexOfAny(DataBuffer, int, int, long[])}.
+	 */
+	private static long bytePattern(byte b) {
+		return (b & 0xFFL) * 0x0101010101010101L;
+	}
+
+	/**
+	 * Find the first index in the given range of the data buffer that holds
+	 * one of the bytes represented by the given {@linkplain #bytePattern patterns}.
+	 * <p>Larger ranges are scanned a {@code long} word at a time: an exact SWAR
+	 * ("SIMD within a register") zero-byte test on the word XOR'ed with each
+	 * pattern finds all candidate bytes in a single pass, without a branch per byte.
+	 * @return the index of the first matching byte, or {@code -1} if none
+	 */
+	private static int indexOfAny(DataBuffer dataBuffer, int fromIndex, int toIndex, long[] patterns) {
+		int pos = fromIndex;
+		if (toIndex - fromIndex >= SWAR_SCAN_THRESHOLD) {
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer(fromIndex, toIndex - fromIndex);
+			boolean bigEndian = (byteBuffer.order() == ByteOrder.BIG_ENDIAN);
+			int start = byteBuffer.position();
+			int offset = start;
+			for (int last = byteBuffer.limit() - Long.BYTES; offset <= last; offset += Long.BYTES) {
+				long word = byteBuffer.getLong(offset);
+				long found = 0;
+				for (long pattern : patterns) {
+					found |= zeroBytes(word ^ pattern);
+				}
+				if (found != 0) {
+					int index = (bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found));
+					return pos + (offset - start) + (index >>> 3);
+				}
+			}
+			pos += (offset - start);
+		}
+		for (; pos < toIndex; pos++) {
+			byte b = dataBuffer.getByte(pos);
+			for (long pattern : patterns) {
+				if (b == (byte) pattern) {
+					return pos;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return a word with the high bit set in every byte that is zero in the
+	 * given word, and all other bits cleared. Unlike the common
+	 * {@code (x - 0x01..01) & ~x & 0x80..80} variant, this does not report
+	 * false positives next to a zero byte, so it is exact in any byte order.
+	 */
+	private static long zeroBytes(long word) {
+		long tmp = (word & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+		return ~(tmp | word | 0x7F7F7F7F7F7F7F7FL);
+	}
+
 
 	/**
 	 * Contract to find delimiter(s) against one or more data buffers that can
@@ -656,10 +815,13 @@ public abstract class DataBufferUtils {
 
 		private final NestedMatcher[] matchers;
 
+		private final long[] firstBytePatterns;
+
 		byte[] longestDelimiter = NO_DELIMITER;
 
 		CompositeMatcher(byte[][] delimiters) {
 			this.matchers = initMatchers(delimiters);
+			this.firstBytePatterns = initFirstBytePatterns(delimiters);
 		}
 
 		private static NestedMatcher[] initMatchers(byte[][] delimiters) {
@@ -670,11 +832,34 @@ public abstract class DataBufferUtils {
 			return matchers;
 		}
 
+		private static long[] initFirstBytePatterns(byte[][] delimiters) {
+			long[] patterns = new long[delimiters.length];
+			int count = 0;
+			for (byte[] delimiter : delimiters) {
+				long pattern = bytePattern(delimiter[0]);
+				boolean duplicate = false;
+				for (int i = 0; i < count; i++) {
+					duplicate |= (patterns[i] == pattern);
+				}
+				if (!duplicate) {
+					patterns[count++] = pattern;
+				}
+			}
+			return Arrays.copyOf(patterns, count);
+		}
+
 		@Override
 		public int match(DataBuffer dataBuffer) {
 			this.longestDelimiter = NO_DELIMITER;
 
-			for (int pos = dataBuffer.readPosition(); pos < dataBuffer.writePosition(); pos++) {
+			int end = dataBuffer.writePosition();
+			for (int pos = dataBuffer.readPosition(); pos < end; pos++) {
+				if (!hasPartialMatch()) {
+					pos = indexOfAny(dataBuffer, pos, end, this.firstBytePatterns);
+					if (pos == -1) {
+						return -1;
+					}
+				}
 				byte b = dataBuffer.getByte(pos);
 
 				for (NestedMatcher matcher : this.matchers) {
@@ -697,6 +882,15 @@ public abstract class DataBufferUtils {
 			return this.longestDelimiter;
 		}
 
+		private boolean hasPartialMatch() {
+			for (NestedMatcher matcher : this.matchers) {
+				if (matcher.hasPartialMatch()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
 		@Override
 		public void reset() {
 			for (NestedMatcher matcher : this.matchers) {
@@ -718,6 +912,13 @@ public abstract class DataBufferUtils {
 		 */
 		boolean match(byte b);
 
+		/**
+		 * Whether the bytes passed to {@link #match(byte)} so far end with a
+		 * prefix of the delimiter, i.e. whether the next byte may complete or
+		 * continue a match even if it is not the first byte of the delimiter.
+		 */
+		boolean hasPartialMatch();
+
 	}
 
 
@@ -730,20 +931,17 @@ public abstract class DataBufferUtils {
 
 		private final byte[] delimiter;
 
+		private final long[] patterns;
+
 		SingleByteMatcher(byte[] delimiter) {
 			Assert.isTrue(delimiter.length == 1, "Expected a 1 byte delimiter");
 			this.delimiter = delimiter;
+			this.patterns = new long[] {bytePattern(delimiter[0])};
 		}
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
-			for (int pos = dataBuffer.readPosition(); pos < dataBuffer.writePosition(); pos++) {
-				byte b = dataBuffer.getByte(pos);
-				if (match(b)) {
-					return pos;
-				}
-			}
-			return -1;
+			return indexOfAny(dataBuffer, dataBuffer.readPosition(), dataBuffer.writePosition(), this.patterns);
 		}
 
 		@Override
@@ -751,6 +949,11 @@ public abstract class DataBufferUtils {
 			return this.delimiter[0] == b;
 		}
 
+		@Override
+		public boolean hasPartialMatch() {
+			return false;
+		}
+
 		@Override
 		public byte[] delimiter() {
 			return this.delimiter;
@@ -769,11 +972,14 @@ public abstract class DataBufferUtils {
 
 		private final byte[] delimiter;
 
+		private final long[] firstBytePatterns;
+
 		private int matches = 0;
 
 
 		protected AbstractNestedMatcher(byte[] delimiter) {
 			this.delimiter = delimiter;
+			this.firstBytePatterns = new long[] {bytePattern(delimiter[0])};
 		}
 
 		protected void setMatches(int index) {
@@ -786,7 +992,14 @@ public abstract class DataBufferUtils {
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
-			for (int pos = dataBuffer.readPosition(); pos < dataBuffer.writePosition(); pos++) {
+			int end = dataBuffer.writePosition();
+			for (int pos = dataBuffer.readPosition(); pos < end; pos++) {
+				if (this.matches == 0) {
+					pos = indexOfAny(dataBuffer, pos, end, this.firstBytePatterns);
+					if (pos == -1) {
+						return -1;
+					}
+				}
 				byte b = dataBuffer.getByte(pos);
 				if (match(b)) {
 					reset();
@@ -805,6 +1018,11 @@ public abstract class DataBufferUtils {
 			return false;
 		}
 
+		@Override
+		public boolean hasPartialMatch() {
+			return (this.matches > 0);
+		}
+
 		@Override
 		public byte[] delimiter() {
 			return this.delimiter;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,7 +61,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	private int writePosition;
 
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
 		Assert.notNull(byteBuffer, "ByteBuffer must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -93,7 +93,7 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this.byteBuffer;
 	}
 
-	private void setNativeBuffer(ByteBuffer byteBuffer) {
+	void setNativeBuffer(ByteBuffer byteBuffer) {
 		this.byteBuffer = byteBuffer;
 		this.capacity = byteBuffer.remaining();
 	}
@@ -190,7 +190,7 @@ public class DefaultDataBuffer implements DataBuffer {
 
 		if (newCapacity > oldCapacity) {
 			ByteBuffer oldBuffer = this.byteBuffer;
-			ByteBuffer newBuffer = allocate(newCapacity, oldBuffer.isDirect());
+			ByteBuffer newBuffer = allocateNativeBuffer(newCapacity, oldBuffer.isDirect());
 			oldBuffer.position(0).limit(oldBuffer.capacity());
 			newBuffer.position(0).limit(oldBuffer.capacity());
 			newBuffer.put(oldBuffer);
@@ -199,7 +199,7 @@ public class DefaultDataBuffer implements DataBuffer {
 		}
 		else if (newCapacity < oldCapacity) {
 			ByteBuffer oldBuffer = this.byteBuffer;
-			ByteBuffer newBuffer = allocate(newCapacity, oldBuffer.isDirect());
+			ByteBuffer newBuffer = allocateNativeBuffer(newCapacity, oldBuffer.isDirect());
 			if (readPosition < newCapacity) {
 				if (writePosition > newCapacity) {
 					writePosition = newCapacity;
@@ -228,7 +228,14 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this;
 	}
 
-	private static ByteBuffer allocate(int capacity, boolean direct) {
+	/**
+	 * Allocate a new native buffer for a {@linkplain #capacity(int) capacity change}.
+	 * @param capacity the capacity of the new buffer
+	 * @param direct whether the current native buffer is a direct buffer
+	 * @return the new buffer, with its remaining bytes matching the given capacity
+	 * @since 5.3.10
+	 */
+	ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
 		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
 	}
 
@@ -341,13 +348,22 @@ public class DefaultDataBuffer implements DataBuffer {
 			ByteBuffer slice = this.byteBuffer.slice();
 			// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
 			slice.limit(length);
-			return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+			return createSlice(slice, length);
 		}
 		finally {
 			buffer.position(oldPosition);
 		}
 	}
 
+	/**
+	 * Create a slice for the given native buffer region, as returned
+	 * from {@link #slice(int, int)}.
+	 * @since 5.3.10
+	 */
+	DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+		return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+	}
+
 	@Override
 	public ByteBuffer asByteBuffer() {
 		return asByteBuffer(this.readPosition, readableByteCount());
@@ -368,12 +384,12 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	@Override
 	public InputStream asInputStream() {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(false);
 	}
 
 	@Override
 	public InputStream asInputStream(boolean releaseOnClose) {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(releaseOnClose);
 	}
 
 	@Override
@@ -477,6 +493,14 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	private class DefaultDataBufferInputStream extends InputStream {
 
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		DefaultDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
 		@Override
 		public int available() {
 			return readableByteCount();
@@ -499,6 +523,14 @@ public class DefaultDataBuffer implements DataBuffer {
 				return -1;
 			}
 		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(DefaultDataBuffer.this);
+			}
+		}
 	}
 
 
@@ -516,7 +548,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	}
 
 
-	private static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
+	static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
 
 		SlicedDefaultDataBuffer(ByteBuffer byteBuffer, DefaultDataBufferFactory dataBufferFactory, int length) {
 			super(dataBufferFactory, byteBuffer);
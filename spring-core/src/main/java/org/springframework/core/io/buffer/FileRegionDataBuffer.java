@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.file.Path;
+
+/**
+ * {@link DataBuffer} that represents a region of a file, allowing consumers
+ * to transfer the file content without copying it through user space, e.g.
+ * through {@code sendfile} or {@link java.nio.channels.FileChannel#transferTo}.
+ *
+ * <p>The content of the buffer is the memory-mapped file region, so consumers
+ * that do not support zero-copy transfer can process it like any other buffer.
+ * The region reported by {@link #getPosition()} and {@link #getCount()} reflects
+ * the readable bytes of the buffer.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see DataBufferUtils#readFileRegion(Path, long, long, DataBufferFactory)
+ */
+public class FileRegionDataBuffer extends DataBufferWrapper {
+
+	private final Path file;
+
+	private final long position;
+
+
+	FileRegionDataBuffer(DataBuffer content, Path file, long position) {
+		super(content);
+		this.file = file;
+		this.position = position;
+	}
+
+
+	/**
+	 * Return the file that contains the region.
+	 */
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Return the position of the readable bytes within the file.
+	 */
+	public long getPosition() {
+		return this.position + readPosition();
+	}
+
+	/**
+	 * Return the number of readable bytes in the region.
+	 */
+	public long getCount() {
+		return readableByteCount();
+	}
+
+	@Override
+	public String toString() {
+		return "FileRegionDataBuffer [" + this.file + ", position=" + getPosition() + ", count=" + getCount() + "]";
+	}
+
+}
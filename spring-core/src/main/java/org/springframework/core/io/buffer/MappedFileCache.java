@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * LRU cache of memory-mapped files, as used by
+ * {@link DataBufferUtils#readMapped(Path, long, DataBufferFactory, int)}.
+ *
+ * <p>Entries are keyed by file path, size and last-modified time: a modified
+ * file gets mapped again, with the stale mapping eventually being evicted.
+ * Files larger than 1 GB are mapped in several segments.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ */
+final class MappedFileCache {
+
+	/**
+	 * Shared instance for {@link DataBufferUtils}, holding up to 256 files.
+	 */
+	static final MappedFileCache sharedInstance = new MappedFileCache(256);
+
+	private static final long SEGMENT_SIZE = 1024 * 1024 * 1024;
+
+
+	private final ConcurrentLruCache<MappedFileKey, MappedFile> cache;
+
+
+	MappedFileCache(int sizeLimit) {
+		this.cache = new ConcurrentLruCache<>(sizeLimit, MappedFileCache::map);
+	}
+
+
+	/**
+	 * Return the mapping for the current content of the given file.
+	 * @param path the file to map
+	 * @return the (potentially cached) mapping
+	 * @throws IOException if the file cannot be accessed or mapped
+	 */
+	MappedFile get(Path path) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		MappedFileKey key = new MappedFileKey(
+				path.toAbsolutePath(), attributes.size(), attributes.lastModifiedTime().toMillis());
+		try {
+			return this.cache.get(key);
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	/**
+	 * Return the number of files currently mapped.
+	 */
+	int size() {
+		return this.cache.size();
+	}
+
+	private static MappedFile map(MappedFileKey key) {
+		try (FileChannel channel = FileChannel.open(key.path, StandardOpenOption.READ)) {
+			long size = Math.min(key.size, channel.size());
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; i++) {
+				long position = i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+			}
+			return new MappedFile(segments, size);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+
+	/**
+	 * A memory-mapped file, consisting of one or more segments.
+	 */
+	static final class MappedFile {
+
+		private final MappedByteBuffer[] segments;
+
+		private final long size;
+
+		MappedFile(MappedByteBuffer[] segments, long size) {
+			this.segments = segments;
+			this.size = size;
+		}
+
+		/**
+		 * Return the size of the mapped file content.
+		 */
+		long size() {
+			return this.size;
+		}
+
+		/**
+		 * Return a read-only view of the mapped content at the given position,
+		 * limited to the given length and to the end of the containing segment.
+		 */
+		ByteBuffer slice(long position, int maxLength) {
+			MappedByteBuffer segment = this.segments[(int) (position / SEGMENT_SIZE)];
+			int offset = (int) (position % SEGMENT_SIZE);
+			int length = Math.min(maxLength, segment.capacity() - offset);
+			ByteBuffer slice = segment.duplicate();
+			// Explicit access via Buffer base type for compatibility
+			// with covariant return type on JDK 9's ByteBuffer...
+			((Buffer) slice).position(offset).limit(offset + length);
+			return slice.slice();
+		}
+	}
+
+
+	private static final class MappedFileKey {
+
+		private final Path path;
+
+		private final long size;
+
+		private final long lastModified;
+
+		MappedFileKey(Path path, long size, long lastModified) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MappedFileKey)) {
+				return false;
+			}
+			MappedFileKey otherKey = (MappedFileKey) other;
+			return (this.path.equals(otherKey.path) && this.size == otherKey.size &&
+					this.lastModified == otherKey.lastModified);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.path.hashCode() * 31 + Long.hashCode(this.lastModified);
+		}
+	}
+
+}
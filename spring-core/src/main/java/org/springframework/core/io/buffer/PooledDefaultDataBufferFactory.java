@@ -0,0 +1,435 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Variant of {@link DefaultDataBufferFactory} that allocates {@link PooledDataBuffer}
+ * instances backed by recycled {@link ByteBuffer ByteBuffers}, avoiding a new
+ * heap or direct buffer allocation for every {@link #allocateBuffer(int)} call
+ * on runtimes without Netty (e.g. Servlet containers).
+ *
+ * <p>Buffers are pooled in power-of-two size classes from {@value #MIN_SIZE_CLASS}
+ * bytes up to the {@linkplain #PooledDefaultDataBufferFactory(boolean, int, int)
+ * maximum pooled capacity}. Each size class has a bounded arena shared by all
+ * threads, fronted by a small cache per thread. Larger buffers are allocated
+ * on demand and left to the garbage collector once released.
+ *
+ * <p>Allocated buffers are reference-counted: they need to be released through
+ * {@link DataBufferUtils#release(DataBuffer)} once no longer used, at which
+ * point their memory is returned to the pool. Slices share the reference count
+ * of the buffer they were created from. A buffer that outgrows its pooled
+ * memory leaves that memory to the garbage collector, keeping earlier slices
+ * intact. {@link #wrap(ByteBuffer) Wrapped} buffers are not pooled and do not
+ * need to be released.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see DefaultDataBufferFactory
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class PooledDefaultDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers: 256 KB.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 256 * 1024;
+
+	/**
+	 * The capacity of the smallest size class.
+	 */
+	private static final int MIN_SIZE_CLASS = 64;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE_CLASS);
+
+	private static final int ARENA_BYTES_PER_SIZE_CLASS = 2 * 1024 * 1024;
+
+	private static final int MAX_ARENA_ENTRIES = 512;
+
+	private static final int THREAD_CACHE_BYTES_PER_SIZE_CLASS = 64 * 1024;
+
+	private static final int MAX_THREAD_CACHE_ENTRIES = 32;
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final Arena[] arenas;
+
+	private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(this::createThreadCache);
+
+	private final LongAdder activeBuffers = new LongAdder();
+
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory} with default settings.
+	 */
+	public PooledDefaultDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled, and what the capacity is to be used for
+	 * {@link #allocateBuffer()}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect, int defaultInitialCapacity) {
+		this(preferDirect, defaultInitialCapacity, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled, what the capacity is to be used for
+	 * {@link #allocateBuffer()}, and up to which capacity buffers are pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers,
+	 * rounded up to the next power of two
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect, int defaultInitialCapacity, int maxPooledCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity > 0, "'maxPooledCapacity' should be larger than 0");
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' should not be larger than 1 GB");
+		this.preferDirect = preferDirect;
+		int sizeClassCount = sizeClassIndex(maxPooledCapacity) + 1;
+		this.maxPooledCapacity = sizeClass(sizeClassCount - 1);
+		this.arenas = new Arena[sizeClassCount];
+		for (int i = 0; i < sizeClassCount; i++) {
+			int sizeClass = sizeClass(i);
+			int entries = Math.min(MAX_ARENA_ENTRIES, Math.max(1, ARENA_BYTES_PER_SIZE_CLASS / sizeClass));
+			this.arenas[i] = new Arena(entries);
+		}
+	}
+
+
+	/**
+	 * Return the maximum capacity of pooled buffers. Buffers with
+	 * a larger capacity are allocated on demand.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Return the number of buffers allocated by this factory that have not
+	 * been released yet, e.g. for leak detection in tests.
+	 */
+	public long getActiveBufferCount() {
+		return this.activeBuffers.sum();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		ByteBuffer chunk = allocateChunk(initialCapacity);
+		this.activeBuffers.increment();
+		return new PooledByteBufferDataBuffer(this, chunk, initialCapacity);
+	}
+
+
+	/**
+	 * Obtain a chunk for the given capacity: either from the pool, or newly
+	 * allocated with the capacity of the corresponding size class.
+	 */
+	ByteBuffer allocateChunk(int capacity) {
+		if (capacity > this.maxPooledCapacity) {
+			return allocate(capacity);
+		}
+		int index = sizeClassIndex(capacity);
+		ByteBuffer chunk = this.threadCache.get().poll(index);
+		if (chunk == null) {
+			chunk = this.arenas[index].buffers.poll();
+		}
+		return (chunk != null ? chunk : allocate(sizeClass(index)));
+	}
+
+	/**
+	 * Return the given chunk to the pool, if it corresponds to a size class
+	 * and there is room for it in the thread cache or the arena.
+	 */
+	void recycleChunk(ByteBuffer chunk) {
+		int capacity = chunk.capacity();
+		if (capacity > this.maxPooledCapacity || capacity != sizeClass(sizeClassIndex(capacity))) {
+			return;
+		}
+		// Explicit access via Buffer base type for compatibility
+		// with covariant return type on JDK 9's ByteBuffer...
+		((Buffer) chunk).clear();
+		int index = sizeClassIndex(capacity);
+		if (!this.threadCache.get().offer(index, chunk)) {
+			this.arenas[index].buffers.offer(chunk);
+		}
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private ThreadCache createThreadCache() {
+		int[] capacities = new int[this.arenas.length];
+		for (int i = 0; i < capacities.length; i++) {
+			capacities[i] = Math.min(MAX_THREAD_CACHE_ENTRIES, THREAD_CACHE_BYTES_PER_SIZE_CLASS / sizeClass(i));
+		}
+		return new ThreadCache(capacities);
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDefaultDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= MIN_SIZE_CLASS) {
+			return 0;
+		}
+		return (Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_SIZE_CLASS_SHIFT;
+	}
+
+	private static int sizeClass(int index) {
+		return MIN_SIZE_CLASS << index;
+	}
+
+	/**
+	 * Return a view of the given chunk, limited to the given capacity.
+	 */
+	private static ByteBuffer view(ByteBuffer chunk, int capacity) {
+		ByteBuffer duplicate = chunk.duplicate();
+		((Buffer) duplicate).clear().limit(capacity);
+		return duplicate.slice();
+	}
+
+
+	/**
+	 * Buffers of a single size class, shared across threads.
+	 */
+	private static final class Arena {
+
+		final ArrayBlockingQueue<ByteBuffer> buffers;
+
+		Arena(int capacity) {
+			this.buffers = new ArrayBlockingQueue<>(capacity);
+		}
+	}
+
+
+	/**
+	 * Buffers per size class, confined to a single thread.
+	 */
+	private static final class ThreadCache {
+
+		private final ByteBuffer[][] buffers;
+
+		private final int[] counts;
+
+		ThreadCache(int[] capacities) {
+			this.buffers = new ByteBuffer[capacities.length][];
+			for (int i = 0; i < capacities.length; i++) {
+				this.buffers[i] = new ByteBuffer[capacities[i]];
+			}
+			this.counts = new int[capacities.length];
+		}
+
+		@Nullable
+		ByteBuffer poll(int index) {
+			int count = this.counts[index];
+			if (count == 0) {
+				return null;
+			}
+			ByteBuffer[] buffers = this.buffers[index];
+			ByteBuffer buffer = buffers[--count];
+			buffers[count] = null;
+			this.counts[index] = count;
+			return buffer;
+		}
+
+		boolean offer(int index, ByteBuffer buffer) {
+			int count = this.counts[index];
+			ByteBuffer[] buffers = this.buffers[index];
+			if (count == buffers.length) {
+				return false;
+			}
+			buffers[count] = buffer;
+			this.counts[index] = count + 1;
+			return true;
+		}
+	}
+
+
+	/**
+	 * Reference-counted buffer backed by a chunk from the pool.
+	 */
+	private static final class PooledByteBufferDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private static final AtomicIntegerFieldUpdater<PooledByteBufferDataBuffer> REF_COUNT_UPDATER =
+				AtomicIntegerFieldUpdater.newUpdater(PooledByteBufferDataBuffer.class, "refCount");
+
+		private final PooledDefaultDataBufferFactory pool;
+
+		@Nullable
+		private ByteBuffer chunk;
+
+		private volatile int refCount = 1;
+
+		PooledByteBufferDataBuffer(PooledDefaultDataBufferFactory pool, ByteBuffer chunk, int capacity) {
+			super(pool, view(chunk, capacity));
+			this.pool = pool;
+			this.chunk = chunk;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int refCount;
+			do {
+				refCount = this.refCount;
+				Assert.state(refCount > 0, "Cannot retain a released buffer");
+			}
+			while (!REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount + 1));
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer touch(Object hint) {
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int refCount;
+			do {
+				refCount = this.refCount;
+				Assert.state(refCount > 0, "Buffer has already been released");
+			}
+			while (!REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount - 1));
+			if (refCount > 1) {
+				return false;
+			}
+			ByteBuffer chunk = this.chunk;
+			this.chunk = null;
+			setNativeBuffer(EMPTY_BUFFER);
+			readPosition(0);
+			writePosition(0);
+			this.pool.activeBuffers.decrement();
+			if (chunk != null) {
+				this.pool.recycleChunk(chunk);
+			}
+			return true;
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			ByteBuffer oldChunk = this.chunk;
+			Assert.state(oldChunk != null, "Buffer has already been released");
+			if (newCapacity > capacity() && newCapacity <= oldChunk.capacity()) {
+				// Grow within the current chunk: no need to copy the content
+				setNativeBuffer(view(oldChunk, newCapacity));
+				return this;
+			}
+			// The previous chunk is left to the garbage collector rather than recycled:
+			// slices and ByteBuffer views obtained before may still refer to it
+			super.capacity(newCapacity);
+			return this;
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			ByteBuffer chunk = this.pool.allocateChunk(capacity);
+			this.chunk = chunk;
+			return view(chunk, capacity);
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedDataBuffer(slice, this, length);
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledByteBufferDataBuffer}, sharing its reference count.
+	 */
+	private static final class PooledSlicedDataBuffer extends DefaultDataBuffer.SlicedDefaultDataBuffer
+			implements PooledDataBuffer {
+
+		private final PooledByteBufferDataBuffer parent;
+
+		PooledSlicedDataBuffer(ByteBuffer byteBuffer, PooledByteBufferDataBuffer parent, int length) {
+			super(byteBuffer, parent.factory(), length);
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer touch(Object hint) {
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedDataBuffer(slice, this.parent, length);
+		}
+	}
+
+}
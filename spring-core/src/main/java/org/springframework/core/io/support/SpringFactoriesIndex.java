@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Binary index of the factories declared in a {@code spring.factories} file,
+ * stored next to it as {@value SpringFactoriesLoader#FACTORIES_INDEX_RESOURCE_LOCATION}.
+ *
+ * <p>An index is typically generated at build time for each artifact through
+ * {@link #writeIndex(File)}. {@link SpringFactoriesLoader} prefers an index over
+ * the corresponding {@code spring.factories} file: index files on the file system
+ * are memory-mapped, and factory names are looked up per factory type on demand
+ * instead of parsing all declared factories upfront.
+ *
+ * <p>The index consists of a header, a table of entries sorted by factory type
+ * name, and the UTF-8 encoded names referenced by the entries.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see SpringFactoriesLoader
+ */
+public final class SpringFactoriesIndex {
+
+	private static final int MAGIC = 0x53464958;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 12;
+
+	private static final int ENTRY_SIZE = 12;
+
+
+	private final ByteBuffer buffer;
+
+	private final int entryCount;
+
+
+	private SpringFactoriesIndex(ByteBuffer buffer, int entryCount) {
+		this.buffer = buffer;
+		this.entryCount = entryCount;
+	}
+
+
+	/**
+	 * Return the factory implementation names declared for the given factory type,
+	 * in declaration order.
+	 * @param factoryTypeName the fully qualified name of the factory type
+	 * @return the factory implementation names (never {@code null})
+	 */
+	List<String> getFactoryNames(String factoryTypeName) {
+		int low = 0;
+		int high = this.entryCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int entryOffset = HEADER_SIZE + mid * ENTRY_SIZE;
+			int comparison = readString(this.buffer.getInt(entryOffset)).compareTo(factoryTypeName);
+			if (comparison < 0) {
+				low = mid + 1;
+			}
+			else if (comparison > 0) {
+				high = mid - 1;
+			}
+			else {
+				int offset = this.buffer.getInt(entryOffset + 4);
+				int count = this.buffer.getInt(entryOffset + 8);
+				List<String> factoryNames = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					String factoryName = readString(offset);
+					factoryNames.add(factoryName);
+					offset += 2 + (this.buffer.getShort(offset) & 0xFFFF);
+				}
+				return factoryNames;
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	private String readString(int offset) {
+		int length = this.buffer.getShort(offset) & 0xFFFF;
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = this.buffer.get(offset + 2 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Load the index at the given location, memory-mapping it if it
+	 * resides in the file system.
+	 * @param url the location of the index
+	 * @return the index, or {@code null} if the content is not an index
+	 * in a supported format
+	 * @throws IOException if the index cannot be read
+	 */
+	@Nullable
+	static SpringFactoriesIndex load(URL url) throws IOException {
+		ByteBuffer buffer;
+		if (ResourceUtils.isFileURL(url)) {
+			File file = ResourceUtils.getFile(url);
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		}
+		else {
+			try (InputStream in = new UrlResource(url).getInputStream()) {
+				buffer = ByteBuffer.wrap(StreamUtils.copyToByteArray(in));
+			}
+		}
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			return null;
+		}
+		int entryCount = buffer.getInt(8);
+		if (entryCount < 0 || HEADER_SIZE + (long) entryCount * ENTRY_SIZE > buffer.capacity()) {
+			return null;
+		}
+		return new SpringFactoriesIndex(buffer, entryCount);
+	}
+
+	/**
+	 * Write an index for the {@value SpringFactoriesLoader#FACTORIES_RESOURCE_LOCATION}
+	 * file in the given output directory, e.g. as part of an artifact's build.
+	 * The index is written to {@value SpringFactoriesLoader#FACTORIES_INDEX_RESOURCE_LOCATION}
+	 * in the same directory.
+	 * @param directory the root directory of the artifact's resources
+	 * @throws IOException if the factories cannot be read or the index cannot be written
+	 */
+	public static void writeIndex(File directory) throws IOException {
+		File factoriesFile = new File(directory, SpringFactoriesLoader.FACTORIES_RESOURCE_LOCATION);
+		Assert.isTrue(factoriesFile.isFile(), () -> "No factories file found at " + factoriesFile);
+		Map<String, List<String>> factories =
+				SpringFactoriesLoader.loadFactoriesResource(new FileSystemResource(factoriesFile));
+		File indexFile = new File(directory, SpringFactoriesLoader.FACTORIES_INDEX_RESOURCE_LOCATION);
+		try (OutputStream out = new FileOutputStream(indexFile)) {
+			writeIndex(factories, out);
+		}
+	}
+
+	/**
+	 * Write an index for the given factories.
+	 * @param factories the factory implementation names, keyed by factory type name
+	 * @param out the stream to write the index to
+	 * @throws IOException if the index cannot be written
+	 */
+	public static void writeIndex(Map<String, ? extends Collection<String>> factories, OutputStream out)
+			throws IOException {
+
+		Map<String, Collection<String>> sortedFactories = new TreeMap<>();
+		factories.forEach((factoryType, factoryNames) ->
+				sortedFactories.put(factoryType, new LinkedHashSet<>(factoryNames)));
+
+		ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		DataOutputStream stringsOut = new DataOutputStream(strings);
+		int stringsOffset = HEADER_SIZE + sortedFactories.size() * ENTRY_SIZE;
+
+		DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.writeInt(MAGIC);
+		dataOut.writeInt(VERSION);
+		dataOut.writeInt(sortedFactories.size());
+		for (Map.Entry<String, Collection<String>> entry : sortedFactories.entrySet()) {
+			dataOut.writeInt(stringsOffset + stringsOut.size());
+			writeString(stringsOut, entry.getKey());
+			dataOut.writeInt(stringsOffset + stringsOut.size());
+			dataOut.writeInt(entry.getValue().size());
+			for (String factoryName : entry.getValue()) {
+				writeString(stringsOut, factoryName);
+			}
+		}
+		stringsOut.flush();
+		strings.writeTo(dataOut);
+		dataOut.flush();
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		Assert.isTrue(bytes.length <= 0xFFFF, () -> "Name too long for index: " + value);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+}
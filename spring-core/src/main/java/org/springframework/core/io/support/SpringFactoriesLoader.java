@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,15 +22,21 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -54,6 +60,11 @@ import org.springframework.util.StringUtils;
  * where {@code example.MyService} is the name of the interface, and {@code MyServiceImpl1}
  * and {@code MyServiceImpl2} are two implementations.
  *
+ * <p>As of 5.3.10, an artifact may ship a binary {@link SpringFactoriesIndex} as
+ * {@value #FACTORIES_INDEX_RESOURCE_LOCATION} next to its {@code spring.factories}
+ * file. The index is used instead of the text file, looking up factory names
+ * per factory type on demand.
+ *
  * @author Arjen Poutsma
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -67,10 +78,28 @@ public final class SpringFactoriesLoader {
 	 */
 	public static final String FACTORIES_RESOURCE_LOCATION = "META-INF/spring.factories";
 
+	/**
+	 * The location to look for a binary index of the factories declared
+	 * in the {@value #FACTORIES_RESOURCE_LOCATION} file next to it.
+	 * @since 5.3.10
+	 * @see SpringFactoriesIndex#writeIndex(java.io.File)
+	 */
+	public static final String FACTORIES_INDEX_RESOURCE_LOCATION = FACTORIES_RESOURCE_LOCATION + ".idx";
+
+	/**
+	 * System property that instructs Spring to ignore factories indexes, i.e.
+	 * to always parse {@value #FACTORIES_RESOURCE_LOCATION} files.
+	 * <p>The default is "false", using an index wherever available.
+	 * @since 5.3.10
+	 */
+	public static final String IGNORE_INDEX_PROPERTY_NAME = "spring.factories.index.ignore";
+
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX_PROPERTY_NAME);
 
 	private static final Log logger = LogFactory.getLog(SpringFactoriesLoader.class);
 
-	static final Map<ClassLoader, Map<String, List<String>>> cache = new ConcurrentReferenceHashMap<>();
+	static final Map<ClassLoader, SpringFactories> cache = new ConcurrentReferenceHashMap<>();
 
 
 	private SpringFactoriesLoader() {
@@ -129,36 +158,36 @@ public final class SpringFactoriesLoader {
 			classLoaderToUse = SpringFactoriesLoader.class.getClassLoader();
 		}
 		String factoryTypeName = factoryType.getName();
-		return loadSpringFactories(classLoaderToUse).getOrDefault(factoryTypeName, Collections.emptyList());
+		return loadSpringFactories(classLoaderToUse).getFactoryNames(factoryTypeName);
 	}
 
-	private static Map<String, List<String>> loadSpringFactories(ClassLoader classLoader) {
-		Map<String, List<String>> result = cache.get(classLoader);
+	private static SpringFactories loadSpringFactories(ClassLoader classLoader) {
+		SpringFactories result = cache.get(classLoader);
 		if (result != null) {
 			return result;
 		}
 
-		result = new HashMap<>();
 		try {
+			Map<String, SpringFactoriesIndex> indexes =
+					(shouldIgnoreIndex ? Collections.emptyMap() : loadIndexes(classLoader));
+			List<Function<String, List<String>>> sources = new ArrayList<>();
 			Enumeration<URL> urls = classLoader.getResources(FACTORIES_RESOURCE_LOCATION);
 			while (urls.hasMoreElements()) {
 				URL url = urls.nextElement();
-				UrlResource resource = new UrlResource(url);
-				Properties properties = PropertiesLoaderUtils.loadProperties(resource);
-				for (Map.Entry<?, ?> entry : properties.entrySet()) {
-					String factoryTypeName = ((String) entry.getKey()).trim();
-					String[] factoryImplementationNames =
-							StringUtils.commaDelimitedListToStringArray((String) entry.getValue());
-					for (String factoryImplementationName : factoryImplementationNames) {
-						result.computeIfAbsent(factoryTypeName, key -> new ArrayList<>())
-								.add(factoryImplementationName.trim());
-					}
+				SpringFactoriesIndex index = indexes.remove(url.toString());
+				if (index != null) {
+					sources.add(index::getFactoryNames);
+				}
+				else {
+					Map<String, List<String>> factories = loadFactoriesResource(new UrlResource(url));
+					sources.add(factoryType -> factories.getOrDefault(factoryType, Collections.emptyList()));
 				}
 			}
-
-			// Replace all lists with unmodifiable lists containing unique elements
-			result.replaceAll((factoryType, implementations) -> implementations.stream().distinct()
-					.collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)));
+			// Indexes without corresponding factories file
+			for (SpringFactoriesIndex index : indexes.values()) {
+				sources.add(index::getFactoryNames);
+			}
+			result = new SpringFactories(sources);
 			cache.put(classLoader, result);
 		}
 		catch (IOException ex) {
@@ -168,6 +197,49 @@ public final class SpringFactoriesLoader {
 		return result;
 	}
 
+	/**
+	 * Load all factories indexes, keyed by the location of the factories file
+	 * that they have been generated for.
+	 */
+	private static Map<String, SpringFactoriesIndex> loadIndexes(ClassLoader classLoader) throws IOException {
+		Map<String, SpringFactoriesIndex> indexes = new LinkedHashMap<>();
+		Enumeration<URL> urls = classLoader.getResources(FACTORIES_INDEX_RESOURCE_LOCATION);
+		while (urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			SpringFactoriesIndex index = SpringFactoriesIndex.load(url);
+			if (index != null) {
+				String location = url.toString();
+				indexes.put(location.substring(0, location.length() - ".idx".length()), index);
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring factories index in unsupported format: " + url);
+			}
+		}
+		return indexes;
+	}
+
+	/**
+	 * Load the factory implementation names declared in the given
+	 * {@value #FACTORIES_RESOURCE_LOCATION} file.
+	 * @param resource the factories file
+	 * @return the factory implementation names, keyed by factory type name
+	 * @throws IOException if the resource cannot be read
+	 */
+	static Map<String, List<String>> loadFactoriesResource(Resource resource) throws IOException {
+		Map<String, List<String>> result = new HashMap<>();
+		Properties properties = PropertiesLoaderUtils.loadProperties(resource);
+		for (Map.Entry<?, ?> entry : properties.entrySet()) {
+			String factoryTypeName = ((String) entry.getKey()).trim();
+			String[] factoryImplementationNames =
+					StringUtils.commaDelimitedListToStringArray((String) entry.getValue());
+			for (String factoryImplementationName : factoryImplementationNames) {
+				result.computeIfAbsent(factoryTypeName, key -> new ArrayList<>())
+						.add(factoryImplementationName.trim());
+			}
+		}
+		return result;
+	}
+
 	@SuppressWarnings("unchecked")
 	private static <T> T instantiateFactory(String factoryImplementationName, Class<T> factoryType, ClassLoader classLoader) {
 		try {
@@ -185,4 +257,34 @@ public final class SpringFactoriesLoader {
 		}
 	}
 
+
+	/**
+	 * The factories available to a ClassLoader, merged from all factories files
+	 * and indexes in classpath order on first lookup of each factory type.
+	 */
+	static final class SpringFactories {
+
+		private final List<Function<String, List<String>>> sources;
+
+		private final Map<String, List<String>> factoryNames = new ConcurrentHashMap<>();
+
+		SpringFactories(List<Function<String, List<String>>> sources) {
+			this.sources = sources;
+		}
+
+		List<String> getFactoryNames(String factoryTypeName) {
+			return this.factoryNames.computeIfAbsent(factoryTypeName, this::mergeFactoryNames);
+		}
+
+		private List<String> mergeFactoryNames(String factoryTypeName) {
+			// Unique elements in classpath order
+			Set<String> result = new LinkedHashSet<>();
+			for (Function<String, List<String>> source : this.sources) {
+				result.addAll(source.apply(factoryTypeName));
+			}
+			return (result.isEmpty() ? Collections.emptyList() :
+					Collections.unmodifiableList(new ArrayList<>(result)));
+		}
+	}
+
 }
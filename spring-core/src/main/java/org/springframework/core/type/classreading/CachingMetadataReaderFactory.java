@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,21 +16,28 @@
 
 package org.springframework.core.type.classreading;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
 
 /**
  * Caching implementation of the {@link MetadataReaderFactory} interface,
  * caching a {@link MetadataReader} instance per Spring {@link Resource} handle
  * (i.e. per ".class" file).
  *
+ * <p>Optionally keeps the metadata for classes in jar files in a persistent
+ * cache as well, avoiding class file parsing for unchanged jars on subsequent
+ * startups: see {@link #setPersistentCacheDirectory}.
+ *
  * @author Juergen Hoeller
  * @author Costin Leau
  * @since 2.5
@@ -40,10 +47,24 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	/** Default maximum number of entries for a local MetadataReader cache: 256. */
 	public static final int DEFAULT_CACHE_LIMIT = 256;
 
+	/**
+	 * System property that specifies a directory for a persistent metadata cache
+	 * to be used by default: {@code "spring.metadata.cache.directory"}.
+	 * <p>Not set by default, i.e. no persistent cache.
+	 * @since 5.3.10
+	 * @see #setPersistentCacheDirectory
+	 */
+	public static final String PERSISTENT_CACHE_DIRECTORY_PROPERTY_NAME = "spring.metadata.cache.directory";
+
+
 	/** MetadataReader cache: either local or shared at the ResourceLoader level. */
 	@Nullable
 	private Map<Resource, MetadataReader> metadataReaderCache;
 
+	/** Persistent cache for metadata read from jar files, if any. */
+	@Nullable
+	private PersistentMetadataCache persistentCache = getDefaultPersistentCache();
+
 
 	/**
 	 * Create a new CachingMetadataReaderFactory for the default class loader,
@@ -113,6 +134,38 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 		}
 	}
 
+	/**
+	 * Specify a directory for a persistent cache of the metadata of classes
+	 * in jar files, with one cache file per jar file.
+	 * <p>Cache files are only applied as long as their jar file keeps its
+	 * content, as determined by size and central directory checksum. They are
+	 * memory-mapped on first access, with the metadata of each class decoded
+	 * on demand. Metadata read from class files is written to the cache files
+	 * on {@link #flushPersistentCache()} as well as on {@link #clearCache()},
+	 * and whenever a bounded number of entries has been collected in memory.
+	 * Factories pointing to the same directory merge their metadata into the
+	 * same cache files.
+	 * Default is the directory specified through the
+	 * {@link #PERSISTENT_CACHE_DIRECTORY_PROPERTY_NAME} property, if any.
+	 * @param directory the cache directory (will be created if necessary),
+	 * or {@code null} for no persistent cache
+	 * @since 5.3.10
+	 */
+	public void setPersistentCacheDirectory(@Nullable File directory) {
+		this.persistentCache = (directory != null ? new PersistentMetadataCache(directory) : null);
+	}
+
+	/**
+	 * Write all metadata collected since the last flush to the persistent cache, if any.
+	 * @since 5.3.10
+	 * @see #setPersistentCacheDirectory
+	 */
+	public void flushPersistentCache() {
+		if (this.persistentCache != null) {
+			this.persistentCache.flush();
+		}
+	}
+
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
@@ -120,7 +173,7 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 			// No synchronization necessary...
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
+				metadataReader = createMetadataReader(resource);
 				this.metadataReaderCache.put(resource, metadataReader);
 			}
 			return metadataReader;
@@ -129,21 +182,38 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 			synchronized (this.metadataReaderCache) {
 				MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 				if (metadataReader == null) {
-					metadataReader = super.getMetadataReader(resource);
+					metadataReader = createMetadataReader(resource);
 					this.metadataReaderCache.put(resource, metadataReader);
 				}
 				return metadataReader;
 			}
 		}
 		else {
+			return createMetadataReader(resource);
+		}
+	}
+
+	private MetadataReader createMetadataReader(Resource resource) throws IOException {
+		PersistentMetadataCache persistentCache = this.persistentCache;
+		if (persistentCache == null) {
 			return super.getMetadataReader(resource);
 		}
+		MetadataReader metadataReader =
+				persistentCache.getMetadataReader(resource, getResourceLoader().getClassLoader());
+		if (metadataReader == null) {
+			metadataReader = super.getMetadataReader(resource);
+			persistentCache.putMetadataReader(resource, metadataReader);
+		}
+		return metadataReader;
 	}
 
 	/**
 	 * Clear the local MetadataReader cache, if any, removing all cached class metadata.
+	 * <p>As of 5.3.10, this also flushes the persistent cache, if any.
+	 * @see #flushPersistentCache()
 	 */
 	public void clearCache() {
+		flushPersistentCache();
 		if (this.metadataReaderCache instanceof LocalResourceCache) {
 			synchronized (this.metadataReaderCache) {
 				this.metadataReaderCache.clear();
@@ -156,6 +226,13 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	}
 
 
+	@Nullable
+	private static PersistentMetadataCache getDefaultPersistentCache() {
+		String directory = SpringProperties.getProperty(PERSISTENT_CACHE_DIRECTORY_PROPERTY_NAME);
+		return (StringUtils.hasText(directory) ? new PersistentMetadataCache(new File(directory)) : null);
+	}
+
+
 	@SuppressWarnings("serial")
 	private static class LocalResourceCache extends LinkedHashMap<Resource, MetadataReader> {
 
@@ -117,12 +117,20 @@ class MergedAnnotationReadingVisitor<A extends Annotation> extends AnnotationVis
 		return new MergedAnnotationReadingVisitor<>(this.classLoader, this.source, type, consumer);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Nullable
 	static <A extends Annotation> AnnotationVisitor get(@Nullable ClassLoader classLoader,
 			@Nullable Object source, String descriptor, boolean visible,
 			Consumer<MergedAnnotation<A>> consumer) {
 
+		return get(classLoader, source, descriptor, visible, consumer, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable
+	static <A extends Annotation> AnnotationVisitor get(@Nullable ClassLoader classLoader,
+			@Nullable Object source, String descriptor, boolean visible,
+			Consumer<MergedAnnotation<A>> consumer, @Nullable Consumer<String> unresolvedTypeConsumer) {
+
 		if (!visible) {
 			return null;
 		}
@@ -137,6 +145,9 @@ class MergedAnnotationReadingVisitor<A extends Annotation> extends AnnotationVis
 			return new MergedAnnotationReadingVisitor<>(classLoader, source, annotationType, consumer);
 		}
 		catch (ClassNotFoundException | LinkageError ex) {
+			if (unresolvedTypeConsumer != null) {
+				unresolvedTypeConsumer.accept(typeName);
+			}
 			return null;
 		}
 	}
@@ -0,0 +1,828 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotation.Adapt;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Persistent cache for class metadata read from jar files, keeping one compact
+ * binary file per jar in a given directory. Each cache file is keyed by the
+ * path and the size of its jar file as well as a checksum over the jar's
+ * central directory (covering the CRC of every jar entry), so a jar which
+ * has been touched but not modified keeps its cache file.
+ *
+ * <p>Cache files are memory-mapped when first needed, with the metadata for
+ * each class decoded lazily on access. Newly read metadata is collected in
+ * memory and merged into the current cache file on {@link #flush()}, or as
+ * soon as the number of collected entries reaches the configured limit.
+ *
+ * <p>Annotation types which could not be resolved when reading a class file
+ * are recorded by name: the cached metadata is only used as long as none of
+ * them can be resolved, so that annotation types added to the class path
+ * later on are not missed.
+ *
+ * <p>Owned by a single {@link CachingMetadataReaderFactory}. Several factories
+ * may point to the same directory: each of them merges its collected metadata
+ * into the cache files as present at the time of the flush.
+ *
+ * @author Spring Framework contributors
+ * @since 5.3.10
+ * @see CachingMetadataReaderFactory#setPersistentCacheDirectory
+ */
+final class PersistentMetadataCache {
+
+	private static final int MAGIC = 0x534D4443;
+
+	private static final int VERSION = 2;
+
+	private static final byte STRING = 1;
+
+	private static final byte BOOLEAN = 2;
+
+	private static final byte BYTE = 3;
+
+	private static final byte CHAR = 4;
+
+	private static final byte SHORT = 5;
+
+	private static final byte INTEGER = 6;
+
+	private static final byte LONG = 7;
+
+	private static final byte FLOAT = 8;
+
+	private static final byte DOUBLE = 9;
+
+	private static final byte ENUM = 10;
+
+	private static final byte ANNOTATION = 11;
+
+	private static final byte ANNOTATION_ARRAY = 12;
+
+	private static final byte ARRAY = 13;
+
+	/** Default maximum number of collected entries before they get flushed: 1024. */
+	static final int DEFAULT_PENDING_ENTRY_LIMIT = 1024;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataCache.class);
+
+
+	private final File directory;
+
+	private final int pendingEntryLimit;
+
+	private final Map<File, JarMetadata> jarMetadata = new ConcurrentHashMap<>();
+
+	private final AtomicInteger pendingEntryCount = new AtomicInteger();
+
+
+	/**
+	 * Create a new {@code PersistentMetadataCache} for the given directory.
+	 * @param directory the directory to keep the cache files in
+	 */
+	PersistentMetadataCache(File directory) {
+		this(directory, DEFAULT_PENDING_ENTRY_LIMIT);
+	}
+
+	/**
+	 * Create a new {@code PersistentMetadataCache} for the given directory.
+	 * @param directory the directory to keep the cache files in
+	 * @param pendingEntryLimit the maximum number of collected entries
+	 * to keep in memory before writing them to the cache files
+	 */
+	PersistentMetadataCache(File directory, int pendingEntryLimit) {
+		this.directory = directory.getAbsoluteFile();
+		this.pendingEntryLimit = pendingEntryLimit;
+	}
+
+
+	/**
+	 * Return the metadata for the given class file resource from this cache.
+	 * @param resource the class file resource
+	 * @param classLoader the ClassLoader to resolve annotation types with
+	 * @return a corresponding {@link MetadataReader}, or {@code null} if no
+	 * usable metadata has been cached for the given resource
+	 */
+	@Nullable
+	MetadataReader getMetadataReader(Resource resource, @Nullable ClassLoader classLoader) {
+		ClassEntry entry = ClassEntry.locate(resource);
+		if (entry == null) {
+			return null;
+		}
+		SimpleAnnotationMetadata metadata = getJarMetadata(entry.jarFile).getMetadata(entry.name, classLoader);
+		return (metadata != null ? new SimpleMetadataReader(resource, metadata) : null);
+	}
+
+	/**
+	 * Add the metadata read for the given class file resource to this cache,
+	 * if the resource is contained in a jar file.
+	 * @param resource the class file resource
+	 * @param metadataReader the metadata read for the resource
+	 */
+	void putMetadataReader(Resource resource, MetadataReader metadataReader) {
+		if (!(metadataReader.getAnnotationMetadata() instanceof SimpleAnnotationMetadata)) {
+			return;
+		}
+		ClassEntry entry = ClassEntry.locate(resource);
+		if (entry != null) {
+			getJarMetadata(entry.jarFile).putMetadata(
+					entry.name, (SimpleAnnotationMetadata) metadataReader.getAnnotationMetadata());
+			if (this.pendingEntryCount.get() >= this.pendingEntryLimit) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Write all metadata collected since the last flush to the cache files.
+	 */
+	void flush() {
+		for (JarMetadata metadata : this.jarMetadata.values()) {
+			metadata.flush();
+		}
+	}
+
+	private JarMetadata getJarMetadata(File jarFile) {
+		return this.jarMetadata.computeIfAbsent(jarFile, JarMetadata::new);
+	}
+
+
+	private static long computeChecksum(File jarFile) throws IOException {
+		CRC32 checksum = new CRC32();
+		ByteBuffer entryInfo = ByteBuffer.allocate(16);
+		try (ZipFile zipFile = new ZipFile(jarFile)) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				checksum.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+				entryInfo.clear();
+				entryInfo.putLong(entry.getCrc()).putLong(entry.getSize()).flip();
+				checksum.update(entryInfo);
+			}
+		}
+		return checksum.getValue();
+	}
+
+
+	// Encoding of class metadata
+
+	private static byte[] writeMetadata(SimpleAnnotationMetadata metadata) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bos);
+		out.writeUTF(metadata.getClassName());
+		writeStringArray(out, StringUtils.toStringArray(metadata.getUnresolvedAnnotationTypes()));
+		out.writeInt(metadata.getAccess());
+		writeNullableString(out, metadata.getEnclosingClassName());
+		writeNullableString(out, metadata.getSuperClassName());
+		out.writeBoolean(metadata.isIndependentInnerClass());
+		writeStringArray(out, metadata.getInterfaceNames());
+		writeStringArray(out, metadata.getMemberClassNames());
+		writeAnnotations(out, metadata.getAnnotations());
+		MethodMetadata[] annotatedMethods = metadata.getAllAnnotatedMethods();
+		out.writeInt(annotatedMethods.length);
+		for (MethodMetadata annotatedMethod : annotatedMethods) {
+			if (!(annotatedMethod instanceof SimpleMethodMetadata) ||
+					!(((SimpleMethodMetadata) annotatedMethod).getSource() instanceof
+							SimpleMethodMetadataReadingVisitor.Source)) {
+				throw new IOException("Unsupported method metadata: " + annotatedMethod);
+			}
+			SimpleMethodMetadata methodMetadata = (SimpleMethodMetadata) annotatedMethod;
+			out.writeUTF(methodMetadata.getMethodName());
+			out.writeInt(methodMetadata.getAccess());
+			out.writeUTF(methodMetadata.getReturnTypeName());
+			out.writeUTF(((SimpleMethodMetadataReadingVisitor.Source) methodMetadata.getSource()).getDescriptor());
+			writeAnnotations(out, methodMetadata.getAnnotations());
+		}
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static void writeAnnotations(DataOutputStream out, MergedAnnotations annotations) throws IOException {
+		List<MergedAnnotation<Annotation>> directAnnotations = annotations.stream()
+				.filter(annotation -> annotation.getDistance() == 0)
+				.collect(Collectors.toList());
+		out.writeInt(directAnnotations.size());
+		for (MergedAnnotation<Annotation> annotation : directAnnotations) {
+			writeAnnotation(out, annotation.asAnnotationAttributes(Adapt.CLASS_TO_STRING, Adapt.ANNOTATION_TO_MAP));
+		}
+	}
+
+	private static void writeAnnotation(DataOutputStream out, AnnotationAttributes attributes) throws IOException {
+		Class<? extends Annotation> annotationType = attributes.annotationType();
+		if (annotationType == null) {
+			throw new IOException("Unknown annotation type for attributes " + attributes);
+		}
+		out.writeUTF(annotationType.getName());
+		out.writeInt(attributes.size());
+		for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+			out.writeUTF(attribute.getKey());
+			writeValue(out, attribute.getValue());
+		}
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte(STRING);
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte(CHAR);
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof Enum) {
+			out.writeByte(ENUM);
+			out.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+			out.writeUTF(((Enum<?>) value).name());
+		}
+		else if (value instanceof AnnotationAttributes) {
+			out.writeByte(ANNOTATION);
+			writeAnnotation(out, (AnnotationAttributes) value);
+		}
+		else if (value instanceof AnnotationAttributes[]) {
+			AnnotationAttributes[] array = (AnnotationAttributes[]) value;
+			out.writeByte(ANNOTATION_ARRAY);
+			out.writeInt(array.length);
+			for (AnnotationAttributes attributes : array) {
+				writeAnnotation(out, attributes);
+			}
+		}
+		else if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			out.writeByte(ARRAY);
+			out.writeUTF(value.getClass().getComponentType().getName());
+			out.writeInt(length);
+			for (int i = 0; i < length; i++) {
+				writeValue(out, Array.get(value, i));
+			}
+		}
+		else {
+			throw new IOException("Unsupported annotation attribute value: " + value);
+		}
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static void writeStringArray(DataOutputStream out, String[] values) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			out.writeUTF(value);
+		}
+	}
+
+
+	// Decoding of class metadata
+
+	/**
+	 * Decode the metadata for a class.
+	 * @return the metadata, or {@code null} if an annotation type which could
+	 * not be resolved when reading the class file is resolvable now
+	 */
+	@Nullable
+	private static SimpleAnnotationMetadata readMetadata(DataInputStream in, @Nullable ClassLoader classLoader)
+			throws IOException, ClassNotFoundException {
+
+		String className = in.readUTF();
+		Set<String> unresolvedAnnotationTypes = new LinkedHashSet<>(Arrays.asList(readStringArray(in)));
+		for (String annotationType : unresolvedAnnotationTypes) {
+			if (ClassUtils.isPresent(annotationType, classLoader)) {
+				return null;
+			}
+		}
+		int access = in.readInt();
+		String enclosingClassName = readNullableString(in);
+		String superClassName = readNullableString(in);
+		boolean independentInnerClass = in.readBoolean();
+		String[] interfaceNames = readStringArray(in);
+		String[] memberClassNames = readStringArray(in);
+		MergedAnnotations annotations = readAnnotations(in, classLoader,
+				new SimpleAnnotationMetadataReadingVisitor.Source(className), unresolvedAnnotationTypes);
+		MethodMetadata[] annotatedMethods = new MethodMetadata[in.readInt()];
+		for (int i = 0; i < annotatedMethods.length; i++) {
+			String methodName = in.readUTF();
+			int methodAccess = in.readInt();
+			String returnTypeName = in.readUTF();
+			Object source = new SimpleMethodMetadataReadingVisitor.Source(className, methodName, in.readUTF());
+			annotatedMethods[i] = new SimpleMethodMetadata(methodName, methodAccess, className,
+					returnTypeName, source, readAnnotations(in, classLoader, source, unresolvedAnnotationTypes));
+		}
+		return new SimpleAnnotationMetadata(className, access, enclosingClassName, superClassName,
+				independentInnerClass, interfaceNames, memberClassNames, annotatedMethods, annotations,
+				unresolvedAnnotationTypes);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MergedAnnotations readAnnotations(DataInputStream in, @Nullable ClassLoader classLoader,
+			Object source, Set<String> unresolvedAnnotationTypes) throws IOException, ClassNotFoundException {
+
+		int count = in.readInt();
+		List<MergedAnnotation<?>> annotations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String typeName = in.readUTF();
+			Map<String, Object> attributes = readAttributes(in, classLoader, source);
+			try {
+				Class<Annotation> annotationType = (Class<Annotation>) ClassUtils.forName(typeName, classLoader);
+				annotations.add(MergedAnnotation.of(classLoader, source, annotationType, attributes));
+			}
+			catch (ClassNotFoundException | LinkageError ex) {
+				// Annotation type not present anymore: ignore, as for ASM-based reading
+				unresolvedAnnotationTypes.add(typeName);
+			}
+		}
+		return MergedAnnotations.of(annotations);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MergedAnnotation<Annotation> readAnnotation(DataInputStream in, @Nullable ClassLoader classLoader,
+			Object source) throws IOException, ClassNotFoundException {
+
+		Class<Annotation> annotationType = (Class<Annotation>) ClassUtils.forName(in.readUTF(), classLoader);
+		return MergedAnnotation.of(classLoader, source, annotationType, readAttributes(in, classLoader, source));
+	}
+
+	private static Map<String, Object> readAttributes(DataInputStream in, @Nullable ClassLoader classLoader,
+			Object source) throws IOException, ClassNotFoundException {
+
+		int count = in.readInt();
+		Map<String, Object> attributes = new LinkedHashMap<>(count * 4 / 3 + 1);
+		for (int i = 0; i < count; i++) {
+			attributes.put(in.readUTF(), readValue(in, classLoader, source));
+		}
+		return attributes;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object readValue(DataInputStream in, @Nullable ClassLoader classLoader, Object source)
+			throws IOException, ClassNotFoundException {
+
+		byte tag = in.readByte();
+		switch (tag) {
+			case STRING:
+				return in.readUTF();
+			case BOOLEAN:
+				return in.readBoolean();
+			case BYTE:
+				return in.readByte();
+			case CHAR:
+				return in.readChar();
+			case SHORT:
+				return in.readShort();
+			case INTEGER:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case FLOAT:
+				return in.readFloat();
+			case DOUBLE:
+				return in.readDouble();
+			case ENUM:
+				Class enumType = ClassUtils.forName(in.readUTF(), classLoader);
+				return Enum.valueOf(enumType, in.readUTF());
+			case ANNOTATION:
+				return readAnnotation(in, classLoader, source);
+			case ANNOTATION_ARRAY:
+				MergedAnnotation<?>[] annotations = new MergedAnnotation<?>[in.readInt()];
+				for (int i = 0; i < annotations.length; i++) {
+					annotations[i] = readAnnotation(in, classLoader, source);
+				}
+				return annotations;
+			case ARRAY:
+				Class<?> componentType = ClassUtils.forName(in.readUTF(), classLoader);
+				Object array = Array.newInstance(componentType, in.readInt());
+				for (int i = 0; i < Array.getLength(array); i++) {
+					Array.set(array, i, readValue(in, classLoader, source));
+				}
+				return array;
+			default:
+				throw new IOException("Unexpected value tag: " + tag);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static String[] readStringArray(DataInputStream in) throws IOException {
+		String[] values = new String[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readUTF();
+		}
+		return values;
+	}
+
+
+	/**
+	 * A class file entry within a jar file on the local file system.
+	 */
+	private static final class ClassEntry {
+
+		final File jarFile;
+
+		final String name;
+
+		private ClassEntry(File jarFile, String name) {
+			this.jarFile = jarFile;
+			this.name = name;
+		}
+
+		@Nullable
+		static ClassEntry locate(Resource resource) {
+			try {
+				URL url = resource.getURL();
+				if (!ResourceUtils.URL_PROTOCOL_JAR.equals(url.getProtocol())) {
+					return null;
+				}
+				String urlFile = url.getFile();
+				int separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
+				URL jarFileUrl = ResourceUtils.extractJarFileURL(url);
+				if (separatorIndex == -1 || !ResourceUtils.URL_PROTOCOL_FILE.equals(jarFileUrl.getProtocol())) {
+					return null;
+				}
+				// Entry name includes any nested jar path, covered by the outer jar's checksum
+				return new ClassEntry(ResourceUtils.getFile(jarFileUrl).getAbsoluteFile(),
+						urlFile.substring(separatorIndex + ResourceUtils.JAR_URL_SEPARATOR.length()));
+			}
+			catch (IOException ex) {
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * Cached metadata for a specific jar file, backed by a memory-mapped cache file.
+	 */
+	private final class JarMetadata {
+
+		private final File jarFile;
+
+		private final File cacheFile;
+
+		private final Map<String, byte[]> pendingEntries = new ConcurrentHashMap<>();
+
+		@Nullable
+		private volatile CacheFileContents contents;
+
+		JarMetadata(File jarFile) {
+			this.jarFile = jarFile;
+			this.cacheFile = new File(directory, jarFile.getName() + '-' +
+					DigestUtils.md5DigestAsHex(jarFile.getPath().getBytes(StandardCharsets.UTF_8)) + ".metadata");
+		}
+
+		@Nullable
+		SimpleAnnotationMetadata getMetadata(String entryName, @Nullable ClassLoader classLoader) {
+			ByteBuffer data;
+			byte[] pendingEntry = this.pendingEntries.get(entryName);
+			if (pendingEntry != null) {
+				data = ByteBuffer.wrap(pendingEntry);
+			}
+			else {
+				data = getContents().getEntry(entryName);
+				if (data == null) {
+					return null;
+				}
+			}
+			try {
+				return readMetadata(new DataInputStream(new ByteBufferInputStream(data)), classLoader);
+			}
+			catch (Exception | LinkageError ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to decode cached metadata for [" + entryName + "] in " +
+							this.jarFile + " - reading class file instead: " + ex);
+				}
+				return null;
+			}
+		}
+
+		void putMetadata(String entryName, SimpleAnnotationMetadata metadata) {
+			try {
+				if (this.pendingEntries.put(entryName, writeMetadata(metadata)) == null) {
+					pendingEntryCount.incrementAndGet();
+				}
+			}
+			catch (IOException ex) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Not caching metadata for [" + entryName + "] in " + this.jarFile + ": " + ex);
+				}
+			}
+		}
+
+		synchronized void flush() {
+			if (this.pendingEntries.isEmpty() && !getContents().headerOutdated) {
+				return;
+			}
+			Map<String, byte[]> pendingEntries = new HashMap<>(this.pendingEntries);
+			CacheFileContents mappedContents = getContents();
+			if (this.jarFile.length() != mappedContents.jarLength ||
+					this.jarFile.lastModified() != mappedContents.jarLastModified) {
+				// Jar file modified in the meantime: discard collected metadata
+				this.contents = null;
+				removePendingEntries(pendingEntries);
+				return;
+			}
+			// Merge with the current cache file, possibly written by another factory in the meantime
+			CacheFileContents contents = loadContents();
+
+			Path target = this.cacheFile.toPath();
+			Path tempFile = null;
+			try {
+				long checksum = (contents.checksum != null ? contents.checksum : computeChecksum(this.jarFile));
+				Map<String, byte[]> entries = new LinkedHashMap<>(contents.getEntries());
+				entries.putAll(pendingEntries);
+				Files.createDirectories(target.getParent());
+				tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeUTF(this.jarFile.getPath());
+					out.writeLong(contents.jarLength);
+					out.writeLong(contents.jarLastModified);
+					out.writeLong(checksum);
+					out.writeInt(entries.size());
+					int offset = 0;
+					for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+						out.writeUTF(entry.getKey());
+						out.writeInt(offset);
+						out.writeInt(entry.getValue().length);
+						offset += entry.getValue().length;
+					}
+					for (byte[] data : entries.values()) {
+						out.write(data);
+					}
+				}
+				try {
+					Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch (AtomicMoveNotSupportedException ex) {
+					Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+				tempFile = null;
+				if (logger.isTraceEnabled()) {
+					logger.trace("Written metadata cache file [" + this.cacheFile + "] with " +
+							entries.size() + " entries for " + this.jarFile);
+				}
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to write metadata cache file [" + this.cacheFile + "]: " + ex);
+				}
+			}
+			finally {
+				if (tempFile != null) {
+					try {
+						Files.deleteIfExists(tempFile);
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				}
+			}
+			// Re-map the cache file on next access, then drop the pending entries
+			this.contents = null;
+			removePendingEntries(pendingEntries);
+		}
+
+		private void removePendingEntries(Map<String, byte[]> entries) {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				if (this.pendingEntries.remove(entry.getKey(), entry.getValue())) {
+					pendingEntryCount.decrementAndGet();
+				}
+			}
+		}
+
+		private CacheFileContents getContents() {
+			CacheFileContents contents = this.contents;
+			if (contents == null) {
+				synchronized (this) {
+					contents = this.contents;
+					if (contents == null) {
+						contents = loadContents();
+						this.contents = contents;
+					}
+				}
+			}
+			return contents;
+		}
+
+		private CacheFileContents loadContents() {
+			long jarLength = this.jarFile.length();
+			long jarLastModified = this.jarFile.lastModified();
+			if (this.cacheFile.isFile()) {
+				try (FileChannel channel = FileChannel.open(this.cacheFile.toPath(), StandardOpenOption.READ)) {
+					ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+					ByteBuffer header = buffer.duplicate();
+					DataInputStream in = new DataInputStream(new ByteBufferInputStream(header));
+					if (in.readInt() == MAGIC && in.readInt() == VERSION &&
+							in.readUTF().equals(this.jarFile.getPath()) && in.readLong() == jarLength) {
+						long lastModified = in.readLong();
+						long checksum = in.readLong();
+						boolean headerOutdated = (lastModified != jarLastModified);
+						if (!headerOutdated || computeChecksum(this.jarFile) == checksum) {
+							int count = in.readInt();
+							Map<String, int[]> index = new HashMap<>(count * 4 / 3 + 1);
+							for (int i = 0; i < count; i++) {
+								index.put(in.readUTF(), new int[] {in.readInt(), in.readInt()});
+							}
+							return new CacheFileContents(jarLength, jarLastModified, checksum, headerOutdated,
+									buffer, header.position(), index);
+						}
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug("Ignoring outdated metadata cache file [" + this.cacheFile + "]");
+					}
+				}
+				catch (IOException ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to read metadata cache file [" + this.cacheFile + "]: " + ex);
+					}
+				}
+			}
+			return new CacheFileContents(jarLength, jarLastModified, null, false, null, 0, Collections.emptyMap());
+		}
+	}
+
+
+	/**
+	 * The contents of a cache file, as valid for a specific jar file state.
+	 */
+	private static final class CacheFileContents {
+
+		final long jarLength;
+
+		final long jarLastModified;
+
+		@Nullable
+		final Long checksum;
+
+		final boolean headerOutdated;
+
+		@Nullable
+		private final ByteBuffer buffer;
+
+		private final int dataOffset;
+
+		private final Map<String, int[]> index;
+
+		CacheFileContents(long jarLength, long jarLastModified, @Nullable Long checksum, boolean headerOutdated,
+				@Nullable ByteBuffer buffer, int dataOffset, Map<String, int[]> index) {
+
+			this.jarLength = jarLength;
+			this.jarLastModified = jarLastModified;
+			this.checksum = checksum;
+			this.headerOutdated = headerOutdated;
+			this.buffer = buffer;
+			this.dataOffset = dataOffset;
+			this.index = index;
+		}
+
+		@Nullable
+		ByteBuffer getEntry(String entryName) {
+			int[] position = this.index.get(entryName);
+			if (position == null || this.buffer == null) {
+				return null;
+			}
+			ByteBuffer entry = this.buffer.duplicate();
+			entry.position(this.dataOffset + position[0]);
+			entry.limit(this.dataOffset + position[0] + position[1]);
+			return entry;
+		}
+
+		Map<String, byte[]> getEntries() {
+			Map<String, byte[]> entries = new LinkedHashMap<>(this.index.size() * 4 / 3 + 1);
+			for (String entryName : this.index.keySet()) {
+				ByteBuffer entry = getEntry(entryName);
+				if (entry != null) {
+					byte[] data = new byte[entry.remaining()];
+					entry.get(data);
+					entries.put(entryName, data);
+				}
+			}
+			return entries;
+		}
+	}
+
+
+	/**
+	 * Simple {@link InputStream} view on a {@link ByteBuffer}.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return (this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, this.buffer.remaining());
+			this.buffer.get(bytes, off, len);
+			return len;
+		}
+	}
+
+}
@@ -56,13 +56,16 @@ final class SimpleAnnotationMetadata implements AnnotationMetadata {
 
 	private final MergedAnnotations annotations;
 
+	private final Set<String> unresolvedAnnotationTypes;
+
 	@Nullable
 	private Set<String> annotationTypes;
 
 
 	SimpleAnnotationMetadata(String className, int access, @Nullable String enclosingClassName,
 			@Nullable String superClassName, boolean independentInnerClass, String[] interfaceNames,
-			String[] memberClassNames, MethodMetadata[] annotatedMethods, MergedAnnotations annotations) {
+			String[] memberClassNames, MethodMetadata[] annotatedMethods, MergedAnnotations annotations,
+			Set<String> unresolvedAnnotationTypes) {
 
 		this.className = className;
 		this.access = access;
@@ -73,6 +76,7 @@ final class SimpleAnnotationMetadata implements AnnotationMetadata {
 		this.memberClassNames = memberClassNames;
 		this.annotatedMethods = annotatedMethods;
 		this.annotations = annotations;
+		this.unresolvedAnnotationTypes = unresolvedAnnotationTypes;
 	}
 
 	@Override
@@ -157,6 +161,27 @@ final class SimpleAnnotationMetadata implements AnnotationMetadata {
 		return this.annotations;
 	}
 
+	int getAccess() {
+		return this.access;
+	}
+
+	boolean isIndependentInnerClass() {
+		return this.independentInnerClass;
+	}
+
+	MethodMetadata[] getAllAnnotatedMethods() {
+		return this.annotatedMethods;
+	}
+
+	/**
+	 * Return the names of the annotation types on the class or its methods
+	 * which could not be resolved when reading the class file, and which have
+	 * therefore been left out of the metadata.
+	 */
+	Set<String> getUnresolvedAnnotationTypes() {
+		return this.unresolvedAnnotationTypes;
+	}
+
 	@Override
 	public boolean equals(@Nullable Object obj) {
 		return ((this == obj) || ((obj instanceof SimpleAnnotationMetadata) &&
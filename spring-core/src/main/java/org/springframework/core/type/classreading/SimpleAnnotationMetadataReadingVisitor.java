@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,6 +65,8 @@ final class SimpleAnnotationMetadataReadingVisitor extends ClassVisitor {
 
 	private List<SimpleMethodMetadata> annotatedMethods = new ArrayList<>();
 
+	private Set<String> unresolvedAnnotationTypes = new LinkedHashSet<>(4);
+
 	@Nullable
 	private SimpleAnnotationMetadata metadata;
 
@@ -118,7 +120,7 @@ final class SimpleAnnotationMetadataReadingVisitor extends ClassVisitor {
 	@Nullable
 	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
 		return MergedAnnotationReadingVisitor.get(this.classLoader, getSource(),
-				descriptor, visible, this.annotations::add);
+				descriptor, visible, this.annotations::add, this.unresolvedAnnotationTypes::add);
 	}
 
 	@Override
@@ -133,7 +135,7 @@ final class SimpleAnnotationMetadataReadingVisitor extends ClassVisitor {
 			return null;
 		}
 		return new SimpleMethodMetadataReadingVisitor(this.classLoader, this.className,
-				access, name, descriptor, this.annotatedMethods::add);
+				access, name, descriptor, this.annotatedMethods::add, this.unresolvedAnnotationTypes::add);
 	}
 
 	@Override
@@ -143,7 +145,8 @@ final class SimpleAnnotationMetadataReadingVisitor extends ClassVisitor {
 		MergedAnnotations annotations = MergedAnnotations.of(this.annotations);
 		this.metadata = new SimpleAnnotationMetadata(this.className, this.access,
 				this.enclosingClassName, this.superClassName, this.independentInnerClass,
-				this.interfaceNames, memberClassNames, annotatedMethods, annotations);
+				this.interfaceNames, memberClassNames, annotatedMethods, annotations,
+				this.unresolvedAnnotationTypes);
 	}
 
 	public SimpleAnnotationMetadata getMetadata() {
@@ -175,7 +178,7 @@ final class SimpleAnnotationMetadataReadingVisitor extends ClassVisitor {
 	/**
 	 * {@link MergedAnnotation} source.
 	 */
-	private static final class Source {
+	static final class Source {
 
 		private final String className;
 
@@ -100,6 +100,14 @@ final class SimpleMethodMetadata implements MethodMetadata {
 		return this.annotations;
 	}
 
+	int getAccess() {
+		return this.access;
+	}
+
+	Object getSource() {
+		return this.source;
+	}
+
 	@Override
 	public boolean equals(@Nullable Object obj) {
 		return ((this == obj) || ((obj instanceof SimpleMethodMetadata) &&
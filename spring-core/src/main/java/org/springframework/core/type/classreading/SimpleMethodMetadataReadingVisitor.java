@@ -52,12 +52,15 @@ final class SimpleMethodMetadataReadingVisitor extends MethodVisitor {
 
 	private final Consumer<SimpleMethodMetadata> consumer;
 
+	private final Consumer<String> unresolvedAnnotationTypeConsumer;
+
 	@Nullable
 	private Source source;
 
 
 	SimpleMethodMetadataReadingVisitor(@Nullable ClassLoader classLoader, String declaringClassName,
-			int access, String methodName, String descriptor, Consumer<SimpleMethodMetadata> consumer) {
+			int access, String methodName, String descriptor, Consumer<SimpleMethodMetadata> consumer,
+			Consumer<String> unresolvedAnnotationTypeConsumer) {
 
 		super(SpringAsmInfo.ASM_VERSION);
 		this.classLoader = classLoader;
@@ -66,6 +69,7 @@ final class SimpleMethodMetadataReadingVisitor extends MethodVisitor {
 		this.methodName = methodName;
 		this.descriptor = descriptor;
 		this.consumer = consumer;
+		this.unresolvedAnnotationTypeConsumer = unresolvedAnnotationTypeConsumer;
 	}
 
 
@@ -73,7 +77,7 @@ final class SimpleMethodMetadataReadingVisitor extends MethodVisitor {
 	@Nullable
 	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
 		return MergedAnnotationReadingVisitor.get(this.classLoader, getSource(),
-				descriptor, visible, this.annotations::add);
+				descriptor, visible, this.annotations::add, this.unresolvedAnnotationTypeConsumer);
 	}
 
 	@Override
@@ -117,6 +121,10 @@ final class SimpleMethodMetadataReadingVisitor extends MethodVisitor {
 			this.descriptor = descriptor;
 		}
 
+		String getDescriptor() {
+			return this.descriptor;
+		}
+
 		@Override
 		public int hashCode() {
 			int result = 1;
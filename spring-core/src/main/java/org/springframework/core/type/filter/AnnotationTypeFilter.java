@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,6 +94,14 @@ public class AnnotationTypeFilter extends AbstractTypeHierarchyTraversingFilter
 		return this.annotationType;
 	}
 
+	/**
+	 * Return whether this filter matches meta-annotations as well.
+	 * @since 5.3.10
+	 */
+	public final boolean isConsiderMetaAnnotations() {
+		return this.considerMetaAnnotations;
+	}
+
 	@Override
 	protected boolean matchSelf(MetadataReader metadataReader) {
 		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
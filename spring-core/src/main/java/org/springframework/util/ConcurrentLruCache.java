@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,17 +17,31 @@
 package org.springframework.util;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.springframework.lang.Nullable;
+
 /**
  * Simple LRU (Least Recently Used) cache, bounded by a specified cache limit.
  *
  * <p>This implementation is backed by a {@code ConcurrentHashMap} for storing
- * the cached values and a {@code ConcurrentLinkedDeque} for ordering the keys
- * and choosing the least recently used key when the cache is at full capacity.
+ * the cached values and a doubly-linked access order queue for choosing the
+ * least recently used entry when the cache is at full capacity. Lookups never
+ * block: hits are recorded in lossy, striped read buffers which are drained in
+ * batches under a non-blocking eviction lock, so that concurrent readers do not
+ * contend on a shared structure for every access.
+ *
+ * <p>When the cache is full, a newly generated entry only replaces the least
+ * recently used one if it has been requested at least as frequently, as
+ * estimated by a compact frequency sketch (TinyLFU admission). This keeps hot
+ * entries in the cache under scan-heavy traffic where a plain LRU policy would
+ * flush them with one-off keys.
  *
  * @author Brian Clozel
  * @author Juergen Hoeller
@@ -38,17 +52,36 @@ import java.util.function.Function;
  */
 public class ConcurrentLruCache<K, V> {
 
+	private static final int READ_BUFFER_COUNT = detectNumberOfReadBuffers();
+
+	private static final int READ_BUFFER_SIZE = 128;
+
+	private static final int READ_BUFFER_DRAIN_THRESHOLD = 64;
+
+
 	private final int sizeLimit;
 
 	private final Function<K, V> generator;
 
-	private final ConcurrentHashMap<K, V> cache = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<K, Node<K, V>> cache = new ConcurrentHashMap<>();
+
+	private final ReadBuffer<K, V>[] readBuffers;
+
+	private final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final AccessOrderQueue<K, V> accessOrder = new AccessOrderQueue<>();
 
-	private final ConcurrentLinkedDeque<K> queue = new ConcurrentLinkedDeque<>();
+	private final FrequencySketch frequencySketch;
 
-	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final LongAdder hitCount = new LongAdder();
 
-	private volatile int size;
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private int linkedSize;
 
 
 	/**
@@ -57,11 +90,17 @@ public class ConcurrentLruCache<K, V> {
 	 * (0 indicates no caching, always generating a new value)
 	 * @param generator a function to generate a new value for a given key
 	 */
+	@SuppressWarnings("unchecked")
 	public ConcurrentLruCache(int sizeLimit, Function<K, V> generator) {
 		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
 		Assert.notNull(generator, "Generator function must not be null");
 		this.sizeLimit = sizeLimit;
 		this.generator = generator;
+		this.readBuffers = new ReadBuffer[sizeLimit > 0 ? READ_BUFFER_COUNT : 0];
+		for (int i = 0; i < this.readBuffers.length; i++) {
+			this.readBuffers[i] = new ReadBuffer<>();
+		}
+		this.frequencySketch = new FrequencySketch(sizeLimit);
 	}
 
 
@@ -76,49 +115,24 @@ public class ConcurrentLruCache<K, V> {
 			return this.generator.apply(key);
 		}
 
-		V cached = this.cache.get(key);
-		if (cached != null) {
-			if (this.size < this.sizeLimit) {
-				return cached;
-			}
-			this.lock.readLock().lock();
-			try {
-				if (this.queue.removeLastOccurrence(key)) {
-					this.queue.offer(key);
-				}
-				return cached;
-			}
-			finally {
-				this.lock.readLock().unlock();
-			}
+		Node<K, V> node = this.cache.get(key);
+		if (node != null) {
+			this.hitCount.increment();
+			afterRead(node);
+			return node.value;
 		}
 
-		this.lock.writeLock().lock();
-		try {
-			// Retrying in case of concurrent reads on the same key
-			cached = this.cache.get(key);
-			if (cached != null) {
-				if (this.queue.removeLastOccurrence(key)) {
-					this.queue.offer(key);
-				}
-				return cached;
-			}
-			// Generate value first, to prevent size inconsistency
-			V value = this.generator.apply(key);
-			if (this.size == this.sizeLimit) {
-				K leastUsed = this.queue.poll();
-				if (leastUsed != null) {
-					this.cache.remove(leastUsed);
-				}
-			}
-			this.queue.offer(key);
-			this.cache.put(key, value);
-			this.size = this.cache.size();
-			return value;
-		}
-		finally {
-			this.lock.writeLock().unlock();
+		this.missCount.increment();
+		V value = this.generator.apply(key);
+		Node<K, V> newNode = new Node<>(key, value);
+		Node<K, V> existing = this.cache.putIfAbsent(key, newNode);
+		if (existing != null) {
+			// Concurrently generated for the same key: keep the first value
+			afterRead(existing);
+			return existing.value;
 		}
+		afterWrite(() -> addNode(newNode));
+		return value;
 	}
 
 	/**
@@ -138,30 +152,37 @@ public class ConcurrentLruCache<K, V> {
 	 * {@code false} if there was no matching key
 	 */
 	public boolean remove(K key) {
-		this.lock.writeLock().lock();
-		try {
-			boolean wasPresent = (this.cache.remove(key) != null);
-			this.queue.remove(key);
-			this.size = this.cache.size();
-			return wasPresent;
-		}
-		finally {
-			this.lock.writeLock().unlock();
+		Node<K, V> node = this.cache.remove(key);
+		if (node == null) {
+			return false;
 		}
+		node.alive = false;
+		afterWrite(() -> removeNode(node));
+		return true;
 	}
 
 	/**
 	 * Immediately remove all entries from this cache.
 	 */
 	public void clear() {
-		this.lock.writeLock().lock();
+		this.evictionLock.lock();
 		try {
-			this.cache.clear();
-			this.queue.clear();
-			this.size = 0;
+			drainBuffers();
+			Node<K, V> node;
+			while ((node = this.accessOrder.poll()) != null) {
+				this.cache.remove(node.key, node);
+				node.alive = false;
+				this.linkedSize--;
+			}
+			// Entries added concurrently but not linked yet
+			for (Node<K, V> pending : this.cache.values()) {
+				if (this.cache.remove(pending.key, pending)) {
+					pending.alive = false;
+				}
+			}
 		}
 		finally {
-			this.lock.writeLock().unlock();
+			this.evictionLock.unlock();
 		}
 	}
 
@@ -170,7 +191,7 @@ public class ConcurrentLruCache<K, V> {
 	 * @see #sizeLimit()
 	 */
 	public int size() {
-		return this.size;
+		return this.cache.size();
 	}
 
 	/**
@@ -182,4 +203,338 @@ public class ConcurrentLruCache<K, V> {
 		return this.sizeLimit;
 	}
 
+	/**
+	 * Return the number of times {@link #get} returned a cached value.
+	 * @since 5.3.10
+	 * @see #missCount()
+	 */
+	public long hitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of times {@link #get} had to generate a value.
+	 * <p>Always {@code 0} for a cache with a size limit of {@code 0},
+	 * since no lookup is performed in that case.
+	 * @since 5.3.10
+	 * @see #hitCount()
+	 */
+	public long missCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries removed or rejected by the size limit,
+	 * not including explicit {@link #remove} and {@link #clear} calls.
+	 * @since 5.3.10
+	 */
+	public long evictionCount() {
+		return this.evictionCount.sum();
+	}
+
+
+	private void afterRead(Node<K, V> node) {
+		int index = (int) Thread.currentThread().getId() & (this.readBuffers.length - 1);
+		if (this.readBuffers[index].record(node) && this.evictionLock.tryLock()) {
+			try {
+				drainBuffers();
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void afterWrite(Runnable task) {
+		this.writeBuffer.add(task);
+		this.evictionLock.lock();
+		try {
+			drainBuffers();
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private void drainBuffers() {
+		for (ReadBuffer<K, V> readBuffer : this.readBuffers) {
+			readBuffer.drainTo(this::onAccess);
+		}
+		Runnable task;
+		while ((task = this.writeBuffer.poll()) != null) {
+			task.run();
+		}
+	}
+
+	private void onAccess(Node<K, V> node) {
+		this.frequencySketch.increment(node.key);
+		if (this.accessOrder.contains(node)) {
+			this.accessOrder.moveToBack(node);
+		}
+	}
+
+	private void addNode(Node<K, V> node) {
+		this.frequencySketch.increment(node.key);
+		if (!node.alive) {
+			return;
+		}
+		this.accessOrder.add(node);
+		this.linkedSize++;
+		while (this.linkedSize > this.sizeLimit) {
+			Node<K, V> victim = this.accessOrder.peek();
+			if (victim != node && this.frequencySketch.frequency(node.key) < this.frequencySketch.frequency(victim.key)) {
+				// The candidate is colder than the least recently used entry: reject it
+				victim = node;
+			}
+			this.accessOrder.remove(victim);
+			this.linkedSize--;
+			this.cache.remove(victim.key, victim);
+			victim.alive = false;
+			this.evictionCount.increment();
+		}
+	}
+
+	private void removeNode(Node<K, V> node) {
+		if (this.accessOrder.contains(node)) {
+			this.accessOrder.remove(node);
+			this.linkedSize--;
+		}
+	}
+
+	private static int detectNumberOfReadBuffers() {
+		int availableProcessors = Runtime.getRuntime().availableProcessors();
+		int nextPowerOfTwo = 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(availableProcessors - 1));
+		return Math.min(16, nextPowerOfTwo);
+	}
+
+
+	/**
+	 * Cache entry, linked into the {@link AccessOrderQueue} while guarded
+	 * by the eviction lock.
+	 */
+	private static final class Node<K, V> {
+
+		final K key;
+
+		final V value;
+
+		volatile boolean alive = true;
+
+		@Nullable
+		Node<K, V> previous;
+
+		@Nullable
+		Node<K, V> next;
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+
+	/**
+	 * Doubly-linked queue of cache entries, from least to most recently used.
+	 * Only accessed while holding the eviction lock.
+	 */
+	private static final class AccessOrderQueue<K, V> {
+
+		@Nullable
+		private Node<K, V> first;
+
+		@Nullable
+		private Node<K, V> last;
+
+		boolean contains(Node<K, V> node) {
+			return (node.previous != null || node.next != null || node == this.first);
+		}
+
+		@Nullable
+		Node<K, V> peek() {
+			return this.first;
+		}
+
+		@Nullable
+		Node<K, V> poll() {
+			Node<K, V> node = this.first;
+			if (node != null) {
+				remove(node);
+			}
+			return node;
+		}
+
+		void add(Node<K, V> node) {
+			Node<K, V> last = this.last;
+			this.last = node;
+			if (last == null) {
+				this.first = node;
+			}
+			else {
+				last.next = node;
+				node.previous = last;
+			}
+		}
+
+		void remove(Node<K, V> node) {
+			Node<K, V> previous = node.previous;
+			Node<K, V> next = node.next;
+			if (previous == null) {
+				this.first = next;
+			}
+			else {
+				previous.next = next;
+				node.previous = null;
+			}
+			if (next == null) {
+				this.last = previous;
+			}
+			else {
+				next.previous = previous;
+				node.next = null;
+			}
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (node != this.last) {
+				remove(node);
+				add(node);
+			}
+		}
+	}
+
+
+	/**
+	 * Bounded ring buffer recording cache hits; records are dropped rather
+	 * than blocking the reader when the buffer is full.
+	 */
+	private static final class ReadBuffer<K, V> {
+
+		private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+		private final AtomicLong writeCount = new AtomicLong();
+
+		private final AtomicLong readCount = new AtomicLong();
+
+		/**
+		 * Record an access to the given node.
+		 * @return {@code true} if enough accesses are pending for a drain
+		 */
+		boolean record(Node<K, V> node) {
+			long writes = this.writeCount.get();
+			long pending = writes - this.readCount.get();
+			if (pending < READ_BUFFER_SIZE && this.writeCount.compareAndSet(writes, writes + 1)) {
+				this.buffer.lazySet((int) (writes & (READ_BUFFER_SIZE - 1)), node);
+				pending++;
+			}
+			return (pending >= READ_BUFFER_DRAIN_THRESHOLD);
+		}
+
+		/**
+		 * Apply all published accesses; must be called with the eviction lock held.
+		 */
+		void drainTo(Consumer<Node<K, V>> consumer) {
+			long reads = this.readCount.get();
+			long writes = this.writeCount.get();
+			for (; reads < writes; reads++) {
+				int index = (int) (reads & (READ_BUFFER_SIZE - 1));
+				Node<K, V> node = this.buffer.get(index);
+				if (node == null) {
+					// Slot claimed but not published yet: resume on the next drain
+					break;
+				}
+				this.buffer.lazySet(index, null);
+				consumer.accept(node);
+			}
+			this.readCount.lazySet(reads);
+		}
+	}
+
+
+	/**
+	 * Count-min sketch estimating the access frequency of keys within a
+	 * sample window, with 4-bit counters which are halved periodically so
+	 * that the estimate favors recent history.
+	 * Only accessed while holding the eviction lock.
+	 */
+	private static final class FrequencySketch {
+
+		private static final long[] SEEDS = {
+				0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private static final long ONE_MASK = 0x1111111111111111L;
+
+		private final long[] table;
+
+		private final int tableMask;
+
+		private final int sampleSize;
+
+		private int additions;
+
+		FrequencySketch(int sizeLimit) {
+			int maximum = Math.max(Math.min(sizeLimit, 1 << 30), 8);
+			int tableSize = 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(maximum - 1));
+			this.table = new long[sizeLimit > 0 ? tableSize : 0];
+			this.tableMask = tableSize - 1;
+			this.sampleSize = (maximum <= Integer.MAX_VALUE / 10 ? 10 * maximum : Integer.MAX_VALUE);
+		}
+
+		int frequency(Object key) {
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+				frequency = Math.min(frequency, count);
+			}
+			return frequency;
+		}
+
+		void increment(Object key) {
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				added |= incrementAt(indexOf(hash, i), start + i);
+			}
+			if (added && ++this.additions == this.sampleSize) {
+				reset();
+			}
+		}
+
+		private boolean incrementAt(int index, int counter) {
+			int offset = counter << 2;
+			long mask = (0xfL << offset);
+			if ((this.table[index] & mask) != mask) {
+				this.table[index] += (1L << offset);
+				return true;
+			}
+			return false;
+		}
+
+		private void reset() {
+			int oddCounters = 0;
+			for (int i = 0; i < this.table.length; i++) {
+				oddCounters += Long.bitCount(this.table[i] & ONE_MASK);
+				this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+			}
+			this.additions = (this.additions >>> 1) - (oddCounters >>> 2);
+		}
+
+		private int indexOf(int hash, int depth) {
+			long item = (hash + SEEDS[depth]) * SEEDS[depth];
+			item += (item >>> 32);
+			return ((int) item) & this.tableMask;
+		}
+
+		private static int spread(int hash) {
+			hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+			hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+			return (hash >>> 16) ^ hash;
+		}
+	}
+
 }
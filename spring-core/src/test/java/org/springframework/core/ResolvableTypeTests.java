@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -116,6 +116,25 @@ class ResolvableTypeTests {
 		assertThat(type.isAssignableFrom(String.class)).isTrue();
 	}
 
+	@Test
+	void forClassIsCanonical() throws Exception {
+		ResolvableType type = ResolvableType.forClass(ExtendsList.class);
+		assertThat(ResolvableType.forClass(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forType(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forClass(null)).isSameAs(ResolvableType.forClass(Object.class));
+		assertThat(type.as(List.class)).isSameAs(ResolvableType.forClass(ExtendsList.class).as(List.class));
+		assertThat(type.isAssignableFrom(ResolvableType.forClass(ExtendsList.class))).isTrue();
+	}
+
+	@Test
+	void forTypeIsCanonical() throws Exception {
+		Field field = Fields.class.getField("stringList");
+		ResolvableType type = ResolvableType.forType(field.getGenericType());
+		assertThat(ResolvableType.forType(field.getGenericType())).isSameAs(type);
+		assertThat(type.getGeneric().resolve()).isEqualTo(String.class);
+		assertThat(ResolvableType.forField(field).getSource()).isSameAs(field);
+	}
+
 	@Test
 	void forRawClass() throws Exception {
 		ResolvableType type = ResolvableType.forRawClass(ExtendsList.class);
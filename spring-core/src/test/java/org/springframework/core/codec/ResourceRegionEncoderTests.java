@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.core.codec;
 
+import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
@@ -31,6 +34,7 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.FileRegionDataBuffer;
 import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.core.testfixture.io.buffer.AbstractLeakCheckingTests;
 import org.springframework.util.MimeType;
@@ -116,6 +120,35 @@ class ResourceRegionEncoderTests extends AbstractLeakCheckingTests {
 				.verify();
 	}
 
+	@Test
+	void shouldEncodeFileRegionsWithZeroCopyHint() {
+		Resource resource = new ClassPathResource("ResourceRegionEncoderTests.txt", getClass());
+		Flux<ResourceRegion> regions = Flux.just(
+				new ResourceRegion(resource, 0, 6),
+				new ResourceRegion(resource, 7, 9)
+		);
+		String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+		Map<String, Object> hints = new HashMap<>();
+		hints.put(ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary);
+		hints.put(ResourceEncoder.ZERO_COPY_HINT, true);
+
+		Flux<DataBuffer> result = this.encoder.encode(regions, this.bufferFactory,
+				ResolvableType.forClass(ResourceRegion.class), MimeType.valueOf("text/plain"), hints);
+
+		StepVerifier.create(result)
+				.consumeNextWith(stringConsumer("\r\n--" + boundary + "\r\n"))
+				.consumeNextWith(stringConsumer("Content-Type: text/plain\r\n"))
+				.consumeNextWith(stringConsumer("Content-Range: bytes 0-5/39\r\n\r\n"))
+				.consumeNextWith(fileRegionConsumer(resource, 0, "Spring"))
+				.consumeNextWith(stringConsumer("\r\n--" + boundary + "\r\n"))
+				.consumeNextWith(stringConsumer("Content-Type: text/plain\r\n"))
+				.consumeNextWith(stringConsumer("Content-Range: bytes 7-15/39\r\n\r\n"))
+				.consumeNextWith(fileRegionConsumer(resource, 7, "Framework"))
+				.consumeNextWith(stringConsumer("\r\n--" + boundary + "--"))
+				.expectComplete()
+				.verify();
+	}
+
 	@Test // gh-22107
 	void cancelWithoutDemandForMultipleResourceRegions() {
 		Resource resource = new ClassPathResource("ResourceRegionEncoderTests.txt", getClass());
@@ -187,6 +220,22 @@ class ResourceRegionEncoderTests extends AbstractLeakCheckingTests {
 		};
 	}
 
+	private Consumer<DataBuffer> fileRegionConsumer(Resource resource, long position, String expected) {
+		return dataBuffer -> {
+			assertThat(dataBuffer).isInstanceOf(FileRegionDataBuffer.class);
+			FileRegionDataBuffer fileRegion = (FileRegionDataBuffer) dataBuffer;
+			try {
+				assertThat(fileRegion.getFile()).isEqualTo(resource.getFile().toPath());
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+			assertThat(fileRegion.getPosition()).isEqualTo(position);
+			assertThat(fileRegion.getCount()).isEqualTo(expected.length());
+			stringConsumer(expected).accept(dataBuffer);
+		};
+	}
+
 
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
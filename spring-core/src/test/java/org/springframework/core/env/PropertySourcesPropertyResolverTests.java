@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.core.env;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -332,4 +333,53 @@ class PropertySourcesPropertyResolverTests {
 			.withMessageContaining("Could not resolve placeholder 'bogus' in value \"${p1}:${p2}:${bogus}\"");
 	}
 
+	@Test
+	void propertyIndex() {
+		Map<String, Object> env = new HashMap<>();
+		env.put("FOO_BAR", "fromEnv");
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(new MockPropertySource("first").withProperty("p1", "v1"));
+		ps.addLast(new SystemEnvironmentPropertySource("env", env));
+		ps.addLast(new MockPropertySource("last").withProperty("foo.bar", "fromLast"));
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+
+		assertThat(pr.getProperty("foo.bar")).isEqualTo("fromEnv");
+		assertThat(pr.getProperty("p1")).isEqualTo("v1");
+		assertThat(pr.getProperty("bogus")).isNull();
+		assertThat(pr.containsProperty("foo.bar")).isTrue();
+
+		// Index is a snapshot of property source content...
+		env.remove("FOO_BAR");
+		assertThat(pr.getProperty("foo.bar")).isEqualTo("fromEnv");
+		// ... discarded on modification of the property sources
+		ps.remove("first");
+		assertThat(pr.getProperty("foo.bar")).isEqualTo("fromLast");
+		assertThat(pr.getProperty("p1")).isNull();
+
+		env.put("P1", "fromEnv");
+		assertThat(pr.getProperty("p1")).isNull();
+		pr.clearPropertyIndex();
+		assertThat(pr.getProperty("p1")).isEqualTo("fromEnv");
+	}
+
+	@Test
+	void propertyIndexWithNonEnumerablePropertySource() {
+		AtomicInteger counter = new AtomicInteger();
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(new MockPropertySource("first").withProperty("p1", "v1"));
+		ps.addLast(new PropertySource<Object>("dynamic") {
+			@Override
+			public Object getProperty(String name) {
+				return (name.equals("counter") ? counter.incrementAndGet() : null);
+			}
+		});
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+
+		assertThat(pr.getProperty("p1")).isEqualTo("v1");
+		assertThat(pr.getProperty("counter", Integer.class)).isEqualTo(1);
+		assertThat(pr.getProperty("counter", Integer.class)).isEqualTo(2);
+	}
+
 }
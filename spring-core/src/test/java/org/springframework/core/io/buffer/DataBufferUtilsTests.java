@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -261,6 +261,81 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 				.verify(Duration.ofSeconds(3));
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void readFileRegion(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readFileRegion(path, 3, 5, super.bufferFactory);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(buffer -> {
+					assertThat(buffer).isInstanceOf(FileRegionDataBuffer.class);
+					FileRegionDataBuffer fileRegion = (FileRegionDataBuffer) buffer;
+					assertThat(fileRegion.getFile()).isEqualTo(path);
+					assertThat(fileRegion.getPosition()).isEqualTo(3);
+					assertThat(fileRegion.getCount()).isEqualTo(5);
+					assertThat(fileRegion.read()).isEqualTo((byte) 'b');
+					assertThat(fileRegion.getPosition()).isEqualTo(4);
+					assertThat(fileRegion.getCount()).isEqualTo(4);
+					stringConsumer("arba").accept(fileRegion);
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readFileRegionBeyondEndOfFile(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readFileRegion(path, 9, Long.MAX_VALUE, super.bufferFactory);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("qux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMapped(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), 0, super.bufferFactory, 3);
+
+		verifyReadData(flux);
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedPosition(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), 7, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("azq"))
+				.consumeNextWith(stringConsumer("ux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedModifiedFile(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Files.write(this.tempFile, "foo".getBytes(StandardCharsets.UTF_8));
+		StepVerifier.create(DataBufferUtils.readMapped(this.tempFile, 0, super.bufferFactory, 1024))
+				.consumeNextWith(stringConsumer("foo"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+
+		Files.write(this.tempFile, "foobar".getBytes(StandardCharsets.UTF_8));
+		StepVerifier.create(DataBufferUtils.readMapped(this.tempFile, 0, super.bufferFactory, 1024))
+				.consumeNextWith(stringConsumer("foobar"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
 	@ParameterizedDataBufferAllocatingTest
 	void readResourcePositionAndTakeUntil(String displayName, DataBufferFactory bufferFactory) throws Exception {
 		super.bufferFactory = bufferFactory;
@@ -940,6 +1015,32 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 		release(foo);
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void matcherWithLongBuffer(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		String line = "data:abcdefghijklmnopqrstuvwxyz0123456789";
+		DataBuffer buffer = stringBuffer(line + "\r\n" + line + "\n" + line + line + "\n");
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8));
+		int endIndex = matcher.match(buffer);
+		assertThat(endIndex).isEqualTo(line.length() + 1);
+		assertThat(matcher.delimiter()).isEqualTo(new byte[] {'\r', '\n'});
+		buffer.readPosition(endIndex + 1);
+		endIndex = matcher.match(buffer);
+		assertThat(endIndex).isEqualTo(2 * line.length() + 2);
+		assertThat(matcher.delimiter()).isEqualTo(new byte[] {'\n'});
+		buffer.readPosition(endIndex + 1);
+		endIndex = matcher.match(buffer);
+		assertThat(endIndex).isEqualTo(4 * line.length() + 3);
+		buffer.readPosition(endIndex + 1);
+		endIndex = matcher.match(buffer);
+		assertThat(endIndex).isEqualTo(-1);
+
+		release(buffer);
+	}
+
 
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
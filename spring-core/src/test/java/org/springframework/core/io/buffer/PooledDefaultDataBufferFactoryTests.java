@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link PooledDefaultDataBufferFactory}.
+ */
+class PooledDefaultDataBufferFactoryTests {
+
+	private final PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory();
+
+
+	@Test
+	void allocateBufferWithExactCapacity() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.capacity()).isEqualTo(100);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(1);
+
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void releasedMemoryIsReused() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		buffer.write("foo", StandardCharsets.UTF_8);
+		DataBufferUtils.release(buffer);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(128);
+		assertThat(other.readableByteCount()).isEqualTo(0);
+		other.writePosition(3);
+		assertThat(other.toString(StandardCharsets.UTF_8)).isEqualTo("foo");
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	void largeBufferIsNotPooled() {
+		PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory(false, 256, 1000);
+		assertThat(bufferFactory.getMaxPooledCapacity()).isEqualTo(1024);
+
+		DataBuffer buffer = bufferFactory.allocateBuffer(2000);
+		assertThat(buffer.capacity()).isEqualTo(2000);
+		assertThat(bufferFactory.getActiveBufferCount()).isEqualTo(1);
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void capacityIncrease() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo", StandardCharsets.UTF_8);
+
+		buffer.capacity(60);
+		assertThat(buffer.capacity()).isEqualTo(60);
+		buffer.capacity(1000);
+		assertThat(buffer.capacity()).isEqualTo(1000);
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("foo");
+
+		DataBufferUtils.release(buffer);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foobar", StandardCharsets.UTF_8);
+
+		DataBuffer slice = buffer.retainedSlice(3, 3);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThat(((PooledDataBuffer) slice).isAllocated()).isTrue();
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void sliceRemainsIntactAfterCapacityIncrease() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(64);
+		buffer.write("foobar", StandardCharsets.UTF_8);
+		DataBuffer slice = buffer.slice(3, 3);
+
+		// Grow beyond the current chunk, then reuse freshly allocated memory
+		buffer.write(new byte[100]);
+		DataBuffer other = this.bufferFactory.allocateBuffer(64);
+		other.write("bazbaz", StandardCharsets.UTF_8);
+
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+		DataBufferUtils.release(other);
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	void tooManyReleases() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(10);
+		buffer.release();
+		assertThatIllegalStateException().isThrownBy(buffer::release);
+		assertThatIllegalStateException().isThrownBy(buffer::retain);
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void inputStreamReleasesOnClose() throws Exception {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo", StandardCharsets.UTF_8);
+
+		InputStream inputStream = buffer.asInputStream(true);
+		assertThat(inputStream.read()).isEqualTo('f');
+		inputStream.close();
+		inputStream.close();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void joinReleasesBuffers() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo", StandardCharsets.UTF_8);
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar", StandardCharsets.UTF_8);
+
+		DataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(1);
+		DataBufferUtils.release(result);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SpringFactoriesIndex}.
+ */
+class SpringFactoriesIndexTests {
+
+	private static final String FACTORY_TYPE = DummyFactory.class.getName();
+
+	private static final String FACTORY_1 = MyDummyFactory1.class.getName();
+
+	private static final String FACTORY_2 = MyDummyFactory2.class.getName();
+
+
+	@Test
+	void writeAndLoadIndex(@TempDir Path tempDir) throws IOException {
+		Map<String, List<String>> factories = new LinkedHashMap<>();
+		factories.put(FACTORY_TYPE, Arrays.asList(FACTORY_2, FACTORY_1, FACTORY_2));
+		factories.put("java.lang.String", Arrays.asList(FACTORY_1));
+		factories.put("example.\u00dcberFactory", Arrays.asList("example.\u00dcberFactoryImpl"));
+		File indexFile = tempDir.resolve("spring.factories.idx").toFile();
+		try (OutputStream out = Files.newOutputStream(indexFile.toPath())) {
+			SpringFactoriesIndex.writeIndex(factories, out);
+		}
+
+		SpringFactoriesIndex index = SpringFactoriesIndex.load(indexFile.toURI().toURL());
+		assertThat(index).isNotNull();
+		assertThat(index.getFactoryNames(FACTORY_TYPE)).containsExactly(FACTORY_2, FACTORY_1);
+		assertThat(index.getFactoryNames("java.lang.String")).containsExactly(FACTORY_1);
+		assertThat(index.getFactoryNames("example.\u00dcberFactory")).containsExactly("example.\u00dcberFactoryImpl");
+		assertThat(index.getFactoryNames("java.lang.Integer")).isEmpty();
+	}
+
+	@Test
+	void loadIndexInUnsupportedFormat(@TempDir Path tempDir) throws IOException {
+		File indexFile = tempDir.resolve("spring.factories.idx").toFile();
+		Files.write(indexFile.toPath(), "not an index".getBytes(StandardCharsets.UTF_8));
+		assertThat(SpringFactoriesIndex.load(indexFile.toURI().toURL())).isNull();
+	}
+
+	@Test
+	void loaderPrefersIndexOverFactoriesFile(@TempDir Path tempDir) throws IOException {
+		File indexed = createFactories(tempDir, "indexed", FACTORY_2);
+		SpringFactoriesIndex.writeIndex(indexed);
+		// Changed after indexing: only the index is expected to be used
+		createFactories(tempDir, "indexed", "example.Ignored");
+		File plain = createFactories(tempDir, "plain", FACTORY_1 + "," + FACTORY_2);
+
+		URLClassLoader classLoader = new URLClassLoader(
+				new URL[] {indexed.toURI().toURL(), plain.toURI().toURL()}, null);
+		try {
+			assertThat(SpringFactoriesLoader.loadFactoryNames(DummyFactory.class, classLoader))
+					.containsExactly(FACTORY_2, FACTORY_1);
+			assertThat(SpringFactoriesLoader.loadFactoryNames(String.class, classLoader)).isEmpty();
+		}
+		finally {
+			SpringFactoriesLoader.cache.remove(classLoader);
+			classLoader.close();
+		}
+	}
+
+	@Test
+	void loaderIgnoresIndexInUnsupportedFormat(@TempDir Path tempDir) throws IOException {
+		File directory = createFactories(tempDir, "invalid", FACTORY_1);
+		Files.write(new File(directory, SpringFactoriesLoader.FACTORIES_INDEX_RESOURCE_LOCATION).toPath(),
+				"not an index".getBytes(StandardCharsets.UTF_8));
+
+		URLClassLoader classLoader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, null);
+		try {
+			assertThat(SpringFactoriesLoader.loadFactoryNames(DummyFactory.class, classLoader))
+					.containsExactly(FACTORY_1);
+		}
+		finally {
+			SpringFactoriesLoader.cache.remove(classLoader);
+			classLoader.close();
+		}
+	}
+
+
+	private static File createFactories(Path tempDir, String name, String factoryNames) throws IOException {
+		File directory = tempDir.resolve(name).toFile();
+		File factoriesFile = new File(directory, SpringFactoriesLoader.FACTORIES_RESOURCE_LOCATION);
+		factoriesFile.getParentFile().mkdirs();
+		Files.write(factoriesFile.toPath(),
+				(FACTORY_TYPE + "=" + factoryNames).getBytes(StandardCharsets.ISO_8859_1));
+		return directory;
+	}
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CachingMetadataReaderFactory}.
+ */
+class CachingMetadataReaderFactoryTests {
+
+	private static final String ENTRY_NAME = SampleClass.class.getName().replace('.', '/') + ".class";
+
+
+	@Test
+	void metadataFromPersistentCache(@TempDir Path tempDir) throws Exception {
+		File jarFile = createJar(tempDir, "sample.jar", false);
+		File cacheDirectory = tempDir.resolve("cache").toFile();
+		URL url = new URL("jar:" + jarFile.toURI().toURL() + "!/" + ENTRY_NAME);
+		AtomicInteger reads = new AtomicInteger();
+
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		assertSampleMetadata(factory.getMetadataReader(countingResource(url, reads)).getAnnotationMetadata());
+		assertThat(reads.get()).isEqualTo(1);
+		factory.clearCache();
+		assertThat(cacheDirectory.list().length).isEqualTo(1);
+
+		factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		assertSampleMetadata(factory.getMetadataReader(countingResource(url, reads)).getAnnotationMetadata());
+		assertThat(reads.get()).isEqualTo(1);
+
+		// Touched but unchanged jar file: checksum still matches
+		assertThat(jarFile.setLastModified(jarFile.lastModified() - 60000)).isTrue();
+		factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		factory.getMetadataReader(countingResource(url, reads));
+		assertThat(reads.get()).isEqualTo(1);
+	}
+
+	@Test
+	void persistentCacheIgnoredForModifiedJar(@TempDir Path tempDir) throws Exception {
+		File jarFile = createJar(tempDir, "sample.jar", false);
+		File cacheDirectory = tempDir.resolve("cache").toFile();
+		URL url = new URL("jar:" + jarFile.toURI().toURL() + "!/" + ENTRY_NAME);
+		AtomicInteger reads = new AtomicInteger();
+
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		factory.getMetadataReader(countingResource(url, reads));
+		factory.flushPersistentCache();
+
+		File modifiedJarFile = createJar(tempDir, "modified.jar", true);
+		Files.move(modifiedJarFile.toPath(), jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		assertSampleMetadata(factory.getMetadataReader(countingResource(url, reads)).getAnnotationMetadata());
+		assertThat(reads.get()).isEqualTo(2);
+	}
+
+	@Test
+	void persistentCacheIgnoredForAnnotationTypeResolvableLater(@TempDir Path tempDir) throws Exception {
+		File jarFile = createJar(tempDir, "sample.jar", false);
+		File cacheDirectory = tempDir.resolve("cache").toFile();
+		URL url = new URL("jar:" + jarFile.toURI().toURL() + "!/" + ENTRY_NAME);
+		AtomicInteger reads = new AtomicInteger();
+		ClassLoader classLoaderWithoutSample = new ClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				if (name.equals(Sample.class.getName())) {
+					throw new ClassNotFoundException(name);
+				}
+				return super.loadClass(name, resolve);
+			}
+		};
+
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory(classLoaderWithoutSample);
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		AnnotationMetadata metadata = factory.getMetadataReader(countingResource(url, reads)).getAnnotationMetadata();
+		assertThat(metadata.hasAnnotation(Sample.class.getName())).isFalse();
+		factory.clearCache();
+
+		factory = new CachingMetadataReaderFactory(classLoaderWithoutSample);
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		factory.getMetadataReader(countingResource(url, reads));
+		assertThat(reads.get()).isEqualTo(1);
+
+		// Annotation type resolvable now: cached metadata outdated
+		factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		assertSampleMetadata(factory.getMetadataReader(countingResource(url, reads)).getAnnotationMetadata());
+		assertThat(reads.get()).isEqualTo(2);
+		factory.clearCache();
+
+		factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCacheDirectory(cacheDirectory);
+		assertSampleMetadata(factory.getMetadataReader(countingResource(url, reads)).getAnnotationMetadata());
+		assertThat(reads.get()).isEqualTo(2);
+	}
+
+	@Test
+	void pendingEntriesFlushedOnceLimitReached(@TempDir Path tempDir) throws Exception {
+		File jarFile = createJar(tempDir, "sample.jar", false);
+		File cacheDirectory = tempDir.resolve("cache").toFile();
+		Resource resource = new UrlResource(new URL("jar:" + jarFile.toURI().toURL() + "!/" + ENTRY_NAME));
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheDirectory, 1);
+		cache.putMetadataReader(resource, new SimpleMetadataReader(resource, getClass().getClassLoader()));
+		assertThat(cacheDirectory.list()).hasSize(1);
+		assertSampleMetadata(new PersistentMetadataCache(cacheDirectory)
+				.getMetadataReader(resource, getClass().getClassLoader()).getAnnotationMetadata());
+	}
+
+
+	private static File createJar(Path directory, String name, boolean withExtraEntry) throws IOException {
+		File jarFile = directory.resolve(name).toFile();
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+			out.putNextEntry(new JarEntry(ENTRY_NAME));
+			String classFileName = ClassUtils.getClassFileName(SampleClass.class);
+			try (InputStream in = SampleClass.class.getResourceAsStream(classFileName)) {
+				StreamUtils.copy(in, out);
+			}
+			out.closeEntry();
+			if (withExtraEntry) {
+				out.putNextEntry(new JarEntry("extra.txt"));
+				out.closeEntry();
+			}
+		}
+		return jarFile;
+	}
+
+	private static Resource countingResource(URL url, AtomicInteger reads) {
+		return new UrlResource(url) {
+			@Override
+			public InputStream getInputStream() throws IOException {
+				reads.incrementAndGet();
+				return super.getInputStream();
+			}
+		};
+	}
+
+	private static void assertSampleMetadata(AnnotationMetadata metadata) {
+		assertThat(metadata.getClassName()).isEqualTo(SampleClass.class.getName());
+		assertThat(metadata.getEnclosingClassName()).isEqualTo(CachingMetadataReaderFactoryTests.class.getName());
+		assertThat(metadata.isIndependent()).isTrue();
+		assertThat(metadata.getInterfaceNames()).containsExactly(Serializable.class.getName());
+
+		MergedAnnotation<Sample> sample = metadata.getAnnotations().get(Sample.class);
+		assertThat(sample.getString("value")).isEqualTo("sample");
+		assertThat(sample.getClassArray("types")).containsExactly(String.class, Integer.class);
+		assertThat(sample.getEnum("kind", ElementType.class)).isEqualTo(ElementType.METHOD);
+		assertThat(sample.getIntArray("numbers")).containsExactly(1, 2);
+		MergedAnnotation<Nested>[] nested = sample.getAnnotationArray("nested", Nested.class);
+		assertThat(nested.length).isEqualTo(2);
+		assertThat(nested[1].getString("value")).isEqualTo("two");
+
+		Set<MethodMetadata> methods = metadata.getAnnotatedMethods(Sample.class.getName());
+		assertThat(methods).hasSize(1);
+		MethodMetadata method = methods.iterator().next();
+		assertThat(method.getMethodName()).isEqualTo("annotatedMethod");
+		assertThat(method.getReturnTypeName()).isEqualTo(String.class.getName());
+		assertThat(method.getAnnotations().get(Sample.class).getString("value")).isEqualTo("method");
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Sample {
+
+		String value() default "";
+
+		Class<?>[] types() default {};
+
+		ElementType kind() default ElementType.TYPE;
+
+		int[] numbers() default {};
+
+		Nested[] nested() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Nested {
+
+		String value();
+	}
+
+
+	@Sample(value = "sample", types = {String.class, Integer.class}, kind = ElementType.METHOD,
+			numbers = {1, 2}, nested = {@Nested("one"), @Nested("two")})
+	@SuppressWarnings("serial")
+	static class SampleClass implements Serializable {
+
+		@Sample("method")
+		public String annotatedMethod() {
+			return "";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,13 @@
 
 package org.springframework.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -82,4 +89,65 @@ class ConcurrentLruCacheTests {
 		assertThat(this.cache.contains("k3")).isTrue();
 	}
 
+	@Test
+	void hitMissAndEvictionCounts() {
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.get("k2")).isEqualTo("k2value");
+		assertThat(this.cache.hitCount()).isEqualTo(1);
+		assertThat(this.cache.missCount()).isEqualTo(2);
+		assertThat(this.cache.evictionCount()).isEqualTo(0);
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.missCount()).isEqualTo(3);
+		assertThat(this.cache.evictionCount()).isEqualTo(1);
+		assertThat(this.cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	void frequentlyUsedEntriesSurviveScan() {
+		ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(100, key -> key);
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(cache.get(i % 50)).isEqualTo(i % 50);
+			assertThat(cache.get(1000 + i)).isEqualTo(1000 + i);
+		}
+		assertThat(cache.size()).isEqualTo(100);
+		for (int i = 0; i < 50; i++) {
+			assertThat(cache.contains(i)).isTrue();
+		}
+	}
+
+	@Test
+	void noCachingWithZeroSizeLimit() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(0, key -> key + "value");
+		assertThat(cache.get("k1")).isEqualTo("k1value");
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.contains("k1")).isFalse();
+		assertThat(cache.missCount()).isEqualTo(0);
+	}
+
+	@Test
+	void concurrentAccessStaysWithinSizeLimit() throws Exception {
+		ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(32, key -> key);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						int key = ThreadLocalRandom.current().nextInt(100);
+						assertThat(cache.get(key)).isEqualTo(key);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(cache.size()).isEqualTo(32);
+		assertThat(cache.hitCount() + cache.missCount()).isEqualTo(80_000);
+	}
+
 }
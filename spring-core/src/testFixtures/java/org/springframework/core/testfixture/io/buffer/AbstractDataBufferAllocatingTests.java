@@ -46,6 +46,7 @@ import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDefaultDataBufferFactory;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -121,7 +122,11 @@ public abstract class AbstractDataBufferAllocatingTests {
 	}
 
 	private void verifyAllocations() {
-		if (this.bufferFactory instanceof NettyDataBufferFactory) {
+		if (this.bufferFactory instanceof PooledDefaultDataBufferFactory) {
+			long total = ((PooledDefaultDataBufferFactory) this.bufferFactory).getActiveBufferCount();
+			assertThat(total).as("DataBuffer Leak: " + total + " unreleased buffers").isEqualTo(0);
+		}
+		else if (this.bufferFactory instanceof NettyDataBufferFactory) {
 			ByteBufAllocator allocator = ((NettyDataBufferFactory) this.bufferFactory).getByteBufAllocator();
 			if (allocator instanceof PooledByteBufAllocator) {
 				Instant start = Instant.now();
@@ -174,7 +179,11 @@ public abstract class AbstractDataBufferAllocatingTests {
 			arguments("DefaultDataBufferFactory - preferDirect = true",
 					new DefaultDataBufferFactory(true)),
 			arguments("DefaultDataBufferFactory - preferDirect = false",
-					new DefaultDataBufferFactory(false))
+					new DefaultDataBufferFactory(false)),
+			arguments("PooledDefaultDataBufferFactory - preferDirect = true",
+					new PooledDefaultDataBufferFactory(true)),
+			arguments("PooledDefaultDataBufferFactory - preferDirect = false",
+					new PooledDefaultDataBufferFactory(false))
 		);
 	}
 
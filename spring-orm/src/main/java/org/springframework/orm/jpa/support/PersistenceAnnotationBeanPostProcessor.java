@@ -50,6 +50,7 @@ import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.BridgeMethodResolver;
@@ -171,7 +172,8 @@ import org.springframework.util.StringUtils;
 @SuppressWarnings("serial")
 public class PersistenceAnnotationBeanPostProcessor
 		implements InstantiationAwareBeanPostProcessor, DestructionAwareBeanPostProcessor,
-		MergedBeanDefinitionPostProcessor, PriorityOrdered, BeanFactoryAware, Serializable {
+		MergedBeanDefinitionPostProcessor, SelectiveBeanPostProcessor, PriorityOrdered,
+		BeanFactoryAware, Serializable {
 
 	@Nullable
 	private Object jndiEnvironment;
@@ -198,6 +200,8 @@ public class PersistenceAnnotationBeanPostProcessor
 
 	private final Map<Object, EntityManager> extendedEntityManagersToClose = new ConcurrentHashMap<>(16);
 
+	private final boolean overriddenCallbacks = SelectiveBeanPostProcessor.overridesCallbacks(getClass());
+
 
 	/**
 	 * Set the JNDI template to use for JNDI lookups.
@@ -330,6 +334,19 @@ public class PersistenceAnnotationBeanPostProcessor
 	}
 
 
+	/**
+	 * Consider bean classes which may carry {@link PersistenceContext @PersistenceContext}
+	 * or {@link PersistenceUnit @PersistenceUnit} annotations. Destruction callbacks
+	 * are subject to {@link #requiresDestruction} instead.
+	 * @since 5.3.10
+	 * @see AnnotationUtils#isCandidateClass
+	 */
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		return (this.overriddenCallbacks || AnnotationUtils.isCandidateClass(
+				beanClass, Arrays.asList(PersistenceContext.class, PersistenceUnit.class)));
+	}
+
 	@Override
 	public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
 		InjectionMetadata metadata = findPersistenceMetadata(beanName, beanType, null);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,7 @@ package org.springframework.jca.context;
 import javax.resource.spi.BootstrapContext;
 
 import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.SelectiveBeanPostProcessor;
 import org.springframework.lang.Nullable;
 
 /**
@@ -34,7 +34,7 @@ import org.springframework.lang.Nullable;
  * @since 2.5
  * @see BootstrapContextAware
  */
-class BootstrapContextAwareProcessor implements BeanPostProcessor {
+class BootstrapContextAwareProcessor implements SelectiveBeanPostProcessor {
 
 	@Nullable
 	private final BootstrapContext bootstrapContext;
@@ -48,6 +48,11 @@ class BootstrapContextAwareProcessor implements BeanPostProcessor {
 	}
 
 
+	@Override
+	public boolean isCandidateClass(Class<?> beanClass) {
+		return BootstrapContextAware.class.isAssignableFrom(beanClass);
+	}
+
 	@Override
 	public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
 		if (this.bootstrapContext != null && bean instanceof BootstrapContextAware) {
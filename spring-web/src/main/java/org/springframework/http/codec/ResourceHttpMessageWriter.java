@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -249,6 +249,10 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 	private Mono<Void> encodeAndWriteRegions(Publisher<? extends ResourceRegion> publisher,
 			@Nullable MediaType mediaType, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
 
+		if (message instanceof ZeroCopyHttpOutputMessage) {
+			// Let file regions in between multipart boundaries be transferred without copying
+			hints = Hints.merge(hints, ResourceEncoder.ZERO_COPY_HINT, Boolean.TRUE);
+		}
 		Flux<DataBuffer> body = this.regionEncoder.encode(
 				publisher, message.bufferFactory(), REGION_TYPE, mediaType, hints);
 
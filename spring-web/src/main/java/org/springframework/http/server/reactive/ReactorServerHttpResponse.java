@@ -21,17 +21,23 @@ import java.util.List;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.ChannelOperationsId;
+import reactor.netty.Connection;
+import reactor.netty.NettyPipeline;
 import reactor.netty.http.server.HttpServerResponse;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.FileRegionDataBuffer;
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -89,6 +95,17 @@ class ReactorServerHttpResponse extends AbstractServerHttpResponse implements Ze
 
 	@Override
 	protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> publisher) {
+		if (!(publisher instanceof Mono) && isFileRegionSupported()) {
+			return Flux.from(publisher)
+					.switchOnFirst((signal, body) -> {
+						if (signal.get() instanceof FileRegionDataBuffer) {
+							// Transfer FileRegionDataBuffers via sendfile, interleaved with regular buffers
+							return this.response.sendObject(body.map(this::toMessage));
+						}
+						return this.response.send(body.map(ReactorServerHttpResponse::toByteBuf));
+					})
+					.then();
+		}
 		return this.response.send(toByteBufs(publisher)).then();
 	}
 
@@ -117,10 +134,42 @@ class ReactorServerHttpResponse extends AbstractServerHttpResponse implements Ze
 		return doCommit(() -> this.response.sendFile(file, position, count).then());
 	}
 
+	/**
+	 * Whether a Netty {@link io.netty.channel.FileRegion} can be written as is,
+	 * i.e. for plain HTTP/1.x connections without compression.
+	 */
+	private boolean isFileRegionSupported() {
+		if (!(this.response instanceof Connection)) {
+			return false;
+		}
+		ChannelPipeline pipeline = ((Connection) this.response).channel().pipeline();
+		return (pipeline.get(NettyPipeline.HttpCodec) != null && pipeline.get(SslHandler.class) == null &&
+				pipeline.get(NettyPipeline.CompressionHandler) == null);
+	}
+
+	private Object toMessage(DataBuffer buffer) {
+		if (buffer instanceof FileRegionDataBuffer) {
+			FileRegionDataBuffer fileRegion = (FileRegionDataBuffer) buffer;
+			DefaultFileRegion message = new DefaultFileRegion(
+					fileRegion.getFile().toFile(), fileRegion.getPosition(), fileRegion.getCount());
+			DataBufferUtils.release(fileRegion.dataBuffer());
+			return message;
+		}
+		return toByteBuf(buffer);
+	}
+
 	private Publisher<ByteBuf> toByteBufs(Publisher<? extends DataBuffer> dataBuffers) {
 		return dataBuffers instanceof Mono ?
-				Mono.from(dataBuffers).map(NettyDataBufferFactory::toByteBuf) :
-				Flux.from(dataBuffers).map(NettyDataBufferFactory::toByteBuf);
+				Mono.from(dataBuffers).map(ReactorServerHttpResponse::toByteBuf) :
+				Flux.from(dataBuffers).map(ReactorServerHttpResponse::toByteBuf);
+	}
+
+	private static ByteBuf toByteBuf(DataBuffer buffer) {
+		if (buffer instanceof FileRegionDataBuffer) {
+			// Hand over the wrapped buffer, to be released once written
+			buffer = ((FileRegionDataBuffer) buffer).dataBuffer();
+		}
+		return NettyDataBufferFactory.toByteBuf(buffer);
 	}
 
 	@Override
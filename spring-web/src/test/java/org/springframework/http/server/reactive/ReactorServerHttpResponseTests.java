@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpServerCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.netty.Connection;
+import reactor.netty.NettyOutbound;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.server.HttpServerResponse;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.FileRegionDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Unit tests for {@link ReactorServerHttpResponse}.
+ */
+class ReactorServerHttpResponseTests {
+
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+	private final HttpServerResponse nativeResponse =
+			mock(HttpServerResponse.class, withSettings().extraInterfaces(Connection.class));
+
+	private final EmbeddedChannel channel = new EmbeddedChannel();
+
+
+	@BeforeEach
+	void setup() {
+		this.channel.pipeline().addLast(NettyPipeline.HttpCodec, new HttpServerCodec());
+		given(((Connection) this.nativeResponse).channel()).willReturn(this.channel);
+		given(this.nativeResponse.responseHeaders()).willReturn(new DefaultHttpHeaders());
+		given(this.nativeResponse.send(any())).willReturn(mock(NettyOutbound.class));
+		given(this.nativeResponse.sendObject(any(Publisher.class))).willReturn(mock(NettyOutbound.class));
+	}
+
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void writeWithFileRegionFirst(@TempDir Path tempDir) throws Exception {
+		FileRegionDataBuffer fileRegion = readFileRegion(tempDir, "Spring Framework", 7);
+		ReactorServerHttpResponse response = new ReactorServerHttpResponse(this.nativeResponse, this.bufferFactory);
+		response.writeWith(Flux.just(fileRegion, wrap("--boundary"))).subscribe();
+
+		ArgumentCaptor<Publisher<?>> captor = ArgumentCaptor.forClass(Publisher.class);
+		verify(this.nativeResponse).sendObject(captor.capture());
+		verify(this.nativeResponse, never()).send(any());
+
+		List<?> messages = Flux.from(captor.getValue()).collectList().block();
+		assertThat(messages).hasSize(2);
+		assertThat(messages.get(0)).isInstanceOf(DefaultFileRegion.class);
+		DefaultFileRegion message = (DefaultFileRegion) messages.get(0);
+		assertThat(message.position()).isEqualTo(7);
+		assertThat(message.count()).isEqualTo(9);
+		assertThat(((PooledDataBuffer) fileRegion.dataBuffer()).isAllocated()).isFalse();
+		assertThat(messages.get(1)).isInstanceOf(ByteBuf.class);
+		((ByteBuf) messages.get(1)).release();
+		message.release();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void writeWithRegularBufferFirst(@TempDir Path tempDir) throws Exception {
+		FileRegionDataBuffer fileRegion = readFileRegion(tempDir, "Spring Framework", 7);
+		ReactorServerHttpResponse response = new ReactorServerHttpResponse(this.nativeResponse, this.bufferFactory);
+		response.writeWith(Flux.just(wrap("--boundary"), fileRegion)).subscribe();
+
+		ArgumentCaptor<Publisher<ByteBuf>> captor = ArgumentCaptor.forClass(Publisher.class);
+		verify(this.nativeResponse).send(captor.capture());
+		verify(this.nativeResponse, never()).sendObject(any(Publisher.class));
+
+		List<ByteBuf> messages = Flux.from(captor.getValue()).collectList().block();
+		assertThat(messages).hasSize(2);
+		assertThat(messages.get(0).toString(StandardCharsets.UTF_8)).isEqualTo("--boundary");
+		assertThat(messages.get(1).toString(StandardCharsets.UTF_8)).isEqualTo("Framework");
+		messages.forEach(ByteBuf::release);
+	}
+
+
+	private FileRegionDataBuffer readFileRegion(Path tempDir, String content, long position) throws Exception {
+		Path file = Files.write(tempDir.resolve("content.txt"), content.getBytes(StandardCharsets.UTF_8));
+		DataBuffer buffer = DataBufferUtils.readFileRegion(file, position, Long.MAX_VALUE, this.bufferFactory).blockFirst();
+		assertThat(buffer).isInstanceOf(FileRegionDataBuffer.class);
+		return (FileRegionDataBuffer) buffer;
+	}
+
+	private DataBuffer wrap(String content) {
+		return this.bufferFactory.wrap(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}